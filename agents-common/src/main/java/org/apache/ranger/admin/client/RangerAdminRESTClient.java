@@ -71,6 +71,8 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
     private       RangerRESTClient restClient;
     private       boolean          supportsPolicyDeltas;
     private       boolean          supportsTagDeltas;
+    private       boolean          supportsRoleDeltas;
+    private       boolean          supportsUserStoreDeltas;
     private       boolean          isRangerCookieEnabled;
     private       String           rangerAdminCookieName;
     private       Cookie           sessionId;
@@ -103,10 +105,12 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
         int restClientMaxRetryAttempts = config.getInt(propertyPrefix + ".policy.rest.client.max.retry.attempts", 3);
         int restClientRetryIntervalMs  = config.getInt(propertyPrefix + ".policy.rest.client.retry.interval.ms", 1 * 1000);
 
-        supportsPolicyDeltas  = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
-        supportsTagDeltas     = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
-        isRangerCookieEnabled = config.getBoolean(propertyPrefix + ".policy.rest.client.cookie.enabled", RangerCommonConstants.POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED);
-        rangerAdminCookieName = config.get(propertyPrefix + ".policy.rest.client.session.cookie.name", RangerCommonConstants.DEFAULT_COOKIE_NAME);
+        supportsPolicyDeltas    = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
+        supportsTagDeltas       = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
+        supportsRoleDeltas      = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_ROLE_DELTA_DEFAULT);
+        supportsUserStoreDeltas = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA_DEFAULT);
+        isRangerCookieEnabled   = config.getBoolean(propertyPrefix + ".policy.rest.client.cookie.enabled", RangerCommonConstants.POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED);
+        rangerAdminCookieName   = config.get(propertyPrefix + ".policy.rest.client.session.cookie.name", RangerCommonConstants.DEFAULT_COOKIE_NAME);
 
         if (!StringUtil.isEmpty(tmpUrl)) {
             url = tmpUrl.trim();
@@ -220,6 +224,7 @@ public RangerRoles getRolesIfUpdated(final long lastKnownRoleVersion, final long
         queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
         queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
         queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
+        queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS, Boolean.toString(supportsRoleDeltas));
         queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
 
         final ClientResponse response;
@@ -892,6 +897,7 @@ public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, lon
         queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
         queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
         queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
+        queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS, Boolean.toString(supportsUserStoreDeltas));
         queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
 
         final ClientResponse response;
@@ -0,0 +1,553 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of the values of an ip-address condition: addresses, CIDR blocks (10.1.0.0/16, 2001:db8::/32), ranges
+ * (10.1.0.1-10.1.0.99) and trailing wildcards (10.1.*, 2001:db8:*) are stored as prefixes in a binary trie, one per
+ * address family, so that a lookup takes at most one step per bit of the address.
+ *
+ * Values that can't be parsed as above are retained as strings and matched as before. Requests with an ip-address
+ * that can't be parsed, for example a hostname or an address with zone-id, are matched as strings against all values.
+ *
+ * Instances are immutable and are shared by all evaluators with the same values, through compile().
+ */
+final class IpAddressSet {
+    static final int IPV4_ADDRESS_LEN = 4;
+    static final int IPV6_ADDRESS_LEN = 16;
+
+    private static final int MAX_CACHED_SETS = 16 * 1024;
+
+    private static final Map<List<List<String>>, IpAddressSet> IP_ADDRESS_SETS = new ConcurrentHashMap<>();
+
+    private final List<String> exactIps;         // all exact values; used for requests with unparseable ip-address
+    private final List<String> wildCardIps;      // all digested wildcard values; used for requests with unparseable ip-address
+    private final Set<String>  otherExactIps;    // exact values that are not in the tries
+    private final List<String> otherWildCardIps; // wildcard values that are not in the tries
+    private final PrefixTrie   ipv4Trie;
+    private final PrefixTrie   ipv6Trie;
+
+    private IpAddressSet(List<String> exactIps, List<String> wildCardIps) {
+        PrefixTrie.Builder ipv4Builder = new PrefixTrie.Builder(IPV4_ADDRESS_LEN);
+        PrefixTrie.Builder ipv6Builder = new PrefixTrie.Builder(IPV6_ADDRESS_LEN);
+
+        this.exactIps         = exactIps;
+        this.wildCardIps      = wildCardIps;
+        this.otherExactIps    = new HashSet<>();
+        this.otherWildCardIps = new ArrayList<>();
+
+        for (String ip : exactIps) {
+            if (!addExactValue(ip, ipv4Builder, ipv6Builder)) {
+                otherExactIps.add(ip);
+            }
+        }
+
+        for (String ip : wildCardIps) {
+            if (!addWildcardValue(ip, ipv4Builder, ipv6Builder)) {
+                otherWildCardIps.add(ip);
+            }
+        }
+
+        this.ipv4Trie = ipv4Builder.build();
+        this.ipv6Trie = ipv6Builder.build();
+    }
+
+    static IpAddressSet compile(List<String> exactIps, List<String> wildCardIps) {
+        List<List<String>> key = Arrays.asList(Collections.unmodifiableList(new ArrayList<>(exactIps)), Collections.unmodifiableList(new ArrayList<>(wildCardIps)));
+        IpAddressSet       ret = IP_ADDRESS_SETS.get(key);
+
+        if (ret == null) {
+            ret = new IpAddressSet(key.get(0), key.get(1));
+
+            if (IP_ADDRESS_SETS.size() < MAX_CACHED_SETS) {
+                IpAddressSet existing = IP_ADDRESS_SETS.putIfAbsent(key, ret);
+
+                if (existing != null) {
+                    ret = existing;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    boolean isMatch(String requestIp) {
+        byte[] address = parseAddress(requestIp);
+
+        if (address == null) {
+            return isWildcardMatched(wildCardIps, requestIp) || isExactlyMatched(exactIps, requestIp);
+        }
+
+        PrefixTrie trie = address.length == IPV4_ADDRESS_LEN ? ipv4Trie : ipv6Trie;
+
+        return trie.contains(address) || isWildcardMatched(otherWildCardIps, requestIp) || isExactlyMatched(otherExactIps, requestIp);
+    }
+
+    int getCompiledCount() {
+        return ipv4Trie.getPrefixCount() + ipv6Trie.getPrefixCount();
+    }
+
+    @Override
+    public String toString() {
+        return "IpAddressSet={exactIps=" + exactIps + ", wildCardIps=" + wildCardIps + ", compiledCount=" + getCompiledCount() + "}";
+    }
+
+    // same as RangerIpMatcher.isWildcardMatched()
+    static boolean isWildcardMatched(List<String> ips, String requestIp) {
+        if (!ips.isEmpty()) {
+            String ip6 = requestIp.toLowerCase();
+
+            for (String ip : ips) {
+                if (requestIp.startsWith(ip) || ip6.startsWith(ip)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // same as RangerIpMatcher.isExactlyMatched()
+    static boolean isExactlyMatched(Iterable<String> ips, String requestIp) {
+        String ip = requestIp.contains(".") ? requestIp : requestIp.toLowerCase();
+
+        if (ips instanceof Set) {
+            return ((Set<?>) ips).contains(ip);
+        }
+
+        for (String value : ips) {
+            if (value.equals(ip)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses an IPv4 address in dotted-decimal form, or an IPv6 address in any of the forms in RFC 4291 section 2.2,
+     * without ever resolving a name.
+     *
+     * @param str the address
+     * @return address bytes, 4 for IPv4 and 16 for IPv6; null if str isn't an ip-address literal
+     */
+    static byte[] parseAddress(String str) {
+        if (str == null || str.isEmpty()) {
+            return null;
+        }
+
+        return str.indexOf(':') == -1 ? parseIpv4(str, 0, str.length()) : parseIpv6(str);
+    }
+
+    private boolean addExactValue(String value, PrefixTrie.Builder ipv4Builder, PrefixTrie.Builder ipv6Builder) {
+        int sepIdx = value.indexOf('/');
+
+        if (sepIdx != -1) { // CIDR: address/prefix-length
+            byte[] address   = parseAddress(value.substring(0, sepIdx));
+            int    prefixLen = parsePrefixLength(value.substring(sepIdx + 1), address);
+
+            if (prefixLen == -1) {
+                return false;
+            }
+
+            getBuilder(address, ipv4Builder, ipv6Builder).add(address, prefixLen);
+
+            return true;
+        }
+
+        sepIdx = value.indexOf('-');
+
+        if (sepIdx != -1) { // range: from-address-to-address
+            byte[] from = parseAddress(value.substring(0, sepIdx).trim());
+            byte[] to   = parseAddress(value.substring(sepIdx + 1).trim());
+
+            if (from == null || to == null || from.length != to.length) {
+                return false;
+            }
+
+            BigInteger start = new BigInteger(1, from);
+            BigInteger end   = new BigInteger(1, to);
+
+            if (start.compareTo(end) > 0) {
+                return false;
+            }
+
+            addRange(start, end, getBuilder(from, ipv4Builder, ipv6Builder));
+
+            return true;
+        }
+
+        byte[] address = parseAddress(value);
+
+        if (address == null) {
+            return false;
+        }
+
+        getBuilder(address, ipv4Builder, ipv6Builder).add(address, address.length * Byte.SIZE);
+
+        return true;
+    }
+
+    // digested wildcard values end with the separator, like 10.1. and 2001:db8:
+    private boolean addWildcardValue(String value, PrefixTrie.Builder ipv4Builder, PrefixTrie.Builder ipv6Builder) {
+        boolean isIpv4 = value.endsWith(".");
+
+        if (!isIpv4 && !value.endsWith(":")) {
+            return false;
+        }
+
+        String[] parts      = value.substring(0, value.length() - 1).split(isIpv4 ? "\\." : ":", -1);
+        int      bitsInPart = isIpv4 ? Byte.SIZE : Short.SIZE;
+        int      maxParts   = isIpv4 ? IPV4_ADDRESS_LEN - 1 : (IPV6_ADDRESS_LEN / 2) - 1;
+
+        if (parts.length > maxParts) {
+            return false;
+        }
+
+        byte[] address = new byte[isIpv4 ? IPV4_ADDRESS_LEN : IPV6_ADDRESS_LEN];
+
+        for (int i = 0; i < parts.length; i++) {
+            int part = isIpv4 ? parseDecimalOctet(parts[i], 0, parts[i].length()) : parseHexGroup(parts[i], 0, parts[i].length());
+
+            if (part == -1) {
+                return false;
+            }
+
+            if (isIpv4) {
+                address[i] = (byte) part;
+            } else {
+                address[i * 2]     = (byte) (part >>> Byte.SIZE);
+                address[i * 2 + 1] = (byte) part;
+            }
+        }
+
+        (isIpv4 ? ipv4Builder : ipv6Builder).add(address, parts.length * bitsInPart);
+
+        return true;
+    }
+
+    // splits the range into the fewest CIDR blocks that cover it
+    private static void addRange(BigInteger start, BigInteger end, PrefixTrie.Builder builder) {
+        final int addressBits = builder.addressLen * Byte.SIZE;
+
+        while (start.compareTo(end) <= 0) {
+            int blockBits = start.signum() == 0 ? addressBits : Math.min(start.getLowestSetBit(), addressBits);
+
+            while (blockBits > 0 && start.add(BigInteger.ONE.shiftLeft(blockBits)).subtract(BigInteger.ONE).compareTo(end) > 0) {
+                blockBits--;
+            }
+
+            builder.add(toBytes(start, builder.addressLen), addressBits - blockBits);
+
+            start = start.add(BigInteger.ONE.shiftLeft(blockBits));
+        }
+    }
+
+    private static byte[] toBytes(BigInteger value, int len) {
+        byte[] bytes = value.toByteArray(); // big-endian, might have a leading sign byte or fewer bytes than len
+        byte[] ret   = new byte[len];
+        int    count = Math.min(bytes.length, len);
+
+        System.arraycopy(bytes, bytes.length - count, ret, len - count, count);
+
+        return ret;
+    }
+
+    private static PrefixTrie.Builder getBuilder(byte[] address, PrefixTrie.Builder ipv4Builder, PrefixTrie.Builder ipv6Builder) {
+        return address.length == IPV4_ADDRESS_LEN ? ipv4Builder : ipv6Builder;
+    }
+
+    private static int parsePrefixLength(String str, byte[] address) {
+        if (address == null || str.isEmpty() || str.length() > 3) {
+            return -1;
+        }
+
+        int ret = 0;
+
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            ret = ret * 10 + (c - '0');
+        }
+
+        return ret <= address.length * Byte.SIZE ? ret : -1;
+    }
+
+    private static byte[] parseIpv4(String str, int start, int end) {
+        byte[] ret      = new byte[IPV4_ADDRESS_LEN];
+        int    octetIdx = 0;
+        int    partIdx  = start;
+
+        for (int i = start; i <= end; i++) {
+            if (i == end || str.charAt(i) == '.') {
+                if (octetIdx == IPV4_ADDRESS_LEN) {
+                    return null;
+                }
+
+                int octet = parseDecimalOctet(str, partIdx, i);
+
+                if (octet == -1) {
+                    return null;
+                }
+
+                ret[octetIdx++] = (byte) octet;
+                partIdx         = i + 1;
+            }
+        }
+
+        return octetIdx == IPV4_ADDRESS_LEN ? ret : null;
+    }
+
+    private static byte[] parseIpv6(String str) {
+        byte[] ret     = new byte[IPV6_ADDRESS_LEN];
+        int    len     = str.length();
+        int    byteIdx = 0;
+        int    gapIdx  = -1; // position of '::' in ret
+        int    idx     = 0;
+
+        if (str.startsWith("::")) {
+            gapIdx = 0;
+            idx    = 2;
+
+            if (idx == len) {
+                return ret;
+            }
+        } else if (str.charAt(0) == ':') {
+            return null;
+        }
+
+        while (idx < len) {
+            int partEnd = idx;
+
+            while (partEnd < len && str.charAt(partEnd) != ':') {
+                partEnd++;
+            }
+
+            if (partEnd == len && str.indexOf('.', idx) != -1) { // trailing dotted-decimal IPv4 address
+                byte[] ipv4 = parseIpv4(str, idx, len);
+
+                if (ipv4 == null || byteIdx + IPV4_ADDRESS_LEN > IPV6_ADDRESS_LEN) {
+                    return null;
+                }
+
+                System.arraycopy(ipv4, 0, ret, byteIdx, IPV4_ADDRESS_LEN);
+
+                byteIdx += IPV4_ADDRESS_LEN;
+                idx      = len;
+
+                break;
+            }
+
+            int group = parseHexGroup(str, idx, partEnd);
+
+            if (group == -1 || byteIdx + 2 > IPV6_ADDRESS_LEN) {
+                return null;
+            }
+
+            ret[byteIdx++] = (byte) (group >>> Byte.SIZE);
+            ret[byteIdx++] = (byte) group;
+
+            if (partEnd == len) {
+                idx = len;
+            } else if (partEnd + 1 < len && str.charAt(partEnd + 1) == ':') { // '::'
+                if (gapIdx != -1) {
+                    return null;
+                }
+
+                gapIdx = byteIdx;
+                idx    = partEnd + 2;
+            } else if (partEnd + 1 == len) { // trailing single ':'
+                return null;
+            } else {
+                idx = partEnd + 1;
+            }
+        }
+
+        if (gapIdx == -1) {
+            return byteIdx == IPV6_ADDRESS_LEN ? ret : null;
+        } else if (byteIdx == IPV6_ADDRESS_LEN) { // '::' must stand for at least one group
+            return null;
+        }
+
+        int shift = IPV6_ADDRESS_LEN - byteIdx;
+
+        System.arraycopy(ret, gapIdx, ret, gapIdx + shift, byteIdx - gapIdx);
+        Arrays.fill(ret, gapIdx, gapIdx + shift, (byte) 0);
+
+        return ret;
+    }
+
+    // decimal 0-255, without leading zeros
+    private static int parseDecimalOctet(String str, int start, int end) {
+        int len = end - start;
+
+        if (len < 1 || len > 3 || (len > 1 && str.charAt(start) == '0')) {
+            return -1;
+        }
+
+        int ret = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            ret = ret * 10 + (c - '0');
+        }
+
+        return ret <= 255 ? ret : -1;
+    }
+
+    // 1-4 hex digits
+    private static int parseHexGroup(String str, int start, int end) {
+        int len = end - start;
+
+        if (len < 1 || len > 4) {
+            return -1;
+        }
+
+        int ret = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(str.charAt(i), 16);
+
+            if (digit == -1) {
+                return -1;
+            }
+
+            ret = (ret << 4) | digit;
+        }
+
+        return ret;
+    }
+
+    /*
+     * Binary trie of address prefixes, in flat arrays: children of node n are at 2n (bit 0) and 2n+1 (bit 1).
+     * A lookup walks the bits of the address from the most significant one, until a node that ends a prefix is reached.
+     */
+    static final class PrefixTrie {
+        private static final int NO_NODE = 0; // root is node 0, and is never a child
+
+        private final int[]     children;
+        private final boolean[] isPrefixEnd;
+        private final int       prefixCount;
+
+        private PrefixTrie(int[] children, boolean[] isPrefixEnd, int prefixCount) {
+            this.children    = children;
+            this.isPrefixEnd = isPrefixEnd;
+            this.prefixCount = prefixCount;
+        }
+
+        boolean contains(byte[] address) {
+            int node      = 0;
+            int totalBits = address.length * Byte.SIZE;
+
+            for (int i = 0; ; i++) {
+                if (isPrefixEnd[node]) {
+                    return true;
+                } else if (i == totalBits) {
+                    return false;
+                }
+
+                node = children[(node << 1) | getBit(address, i)];
+
+                if (node == NO_NODE) {
+                    return false;
+                }
+            }
+        }
+
+        int getPrefixCount() {
+            return prefixCount;
+        }
+
+        static int getBit(byte[] address, int bitIdx) {
+            return (address[bitIdx >>> 3] >>> (7 - (bitIdx & 7))) & 1;
+        }
+
+        static final class Builder {
+            final int addressLen;
+
+            private int[]     children    = new int[2];
+            private boolean[] isPrefixEnd = new boolean[1];
+            private int       nodeCount   = 1;
+            private int       prefixCount;
+
+            Builder(int addressLen) {
+                this.addressLen = addressLen;
+            }
+
+            void add(byte[] address, int prefixLen) {
+                int node = 0;
+
+                for (int i = 0; i < prefixLen; i++) {
+                    if (isPrefixEnd[node]) { // a shorter prefix already covers this one
+                        return;
+                    }
+
+                    int childIdx = (node << 1) | getBit(address, i);
+
+                    if (children[childIdx] == NO_NODE) {
+                        int child = newNode(); // might reallocate children
+
+                        children[childIdx] = child;
+                    }
+
+                    node = children[childIdx];
+                }
+
+                if (!isPrefixEnd[node]) {
+                    isPrefixEnd[node] = true;
+
+                    prefixCount++;
+                }
+            }
+
+            PrefixTrie build() {
+                return new PrefixTrie(Arrays.copyOf(children, nodeCount * 2), Arrays.copyOf(isPrefixEnd, nodeCount), prefixCount);
+            }
+
+            private int newNode() {
+                if (nodeCount == isPrefixEnd.length) {
+                    isPrefixEnd = Arrays.copyOf(isPrefixEnd, nodeCount * 2);
+                    children    = Arrays.copyOf(children, nodeCount * 4);
+                }
+
+                return nodeCount++;
+            }
+        }
+    }
+}
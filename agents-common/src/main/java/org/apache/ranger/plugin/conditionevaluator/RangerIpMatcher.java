@@ -33,6 +33,9 @@
 /**
  * Credits: Large parts of this file have been lifted as is from org.apache.ranger.pdp.knox.URLBasedAuthDB.  Credits for those are due to Dilli Arumugam.
  *
+ * Besides addresses and trailing wildcards (10.1.*), values can be CIDR blocks (10.1.0.0/16) or ranges (10.1.0.1-10.1.0.99);
+ * values are compiled once into an IpAddressSet, which is shared by evaluators having the same values.
+ *
  * @author alal
  */
 public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
@@ -45,6 +48,7 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
     private final List<String> exactIps    = new ArrayList<>();
     private final List<String> wildCardIps = new ArrayList<>();
     private       boolean      allowAny;
+    private       IpAddressSet ipAddressSet;
 
     @Override
     public void init() {
@@ -79,6 +83,10 @@ public void init() {
                     wildCardIps.add(digestedIp);
                 }
             }
+
+            if (!allowAny) {
+                ipAddressSet = IpAddressSet.compile(exactIps, wildCardIps);
+            }
         }
 
         LOG.debug("<== RangerIpMatcher.init({}): exact-ips[{}], wildcard-ips[{}]", condition, exactIps, wildCardIps);
@@ -98,7 +106,7 @@ public boolean isMatched(final RangerAccessRequest request) {
             if (requestIp == null) {
                 LOG.debug("isMatched: couldn't get ip address from request.  Ok.  Implicitly matched!");
             } else {
-                ipMatched = isWildcardMatched(wildCardIps, requestIp) || isExactlyMatched(exactIps, requestIp);
+                ipMatched = ipAddressSet.isMatch(requestIp);
             }
         }
 
@@ -23,6 +23,8 @@
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 
+import java.util.Collection;
+
 public interface RangerContextEnricher {
     void setEnricherDef(RangerContextEnricherDef enricherDef);
 
@@ -38,6 +40,12 @@ public interface RangerContextEnricher {
 
     void enrich(RangerAccessRequest request, Object dataStore);
 
+    default void enrich(Collection<RangerAccessRequest> requests) {
+        for (RangerAccessRequest request : requests) {
+            enrich(request);
+        }
+    }
+
     boolean preCleanup();
 
     void cleanup();
@@ -36,6 +36,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
 import org.apache.ranger.plugin.policyresourcematcher.RangerDefaultPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
@@ -70,6 +71,7 @@
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
@@ -84,7 +86,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 
     private final BlockingQueue<DownloadTrigger> tagDownloadQueue = new LinkedBlockingQueue<>();
     private final RangerReadWriteLock            lock             = new RangerReadWriteLock(false);
-    private final CachedResourceEvaluators       cache            = new CachedResourceEvaluators();
+    private       CachedResourceEvaluators       cache            = new CachedResourceEvaluators();
     private       RangerTagRefresher             tagRefresher;
     private       RangerTagRetriever             tagRetriever;
     private       boolean                        disableTrieLookupPrefilter;
@@ -154,6 +156,8 @@ public void init() {
         dedupStrings               = getBooleanConfig(propertyPrefix + ".dedup.strings", true);
         disableTrieLookupPrefilter = getBooleanOption(TAG_DISABLE_TRIE_PREFILTER_OPTION, false);
         serviceDefHelper           = new RangerServiceDefHelper(serviceDef, false);
+        cache                      = new CachedResourceEvaluators(getIntConfig(propertyPrefix + ".tag.enricher.evaluators.cache.max.entries", CachedResourceEvaluators.DEFAULT_MAX_ENTRIES),
+                                                                  getIntConfig(propertyPrefix + ".tag.enricher.evaluators.cache.max.weight", CachedResourceEvaluators.DEFAULT_MAX_WEIGHT));
 
         if (StringUtils.isNotBlank(tagRetrieverClassName)) {
             try {
@@ -247,7 +251,7 @@ public void enrich(RangerAccessRequest request, Object dataStore) {
                 }
             }
 
-            matchedTags = enrichedServiceTags == null ? null : findMatchingTags(request, enrichedServiceTags);
+            matchedTags = enrichedServiceTags == null ? null : findMatchingTags(request, enrichedServiceTags, null);
 
             RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), matchedTags);
         }
@@ -255,6 +259,32 @@ public void enrich(RangerAccessRequest request, Object dataStore) {
         LOG.debug("<== RangerTagEnricher.enrich({}) with dataStore:[{}]): tags count={}", request, dataStore, (matchedTags == null ? 0 : matchedTags.size()));
     }
 
+    /*
+     * Trie look-ups for elements common to multiple requests, like database and table in requests for columns of a
+     * table, are done only once for the batch.
+     */
+    @Override
+    public void enrich(Collection<RangerAccessRequest> requests) {
+        LOG.debug("==> RangerTagEnricher.enrich(requestCount={})", requests.size());
+
+        try (RangerReadWriteLock.RangerLock readLock = this.lock.getReadLock()) {
+            if (readLock.isLockingEnabled()) {
+                LOG.debug("Acquired lock - {}", readLock);
+            }
+
+            final EnrichedServiceTags                                  enrichedServiceTags = this.enrichedServiceTags;
+            final Map<List<Object>, Set<RangerServiceResourceMatcher>> parentEvaluators    = new HashMap<>();
+
+            for (RangerAccessRequest request : requests) {
+                Set<RangerTagForEval> matchedTags = enrichedServiceTags == null ? null : findMatchingTags(request, enrichedServiceTags, parentEvaluators);
+
+                RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), matchedTags);
+            }
+        }
+
+        LOG.debug("<== RangerTagEnricher.enrich(requestCount={})", requests.size());
+    }
+
     /*
      * This class implements a cache of result of look-up of keyset of policy-resources for each of the collections of hierarchies
      * for policy types: access, datamask and rowfilter. If a keyset is examined for validity in a hierarchy of a policy-type,
@@ -327,8 +357,9 @@ public EnrichedServiceTags getEnrichedServiceTags() {
     protected void setServiceTags(final ServiceTags serviceTags, final boolean rebuildOnlyIndex) {
         LOG.debug("==> RangerTagEnricher.setServiceTags(serviceTags={}, rebuildOnlyIndex={})", serviceTags, rebuildOnlyIndex);
 
-        final EnrichedServiceTags localEnrichedServiceTags;
-        final Set<String>         keysToRemoveFromCache = new HashSet<>();
+        final EnrichedServiceTags               localEnrichedServiceTags;
+        final Set<String>                       keysToRemoveFromCache     = new HashSet<>();
+        final Set<RangerServiceResourceMatcher> matchersToRemoveFromCache = new HashSet<>();
 
         try (RangerReadWriteLock.RangerLock writeLock = this.lock.getWriteLock()) {
             if (writeLock.isLockingEnabled()) {
@@ -378,7 +409,7 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
                                 trieMap = writeLock.isLockingEnabled() ? enrichedServiceTags.getServiceResourceTrie() : copyServiceResourceTrie();
                             }
 
-                            localEnrichedServiceTags = processServiceTagDeltas(serviceTags, allServiceTags, trieMap, keysToRemoveFromCache);
+                            localEnrichedServiceTags = processServiceTagDeltas(serviceTags, allServiceTags, trieMap, keysToRemoveFromCache, matchersToRemoveFromCache);
                         } else {
                             LOG.debug("Delta contains only tag attribute changes");
 
@@ -396,9 +427,10 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
 
                 if (serviceTags != null) {
                     if (serviceTags.getIsDelta()) {
-                        cache.removeCacheEvaluators(keysToRemoveFromCache);
+                        cache.removeCacheEvaluators(keysToRemoveFromCache, matchersToRemoveFromCache);
 
                         keysToRemoveFromCache.clear();
+                        matchersToRemoveFromCache.clear();
                     } else {
                         cache.clearCache();
                     }
@@ -413,6 +445,39 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
         LOG.debug("<== RangerTagEnricher.setServiceTags(serviceTags={}, rebuildOnlyIndex={})", serviceTags, rebuildOnlyIndex);
     }
 
+    /*
+     * Installs tags index built by another enricher of the same service. Such an index is shared, hence must not be
+     * updated in place; subsequent deltas are applied to a copy of its tries, which requires locking to be disabled.
+     */
+    protected void setEnrichedServiceTags(final EnrichedServiceTags enrichedServiceTags) {
+        LOG.debug("==> RangerTagEnricher.setEnrichedServiceTags(version={})", enrichedServiceTags != null ? enrichedServiceTags.getResourceTrieVersion() : null);
+
+        try (RangerReadWriteLock.RangerLock writeLock = this.lock.getWriteLock()) {
+            if (writeLock.isLockingEnabled()) {
+                LOG.debug("Acquired lock - {}", writeLock);
+            }
+
+            synchronized (RangerTagEnricher.class) {
+                this.enrichedServiceTags = enrichedServiceTags;
+
+                cache.clearCache();
+
+                setEnrichedServiceTagsInPlugin();
+            }
+        }
+
+        LOG.debug("<== RangerTagEnricher.setEnrichedServiceTags(version={})", enrichedServiceTags != null ? enrichedServiceTags.getResourceTrieVersion() : null);
+    }
+
+    /*
+     * Enrichers with the same key build identical tags index from the same service-tags
+     */
+    protected String getServiceTagsIndexKey() {
+        RangerPolicyEngineOptions options = getPolicyEngineOptions();
+
+        return serviceDef.getName() + "_" + serviceDef.getVersion() + "_" + disableTrieLookupPrefilter + "_" + options.optimizeTagTrieForRetrieval + "_" + options.optimizeTagTrieForSpace;
+    }
+
     protected Long getResourceTrieVersion() {
         EnrichedServiceTags localEnrichedServiceTags = enrichedServiceTags;
 
@@ -474,7 +539,7 @@ private EnrichedServiceTags processServiceTags(ServiceTags serviceTags) {
         return ret;
     }
 
-    private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<String> keysToRemoveFromCache) {
+    private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<String> keysToRemoveFromCache, Set<RangerServiceResourceMatcher> matchersToRemoveFromCache) {
         LOG.debug("Delta contains changes other than tag attribute changes, [{}]", deltas.getTagsChangeExtent());
 
         boolean                            isInError        = false;
@@ -488,7 +553,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
         List<RangerServiceResource> changedServiceResources = deltas.getServiceResources();
 
         for (RangerServiceResource serviceResource : changedServiceResources) {
-            final RangerAccessResource removedAccessResource = MapUtils.isEmpty(serviceResource.getResourceElements()) ? null : removeOldServiceResource(serviceResource, resourceMatchers, serviceResourceTrie);
+            final RangerAccessResource removedAccessResource = MapUtils.isEmpty(serviceResource.getResourceElements()) ? null : removeOldServiceResource(serviceResource, resourceMatchers, serviceResourceTrie, matchersToRemoveFromCache);
 
             if (removedAccessResource != null) {
                 if (!StringUtils.isEmpty(serviceResource.getResourceSignature())) {
@@ -516,6 +581,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
                         }
 
                         resourceMatchers.add(resourceMatcher);
+                        matchersToRemoveFromCache.add(resourceMatcher);
                     } else {
                         LOG.error("Could not create resource-matcher for resource: [{}]. Should NOT happen!!", serviceResource);
                         LOG.error("Setting tagVersion to -1 to ensure that in the next download all tags are downloaded");
@@ -543,6 +609,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
 
             deltas.setTagVersion(-1L);
             keysToRemoveFromCache.clear();
+            matchersToRemoveFromCache.clear();
 
             ret = enrichedServiceTags;
         } else {
@@ -556,7 +623,7 @@ private EnrichedServiceTags processServiceTagDeltas(ServiceTags deltas, ServiceT
         return ret;
     }
 
-    private RangerAccessResource removeOldServiceResource(RangerServiceResource serviceResource, List<RangerServiceResourceMatcher> resourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> resourceTries) {
+    private RangerAccessResource removeOldServiceResource(RangerServiceResource serviceResource, List<RangerServiceResourceMatcher> resourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> resourceTries, Set<RangerServiceResourceMatcher> removedMatchers) {
         final RangerAccessResource ret;
         boolean                    result = true;
 
@@ -619,6 +686,7 @@ private RangerAccessResource removeOldServiceResource(RangerServiceResource serv
 
             if (result) {
                 resourceMatchers.removeAll(oldMatchers);
+                removedMatchers.addAll(oldMatchers);
 
                 LOG.debug("Found and removed [{}] matchers for service-resource[{}] from trie-map", oldMatchers, serviceResource);
 
@@ -647,7 +715,7 @@ private void setEnrichedServiceTagsInPlugin() {
         LOG.debug("<== setEnrichedServiceTagsInPlugin()");
     }
 
-    private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request, EnrichedServiceTags dataStore) {
+    private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request, EnrichedServiceTags dataStore, Map<List<Object>, Set<RangerServiceResourceMatcher>> parentEvaluators) {
         LOG.debug("==> RangerTagEnricher.findMatchingTags({})", request);
 
         // To minimize chance for race condition between Tag-Refresher thread and access-evaluation thread
@@ -664,7 +732,7 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
         if ((resource == null || resource.getKeys() == null || resource.getKeys().isEmpty()) && request.isAccessTypeAny()) {
             ret = enrichedServiceTags.getTagsForEmptyResourceAndAnyAccess();
         } else {
-            final Collection<RangerServiceResourceMatcher> serviceResourceMatchers = CachedResourceEvaluators.getEvaluators(request, enrichedServiceTags.getServiceResourceTrie(), cache);
+            final Collection<RangerServiceResourceMatcher> serviceResourceMatchers = CachedResourceEvaluators.getEvaluators(request, enrichedServiceTags.getServiceResourceTrie(), cache, parentEvaluators);
 
             if (CollectionUtils.isNotEmpty(serviceResourceMatchers)) {
                 for (RangerServiceResourceMatcher resourceMatcher : serviceResourceMatchers) {
@@ -685,7 +753,8 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
                         if (ret == null) {
                             ret = new HashSet<>();
                         }
-                        ret.addAll(getTagsForServiceResource(request.getAccessTime(), enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
+
+                        addTagsForServiceResource(ret, request.getAccessTime(), enrichedServiceTags, resourceMatcher.getServiceResource(), matchType);
                     }
                 }
             }
@@ -704,9 +773,8 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
         return ret;
     }
 
-    private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime, final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
-        Set<RangerTagForEval> ret = new HashSet<>();
-
+    private static void addTagsForServiceResource(Set<RangerTagForEval> ret, Date accessTime, final EnrichedServiceTags enrichedServiceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
+        final ServiceTags           serviceTags      = enrichedServiceTags.getServiceTags();
         final Long                  resourceId       = serviceResource.getId();
         final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
         final Map<Long, RangerTag>  tags             = serviceTags.getTags();
@@ -723,7 +791,7 @@ private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime,
                     RangerTag tag = tags.get(tagId);
 
                     if (tag != null) {
-                        RangerTagForEval tagForEval = new RangerTagForEval(tag, matchType);
+                        RangerTagForEval tagForEval = enrichedServiceTags.getTagForEval(tagId, tag, matchType);
 
                         if (tagForEval.isApplicable(accessTime)) {
                             ret.add(tagForEval);
@@ -736,8 +804,6 @@ private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime,
         } else {
             LOG.debug("resourceId is null or resourceToTagTds mapping is null or tags mapping is null!");
         }
-
-        return ret;
     }
 
     private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> copyServiceResourceTrie() {
@@ -790,11 +856,14 @@ void addHierarchy(int policyType, Collection<String> resourceKeys, Boolean isVal
     }
 
     public static final class EnrichedServiceTags {
+        private static final int MATCH_TYPES_COUNT = RangerPolicyResourceMatcher.MatchType.values().length;
+
         private final ServiceTags                                                   serviceTags;
         private final List<RangerServiceResourceMatcher>                            serviceResourceMatchers;
         private final Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie;
         private final Set<RangerTagForEval>                                         tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
         private final Long                                                          resourceTrieVersion;
+        private final Map<Long, RangerTagForEval>                                   tagsForEval = new ConcurrentHashMap<>(); // interned instances, keyed by tag-id and match-type
 
         EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
             this.serviceTags                      = serviceTags;
@@ -824,11 +893,31 @@ public Set<RangerTagForEval> getTagsForEmptyResourceAndAnyAccess() {
             return tagsForEmptyResourceAndAnyAccess;
         }
 
+        /*
+         * RangerTagForEval instances are immutable, hence are shared by all requests evaluated with this instance
+         */
+        RangerTagForEval getTagForEval(Long tagId, RangerTag tag, RangerPolicyResourceMatcher.MatchType matchType) {
+            Long             key = tagId * MATCH_TYPES_COUNT + matchType.ordinal();
+            RangerTagForEval ret = tagsForEval.get(key);
+
+            if (ret == null) {
+                ret = new RangerTagForEval(tag, matchType);
+
+                RangerTagForEval existing = tagsForEval.putIfAbsent(key, ret);
+
+                if (existing != null) {
+                    ret = existing;
+                }
+            }
+
+            return ret;
+        }
+
         private Set<RangerTagForEval> createTagsForEmptyResourceAndAnyAccess() {
             Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
 
             for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-                tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+                tagsForEmptyResourceAndAnyAccess.add(getTagForEval(entry.getKey(), entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
             }
 
             return tagsForEmptyResourceAndAnyAccess;
@@ -31,6 +31,7 @@
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -119,6 +120,10 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
             try {
                 rangerUserStore = userStoreRetriever.retrieveUserStoreInfo(lastKnownVersion, lastActivationTimeInMillis);
 
+                if (rangerUserStore != null && rangerUserStore.getIsDelta()) {
+                    rangerUserStore = applyUserStoreDeltas(userStoreEnricher.getRangerUserStore(), rangerUserStore);
+                }
+
                 if (rangerUserStore == null) {
                     if (!hasProvidedUserStoreToReceiver) {
                         rangerUserStore = loadFromCache();
@@ -196,6 +201,23 @@ public RangerUserStore populateUserStoreInfo() throws InterruptedException {
         return rangerUserStore;
     }
 
+    private RangerUserStore applyUserStoreDeltas(RangerUserStore currentUserStore, RangerUserStore deltas) {
+        final RangerUserStore ret;
+
+        if (currentUserStore != null && currentUserStore.getUserStoreVersion() != null && currentUserStore.getUserStoreVersion() == lastKnownVersion) {
+            ret = RangerUserStoreDeltaUtil.applyDelta(currentUserStore, deltas);
+
+            LOG.debug("RangerUserStoreRefresher.applyUserStoreDeltas(): lastKnownVersion={}; newVersion={}; changedUsers={}; changedGroups={}", lastKnownVersion, deltas.getUserStoreVersion(), deltas.getDeletedUsers() != null ? deltas.getDeletedUsers().size() : 0, deltas.getDeletedGroups() != null ? deltas.getDeletedGroups().size() : 0);
+        } else {
+            LOG.warn("RangerUserStoreRefresher.applyUserStoreDeltas(): received userstore-deltas, but userstore in plugin is not at version {}. Will download complete userstore", lastKnownVersion);
+
+            lastKnownVersion = -1L;
+            ret              = null;
+        }
+
+        return ret;
+    }
+
     public void cleanup() {
         LOG.debug("==> RangerUserStoreRefresher.cleanup()");
 
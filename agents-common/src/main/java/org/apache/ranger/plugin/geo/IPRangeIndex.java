@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable index of IP address ranges, kept in primitive arrays sorted by the start address of the range. A lookup
+ * is a binary search over the start addresses.
+ *
+ * Ranges may overlap or nest: maxToIPs[i] is the largest end address among the first i+1 ranges, which bounds the
+ * walk back from the candidate range to ranges that can still contain the address.
+ */
+public final class IPRangeIndex {
+    public static final IPRangeIndex EMPTY = new IPRangeIndex(new RangerGeolocationData[0]);
+
+    private final long[]                  fromIPs;
+    private final long[]                  toIPs;
+    private final long[]                  maxToIPs;
+    private final RangerGeolocationData[] values;
+
+    private IPRangeIndex(RangerGeolocationData[] values) {
+        this.values   = values;
+        this.fromIPs  = new long[values.length];
+        this.toIPs    = new long[values.length];
+        this.maxToIPs = new long[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            fromIPs[i]  = values[i].getFromIPAddress();
+            toIPs[i]    = values[i].getToIPAddress();
+            maxToIPs[i] = i == 0 ? toIPs[i] : Math.max(maxToIPs[i - 1], toIPs[i]);
+        }
+    }
+
+    public static IPRangeIndex build(Collection<RangerGeolocationData> data) {
+        if (data == null || data.isEmpty()) {
+            return EMPTY;
+        }
+
+        RangerGeolocationData[] sorted = data.toArray(new RangerGeolocationData[0]);
+
+        Arrays.sort(sorted);
+
+        int count = 0;
+
+        for (RangerGeolocationData value : sorted) {
+            if (count == 0 || sorted[count - 1].compareTo(value) != 0) { // ignore duplicates
+                sorted[count++] = value;
+            }
+        }
+
+        return new IPRangeIndex(count == sorted.length ? sorted : Arrays.copyOf(sorted, count));
+    }
+
+    /**
+     * @param ip IP address
+     * @return among the ranges that contain the address, the one that starts last; null if no range contains the address
+     */
+    public RangerGeolocationData find(long ip) {
+        int low  = 0;
+        int high = fromIPs.length - 1;
+        int idx  = -1; // last range that starts at or before ip
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (fromIPs[mid] <= ip) {
+                idx = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        for (; idx >= 0 && maxToIPs[idx] >= ip; idx--) {
+            if (toIPs[idx] >= ip) {
+                return values[idx];
+            }
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public void traverse(ValueProcessor<RangerGeolocationData> processor) {
+        for (RangerGeolocationData value : values) {
+            processor.process(value);
+        }
+    }
+}
@@ -134,6 +134,14 @@ public static boolean validateAsIP(String ipAddress, boolean ipInDotNotation) {
         return ret;
     }
 
+    public long getFromIPAddress() {
+        return fromIPAddress;
+    }
+
+    public long getToIPAddress() {
+        return toIPAddress;
+    }
+
     public String[] getLocationData() {
         return locationData;
     }
@@ -23,11 +23,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class RangerGeolocationDatabase {
     private static final Logger LOG = LoggerFactory.getLogger(RangerGeolocationDatabase.class);
 
-    private BinarySearchTree<RangerGeolocationData, Long> data     = new BinarySearchTree<>();
-    private GeolocationMetadata                           metadata = new GeolocationMetadata();
+    private final List<RangerGeolocationData> pendingData = new ArrayList<>();
+    private volatile IPRangeIndex             data        = IPRangeIndex.EMPTY;
+    private GeolocationMetadata               metadata    = new GeolocationMetadata();
 
     public String getValue(final RangerGeolocationData geolocationData, final String attributeName) {
         String value = null;
@@ -61,12 +65,44 @@ public RangerGeolocationData find(final String ipAddressStr) {
         return ret;
     }
 
+    /**
+     * Adds location data for an IP address range. Added data is not visible to find() until optimize() is called.
+     */
+    public void add(final RangerGeolocationData geolocationData) {
+        if (geolocationData != null) {
+            synchronized (pendingData) {
+                pendingData.add(geolocationData);
+            }
+        }
+    }
+
+    /**
+     * Builds a new index from the current and the added data, and replaces the current index with it; lookups in
+     * progress continue with the index they started with.
+     */
     public void optimize() {
         long start = System.currentTimeMillis();
-        data.rebalance();
+
+        synchronized (pendingData) {
+            if (!pendingData.isEmpty()) {
+                List<RangerGeolocationData> allData = new ArrayList<>(data.size() + pendingData.size());
+
+                data.traverse(value -> {
+                    allData.add(value);
+                    return value;
+                });
+
+                allData.addAll(pendingData);
+
+                data = IPRangeIndex.build(allData);
+
+                pendingData.clear();
+            }
+        }
+
         long end = System.currentTimeMillis();
 
-        LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = {} milliseconds", (end - start));
+        LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = {} milliseconds, ranges={}", (end - start), data.size());
     }
 
     public GeolocationMetadata getMetadata() {
@@ -77,24 +113,24 @@ public void setMetadata(final GeolocationMetadata metadataArg) {
         metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();
     }
 
-    public BinarySearchTree<RangerGeolocationData, Long> getData() {
+    public IPRangeIndex getData() {
         return data;
     }
 
-    public void setData(final BinarySearchTree<RangerGeolocationData, Long> dataArg) {
-        data = dataArg != null ? dataArg : new BinarySearchTree<>();
+    public void setData(final IPRangeIndex dataArg) {
+        data = dataArg != null ? dataArg : IPRangeIndex.EMPTY;
     }
 
     public void dump(ValuePrinter<RangerGeolocationData> processor) {
-        BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
-        GeolocationMetadata                           metadata    = getMetadata();
+        IPRangeIndex        geoDatabase = getData();
+        GeolocationMetadata metadata    = getMetadata();
         processor.build();
 
         processor.print("#================== Geolocation metadata ==================");
         processor.print(metadata.toString());
 
         processor.print("#================== Dump of geoDatabase - START ==================");
-        geoDatabase.preOrderTraverseTree(processor);
+        geoDatabase.traverse(processor);
         processor.print("#================== Dump of geoDatabase - END   ==================");
 
         processor.close();
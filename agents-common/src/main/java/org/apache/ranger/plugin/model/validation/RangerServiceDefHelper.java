@@ -48,8 +48,9 @@
 public class RangerServiceDefHelper {
     private static final Logger LOG = LoggerFactory.getLogger(RangerServiceDefHelper.class);
 
-    static final Map<String, Delegate> cache = new ConcurrentHashMap<>();
-    final        Delegate              delegate;
+    static final Map<String, Delegate>               cache         = new ConcurrentHashMap<>();
+    static final Map<String, RangerServiceDefHelper> sharedHelpers = new ConcurrentHashMap<>();
+    final        Delegate                            delegate;
 
     public RangerServiceDefHelper(RangerServiceDef serviceDef) {
         this(serviceDef, true, false);
@@ -100,6 +101,25 @@ public RangerServiceDefHelper(RangerServiceDef serviceDef, boolean useCache, boo
         this.delegate = delegate;
     }
 
+    /**
+     * Returns a helper shared by all callers for the given version of the service-def, to avoid creating a helper for
+     * every access request. As helpers are not modified after creation, they can be used concurrently.
+     *
+     * @param serviceDef service-def, identified by its name and update time - as in the delegate cache
+     * @return shared helper for the service-def
+     */
+    public static RangerServiceDefHelper getSharedInstance(RangerServiceDef serviceDef) {
+        RangerServiceDefHelper ret = sharedHelpers.get(serviceDef.getName());
+
+        if (ret == null || ret.delegate != cache.get(serviceDef.getName()) || !Objects.equals(ret.delegate.getServiceFreshnessDate(), serviceDef.getUpdateTime())) {
+            ret = new RangerServiceDefHelper(serviceDef);
+
+            sharedHelpers.put(serviceDef.getName(), ret);
+        }
+
+        return ret;
+    }
+
     public static RangerServiceDef getServiceDefForPolicyFiltering(RangerServiceDef serviceDef) {
         List<RangerResourceDef> modifiedResourceDefs = new ArrayList<>();
 
@@ -278,15 +298,25 @@ public Set<List<RangerResourceDef>> getResourceHierarchies(Integer policyType, C
             LOG.debug("==> getResourceHierarchies(policyType={}, keys={})", policyType, StringUtils.join(keys, ","));
         }
 
-        Set<List<RangerResourceDef>> ret = new HashSet<>();
-
         if (policyType == RangerPolicy.POLICY_TYPE_AUDIT) {
             policyType = RangerPolicy.POLICY_TYPE_ACCESS;
         }
 
-        for (List<RangerResourceDef> hierarchy : getResourceHierarchies(policyType)) {
-            if (hierarchyHasAllResources(hierarchy, keys)) {
-                ret.add(hierarchy);
+        Set<List<RangerResourceDef>> ret = keys instanceof Set ? delegate.getCachedResourceHierarchies(policyType, (Set<String>) keys) : null;
+
+        if (ret == null) {
+            ret = new HashSet<>();
+
+            for (List<RangerResourceDef> hierarchy : getResourceHierarchies(policyType)) {
+                if (hierarchyHasAllResources(hierarchy, keys)) {
+                    ret.add(hierarchy);
+                }
+            }
+
+            ret = Collections.unmodifiableSet(ret);
+
+            if (keys instanceof Set) {
+                delegate.cacheResourceHierarchies(policyType, (Set<String>) keys, ret);
             }
         }
 
@@ -424,6 +454,7 @@ public Set<String> expandImpliedAccessGrants(Set<String> accessTypes) {
      */
     static class Delegate {
         static final Set<List<RangerResourceDef>> EMPTY_RESOURCE_HIERARCHY = Collections.unmodifiableSet(new HashSet<>());
+        static final int                          MAX_CACHED_RESOURCE_KEYS = 1024;
 
         final RangerServiceDef                             servicedef;
         final Map<Integer, Set<List<RangerResourceDef>>>   hierarchies                 = new HashMap<>();
@@ -439,6 +470,9 @@ static class Delegate {
         final boolean                                      isDataMaskSupported;
         final boolean                                      isRowFilterSupported;
 
+        // hierarchies that have all the given resource-names, computed on first request for the resource-names
+        final Map<Integer, Map<Set<String>, Set<List<RangerResourceDef>>>> hierarchiesForKeys = new ConcurrentHashMap<>();
+
         public Delegate(RangerServiceDef serviceDef, boolean checkForCycles) {
             // NOTE: we assume serviceDef, its name and update time are can never by null.
             servicedef  = serviceDef;
@@ -541,6 +575,20 @@ public Set<List<RangerResourceDef>> getResourceHierarchies(Integer policyType) {
             return ret;
         }
 
+        Set<List<RangerResourceDef>> getCachedResourceHierarchies(Integer policyType, Set<String> keys) {
+            Map<Set<String>, Set<List<RangerResourceDef>>> hierarchies = hierarchiesForKeys.get(policyType);
+
+            return hierarchies != null ? hierarchies.get(keys) : null;
+        }
+
+        void cacheResourceHierarchies(Integer policyType, Set<String> keys, Set<List<RangerResourceDef>> resourceHierarchies) {
+            Map<Set<String>, Set<List<RangerResourceDef>>> hierarchies = hierarchiesForKeys.computeIfAbsent(policyType, k -> new ConcurrentHashMap<>());
+
+            if (hierarchies.size() < MAX_CACHED_RESOURCE_KEYS) {
+                hierarchies.put(Collections.unmodifiableSet(new HashSet<>(keys)), resourceHierarchies);
+            }
+        }
+
         public Set<Set<String>> getResourceHierarchyKeys(Integer policyType) {
             if (policyType == null || policyType == RangerPolicy.POLICY_TYPE_AUDIT) {
                 policyType = RangerPolicy.POLICY_TYPE_ACCESS;
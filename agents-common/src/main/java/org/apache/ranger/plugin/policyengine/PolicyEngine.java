@@ -23,6 +23,7 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.model.RangerServiceDef;
@@ -34,6 +35,7 @@
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -101,7 +103,8 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
 
         RangerAuthContext currAuthContext = pluginContext.getAuthContext();
         RangerUserStore   userStore       = currAuthContext != null ? currAuthContext.getUserStoreUtil().getUserStore() : null;
-        RangerAuthContext authContext     = new RangerAuthContext(null, zoneMatcher, roles, userStore);
+        RangerRolesUtil   rolesUtil       = currAuthContext != null ? currAuthContext.getRangerRolesUtil() : null;
+        RangerAuthContext authContext     = new RangerAuthContext(null, zoneMatcher, roles, userStore, rolesUtil);
 
         this.pluginContext.setAuthContext(authContext);
 
@@ -305,6 +308,20 @@ public long getPolicyVersion() {
         return policyRepository.getPolicyVersion();
     }
 
+    public long getTagVersion() {
+        if (allContextEnrichers != null) {
+            for (RangerContextEnricher enricher : allContextEnrichers) {
+                if (enricher instanceof RangerTagEnricher) {
+                    Long tagVersion = ((RangerTagEnricher) enricher).getServiceTagsVersion();
+
+                    return tagVersion != null ? tagVersion : -1L;
+                }
+            }
+        }
+
+        return -1L;
+    }
+
     public RangerServiceDefHelper getServiceDefHelper() {
         return serviceDefHelper;
     }
@@ -19,8 +19,16 @@
 
 package org.apache.ranger.plugin.policyengine;
 
+import java.util.Collection;
+
 public interface RangerAccessRequestProcessor {
     void preProcess(RangerAccessRequest request);
 
+    default void preProcess(Collection<RangerAccessRequest> requests) {
+        for (RangerAccessRequest request : requests) {
+            preProcess(request);
+        }
+    }
+
     default void enrich(RangerAccessRequest request) {}
 }
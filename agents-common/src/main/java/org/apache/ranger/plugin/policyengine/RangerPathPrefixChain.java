@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Shared by requests for the prefixes of a path, like /, /a, /a/b for /a/b/c, that are evaluated in a single call to
+ * the policy-engine. Likely-matching policies for all prefixes are found with one walk of each resource-trie, and
+ * reused for the requests of the other prefixes. Not thread-safe: requests of a chain are evaluated by one thread.
+ */
+public class RangerPathPrefixChain {
+    private final String                                                 resourceName;
+    private final String                                                 path;
+    private final Map<RangerResourceTrie<?>, List<RangerPolicyEvaluator>> evaluators = new IdentityHashMap<>();
+
+    public RangerPathPrefixChain(String resourceName, String path) {
+        this.resourceName = resourceName;
+        this.path         = path;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /*
+     * returns true if the resource has only the path element, and its value is the path or one of its prefixes
+     */
+    boolean isForResource(RangerAccessResource resource) {
+        Set<String> keys  = resource != null ? resource.getKeys() : null;
+        Object      value = keys != null && keys.size() == 1 ? resource.getValue(resourceName) : null;
+
+        return value instanceof String && path.startsWith((String) value);
+    }
+
+    List<RangerPolicyEvaluator> getEvaluators(RangerResourceTrie<?> trie) {
+        return evaluators.get(trie);
+    }
+
+    void setEvaluators(RangerResourceTrie<?> trie, List<RangerPolicyEvaluator> evaluators) {
+        this.evaluators.put(trie, evaluators);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerPathPrefixChain={resourceName=" + resourceName + ", path=" + path + "}";
+    }
+}
@@ -28,6 +28,7 @@
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface RangerPolicyEngine {
@@ -75,6 +76,8 @@ public interface RangerPolicyEngine {
 
     RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer requestedPolicyType);
 
+    Map<RangerAccessResource, RangerResourceACLs> getResourceACLs(Collection<RangerAccessResource> resources, Integer requestedPolicyType);
+
     Set<String> getRolesFromUserAndGroups(String user, Set<String> groups);
 
     RangerRoles getRangerRoles();
@@ -91,6 +94,8 @@ public interface RangerPolicyEngine {
 
     List<RangerPolicy> getTagPolicies();
 
+    Set<String> getZoneNames();
+
     // This API is used only used by test code
     RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request);
 }
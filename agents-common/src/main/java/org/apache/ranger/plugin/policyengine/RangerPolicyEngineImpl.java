@@ -36,6 +36,8 @@
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
 import org.apache.ranger.plugin.util.RangerRoles;
@@ -44,11 +46,13 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -66,29 +70,35 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
     private final PolicyEngine                 policyEngine;
     private final RangerAccessRequestProcessor requestProcessor;
     private final ServiceConfig                serviceConfig;
+    private final RangerResourceACLsCache      resourceACLsCache;
 
     public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerRoles roles) {
         final boolean isUseReadWriteLock;
+        final int     resourceACLsCacheSize;
 
         Configuration config = pluginContext != null ? pluginContext.getConfig() : null;
 
         if (config != null) {
             boolean isDeltasSupported = config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
 
-            isUseReadWriteLock = isDeltasSupported && config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
+            isUseReadWriteLock    = isDeltasSupported && config.getBoolean(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
+            resourceACLsCacheSize = config.getInt(pluginContext.getConfig().getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE_DEFAULT);
         } else {
-            isUseReadWriteLock = false;
+            isUseReadWriteLock    = false;
+            resourceACLsCacheSize = RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE_DEFAULT;
         }
 
-        policyEngine     = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
-        serviceConfig    = new ServiceConfig(servicePolicies.getServiceConfig());
-        requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+        policyEngine      = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
+        serviceConfig     = new ServiceConfig(servicePolicies.getServiceConfig());
+        requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+        resourceACLsCache = resourceACLsCacheSize > 0 ? new RangerResourceACLsCache(resourceACLsCacheSize) : null;
     }
 
     private RangerPolicyEngineImpl(final PolicyEngine policyEngine, RangerPolicyEngineImpl other) {
-        this.policyEngine     = policyEngine;
-        this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
-        this.serviceConfig    = new ServiceConfig(other.serviceConfig);
+        this.policyEngine      = policyEngine;
+        this.requestProcessor  = new RangerDefaultRequestProcessor(policyEngine);
+        this.serviceConfig     = new ServiceConfig(other.serviceConfig);
+        this.resourceACLsCache = other.resourceACLsCache != null ? new RangerResourceACLsCache(other.resourceACLsCache.getCacheSize()) : null;
     }
 
     public static RangerPolicyEngine getPolicyEngine(final RangerPolicyEngineImpl other, final ServicePolicies servicePolicies) {
@@ -217,8 +227,12 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
 
             requestProcessor.preProcess(request);
 
+            long evalStartTime = RangerLatencyMetrics.start();
+
             ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
+            RangerLatencyMetrics.record(Stage.POLICY_EVALUATION, evalStartTime);
+
             if (resultProcessor != null) {
                 RangerPerfTracer perfAuditTracer = null;
 
@@ -228,8 +242,12 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
                     perfAuditTracer = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_AUDIT_LOG, "RangerPolicyEngine.processAudit(requestHashCode=" + requestHashCode + ")");
                 }
 
+                long auditStartTime = RangerLatencyMetrics.start();
+
                 resultProcessor.processResult(ret);
 
+                RangerLatencyMetrics.record(Stage.AUDIT, auditStartTime);
+
                 RangerPerfTracer.log(perfAuditTracer);
             }
         }
@@ -253,17 +271,25 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
             }
 
             if (requests != null) {
+                requestProcessor.preProcess(requests);
+
                 for (RangerAccessRequest request : requests) {
-                    requestProcessor.preProcess(request);
+                    long evalStartTime = RangerLatencyMetrics.start();
 
                     RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
+                    RangerLatencyMetrics.record(Stage.POLICY_EVALUATION, evalStartTime);
+
                     ret.add(result);
                 }
             }
 
             if (resultProcessor != null) {
+                long auditStartTime = RangerLatencyMetrics.start();
+
                 resultProcessor.processResults(ret);
+
+                RangerLatencyMetrics.record(Stage.AUDIT, auditStartTime);
             }
         }
 
@@ -318,7 +344,7 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request) {
     public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer requestedPolicyType) {
         LOG.debug("==> RangerPolicyEngineImpl.getResourceACLs(request={}, policyType={})", request, requestedPolicyType);
 
-        RangerResourceACLs ret  = new RangerResourceACLs();
+        RangerResourceACLs ret;
         RangerPerfTracer   perf = null;
 
         if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_GET_ACLS_LOG)) {
@@ -330,71 +356,82 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer r
                 LOG.debug("Acquired lock - {}", readLock);
             }
 
-            requestProcessor.preProcess(request);
-
-            String zoneName = RangerAccessRequestUtil.getResourceZoneNameFromContext(request.getContext());
+            ret = getResourceACLsWithCache(request, requestedPolicyType);
+        }
 
-            LOG.debug("zoneName:[{}]", zoneName);
+        RangerPerfTracer.logAlways(perf);
 
-            int[] policyTypes = requestedPolicyType == null ? RangerPolicy.POLICY_TYPES : new int[] {requestedPolicyType};
+        LOG.debug("<== RangerPolicyEngineImpl.getResourceACLs(request={}, policyType={}) : ret={}", request, requestedPolicyType, ret);
 
-            for (int policyType : policyTypes) {
-                // if resource isn't applicable for the policyType, skip evaluating policies and gathering ACLs
-                // for example, following resources are not applicable for listed policy-types
-                //   - database: masking/row-filter policies
-                //   - table:    masking policies
-                //   - column:   row-filter policies
-                boolean requireExactMatch = (policyType == RangerPolicy.POLICY_TYPE_DATAMASK) || (policyType == RangerPolicy.POLICY_TYPE_ROWFILTER);
-
-                if (!policyEngine.getServiceDefHelper().isValidHierarchy(policyType, request.getResource().getKeys(), requireExactMatch)) {
-                    continue;
-                }
+        return ret;
+    }
 
-                List<RangerPolicyEvaluator> allEvaluators           = new ArrayList<>();
-                Map<Long, MatchType>        tagMatchTypeMap         = new HashMap<>();
-                Set<Long>                   policyIdForTemporalTags = new HashSet<>();
+    /*
+     * ACLs of all resources are computed under a single read-lock, and only once for resources that occur more than
+     * once in the collection. The ACLs are looked up in, and added to, the same cache as getResourceACLs(request).
+     * Resources not found in the cache are enriched together, and resources of the same zone that differ only in the
+     * leaf - like columns of a table - share one look-up of likely-matching policies.
+     */
+    @Override
+    public Map<RangerAccessResource, RangerResourceACLs> getResourceACLs(Collection<RangerAccessResource> resources, Integer requestedPolicyType) {
+        LOG.debug("==> RangerPolicyEngineImpl.getResourceACLs(resources={}, policyType={})", resources, requestedPolicyType);
 
-                getResourceACLEvaluatorsForZone(request, zoneName, policyType, allEvaluators, tagMatchTypeMap, policyIdForTemporalTags);
+        Map<RangerAccessResource, RangerResourceACLs> ret  = new LinkedHashMap<>();
+        RangerPerfTracer                              perf = null;
 
-                allEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_GET_ACLS_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_GET_ACLS_LOG, "RangerPolicyEngine.getResourceACLs(resourceCount=" + (resources != null ? resources.size() : 0) + ")");
+        }
 
-                if (CollectionUtils.isEmpty(allEvaluators)) {
-                    continue;
+        if (resources != null) {
+            try (RangerReadWriteLock.RangerLock readLock = policyEngine.getReadLock()) {
+                if (readLock.isLockingEnabled()) {
+                    LOG.debug("Acquired lock - {}", readLock);
                 }
 
-                Integer policyPriority = null;
+                List<RangerAccessResource>       resourcesToCompute = new ArrayList<>();
+                List<RangerAccessRequest>        requestsToCompute  = new ArrayList<>();
+                List<List<Object>>               cacheKeys          = new ArrayList<>();
+                RangerResourceACLsCache.Versions versions           = resourceACLsCache != null ? resourceACLsCache.setVersions(policyEngine.getPolicyVersion(), policyEngine.getTagVersion(), policyEngine.getRoleVersion()) : null;
 
-                for (RangerPolicyEvaluator evaluator : allEvaluators) {
-                    if (policyPriority == null) {
-                        policyPriority = evaluator.getPolicyPriority();
+                for (RangerAccessResource resource : resources) {
+                    if (ret.containsKey(resource)) {
+                        continue;
                     }
 
-                    if (policyPriority != evaluator.getPolicyPriority()) {
-                        if (policyType == RangerPolicy.POLICY_TYPE_ACCESS) {
-                            ret.finalizeAcls();
-                        }
+                    RangerAccessRequest request  = new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, null, null, null);
+                    List<Object>        cacheKey = versions != null ? RangerResourceACLsCache.getCacheKey(request, requestedPolicyType) : null;
+                    RangerResourceACLs  cached   = cacheKey != null ? resourceACLsCache.get(cacheKey) : null;
 
-                        policyPriority = evaluator.getPolicyPriority();
+                    ret.put(resource, cached); // ACLs not found in cache are set below; the entry keeps the order of resources
+
+                    if (cached == null) {
+                        resourcesToCompute.add(resource);
+                        requestsToCompute.add(request);
+                        cacheKeys.add(cacheKey);
                     }
+                }
 
-                    boolean   isTemporalTagPolicy = policyIdForTemporalTags.contains(evaluator.getPolicyId());
-                    MatchType tagMatchType        = tagMatchTypeMap.get(evaluator.getPolicyId());
+                if (!requestsToCompute.isEmpty()) {
+                    List<RangerResourceACLs> computedACLs = computeResourceACLs(requestsToCompute, requestedPolicyType);
 
-                    // tag assigned to ANCESTORS must apply to SELF as well, to be consistent with policy evaluation in RangerDefaultPolicyEvaluator.evaluate()
-                    if (tagMatchType == MatchType.ANCESTOR) {
-                        tagMatchType = MatchType.SELF;
-                    }
+                    for (int i = 0; i < computedACLs.size(); i++) {
+                        RangerResourceACLs acls     = computedACLs.get(i);
+                        List<Object>       cacheKey = cacheKeys.get(i);
 
-                    evaluator.getResourceACLs(request, ret, isTemporalTagPolicy, null, tagMatchType, policyEngine);
-                }
+                        ret.put(resourcesToCompute.get(i), acls);
 
-                ret.finalizeAcls();
+                        if (cacheKey != null) {
+                            resourceACLsCache.put(cacheKey, acls, versions);
+                        }
+                    }
+                }
             }
         }
 
         RangerPerfTracer.logAlways(perf);
 
-        LOG.debug("<== RangerPolicyEngineImpl.getResourceACLs(request={}, policyType={}) : ret={}", request, requestedPolicyType, ret);
+        LOG.debug("<== RangerPolicyEngineImpl.getResourceACLs(resources={}, policyType={}) : ret={}", resources, requestedPolicyType, ret);
 
         return ret;
     }
@@ -495,6 +532,21 @@ public List<RangerPolicy> getTagPolicies() {
         return ret;
     }
 
+    @Override
+    public Set<String> getZoneNames() {
+        Set<String> ret;
+
+        try (RangerReadWriteLock.RangerLock readLock = policyEngine.getReadLock()) {
+            if (readLock.isLockingEnabled()) {
+                LOG.debug("Acquired lock - {}", readLock);
+            }
+
+            ret = new HashSet<>(policyEngine.getZonePolicyRepositories().keySet());
+        }
+
+        return ret;
+    }
+
     // This API is used only used by test code
     @Override
     public RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request) {
@@ -892,7 +944,191 @@ private boolean isSuperUser(String userName, Set<String> userGroups) {
         return ret;
     }
 
-    private void getResourceACLEvaluatorsForZone(RangerAccessRequest request, String zoneName, int policyType, List<RangerPolicyEvaluator> allEvaluators, Map<Long, MatchType> tagMatchTypeMap, Set<Long> policyIdForTemporalTags) {
+    private RangerResourceACLs getResourceACLsWithCache(RangerAccessRequest request, Integer requestedPolicyType) {
+        final RangerResourceACLs               ret;
+        final List<Object>                     cacheKey = resourceACLsCache != null ? RangerResourceACLsCache.getCacheKey(request, requestedPolicyType) : null;
+        final RangerResourceACLsCache.Versions versions = cacheKey != null ? resourceACLsCache.setVersions(policyEngine.getPolicyVersion(), policyEngine.getTagVersion(), policyEngine.getRoleVersion()) : null;
+        final RangerResourceACLs               cached   = cacheKey != null ? resourceACLsCache.get(cacheKey) : null;
+
+        if (cached != null) {
+            LOG.debug("getResourceACLs(): found ACLs for resource {} in cache", request.getResource());
+
+            ret = cached;
+        } else {
+            ret = computeResourceACLs(request, requestedPolicyType);
+
+            if (cacheKey != null) {
+                resourceACLsCache.put(cacheKey, ret, versions);
+            }
+        }
+
+        return ret;
+    }
+
+    private RangerResourceACLs computeResourceACLs(RangerAccessRequest request, Integer requestedPolicyType) {
+        RangerResourceACLs ret = new RangerResourceACLs();
+
+        requestProcessor.preProcess(request);
+
+        String zoneName = RangerAccessRequestUtil.getResourceZoneNameFromContext(request.getContext());
+
+        LOG.debug("zoneName:[{}]", zoneName);
+
+        int[] policyTypes = requestedPolicyType == null ? RangerPolicy.POLICY_TYPES : new int[] {requestedPolicyType};
+
+        for (int policyType : policyTypes) {
+            if (isResourceApplicable(request, policyType)) {
+                addResourceACLs(request, zoneName, policyType, null, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    /*
+     * returns ACLs in the order of the requests. Requests are grouped by zone and by the resource without its leaf;
+     * likely-matching resource policies are looked up once for each group, for all leaf values in the group
+     */
+    private List<RangerResourceACLs> computeResourceACLs(List<RangerAccessRequest> requests, Integer requestedPolicyType) {
+        List<RangerResourceACLs>              ret    = new ArrayList<>(requests.size());
+        Map<List<Object>, ResourceACLsGroup> groups = new LinkedHashMap<>();
+
+        requestProcessor.preProcess(requests);
+
+        for (RangerAccessRequest request : requests) {
+            RangerResourceACLs   acls     = new RangerResourceACLs();
+            RangerAccessResource resource = request.getResource();
+            String               zoneName = RangerAccessRequestUtil.getResourceZoneNameFromContext(request.getContext());
+            String               leafName = resource.getLeafName();
+            Map<String, Object>  parent   = new HashMap<>(resource.getAsMap());
+
+            parent.remove(leafName);
+
+            groups.computeIfAbsent(Arrays.asList(zoneName, leafName, parent), k -> new ResourceACLsGroup(zoneName, leafName)).add(request, acls);
+
+            ret.add(acls);
+        }
+
+        int[] policyTypes = requestedPolicyType == null ? RangerPolicy.POLICY_TYPES : new int[] {requestedPolicyType};
+
+        for (ResourceACLsGroup group : groups.values()) {
+            LOG.debug("zoneName:[{}], resourceCount={}", group.zoneName, group.requests.size());
+
+            for (int policyType : policyTypes) {
+                List<RangerPolicyEvaluator> resourcePolicyEvaluators = null;
+
+                for (int i = 0; i < group.requests.size(); i++) {
+                    RangerAccessRequest request = group.requests.get(i);
+
+                    if (!isResourceApplicable(request, policyType)) {
+                        continue;
+                    }
+
+                    if (resourcePolicyEvaluators == null) {
+                        resourcePolicyEvaluators = getLikelyMatchPolicyEvaluators(group, policyType);
+                    }
+
+                    addResourceACLs(request, group.zoneName, policyType, resourcePolicyEvaluators, group.acls.get(i));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // if resource isn't applicable for the policyType, skip evaluating policies and gathering ACLs
+    // for example, following resources are not applicable for listed policy-types
+    //   - database: masking/row-filter policies
+    //   - table:    masking policies
+    //   - column:   row-filter policies
+    private boolean isResourceApplicable(RangerAccessRequest request, int policyType) {
+        boolean requireExactMatch = (policyType == RangerPolicy.POLICY_TYPE_DATAMASK) || (policyType == RangerPolicy.POLICY_TYPE_ROWFILTER);
+
+        return policyEngine.getServiceDefHelper().isValidHierarchy(policyType, request.getResource().getKeys(), requireExactMatch);
+    }
+
+    /*
+     * resourcePolicyEvaluators: resource policies that likely match the request, looked up for a group of requests;
+     * null to look up for this request. Evaluators that don't match the request are skipped by getResourceACLs()
+     */
+    private void addResourceACLs(RangerAccessRequest request, String zoneName, int policyType, List<RangerPolicyEvaluator> resourcePolicyEvaluators, RangerResourceACLs ret) {
+        List<RangerPolicyEvaluator>           allEvaluators         = new ArrayList<>();
+        Map<RangerPolicyEvaluator, MatchType> tagMatchTypeMap       = new HashMap<>();
+        Set<RangerPolicyEvaluator>            temporalTagEvaluators = new HashSet<>();
+
+        getResourceACLEvaluatorsForZone(request, zoneName, policyType, resourcePolicyEvaluators, allEvaluators, tagMatchTypeMap, temporalTagEvaluators);
+
+        allEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+        if (CollectionUtils.isEmpty(allEvaluators)) {
+            return;
+        }
+
+        Integer policyPriority = null;
+
+        for (RangerPolicyEvaluator evaluator : allEvaluators) {
+            if (policyPriority == null) {
+                policyPriority = evaluator.getPolicyPriority();
+            }
+
+            if (policyPriority != evaluator.getPolicyPriority()) {
+                if (policyType == RangerPolicy.POLICY_TYPE_ACCESS) {
+                    ret.finalizeAcls();
+                }
+
+                policyPriority = evaluator.getPolicyPriority();
+            }
+
+            boolean   isTemporalTagPolicy = temporalTagEvaluators.contains(evaluator);
+            MatchType tagMatchType        = tagMatchTypeMap.get(evaluator);
+
+            // tag assigned to ANCESTORS must apply to SELF as well, to be consistent with policy evaluation in RangerDefaultPolicyEvaluator.evaluate()
+            if (tagMatchType == MatchType.ANCESTOR) {
+                tagMatchType = MatchType.SELF;
+            }
+
+            evaluator.getResourceACLs(request, ret, isTemporalTagPolicy, null, tagMatchType, policyEngine);
+        }
+
+        ret.finalizeAcls();
+    }
+
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(ResourceACLsGroup group, int policyType) {
+        final List<RangerPolicyEvaluator> ret;
+        final RangerPolicyRepository      repository = policyEngine.getRepositoryForZone(group.zoneName);
+
+        if (repository == null) {
+            ret = Collections.emptyList(); // error is logged by getResourceACLEvaluatorsForZone()
+        } else if (group.requests.size() == 1 || group.leafName == null) {
+            ret = repository.getLikelyMatchPolicyEvaluators(group.requests.get(0), policyType);
+        } else {
+            RangerAccessResource first      = group.requests.get(0).getResource();
+            Map<String, Object>  elements   = new HashMap<>(first.getAsMap());
+            List<Object>         leafValues = new ArrayList<>(group.requests.size());
+
+            for (RangerAccessRequest request : group.requests) {
+                Object leafValue = request.getResource().getValue(group.leafName);
+
+                if (leafValue instanceof Collection) {
+                    leafValues.addAll((Collection<?>) leafValue);
+                } else {
+                    leafValues.add(leafValue);
+                }
+            }
+
+            elements.put(group.leafName, leafValues);
+
+            RangerAccessResourceImpl resource = new RangerAccessResourceImpl(elements);
+
+            resource.setServiceDef(first.getServiceDef());
+
+            ret = repository.getLikelyMatchPolicyEvaluators(new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, null, null, null), policyType);
+        }
+
+        return ret;
+    }
+
+    private void getResourceACLEvaluatorsForZone(RangerAccessRequest request, String zoneName, int policyType, List<RangerPolicyEvaluator> resourcePolicyEvaluators, List<RangerPolicyEvaluator> allEvaluators, Map<RangerPolicyEvaluator, MatchType> tagMatchTypeMap, Set<RangerPolicyEvaluator> temporalTagEvaluators) {
         final RangerPolicyRepository matchedRepository = policyEngine.getRepositoryForZone(zoneName);
 
         if (matchedRepository == null) {
@@ -928,17 +1164,19 @@ private void getResourceACLEvaluatorsForZone(RangerAccessRequest request, String
 
                     // avoid an evaluator making into the list multiple times when the same tag is associated with the resource multiple times
                     // highest precedence matchType will be recorded in tagMatchTypeMap, since tagPolicyEvaluators is sorted by matchType
-                    if (tagMatchTypeMap.putIfAbsent(evaluator.getPolicyId(), tag.getMatchType()) == null) {
+                    if (tagMatchTypeMap.putIfAbsent(evaluator, tag.getMatchType()) == null) {
                         allEvaluators.add(evaluator);
                     }
 
                     if (CollectionUtils.isNotEmpty(tag.getValidityPeriods())) {
-                        policyIdForTemporalTags.add(evaluator.getPolicyId());
+                        temporalTagEvaluators.add(evaluator);
                     }
                 }
             }
 
-            List<RangerPolicyEvaluator> resourcePolicyEvaluators = matchedRepository.getLikelyMatchPolicyEvaluators(request, policyType);
+            if (resourcePolicyEvaluators == null) {
+                resourcePolicyEvaluators = matchedRepository.getLikelyMatchPolicyEvaluators(request, policyType);
+            }
 
             allEvaluators.addAll(resourcePolicyEvaluators);
         }
@@ -1094,6 +1332,26 @@ private void updateFromGdsResult(RangerAccessResult result) {
         LOG.debug("<== updateFromGdsResult(result={})", result);
     }
 
+    /*
+     * requests for resources in a zone that differ only in the value of the leaf, with ACLs computed for each request
+     */
+    private static class ResourceACLsGroup {
+        final String                    zoneName;
+        final String                    leafName;
+        final List<RangerAccessRequest> requests = new ArrayList<>();
+        final List<RangerResourceACLs>  acls     = new ArrayList<>();
+
+        ResourceACLsGroup(String zoneName, String leafName) {
+            this.zoneName = zoneName;
+            this.leafName = leafName;
+        }
+
+        void add(RangerAccessRequest request, RangerResourceACLs acls) {
+            this.requests.add(request);
+            this.acls.add(acls);
+        }
+    }
+
     private static class ServiceConfig {
         private final Set<String> auditExcludedUsers;
         private final Set<String> auditExcludedGroups;
@@ -45,6 +45,9 @@
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -735,6 +738,17 @@ private List<RangerPolicyEvaluator> getLikelyMatchRowFilterPolicyEvaluators(Rang
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request) {
+        RangerPathPrefixChain                             prefixChain = RangerAccessRequestUtil.getPathPrefixChainFromContext(request.getContext());
+        RangerResourceTrie<RangerPolicyResourceEvaluator> prefixTrie  = null;
+
+        if (prefixChain != null && MapUtils.isEmpty(request.getResourceElementMatchingScopes()) && prefixChain.isForResource(request.getResource())) {
+            prefixTrie = resourceTrie.get(prefixChain.getResourceName());
+        }
+
+        return prefixTrie != null ? getLikelyMatchPolicyEvaluators(prefixTrie, prefixChain) : getLikelyMatchPolicyEvaluatorsForResource(resourceTrie, request);
+    }
+
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluatorsForResource(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request) {
         List<RangerPolicyEvaluator> ret      = Collections.emptyList();
         RangerAccessResource        resource = request.getResource();
         RangerPerfTracer            perf     = null;
@@ -743,8 +757,11 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerPolicyRepository.getLikelyMatchEvaluators(resource=" + resource.getAsString() + ")");
         }
 
+        long                                      startTime    = RangerLatencyMetrics.start();
         Collection<RangerPolicyResourceEvaluator> smallestList = RangerResourceEvaluatorsRetriever.getEvaluators(resourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes());
 
+        RangerLatencyMetrics.record(Stage.TRIE_LOOKUP, startTime);
+
         if (smallestList != null) {
             if (smallestList.isEmpty()) {
                 ret = new ArrayList<>();
@@ -782,6 +799,48 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
         return ret;
     }
 
+    /*
+     * policies that likely match the path of the chain or any of its prefixes. The trie is walked once for the chain,
+     * and the result is reused for requests of other prefixes; evaluators check the resource match for each request
+     */
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(RangerResourceTrie<RangerPolicyResourceEvaluator> trie, RangerPathPrefixChain prefixChain) {
+        LOG.debug("==> RangerPolicyRepository.getLikelyMatchPolicyEvaluators({})", prefixChain);
+
+        List<RangerPolicyEvaluator> ret = prefixChain.getEvaluators(trie);
+
+        if (ret == null) {
+            long                               startTime  = RangerLatencyMetrics.start();
+            Set<RangerPolicyResourceEvaluator> evaluators = trie.getEvaluatorsForResourcePrefixes(prefixChain.getPath());
+
+            RangerLatencyMetrics.record(Stage.TRIE_LOOKUP, startTime);
+
+            if (evaluators == null || evaluators.isEmpty()) {
+                ret = Collections.emptyList();
+            } else {
+                List<RangerPolicyEvaluator> policyEvaluators = new ArrayList<>(evaluators.size());
+                Set<Long>                   policyIds        = new HashSet<>();
+
+                for (RangerPolicyResourceEvaluator resourceEvaluator : evaluators) {
+                    RangerPolicyEvaluator policyEvaluator = resourceEvaluator.getPolicyEvaluator();
+
+                    if (policyIds.add(policyEvaluator.getPolicyId())) {
+                        policyEvaluators.add(policyEvaluator);
+                    }
+                }
+
+                policyEvaluators.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+
+                ret = Collections.unmodifiableList(policyEvaluators);
+            }
+
+            prefixChain.setEvaluators(trie, ret);
+        }
+
+        LOG.debug("<== RangerPolicyRepository.getLikelyMatchPolicyEvaluators({}): evaluatorCount={}", prefixChain, ret.size());
+
+        return ret;
+    }
+
     private List<RangerPolicy> normalizeAndPrunePolicies(List<RangerPolicy> rangerPolicies, final String componentType) {
         if (CollectionUtils.isNotEmpty(rangerPolicies) && StringUtils.isNotBlank(componentType)) {
             List<RangerPolicy> policiesToPrune = null;
@@ -52,6 +52,17 @@ public class RangerResourceACLs {
     public RangerResourceACLs() {
     }
 
+    public RangerResourceACLs(RangerResourceACLs other) {
+        copyACLs(other.userACLs, userACLs);
+        copyACLs(other.groupACLs, groupACLs);
+        copyACLs(other.roleACLs, roleACLs);
+
+        rowFilters.addAll(other.rowFilters);
+        dataMasks.addAll(other.dataMasks);
+        datasets.addAll(other.datasets);
+        projects.addAll(other.projects);
+    }
+
     public Map<String, Map<String, AccessResult>> getUserACLs() {
         return userACLs;
     }
@@ -257,6 +268,23 @@ public String toString() {
         return sb.toString();
     }
 
+    private static void copyACLs(Map<String, Map<String, AccessResult>> from, Map<String, Map<String, AccessResult>> to) {
+        for (Map.Entry<String, Map<String, AccessResult>> entry : from.entrySet()) {
+            Map<String, AccessResult> accessResults = new HashMap<>();
+
+            for (Map.Entry<String, AccessResult> accessEntry : entry.getValue().entrySet()) {
+                AccessResult accessResult = accessEntry.getValue();
+                AccessResult copy         = new AccessResult(accessResult.getResult(), accessResult.getPolicy()); // setResult() is a no-op once isFinal is set
+
+                copy.setIsFinal(accessResult.getIsFinal());
+
+                accessResults.put(accessEntry.getKey(), copy);
+            }
+
+            to.put(entry.getKey(), accessResults);
+        }
+    }
+
     private void finalizeAcls(Map<String, Map<String, AccessResult>> acls) {
         List<String> keysToRemove = new ArrayList<>();
         for (Map.Entry<String, Map<String, AccessResult>> entry : acls.entrySet()) {
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.MapUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of ACLs computed by RangerPolicyEngineImpl.getResourceACLs(), for the versions of policies, tags and roles
+ * that were used to compute them. Entries are dropped when any of these versions changes.
+ *
+ * Lookups don't take a lock. When the cache is full, entries that were not read since the previous sweep are evicted
+ * (second-chance/clock).
+ *
+ * ACLs are copied in and out of the cache, as callers update the ACLs returned to them, for example while merging
+ * ACLs from chained plugins.
+ */
+final class RangerResourceACLsCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerResourceACLsCache.class);
+
+    private final    int                                    cacheSize;
+    private final    ConcurrentMap<List<Object>, CacheEntry> cache    = new ConcurrentHashMap<>();
+    private volatile Versions                               versions = new Versions(-1, -1, -1);
+
+    RangerResourceACLsCache(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Requests that carry context, for example tags computed by the caller, are not cached: ACLs for these can't be
+     * identified by the resource alone.
+     *
+     * @return key to cache the ACLs for the request, null if the ACLs for the request should not be cached
+     */
+    static List<Object> getCacheKey(RangerAccessRequest request, Integer policyType) {
+        RangerAccessResource resource    = request.getResource();
+        String               resourceKey = resource != null ? resource.getCacheKey() : null;
+
+        if (resourceKey == null || MapUtils.isNotEmpty(request.getContext())) {
+            return null;
+        }
+
+        return Arrays.asList(resourceKey, resource.getOwnerUser(), policyType, request.getAccessType(), request.getUser(), request.getUserGroups(), request.getUserRoles(),
+                request.getResourceMatchingScope(), request.getResourceElementMatchingScopes());
+    }
+
+    Versions setVersions(long policyVersion, long tagVersion, long roleVersion) {
+        Versions current = versions;
+
+        if (!current.equals(policyVersion, tagVersion, roleVersion)) {
+            synchronized (this) {
+                current = versions;
+
+                if (!current.equals(policyVersion, tagVersion, roleVersion)) {
+                    LOG.debug("RangerResourceACLsCache: versions changed from {} to policyVersion={}, tagVersion={}, roleVersion={}. Clearing {} entries", current, policyVersion, tagVersion, roleVersion, cache.size());
+
+                    cache.clear();
+
+                    current  = new Versions(policyVersion, tagVersion, roleVersion);
+                    versions = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    RangerResourceACLs get(List<Object> key) {
+        CacheEntry entry = cache.get(key);
+
+        if (entry != null && !entry.isUsed) { // write only when not set already, to avoid contention on shared entries
+            entry.isUsed = true;
+        }
+
+        return entry != null ? new RangerResourceACLs(entry.acls) : null;
+    }
+
+    // ACLs computed with older versions are not cached
+    void put(List<Object> key, RangerResourceACLs acls, Versions versionsUsed) {
+        CacheEntry entry = new CacheEntry(new RangerResourceACLs(acls));
+
+        synchronized (this) {
+            if (versionsUsed == versions) {
+                cache.put(key, entry);
+
+                if (cache.size() > cacheSize) {
+                    evictEntries();
+                }
+            }
+        }
+    }
+
+    int getCacheSize() {
+        return cacheSize;
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    // second-chance eviction; called with the lock held, hence by one thread at a time
+    private void evictEntries() {
+        for (int pass = 0; pass < 2 && cache.size() > cacheSize; pass++) {
+            Iterator<CacheEntry> iter = cache.values().iterator();
+
+            while (iter.hasNext() && cache.size() > cacheSize) {
+                CacheEntry entry = iter.next();
+
+                if (pass == 0 && entry.isUsed) {
+                    entry.isUsed = false;
+                } else {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+        final RangerResourceACLs acls;
+        volatile boolean         isUsed = true; // so that the sweep triggered by adding this entry doesn't evict it
+
+        CacheEntry(RangerResourceACLs acls) {
+            this.acls = acls;
+        }
+    }
+
+    static final class Versions {
+        final long policyVersion;
+        final long tagVersion;
+        final long roleVersion;
+
+        Versions(long policyVersion, long tagVersion, long roleVersion) {
+            this.policyVersion = policyVersion;
+            this.tagVersion    = tagVersion;
+            this.roleVersion   = roleVersion;
+        }
+
+        boolean equals(long policyVersion, long tagVersion, long roleVersion) {
+            return this.policyVersion == policyVersion && this.tagVersion == tagVersion && this.roleVersion == roleVersion;
+        }
+
+        @Override
+        public String toString() {
+            return "{policyVersion=" + policyVersion + ", tagVersion=" + tagVersion + ", roleVersion=" + roleVersion + "}";
+        }
+    }
+}
@@ -212,6 +212,57 @@ public Set<T> getEvaluatorsForResource(Object resource, ResourceElementMatchingS
         return ret.getResult();
     }
 
+    /*
+     * returns evaluators for the resource and for each of its prefixes, collected in a single walk of the trie. The
+     * result is a superset of evaluators returned by getEvaluatorsForResource() for any prefix of the resource
+     */
+    public Set<T> getEvaluatorsForResourcePrefixes(String resource) {
+        LOG.debug("==> RangerResourceTrie.getEvaluatorsForResourcePrefixes({})", resource);
+
+        EvalCollector<T> collector = new EvalCollector<>(null);
+        TrieNode<T>      curr      = root;
+        TrieNode<T>      parent    = null;
+        final int        len       = resource.length();
+        int              i         = 0;
+
+        collector.process(inheritedEvaluators);
+
+        while (true) {
+            if (!isOptimizedForSpace) {
+                curr.setupIfNeeded(parent);
+            }
+
+            collector.process(curr.getEvaluators());
+            collector.process(curr.getWildcardEvaluators());
+
+            if (i >= len) {
+                break;
+            }
+
+            TrieNode<T> child = curr.getChild(getLookupChar(resource, i));
+
+            if (child == null) {
+                break;
+            }
+
+            final String childStr = child.getStr();
+
+            if (!resource.regionMatches(optIgnoreCase, i, childStr, 0, childStr.length())) {
+                break;
+            }
+
+            parent = curr;
+            curr   = child;
+            i += childStr.length();
+        }
+
+        Set<T> ret = collector.getResult();
+
+        LOG.debug("<== RangerResourceTrie.getEvaluatorsForResourcePrefixes({}): evaluatorCount={}", resource, ret != null ? ret.size() : 0);
+
+        return ret;
+    }
+
     public int getEvaluatorsCountForResource(Object resource, ResourceElementMatchingScope scope) {
         return getEvaluatorsCountForResource(resource, scope, null);
     }
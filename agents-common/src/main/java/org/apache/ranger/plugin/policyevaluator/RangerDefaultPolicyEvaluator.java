@@ -44,6 +44,8 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -1413,8 +1415,10 @@ private boolean matchPolicyCustomConditions(RangerAccessRequest request) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchPolicyCustomConditions(policyId=" + getPolicyId() + ",policyConditionType=" + conditionType + ")");
                 }
 
+                long    startTime           = RangerLatencyMetrics.start();
                 boolean conditionEvalResult = conditionEvaluator.isMatched(request);
 
+                RangerLatencyMetrics.record(Stage.CONDITIONS, startTime);
                 RangerPerfTracer.log(perf);
 
                 if (!conditionEvalResult) {
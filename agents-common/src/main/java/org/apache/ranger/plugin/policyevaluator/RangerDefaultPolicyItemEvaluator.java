@@ -33,6 +33,8 @@
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -208,8 +210,10 @@ public boolean matchCustomConditions(RangerAccessRequest request) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYCONDITION_REQUEST_LOG, "RangerConditionEvaluator.matchCondition(policyId=" + policyId + ",policyItemIndex=" + getPolicyItemIndex() + ",policyConditionType=" + conditionType + ")");
                 }
 
+                long    startTime           = RangerLatencyMetrics.start();
                 boolean conditionEvalResult = conditionEvaluator.isMatched(request);
 
+                RangerLatencyMetrics.record(Stage.CONDITIONS, startTime);
                 RangerPerfTracer.log(perf);
 
                 if (!conditionEvalResult) {
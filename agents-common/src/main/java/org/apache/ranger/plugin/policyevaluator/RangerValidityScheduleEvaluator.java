@@ -52,10 +52,10 @@ public class RangerValidityScheduleEvaluator {
 
     public static final ThreadLocal<DateFormat> DATE_FORMATTER = ThreadLocal.withInitial(() -> new SimpleDateFormat(RangerValiditySchedule.VALIDITY_SCHEDULE_DATE_STRING_SPECIFICATION));
 
-    private final Date                            startTime;
-    private final Date                            endTime;
-    private final String                          timeZone;
-    private final List<RangerRecurrenceEvaluator> recurrenceEvaluators = new ArrayList<>();
+    private final    List<RangerRecurrenceEvaluator> recurrenceEvaluators = new ArrayList<>();
+    private final    long                            startTimeInMSs;  // adjusted to the schedule's timeZone; 0 if not specified
+    private final    long                            endTimeInMSs;    // adjusted to the schedule's timeZone; 0 if not specified
+    private volatile ApplicableWindow                applicableWindow;
 
     public RangerValidityScheduleEvaluator(@Nonnull RangerValiditySchedule validitySchedule) {
         this(validitySchedule.getStartTime(), validitySchedule.getEndTime(), validitySchedule.getTimeZone(), validitySchedule.getRecurrences());
@@ -81,15 +81,16 @@ public RangerValidityScheduleEvaluator(String startTimeStr, String endTimeStr, S
             }
         }
 
-        this.startTime = startTime;
-        this.endTime   = endTime;
-        this.timeZone  = StringUtils.isNotBlank(timeZone) ? timeZone : "GMT";
-
         if (CollectionUtils.isNotEmpty(recurrences)) {
             for (RangerValidityRecurrence recurrence : recurrences) {
                 recurrenceEvaluators.add(new RangerRecurrenceEvaluator(recurrence));
             }
         }
+
+        TimeZone targetTZ = TimeZone.getTimeZone(StringUtils.isNotBlank(timeZone) ? timeZone : "GMT");
+
+        this.startTimeInMSs = startTime == null ? 0 : getAdjustedTime(startTime.getTime(), targetTZ);
+        this.endTimeInMSs   = endTime == null ? 0 : getAdjustedTime(endTime.getTime(), targetTZ);
     }
 
     public static long getAdjustedTime(long localTime, TimeZone timeZone) {
@@ -120,55 +121,118 @@ public static long getAdjustedTime(long localTime, TimeZone timeZone) {
         return ret;
     }
 
+    /*
+     * The result is looked up in the window computed by an earlier call, i.e. the period around the earlier access-time
+     * during which the result stays the same; the window is recomputed only when accessTime falls outside of it. Hence
+     * the schedule is evaluated once per transition for most schedules, and at most once per minute for recurrences
+     * that are currently inactive.
+     */
     public boolean isApplicable(long accessTime) {
         LOG.debug("===> isApplicable(accessTime={})", accessTime);
 
-        boolean          ret  = false;
-        RangerPerfTracer perf = null;
+        ApplicableWindow window = applicableWindow;
+
+        if (window == null || !window.contains(accessTime)) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerValidityScheduleEvaluator.isApplicable(accessTime=" + accessTime + ")");
+            }
+
+            window           = computeApplicableWindow(accessTime);
+            applicableWindow = window;
 
-        if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
-            perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerValidityScheduleEvaluator.isApplicable(accessTime=" + accessTime + ")");
+            RangerPerfTracer.log(perf);
         }
 
-        long startTimeInMSs = startTime == null ? 0 : startTime.getTime();
-        long endTimeInMSs   = endTime == null ? 0 : endTime.getTime();
+        boolean ret = window.isApplicable;
 
-        if (StringUtils.isNotBlank(timeZone)) {
-            TimeZone targetTZ = TimeZone.getTimeZone(timeZone);
+        LOG.debug("<=== isApplicable(accessTime={}) :{}", accessTime, ret);
 
-            if (startTimeInMSs > 0) {
-                startTimeInMSs = getAdjustedTime(startTimeInMSs, targetTZ);
-            }
+        return ret;
+    }
 
-            if (endTimeInMSs > 0) {
-                endTimeInMSs = getAdjustedTime(endTimeInMSs, targetTZ);
-            }
+    /**
+     * @return time of the next change in the result of isApplicable() after accessTime; Long.MAX_VALUE if the result
+     * doesn't change after accessTime. For recurrences that are not active at accessTime, this can be earlier than the
+     * actual transition.
+     */
+    public long getNextTransitionTime(long accessTime) {
+        ApplicableWindow window = applicableWindow;
+
+        if (window == null || !window.contains(accessTime)) {
+            window           = computeApplicableWindow(accessTime);
+            applicableWindow = window;
         }
 
-        if ((startTimeInMSs == 0 || accessTime >= startTimeInMSs) && (endTimeInMSs == 0 || accessTime <= endTimeInMSs)) {
+        return window.until;
+    }
+
+    private ApplicableWindow computeApplicableWindow(long accessTime) {
+        final ApplicableWindow ret;
+
+        if (startTimeInMSs > 0 && accessTime < startTimeInMSs) {
+            ret = new ApplicableWindow(Long.MIN_VALUE, startTimeInMSs, false);
+        } else if (endTimeInMSs > 0 && accessTime > endTimeInMSs) {
+            ret = new ApplicableWindow(endTimeInMSs + 1, Long.MAX_VALUE, false);
+        } else {
+            ApplicableWindow validityPeriod = new ApplicableWindow(startTimeInMSs > 0 ? startTimeInMSs : Long.MIN_VALUE, endTimeInMSs > 0 ? endTimeInMSs + 1 : Long.MAX_VALUE, true);
+
             if (CollectionUtils.isEmpty(recurrenceEvaluators)) {
-                ret = true;
+                ret = validityPeriod;
             } else {
-                Calendar now = new GregorianCalendar();
+                Calendar         now            = new GregorianCalendar();
+                ApplicableWindow activeWindow   = null;
+                ApplicableWindow inactiveWindow = validityPeriod;
+
                 now.setTime(new Date(accessTime));
 
                 for (RangerRecurrenceEvaluator recurrenceEvaluator : recurrenceEvaluators) {
-                    ret = recurrenceEvaluator.isApplicable(now);
+                    ApplicableWindow window = recurrenceEvaluator.getApplicableWindow(now);
 
-                    if (ret) {
-                        break;
+                    if (window.isApplicable) {
+                        if (activeWindow == null || window.until > activeWindow.until) {
+                            activeWindow = window;
+                        }
+                    } else {
+                        inactiveWindow = inactiveWindow.intersect(window, false);
                     }
                 }
+
+                ret = activeWindow != null ? validityPeriod.intersect(activeWindow, true) : inactiveWindow;
             }
         }
 
-        RangerPerfTracer.log(perf);
-
-        LOG.debug("<=== isApplicable(accessTime={}) :{}", accessTime, ret);
+        LOG.debug("computeApplicableWindow(accessTime={}): {}", accessTime, ret);
 
         return ret;
     }
 
+    static final class ApplicableWindow {
+        final long    from;
+        final long    until;
+        final boolean isApplicable;
+
+        ApplicableWindow(long from, long until, boolean isApplicable) {
+            this.from         = from;
+            this.until        = until;
+            this.isApplicable = isApplicable;
+        }
+
+        boolean contains(long time) {
+            return time >= from && time < until;
+        }
+
+        ApplicableWindow intersect(ApplicableWindow other, boolean isApplicable) {
+            return new ApplicableWindow(Math.max(from, other.from), Math.min(until, other.until), isApplicable);
+        }
+
+        @Override
+        public String toString() {
+            return "{from=" + from + ", until=" + until + ", isApplicable=" + isApplicable + "}";
+        }
+    }
+
     static class RangerRecurrenceEvaluator {
         private final List<ScheduledTimeMatcher> minutes     = new ArrayList<>();
         private final List<ScheduledTimeMatcher> hours       = new ArrayList<>();
@@ -197,13 +261,23 @@ public RangerRecurrenceEvaluator(RangerValidityRecurrence recurrence) {
         }
 
         public boolean isApplicable(Calendar now) {
-            boolean          ret  = false;
+            return getApplicableWindow(now).isApplicable;
+        }
+
+        /*
+         * Within an interval, the result is true until the end of the interval. Outside of an interval, the result is
+         * false at least until the next minute, as intervals start only at a minute boundary.
+         */
+        ApplicableWindow getApplicableWindow(Calendar now) {
+            ApplicableWindow ret;
             RangerPerfTracer perf = null;
 
             if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerRecurrenceEvaluator.isApplicable(accessTime=" + now.getTime().getTime() + ")");
             }
 
+            long accessTime = now.getTimeInMillis();
+
             if (recurrence != null && intervalInMinutes > 0) { // recurring schedule
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Access-Time:[{}]", now.getTime());
@@ -228,16 +302,37 @@ public boolean isApplicable(Calendar now) {
                         LOG.debug("End-of-Interval:[{}]", endOfInterval.getTime());
                     }
 
-                    ret = startOfInterval.compareTo(now) <= 0 && endOfInterval.compareTo(now) >= 0;
+                    long startOfIntervalInMSs = startOfInterval.getTimeInMillis();
+                    long endOfIntervalInMSs   = endOfInterval.getTimeInMillis();
+
+                    if (startOfIntervalInMSs <= accessTime && accessTime <= endOfIntervalInMSs) {
+                        ret = new ApplicableWindow(startOfIntervalInMSs, endOfIntervalInMSs + 1, true);
+                    } else if (accessTime > endOfIntervalInMSs) {
+                        ret = new ApplicableWindow(endOfIntervalInMSs + 1, getNextMinute(now), false);
+                    } else {
+                        ret = new ApplicableWindow(accessTime, getNextMinute(now), false);
+                    }
+                } else {
+                    ret = new ApplicableWindow(accessTime, getNextMinute(now), false);
                 }
             } else {
-                ret = true;
+                ret = new ApplicableWindow(Long.MIN_VALUE, Long.MAX_VALUE, true);
             }
 
             RangerPerfTracer.log(perf);
             return ret;
         }
 
+        private static long getNextMinute(Calendar now) {
+            Calendar ret = (Calendar) now.clone();
+
+            ret.set(Calendar.SECOND, 0);
+            ret.set(Calendar.MILLISECOND, 0);
+            ret.add(Calendar.MINUTE, 1);
+
+            return ret.getTimeInMillis();
+        }
+
         private void addScheduledTime(RangerValidityRecurrence.RecurrenceSchedule.ScheduleFieldSpec fieldSpec, List<ScheduledTimeMatcher> list) {
             final String  str     = recurrence.getSchedule().getFieldValue(fieldSpec);
             final boolean isMonth = fieldSpec == RangerValidityRecurrence.RecurrenceSchedule.ScheduleFieldSpec.month;
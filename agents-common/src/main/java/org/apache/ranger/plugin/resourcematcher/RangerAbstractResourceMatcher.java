@@ -20,7 +20,6 @@
 package org.apache.ranger.plugin.resourcematcher;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
@@ -626,7 +625,9 @@ static final class CaseSensitiveWildcardMatcher extends AbstractStringResourceMa
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.SENSITIVE);
+            WildcardPattern pattern = getWildcardPattern(evalContext, true);
+
+            return pattern != null && pattern.isMatch(resourceValue);
         }
 
         @Override
@@ -646,7 +647,9 @@ static final class CaseInsensitiveWildcardMatcher extends AbstractStringResource
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), IOCase.INSENSITIVE);
+            WildcardPattern pattern = getWildcardPattern(evalContext, false);
+
+            return pattern != null && pattern.isMatch(resourceValue);
         }
 
         @Override
@@ -670,9 +673,9 @@ static final class QuotedCaseSensitiveWildcardMatcher extends AbstractStringReso
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
-            IOCase caseSensitivity = startsWithAnyChar(resourceValue, quoteChars) ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+            WildcardPattern pattern = getWildcardPattern(evalContext, startsWithAnyChar(resourceValue, quoteChars));
 
-            return FilenameUtils.wildcardMatch(resourceValue, getExpandedValue(evalContext), caseSensitivity);
+            return pattern != null && pattern.isMatch(resourceValue);
         }
 
         @Override
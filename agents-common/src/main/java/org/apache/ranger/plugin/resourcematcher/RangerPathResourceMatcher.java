@@ -184,7 +184,7 @@ ResourceMatcher getMatcher(String policyValue) {
         final ResourceMatcher ret;
 
         if (isWildcardPresent) {
-            ret = new RecursiveWildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, RangerPathResourceMatcher::isRecursiveWildCardMatch, optIgnoreCase ? 8 : 7);
+            ret = new RecursiveWildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, optIgnoreCase ? 8 : 7);
         } else {
             ret = new RecursivePathResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, optIgnoreCase ? 8 : 7);
         }
@@ -253,14 +253,14 @@ private ResourceMatcher getPathMatcher(String policyValue) {
         }
 
         if (needWildcardMatch) { // test?, test*a*, test*a*b, *test*a
-            ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, FilenameUtils::wildcardMatch, 6);
+            ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, 6);
         } else if (wildcardStartIdx == -1) { // test, testa, testab
             ret = new PathResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase ? StringUtils::equalsIgnoreCase : StringUtils::equals, !optIgnoreCase, optIgnoreCase ? 2 : 1);
         } else if (wildcardStartIdx == 0) { // *test, **test, *testa, *testab
             String matchStr = policyValue.substring(wildcardEndIdx + 1);
             ret = new PathEndsWithResourceMatcher(matchStr, getOptions(), pathSeparatorChar, !optIgnoreCase, optIgnoreCase ? 4 : 3);
         } else if (wildcardEndIdx != (len - 1)) { // test*a, test*ab
-            ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, FilenameUtils::wildcardMatch, 6);
+            ret = new WildcardResourceMatcher(policyValue, getOptions(), pathSeparatorChar, optIgnoreCase, 6);
         } else { // test*, test**, testa*, testab*
             String matchStr = policyValue.substring(0, wildcardStartIdx);
             ret = new PathStartsWithResourceMatcher(matchStr, getOptions(), pathSeparatorChar, !optIgnoreCase, optIgnoreCase ? 4 : 3);
@@ -273,18 +273,6 @@ private ResourceMatcher getPathMatcher(String policyValue) {
         return ret;
     }
 
-    interface TriFunction<T, U, V, R> {
-        R apply(T t, U u, V v);
-    }
-
-    interface QuadFunction<T, U, V, W, R> {
-        R apply(T t, U u, V v, W w);
-    }
-
-    interface QuintFunction<T, U, V, W, R, X> {
-        R apply(T t, U u, V v, W w, X x);
-    }
-
     abstract static class AbstractPathResourceMatcher extends ResourceMatcher {
         final char    pathSeparatorChar;
         final int     priority;
@@ -468,24 +456,22 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
     }
 
     static class WildcardResourceMatcher extends AbstractPathResourceMatcher {
-        final TriFunction<String, String, IOCase, Boolean> function;
-        final IOCase                                       ioCase;
+        final IOCase ioCase;
 
-        WildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, TriFunction<String, String, IOCase, Boolean> function, int priority) {
+        WildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, int priority) {
             super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-            this.function = function;
-            this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
+            this.ioCase = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
         }
 
         @Override
         public boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> WildcardResourceMatcher.isMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String  expandedValue = getExpandedValue(evalContext);
-            boolean ret           = function.apply(resourceValue, expandedValue, ioCase);
+            WildcardPattern pattern = getWildcardPattern(evalContext, isCaseSensitive);
+            boolean         ret     = pattern != null && pattern.isMatch(resourceValue);
 
-            LOG.debug("<== WildcardResourceMatcher.isMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
+            LOG.debug("<== WildcardResourceMatcher.isMatch(resourceValue={}, pattern={}) : result:[{}]", resourceValue, pattern, ret);
 
             return ret;
         }
@@ -515,7 +501,7 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
                     resourceValue = resourceValue.substring(0, resourceValue.length() - 1);
                 }
 
-                ret = function.apply(resourceValue, shorterExpandedValue, ioCase);
+                ret = WildcardPattern.compile(shorterExpandedValue, isCaseSensitive).isMatch(resourceValue);
             }
 
             return ret;
@@ -523,37 +509,22 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
     }
 
     static class RecursiveWildcardResourceMatcher extends AbstractPathResourceMatcher {
-        final QuintFunction<String, String, Character, IOCase, Boolean, String[]> function;
-        final IOCase                                                              ioCase;
-        String[] wildcardPathElements;
+        final IOCase ioCase;
 
-        RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, QuintFunction<String, String, Character, IOCase, Boolean, String[]> function, int priority) {
+        RecursiveWildcardResourceMatcher(String value, Map<String, String> options, char pathSeparatorChar, boolean optIgnoreCase, int priority) {
             super(value, options, pathSeparatorChar, !optIgnoreCase, priority);
 
-            this.function = function;
-            this.ioCase   = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
-
-            if (!getNeedsDynamicEval()) {
-                wildcardPathElements = StringUtils.split(value, pathSeparatorChar);
-            }
+            this.ioCase = optIgnoreCase ? IOCase.INSENSITIVE : IOCase.SENSITIVE;
         }
 
         @Override
         boolean isMatch(String resourceValue, Map<String, Object> evalContext) {
             LOG.debug("==> RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, evalContext={})", resourceValue, evalContext);
 
-            String expandedValue;
-
-            if (getNeedsDynamicEval()) {
-                expandedValue        = getExpandedValue(evalContext);
-                wildcardPathElements = StringUtils.split(expandedValue, pathSeparatorChar);
-            } else {
-                expandedValue = value;
-            }
-
-            boolean ret = function.apply(resourceValue, expandedValue, pathSeparatorChar, ioCase, wildcardPathElements);
+            WildcardPattern pattern = getWildcardPattern(evalContext, isCaseSensitive);
+            boolean         ret     = pattern != null && pattern.isRecursiveMatch(resourceValue, pathSeparatorChar);
 
-            LOG.debug("<== RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, expandedValue={}) : result:[{}]", resourceValue, expandedValue, ret);
+            LOG.debug("<== RecursiveWildcardResourceMatcher.isMatch(resourceValue={}, pattern={}) : result:[{}]", resourceValue, pattern, ret);
 
             return ret;
         }
@@ -583,9 +554,7 @@ public boolean isChildMatch(String resourceValue, Map<String, Object> evalContex
                     resourceValue = resourceValue.substring(0, resourceValue.length() - 1);
                 }
 
-                String[] shorterWildCardPathElements = StringUtils.split(shorterExpandedValue, pathSeparatorChar);
-
-                ret = function.apply(resourceValue, shorterExpandedValue, pathSeparatorChar, ioCase, shorterWildCardPathElements);
+                ret = WildcardPattern.compile(shorterExpandedValue, isCaseSensitive).isRecursiveMatch(resourceValue, pathSeparatorChar);
             }
 
             return ret;
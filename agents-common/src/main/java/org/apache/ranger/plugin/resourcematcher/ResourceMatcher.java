@@ -44,6 +44,8 @@ abstract class ResourceMatcher {
     protected final      String                    value;
     protected final      RangerRequestExprResolver exprResolver;
     protected            StringTokenReplacer       tokenReplacer;
+    private              WildcardPattern           caseSensitivePattern;
+    private              WildcardPattern           caseInsensitivePattern;
 
     ResourceMatcher(String value, Map<String, String> options) {
         this.value = value;
@@ -288,6 +290,29 @@ String getExpandedValue(Map<String, Object> evalContext) {
         return ret;
     }
 
+    // values that don't need dynamic evaluation are compiled once; others are looked up in patterns shared by all matchers
+    WildcardPattern getWildcardPattern(Map<String, Object> evalContext, boolean isCaseSensitive) {
+        final WildcardPattern ret;
+
+        if (getNeedsDynamicEval()) {
+            ret = WildcardPattern.compile(getExpandedValue(evalContext), isCaseSensitive);
+        } else if (isCaseSensitive) {
+            if (caseSensitivePattern == null) {
+                caseSensitivePattern = WildcardPattern.compile(value, true);
+            }
+
+            ret = caseSensitivePattern;
+        } else {
+            if (caseInsensitivePattern == null) {
+                caseInsensitivePattern = WildcardPattern.compile(value, false);
+            }
+
+            ret = caseInsensitivePattern;
+        }
+
+        return ret;
+    }
+
     public static class PriorityComparator implements Comparator<ResourceMatcher>, Serializable {
         @Override
         public int compare(ResourceMatcher me, ResourceMatcher other) {
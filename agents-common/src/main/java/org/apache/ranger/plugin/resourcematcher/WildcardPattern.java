@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A wildcard pattern, with '*' and '?' as in FilenameUtils.wildcardMatch(), compiled into a bit-parallel NFA: bit i of
+ * the state is set when the first i tokens of the pattern have matched the input seen so far. A match walks the input
+ * once, without allocating; patterns having more tokens than the bits in a long fall back to FilenameUtils.
+ *
+ * Compiled patterns are immutable and are shared by all resource-matchers through compile(). The cache of compiled
+ * patterns is looked up without a lock; when it is full, patterns that were not used since the previous sweep are
+ * evicted (second-chance/clock). Masks are kept only for the chars that occur in the pattern.
+ */
+final class WildcardPattern {
+    static final int MAX_CACHED_PATTERNS = 8 * 1024;
+
+    private static final int MAX_TOKENS = Long.SIZE - 1;
+
+    private static final PatternCache CASE_SENSITIVE_PATTERNS   = new PatternCache(true);
+    private static final PatternCache CASE_INSENSITIVE_PATTERNS = new PatternCache(false);
+
+    private final String  pattern;
+    private final boolean isCaseSensitive;
+    private final char[]  tokens;       // pattern with consecutive '*' collapsed; null when the pattern is too long for the NFA
+    private final char[]  patternChars; // sorted distinct chars of the pattern, case-folded if case-insensitive
+    private final long[]  charMasks;    // for each char in patternChars: tokens that match the char, and tokens that are '?'
+    private final long    anyCharMask;  // tokens that are '?'
+    private final long    starMask;     // tokens that are '*'
+    private final long    initialState;
+    private final long    finalState;
+
+    private volatile boolean isUsed; // used since the previous sweep of the cache; not part of the compiled pattern
+
+    private WildcardPattern(String pattern, boolean isCaseSensitive) {
+        this.pattern         = pattern;
+        this.isCaseSensitive = isCaseSensitive;
+
+        char[] tokens    = new char[pattern.length()];
+        int    numTokens = 0;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char    c              = pattern.charAt(i);
+            boolean isPrevCharStar = numTokens > 0 && tokens[numTokens - 1] == '*';
+
+            if (c == '*') {
+                if (!isPrevCharStar) {
+                    tokens[numTokens++] = c;
+                }
+            } else {
+                // FilenameUtils.wildcardMatch() ignores '*' that is followed by '?': "*?" matches exactly one character
+                if (c == '?' && isPrevCharStar) {
+                    numTokens--;
+                }
+
+                tokens[numTokens++] = c;
+            }
+        }
+
+        if (numTokens <= MAX_TOKENS) {
+            long   anyCharMask     = 0;
+            long   starMask        = 0;
+            char[] patternChars    = new char[numTokens];
+            int    numPatternChars = 0;
+
+            for (int i = 0; i < numTokens; i++) {
+                if (tokens[i] == '*') {
+                    starMask |= (1L << i);
+                } else if (tokens[i] == '?') {
+                    anyCharMask |= (1L << i);
+                } else {
+                    patternChars[numPatternChars++] = foldCase(tokens[i]);
+                }
+            }
+
+            Arrays.sort(patternChars, 0, numPatternChars);
+
+            int numDistinctChars = 0;
+
+            for (int i = 0; i < numPatternChars; i++) {
+                if (numDistinctChars == 0 || patternChars[numDistinctChars - 1] != patternChars[i]) {
+                    patternChars[numDistinctChars++] = patternChars[i];
+                }
+            }
+
+            patternChars = Arrays.copyOf(patternChars, numDistinctChars);
+
+            long[] charMasks = new long[numDistinctChars];
+
+            Arrays.fill(charMasks, anyCharMask);
+
+            for (int i = 0; i < numTokens; i++) {
+                if (tokens[i] != '*' && tokens[i] != '?') {
+                    charMasks[Arrays.binarySearch(patternChars, foldCase(tokens[i]))] |= (1L << i);
+                }
+            }
+
+            this.tokens       = Arrays.copyOf(tokens, numTokens);
+            this.patternChars = patternChars;
+            this.charMasks    = charMasks;
+            this.anyCharMask  = anyCharMask;
+            this.starMask     = starMask;
+            this.initialState = closure(1L);
+            this.finalState   = 1L << numTokens;
+        } else {
+            this.tokens       = null;
+            this.patternChars = null;
+            this.charMasks    = null;
+            this.anyCharMask  = 0;
+            this.starMask     = 0;
+            this.initialState = 0;
+            this.finalState   = 0;
+        }
+    }
+
+    static WildcardPattern compile(String pattern, boolean isCaseSensitive) {
+        if (pattern == null) {
+            return null;
+        }
+
+        return isCaseSensitive ? CASE_SENSITIVE_PATTERNS.get(pattern) : CASE_INSENSITIVE_PATTERNS.get(pattern);
+    }
+
+    static int getCachedPatternCount(boolean isCaseSensitive) {
+        return isCaseSensitive ? CASE_SENSITIVE_PATTERNS.size() : CASE_INSENSITIVE_PATTERNS.size();
+    }
+
+    String getPattern() {
+        return pattern;
+    }
+
+    boolean isMatch(String value) {
+        if (value == null) {
+            return false;
+        } else if (tokens == null) {
+            return FilenameUtils.wildcardMatch(value, pattern, getIOCase());
+        }
+
+        long state = initialState;
+
+        for (int i = 0; i < value.length() && state != 0; i++) {
+            state = step(state, value.charAt(i));
+        }
+
+        return (state & finalState) != 0;
+    }
+
+    /*
+     * Same result as RangerPathResourceMatcher.isRecursiveWildCardMatch(): true if the path, or one of its ancestors, matches
+     * this pattern. Path elements are fed to the NFA once, and the match is checked at the end of each element.
+     */
+    boolean isRecursiveMatch(String path, char separatorChar) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        } else if (tokens == null) {
+            return RangerPathResourceMatcher.isRecursiveWildCardMatch(path, pattern, separatorChar, getIOCase(), StringUtils.split(pattern, separatorChar));
+        }
+
+        final int pathLen           = path.length();
+        final int patternLen        = pattern.length();
+        long      state             = initialState;
+        int       pathIdx           = 0;
+        int       patternIdx        = 0;
+        int       elementCount      = 0;
+        boolean   useStringMatching = true; // while leading elements of the pattern have no wildcard, they are compared as strings
+
+        if (path.charAt(0) == separatorChar) {
+            state = step(state, separatorChar); // preserve the initial separator
+        }
+
+        while (true) {
+            while (pathIdx < pathLen && path.charAt(pathIdx) == separatorChar) {
+                pathIdx++;
+            }
+
+            if (pathIdx == pathLen) {
+                break;
+            }
+
+            final int elementStart = pathIdx;
+
+            while (pathIdx < pathLen && path.charAt(pathIdx) != separatorChar) {
+                pathIdx++;
+            }
+
+            if (elementCount > 0) {
+                state = step(state, separatorChar);
+            }
+
+            for (int i = elementStart; i < pathIdx; i++) {
+                state = step(state, path.charAt(i));
+            }
+
+            elementCount++;
+
+            if (useStringMatching) {
+                while (patternIdx < patternLen && pattern.charAt(patternIdx) == separatorChar) {
+                    patternIdx++;
+                }
+
+                if (patternIdx < patternLen) {
+                    final int patternElementStart = patternIdx;
+                    boolean   hasWildcard         = false;
+
+                    while (patternIdx < patternLen && pattern.charAt(patternIdx) != separatorChar) {
+                        char c = pattern.charAt(patternIdx++);
+
+                        if (c == '*' || c == '?') {
+                            hasWildcard = true;
+                        }
+                    }
+
+                    if (hasWildcard) {
+                        useStringMatching = false;
+                    } else {
+                        final int elementLen = pathIdx - elementStart;
+
+                        if (elementLen != (patternIdx - patternElementStart) || !path.regionMatches(!isCaseSensitive, elementStart, pattern, patternElementStart, elementLen)) {
+                            return false;
+                        }
+                    }
+                } else {
+                    useStringMatching = false;
+                }
+            }
+
+            if (!useStringMatching) {
+                if ((state & finalState) != 0) {
+                    return true;
+                } else if (state == 0) {
+                    return false;
+                }
+            }
+        }
+
+        if (elementCount == 0) { // path consists of only separatorChar
+            return isMatch(path);
+        } else if (!useStringMatching) {
+            return false;
+        }
+
+        // all path elements matched the leading pattern elements as strings
+        while (patternIdx < patternLen && pattern.charAt(patternIdx) == separatorChar) {
+            patternIdx++;
+        }
+
+        if (patternIdx == patternLen) {
+            return true;
+        } else if (path.charAt(pathLen - 1) == separatorChar) { // path ends with separator, like /home/; matches /home/*
+            if (pattern.charAt(patternIdx++) != '*') {
+                return false;
+            }
+
+            while (patternIdx < patternLen && pattern.charAt(patternIdx) == separatorChar) {
+                patternIdx++;
+            }
+
+            return patternIdx == patternLen;
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "WildcardPattern={pattern=" + pattern + ", isCaseSensitive=" + isCaseSensitive + ", isCompiled=" + (tokens != null) + "}";
+    }
+
+    private long step(long state, char c) {
+        final int  idx      = Arrays.binarySearch(patternChars, foldCase(c));
+        final long charMask = idx >= 0 ? charMasks[idx] : anyCharMask;
+
+        return closure(((state & charMask) << 1) | (state & starMask));
+    }
+
+    // '*' matches an empty string as well; consecutive '*' are collapsed, hence a single shift is sufficient
+    private long closure(long state) {
+        return state | ((state & starMask) << 1);
+    }
+
+    /*
+     * Chars that are equal in the comparison done by String.regionMatches(), used by FilenameUtils.wildcardMatch(),
+     * fold to the same char: when ignoring case, c1 and c2 match if their upper-case, or lower-case of upper-case, are equal
+     */
+    private char foldCase(char c) {
+        return isCaseSensitive ? c : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private IOCase getIOCase() {
+        return isCaseSensitive ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+    }
+
+    private static final class PatternCache {
+        private final ConcurrentMap<String, WildcardPattern> patterns     = new ConcurrentHashMap<>();
+        private final ReentrantLock                          evictionLock = new ReentrantLock();
+        private final boolean                                isCaseSensitive;
+
+        PatternCache(boolean isCaseSensitive) {
+            this.isCaseSensitive = isCaseSensitive;
+        }
+
+        WildcardPattern get(String pattern) {
+            WildcardPattern ret = patterns.get(pattern);
+
+            if (ret == null) {
+                // values expanded from macros can be unique per request; unused patterns are evicted
+                ret = new WildcardPattern(pattern, isCaseSensitive);
+
+                ret.isUsed = true; // so that the sweep triggered by this insert doesn't evict it
+
+                WildcardPattern existing = patterns.putIfAbsent(pattern, ret);
+
+                if (existing != null) {
+                    ret = existing;
+                } else if (patterns.size() > MAX_CACHED_PATTERNS) {
+                    evictPatterns();
+                }
+            } else if (!ret.isUsed) { // write only when not set already, to avoid contention on shared patterns
+                ret.isUsed = true;
+            }
+
+            return ret;
+        }
+
+        int size() {
+            return patterns.size();
+        }
+
+        // second-chance eviction; only one thread sweeps at a time, others continue without waiting
+        private void evictPatterns() {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+
+            try {
+                for (int pass = 0; pass < 2 && patterns.size() > MAX_CACHED_PATTERNS; pass++) {
+                    Iterator<Map.Entry<String, WildcardPattern>> iter = patterns.entrySet().iterator();
+
+                    while (iter.hasNext() && patterns.size() > MAX_CACHED_PATTERNS) {
+                        WildcardPattern pattern = iter.next().getValue();
+
+                        if (pass == 0 && pattern.isUsed) {
+                            pattern.isUsed = false;
+                        } else {
+                            iter.remove();
+                        }
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+}
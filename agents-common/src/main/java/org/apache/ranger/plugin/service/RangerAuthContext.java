@@ -42,8 +42,13 @@ public class RangerAuthContext {
     private       RangerUserStoreUtil                userStoreUtil;
 
     public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerSecurityZoneMatcher zoneMatcher, RangerRoles roles, RangerUserStore userStore) {
+        this(requestContextEnrichers, zoneMatcher, roles, userStore, null);
+    }
+
+    public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerSecurityZoneMatcher zoneMatcher, RangerRoles roles, RangerUserStore userStore, RangerRolesUtil prevRolesUtil) {
         this.requestContextEnrichers = requestContextEnrichers != null ? requestContextEnrichers : new ConcurrentHashMap<>();
         this.zoneMatcher             = zoneMatcher;
+        this.rolesUtil               = prevRolesUtil;
 
         setRoles(roles);
         setUserStore(userStore);
@@ -72,7 +77,11 @@ public void cleanupRequestContextEnricher(RangerContextEnricher enricher) {
     }
 
     public void setRoles(RangerRoles roles) {
-        this.rolesUtil = new RangerRolesUtil(roles);
+        RangerRolesUtil prevRolesUtil = this.rolesUtil;
+
+        if (prevRolesUtil == null || roles == null || prevRolesUtil.getRoles() != roles) {
+            this.rolesUtil = new RangerRolesUtil(roles, prevRolesUtil);
+        }
     }
 
     public Set<String> getRolesForUserAndGroups(String user, Set<String> groups) {
@@ -31,6 +31,7 @@
 import org.apache.ranger.audit.provider.StandAloneAuditProviderFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerAuditConfig;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.plugin.contextenricher.RangerAdminGdsInfoRetriever;
 import org.apache.ranger.plugin.contextenricher.RangerAdminUserStoreRetriever;
@@ -42,11 +43,14 @@
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerPathPrefixChain;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
@@ -55,12 +59,15 @@
 import org.apache.ranger.plugin.policyengine.RangerResourceAccessInfo;
 import org.apache.ranger.plugin.policyengine.gds.GdsPolicyEngine;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.apache.ranger.plugin.util.PolicyRefresher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
@@ -81,6 +88,7 @@
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -118,6 +126,8 @@ public RangerBasePlugin(RangerPluginConfig pluginConfig) {
         boolean usePerfDataRecorder  = pluginConfig.getBoolean("ranger.perf.aggregate.data", false);
         int     perfDataDumpInterval = pluginConfig.getInt("ranger.perf.aggregate.data.dump.interval", 0);
         boolean usePerfDataLock      = pluginConfig.getBoolean("ranger.perf.aggregate.data.lock.enabled", false);
+        boolean useLatencyHistograms = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".perf.latency.histograms.enabled", true);
+        boolean useLatencyJmx        = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".perf.latency.histograms.jmx.enabled", true);
         String  nullSafeSupplier     = pluginConfig.get(pluginConfig.getPropertyPrefix() + ".null_safe.supplier", RangerBaseModelObject.NULL_SAFE_SUPPLIER_V2);
 
         LOG.info("{}.null_safe.supplier={}", pluginConfig.getPropertyPrefix(), nullSafeSupplier);
@@ -126,6 +136,12 @@ public RangerBasePlugin(RangerPluginConfig pluginConfig) {
 
         PerfDataRecorder.initialize(usePerfDataRecorder, perfDataDumpInterval, usePerfDataLock, null);
 
+        RangerLatencyMetrics.enableForPlugin(useLatencyHistograms);
+
+        if (useLatencyHistograms && useLatencyJmx) {
+            RangerLatencyMetrics.registerMBeans();
+        }
+
         Set<String> superUsers         = toSet(pluginConfig.get(pluginConfig.getPropertyPrefix() + ".super.users"));
         Set<String> superGroups        = toSet(pluginConfig.get(pluginConfig.getPropertyPrefix() + ".super.groups"));
         Set<String> auditExcludeUsers  = toSet(pluginConfig.get(pluginConfig.getPropertyPrefix() + ".audit.exclude.users"));
@@ -734,6 +750,59 @@ public Collection<RangerAccessResult> isAccessAllowed(Collection<RangerAccessReq
         return ret;
     }
 
+    /**
+     * Evaluates the request for each prefix of the path in resource element resourceName, ex: for /a/b/c the request
+     * is evaluated for /, /a, /a/b and /a/b/c. All prefixes are evaluated in a single call to the policy-engine, hence
+     * with a consistent set of policies/tags/roles; policies likely to match any of the prefixes are found in a single
+     * walk of the resource-trie, instead of a separate lookup for each prefix.
+     *
+     * @param request request for the full path; must not have been evaluated already. Prefixes other than the full
+     *                path are evaluated for traversal i.e. execute access, with context entries of this request
+     *                copied. Owner of the resource is used only for the full path, as owners of ancestors are not
+     *                known here
+     * @param resourceName name of the path resource element, like "path"
+     * @param resultProcessor processes only the result for the full path; results of other prefixes are not audited
+     * @return results in the order of the prefixes, from the root to the full path
+     */
+    public List<RangerAccessResult> isAccessAllowedForPathPrefixes(RangerAccessRequest request, String resourceName, RangerAccessResultProcessor resultProcessor) {
+        LOG.debug("==> RangerBasePlugin.isAccessAllowedForPathPrefixes({}, {})", request, resourceName);
+
+        List<RangerAccessRequest> requests = new ArrayList<>();
+        RangerAccessResource      resource = request.getResource();
+        Object                    value    = resource != null ? resource.getValue(resourceName) : null;
+
+        if (value instanceof String && !((String) value).isEmpty()) {
+            String                path          = (String) value;
+            char                  separatorChar = getPathSeparatorChar(resourceName);
+            RangerPathPrefixChain prefixChain   = new RangerPathPrefixChain(resourceName, path);
+
+            for (int idx = path.indexOf(separatorChar); idx != -1 && idx < path.length() - 1; idx = path.indexOf(separatorChar, idx + 1)) {
+                String prefix = idx == 0 ? path.substring(0, 1) : path.substring(0, idx);
+
+                requests.add(getRequestForPathPrefix(request, resourceName, prefix, prefixChain));
+            }
+
+            if (!requests.isEmpty()) {
+                RangerAccessRequestUtil.setPathPrefixChainInContext(request.getContext(), prefixChain);
+            }
+        }
+
+        requests.add(request);
+
+        Collection<RangerAccessResult> results = isAccessAllowed(requests, null);
+        List<RangerAccessResult>       ret     = results != null ? new ArrayList<>(results) : new ArrayList<>();
+
+        request.getContext().remove(RangerAccessRequestUtil.KEY_CONTEXT_PATH_PREFIX_CHAIN);
+
+        if (resultProcessor != null && ret.size() == requests.size()) {
+            resultProcessor.processResult(ret.get(ret.size() - 1));
+        }
+
+        LOG.debug("<== RangerBasePlugin.isAccessAllowedForPathPrefixes({}, {}): {}", request, resourceName, ret);
+
+        return ret;
+    }
+
     public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
         RangerPolicyEngine policyEngine = this.policyEngine;
         RangerAccessResult ret          = null;
@@ -764,6 +833,47 @@ public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, Rang
         return ret;
     }
 
+    /**
+     * Evaluates data-mask policies for the given requests - like columns of a table - in a single call to the
+     * policy-engine, hence with a consistent set of policies/tags/roles and with the requests pre-processed together.
+     *
+     * @return results in the order of the requests
+     */
+    public Collection<RangerAccessResult> evalDataMaskPolicies(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
+        RangerPolicyEngine             policyEngine = this.policyEngine;
+        Collection<RangerAccessResult> ret          = null;
+
+        if (policyEngine != null) {
+            ret = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_DATAMASK, null);
+
+            if (CollectionUtils.isNotEmpty(ret)) {
+                for (RangerAccessResult result : ret) {
+                    if (result == null) {
+                        continue;
+                    }
+
+                    for (RangerChainedPlugin chainedPlugin : chainedPlugins) {
+                        RangerAccessResult chainedResult = chainedPlugin.evalDataMaskPolicies(result.getAccessRequest());
+
+                        if (chainedResult != null) {
+                            LOG.debug("chainedPlugin.evalDataMaskPolicies for service:[{}] returned result=[{}]", chainedPlugin.plugin.pluginConfig.getServiceName(), chainedResult);
+
+                            updateResultFromChainedResult(result, chainedResult);
+                        }
+                    }
+
+                    policyEngine.evaluateAuditPolicies(result);
+                }
+            }
+
+            if (resultProcessor != null) {
+                resultProcessor.processResults(ret);
+            }
+        }
+
+        return ret;
+    }
+
     public RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
         RangerPolicyEngine policyEngine = this.policyEngine;
         RangerAccessResult ret          = null;
@@ -824,6 +934,39 @@ public RangerResourceACLs getResourceACLs(RangerAccessRequest request, Integer p
             ret = policyEngine.getResourceACLs(request, policyType);
         }
 
+        return addChainedAndGdsResourceACLs(request, policyType, ret);
+    }
+
+    /**
+     * Returns ACLs of the given resources, as seen by getResourceACLs(request) with a request for any access.
+     * The policy-engine computes the ACLs of all resources in one call.
+     *
+     * @param resources  resources to get ACLs for
+     * @param policyType policy-type to get ACLs for; null for all policy-types
+     * @return ACLs of each resource
+     */
+    public Map<RangerAccessResource, RangerResourceACLs> getResourceACLs(Collection<RangerAccessResource> resources, Integer policyType) {
+        Map<RangerAccessResource, RangerResourceACLs> ret          = new LinkedHashMap<>();
+        RangerPolicyEngine                            policyEngine = this.policyEngine;
+
+        if (resources != null) {
+            Map<RangerAccessResource, RangerResourceACLs> engineACLs = policyEngine != null ? policyEngine.getResourceACLs(resources, policyType) : Collections.emptyMap();
+
+            for (RangerAccessResource resource : resources) {
+                if (!ret.containsKey(resource)) {
+                    RangerAccessRequest request = new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, null, null, null);
+
+                    ret.put(resource, addChainedAndGdsResourceACLs(request, policyType, engineACLs.get(resource)));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private RangerResourceACLs addChainedAndGdsResourceACLs(RangerAccessRequest request, Integer policyType, RangerResourceACLs baseACLs) {
+        RangerResourceACLs ret = baseACLs;
+
         for (RangerChainedPlugin chainedPlugin : chainedPlugins) {
             RangerResourceACLs chainedResourceACLs = chainedPlugin.getResourceACLs(request, policyType);
 
@@ -872,6 +1015,46 @@ public Set<String> getRolesFromUserAndGroups(String user, Set<String> groups) {
         return null;
     }
 
+    public List<RangerPolicy> getResourcePolicies() {
+        RangerPolicyEngine policyEngine = this.policyEngine;
+
+        if (policyEngine != null) {
+            return policyEngine.getResourcePolicies();
+        }
+
+        return Collections.emptyList();
+    }
+
+    public List<RangerPolicy> getResourcePolicies(String zoneName) {
+        RangerPolicyEngine policyEngine = this.policyEngine;
+
+        if (policyEngine != null) {
+            return policyEngine.getResourcePolicies(zoneName);
+        }
+
+        return Collections.emptyList();
+    }
+
+    public List<RangerPolicy> getTagPolicies() {
+        RangerPolicyEngine policyEngine = this.policyEngine;
+
+        if (policyEngine != null) {
+            return policyEngine.getTagPolicies();
+        }
+
+        return Collections.emptyList();
+    }
+
+    public Set<String> getZoneNames() {
+        RangerPolicyEngine policyEngine = this.policyEngine;
+
+        if (policyEngine != null) {
+            return policyEngine.getZoneNames();
+        }
+
+        return Collections.emptySet();
+    }
+
     public RangerRoles getRangerRoles() {
         RangerPolicyEngine policyEngine = this.policyEngine;
 
@@ -1309,6 +1492,32 @@ private List<RangerChainedPlugin> initChainedPlugins() {
         return ret;
     }
 
+    private char getPathSeparatorChar(String resourceName) {
+        RangerServiceDef  serviceDef  = getServiceDef();
+        RangerResourceDef resourceDef = serviceDef != null ? ServiceDefUtil.getResourceDef(serviceDef, resourceName) : null;
+
+        return ServiceDefUtil.getCharOption(resourceDef != null ? resourceDef.getMatcherOptions() : null, RangerPathResourceMatcher.OPTION_PATH_SEPARATOR, RangerPathResourceMatcher.DEFAULT_PATH_SEPARATOR_CHAR);
+    }
+
+    /*
+     * request to check traversal of the prefix: execute access, with a copy of the context of the given request
+     */
+    private RangerAccessRequest getRequestForPathPrefix(RangerAccessRequest request, String resourceName, String prefix, RangerPathPrefixChain prefixChain) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(new HashMap<>(request.getResource().getAsMap()));
+        RangerAccessRequestImpl  ret      = new RangerAccessRequestImpl(request);
+        Map<String, Object>      context  = RangerAccessRequestUtil.copyContext(request.getContext());
+
+        resource.setValue(resourceName, prefix);
+
+        RangerAccessRequestUtil.setPathPrefixChainInContext(context, prefixChain);
+
+        ret.setResource(resource);
+        ret.setAccessType(RangerHadoopConstants.EXECUTE_ACCCESS_TYPE);
+        ret.setContext(context);
+
+        return ret;
+    }
+
     private void updateResultFromChainedResult(RangerAccessResult result, RangerAccessResult chainedResult) {
         boolean overrideResult = false;
         int     policyType     = result.getPolicyType();
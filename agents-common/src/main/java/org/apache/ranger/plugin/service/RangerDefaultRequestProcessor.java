@@ -31,11 +31,15 @@
 import org.apache.ranger.plugin.policyengine.RangerMutableResource;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics;
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerUserStoreUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -77,6 +81,94 @@ public void preProcess(RangerAccessRequest request) {
             return;
         }
 
+        preProcessExceptEnrichment(request);
+
+        enrich(request);
+
+        RangerAccessRequestUtil.setIsRequestPreprocessed(request.getContext(), Boolean.TRUE);
+
+        LOG.debug("<== preProcess({})", request);
+    }
+
+    /*
+     * each context-enricher enriches all requests in a single call, which lets enrichers share work across requests
+     * on related resources - like tag look-ups for columns of a table
+     */
+    @Override
+    public void preProcess(Collection<RangerAccessRequest> requests) {
+        LOG.debug("==> preProcess(requestCount={})", requests.size());
+
+        List<RangerAccessRequest> requestsToEnrich = new ArrayList<>(requests.size());
+
+        for (RangerAccessRequest request : requests) {
+            if (!RangerAccessRequestUtil.getIsRequestPreprocessed(request.getContext())) {
+                preProcessExceptEnrichment(request);
+
+                requestsToEnrich.add(request);
+            }
+        }
+
+        if (!requestsToEnrich.isEmpty()) {
+            enrich(requestsToEnrich);
+
+            for (RangerAccessRequest request : requestsToEnrich) {
+                RangerAccessRequestUtil.setIsRequestPreprocessed(request.getContext(), Boolean.TRUE);
+            }
+        }
+
+        LOG.debug("<== preProcess(requestCount={})", requests.size());
+    }
+
+    @Override
+    public void enrich(RangerAccessRequest request) {
+        List<RangerContextEnricher> enrichers = policyEngine.getAllContextEnrichers();
+
+        if (!CollectionUtils.isEmpty(enrichers)) {
+            for (RangerContextEnricher enricher : enrichers) {
+                RangerPerfTracer perf = null;
+
+                if (RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
+                    perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ", enricherName=" + enricher.getName() + ")");
+                }
+
+                long startTime = RangerLatencyMetrics.start();
+
+                enricher.enrich(request);
+
+                RangerLatencyMetrics.record(Stage.ENRICHMENT, startTime);
+
+                RangerPerfTracer.log(perf);
+            }
+        } else {
+            LOG.debug("No context-enrichers!!!");
+        }
+    }
+
+    public void enrich(Collection<RangerAccessRequest> requests) {
+        List<RangerContextEnricher> enrichers = policyEngine.getAllContextEnrichers();
+
+        if (!CollectionUtils.isEmpty(enrichers)) {
+            for (RangerContextEnricher enricher : enrichers) {
+                RangerPerfTracer perf = null;
+
+                if (RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
+                    perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestCount=" + requests.size() + ", enricherName=" + enricher.getName() + ")");
+                }
+
+                long startTime = RangerLatencyMetrics.start();
+
+                enricher.enrich(requests);
+
+                RangerLatencyMetrics.record(Stage.ENRICHMENT, startTime);
+
+                RangerPerfTracer.log(perf);
+            }
+        } else {
+            LOG.debug("No context-enrichers!!!");
+        }
+    }
+
+    private void preProcessExceptEnrichment(RangerAccessRequest request) {
         setResourceServiceDef(request);
 
         RangerPluginContext     pluginContext = policyEngine.getPluginContext();
@@ -128,33 +220,6 @@ public void preProcess(RangerAccessRequest request) {
         Set<String> zoneNames = policyEngine.getMatchedZonesForResourceAndChildren(request.getResource());
 
         RangerAccessRequestUtil.setResourceZoneNamesInContext(request, zoneNames);
-
-        enrich(request);
-
-        RangerAccessRequestUtil.setIsRequestPreprocessed(request.getContext(), Boolean.TRUE);
-
-        LOG.debug("<== preProcess({})", request);
-    }
-
-    @Override
-    public void enrich(RangerAccessRequest request) {
-        List<RangerContextEnricher> enrichers = policyEngine.getAllContextEnrichers();
-
-        if (!CollectionUtils.isEmpty(enrichers)) {
-            for (RangerContextEnricher enricher : enrichers) {
-                RangerPerfTracer perf = null;
-
-                if (RangerPerfTracer.isPerfTraceEnabled(PERF_CONTEXTENRICHER_REQUEST_LOG)) {
-                    perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ", enricherName=" + enricher.getName() + ")");
-                }
-
-                enricher.enrich(request);
-
-                RangerPerfTracer.log(perf);
-            }
-        } else {
-            LOG.debug("No context-enrichers!!!");
-        }
     }
 
     private void setResourceServiceDef(RangerAccessRequest request) {
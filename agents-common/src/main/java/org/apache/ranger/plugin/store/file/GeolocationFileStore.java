@@ -35,8 +35,8 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GeolocationFileStore implements GeolocationStore {
     private static final Logger LOG = LoggerFactory.getLogger(GeolocationFileStore.class);
@@ -47,11 +47,11 @@ public class GeolocationFileStore implements GeolocationStore {
     public static final String    PROP_GEOLOCATION_FILE_REINIT      = "ForceRead";
     public static final String    PROP_GEOLOCATION_IP_IN_DOT_FORMAT = "IPInDotFormat";
 
-    private static final Map<String, RangerGeolocationDatabase> GEOLOCATION_DB_MAP = new HashMap<>();
+    private static final Map<String, RangerGeolocationDatabase> GEOLOCATION_DB_MAP = new ConcurrentHashMap<>();
 
-    private RangerGeolocationDatabase geolocationDatabase;
-    private boolean                   isMetalineProcessed;
-    private boolean                   useDotFormat;
+    private volatile RangerGeolocationDatabase geolocationDatabase;
+    private          boolean                   isMetalineProcessed;
+    private          boolean                   useDotFormat;
 
     @Override
     public void init(final Map<String, String> context) {
@@ -215,7 +215,7 @@ private boolean processLine(int lineNumber, String line, RangerGeolocationDataba
                 } else {
                     RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
                     if (data != null) {
-                        database.getData().insert(data);
+                        database.add(data);
                     } else {
                         LOG.error("GeolocationFileStore.processLine() - Invalid data specification {}:{}", lineNumber, line);
                     }
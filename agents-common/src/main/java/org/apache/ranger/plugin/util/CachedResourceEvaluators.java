@@ -29,33 +29,83 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache of service-resource-matchers looked up in the tries for a resource, used by the tag enricher.
+ *
+ * Lookups don't take a lock. The cache is bounded by the number of entries and by the total number of cached
+ * matchers; when either bound is exceeded, entries that were not read since the previous sweep are evicted
+ * (second-chance/clock). Entries affected by tag deltas can be removed without clearing the rest of the cache.
+ */
 public class CachedResourceEvaluators {
     private static final Logger LOG                           = LoggerFactory.getLogger(CachedResourceEvaluators.class);
     private static final Logger PERF_EVALUATORS_RETRIEVAL_LOG = RangerPerfTracer.getPerfLogger("CachedResourceEvaluators.retrieval");
 
-    private final Map<String, Map<Map<String, ResourceElementMatchingScope>, Collection<RangerServiceResourceMatcher>>> cache     = new HashMap<>();
-    private final RangerReadWriteLock                                                                                   cacheLock = new RangerReadWriteLock(true);
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final int DEFAULT_MAX_WEIGHT  = 1000000;
+
+    // beyond this many changed matchers, clearing the cache is cheaper than finding the affected entries
+    private static final int MAX_MATCHERS_FOR_TARGETED_INVALIDATION = 100;
+
+    private final ConcurrentMap<CacheKey, CacheEntry> cache         = new ConcurrentHashMap<>();
+    private final ReentrantLock                       evictionLock  = new ReentrantLock();
+    private final AtomicLong                          weight        = new AtomicLong();
+    private final LongAdder                           hitCount      = new LongAdder();
+    private final LongAdder                           missCount     = new LongAdder();
+    private final LongAdder                           evictionCount = new LongAdder();
+    private final LongAdder                           removalCount  = new LongAdder();
+    private final int                                 maxEntries;
+    private final long                                maxWeight;
+
+    public CachedResourceEvaluators() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
 
-    public CachedResourceEvaluators() {}
+    /**
+     * @param maxEntries maximum number of resources to cache the matchers for
+     * @param maxWeight  maximum number of matchers across all cached resources
+     */
+    public CachedResourceEvaluators(int maxEntries, long maxWeight) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.maxWeight  = Math.max(maxWeight, 1);
+    }
 
     public static Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessRequest request, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, CachedResourceEvaluators cache) {
+        return getEvaluators(request, serviceResourceTrie, cache, null);
+    }
+
+    /**
+     * @param parentEvaluators evaluators for the parent of resources - i.e. resource without the leaf element, like
+     *                         the table for a column. Used when looking up evaluators for a batch of requests: trie
+     *                         look-ups for the parent are done only once for all requests on resources of the parent.
+     *                         Populated by this method; can be null
+     */
+    public static Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessRequest request, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, CachedResourceEvaluators cache, Map<List<Object>, Set<RangerServiceResourceMatcher>> parentEvaluators) {
         LOG.debug("==> CachedResourceEvaluators.getEvaluators(request={})", request);
 
         Collection<RangerServiceResourceMatcher> ret      = null;
         final RangerAccessResource               resource = request.getResource();
-        RangerServiceDefHelper                   helper   = new RangerServiceDefHelper(resource.getServiceDef());
+        RangerServiceDefHelper                   helper   = RangerServiceDefHelper.getSharedInstance(resource.getServiceDef());
 
         RangerPerfTracer perf = null;
 
@@ -64,19 +114,23 @@ public static Collection<RangerServiceResourceMatcher> getEvaluators(RangerAcces
         }
 
         final RangerAccessRequest.ResourceMatchingScope resourceMatchingScope = request.getResourceMatchingScope() != null ? request.getResourceMatchingScope() : RangerAccessRequest.ResourceMatchingScope.SELF;
-        final Predicate                                 predicate             = !(request.isAccessTypeAny() || resourceMatchingScope == RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS) && excludeDescendantMatches(resource) ? new SelfOrAncestorPredicate(helper.getResourceDef(resource.getLeafName())) : null;
+        final Predicate                                 predicate             = !(request.isAccessTypeAny() || resourceMatchingScope == RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS) && excludeDescendantMatches(resource, helper) ? new SelfOrAncestorPredicate(helper.getResourceDef(resource.getLeafName())) : null;
 
         if (predicate != null) {
             ret = cache.getEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes());
         }
 
         if (ret == null) {
-            ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes(), predicate);
+            if (parentEvaluators != null) {
+                ret = getEvaluatorsUsingParent(resource, serviceResourceTrie, request.getResourceElementMatchingScopes(), predicate, parentEvaluators);
+            } else {
+                ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes(), predicate);
+            }
 
             LOG.debug("Found [{}] service-resource-matchers for service-resource [{}]", (ret == null ? null : ret.size()), resource.getAsString());
 
             if (predicate != null) {
-                cache.cacheEvaluators(resource.getCacheKey(), request.getResourceElementMatchingScopes(), ret);
+                cache.cacheEvaluators(resource, request.getResourceElementMatchingScopes(), ret);
             }
         } else {
             if (LOG.isDebugEnabled()) {
@@ -95,13 +149,59 @@ public static Collection<RangerServiceResourceMatcher> getEvaluators(RangerAcces
         return ret;
     }
 
+    /*
+     * evaluators for a resource are the intersection of evaluators found in tries for each of its elements. Hence:
+     *   evaluators(db, table, column) = evaluators(db, table) intersection trie[column].evaluators(column)
+     */
+    private static Collection<RangerServiceResourceMatcher> getEvaluatorsUsingParent(RangerAccessResource resource, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Map<String, ResourceElementMatchingScope> scopes, Predicate predicate, Map<List<Object>, Set<RangerServiceResourceMatcher>> parentEvaluators) {
+        final Collection<RangerServiceResourceMatcher> ret;
+
+        Map<String, Object> elements = resource.getAsMap();
+        String              leafName = resource.getLeafName();
+
+        if (elements.size() < 2 || leafName == null || !elements.containsKey(leafName)) {
+            ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, elements, scopes, predicate);
+        } else {
+            Map<String, Object> parent = new HashMap<>(elements);
+
+            parent.remove(leafName);
+
+            List<Object>                      key        = Arrays.asList(parent, leafName, scopes, predicate != null);
+            Set<RangerServiceResourceMatcher> parentEvals;
+
+            if (parentEvaluators.containsKey(key)) {
+                parentEvals = parentEvaluators.get(key);
+            } else {
+                parentEvals = (Set<RangerServiceResourceMatcher>) RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, parent, scopes, predicate);
+
+                parentEvaluators.put(key, parentEvals);
+            }
+
+            RangerResourceTrie<RangerServiceResourceMatcher> leafTrie = serviceResourceTrie.get(leafName);
+            ResourceElementMatchingScope                     scope    = scopes != null ? scopes.get(leafName) : null;
+
+            if (parentEvals == null) { // none of the parent elements have a trie
+                ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, Collections.singletonMap(leafName, elements.get(leafName)), scopes, predicate);
+            } else if (parentEvals.isEmpty() || leafTrie == null) {
+                ret = parentEvals;
+            } else {
+                ret = leafTrie.getEvaluatorsForResource(elements.get(leafName), scope, parentEvals, predicate);
+            }
+        }
+
+        return ret;
+    }
+
     public static boolean excludeDescendantMatches(RangerAccessResource resource) {
+        return excludeDescendantMatches(resource, RangerServiceDefHelper.getSharedInstance(resource.getServiceDef()));
+    }
+
+    public static boolean excludeDescendantMatches(RangerAccessResource resource, RangerServiceDefHelper helper) {
         final boolean ret;
 
         String leafName = resource.getLeafName();
 
         if (StringUtils.isNotEmpty(leafName)) {
-            RangerServiceDefHelper                        helper      = new RangerServiceDefHelper(resource.getServiceDef());
             Set<List<RangerServiceDef.RangerResourceDef>> hierarchies = helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_ACCESS, resource.getKeys());
 
             // skip caching if the leaf of accessed resource is the deepest in the only applicable hierarchy
@@ -120,31 +220,173 @@ public static boolean excludeDescendantMatches(RangerAccessResource resource) {
     }
 
     public Collection<RangerServiceResourceMatcher> getEvaluators(String resourceKey, Map<String, ResourceElementMatchingScope> scopes) {
-        Collection<RangerServiceResourceMatcher> ret;
+        CacheEntry entry = resourceKey != null ? cache.get(new CacheKey(resourceKey, scopes)) : null;
+
+        if (entry != null) {
+            if (!entry.isAccessed) { // avoid writing to the shared entry on every hit
+                entry.isAccessed = true;
+            }
+
+            hitCount.increment();
 
-        try (RangerReadWriteLock.RangerLock ignored = cacheLock.getReadLock()) {
-            ret = cache.getOrDefault(resourceKey, Collections.emptyMap()).get(scopes);
+            return entry.evaluators;
         }
 
-        return ret;
+        missCount.increment();
+
+        return null;
     }
 
-    public void cacheEvaluators(String resource, Map<String, ResourceElementMatchingScope> scopes, Collection<RangerServiceResourceMatcher> evaluators) {
-        try (RangerReadWriteLock.RangerLock ignored = cacheLock.getWriteLock()) {
-            cache.computeIfAbsent(resource, k -> new HashMap<>()).put(scopes, evaluators);
-        }
+    public void cacheEvaluators(String resourceKey, Map<String, ResourceElementMatchingScope> scopes, Collection<RangerServiceResourceMatcher> evaluators) {
+        cacheEvaluators(resourceKey, null, scopes, evaluators);
+    }
+
+    public void cacheEvaluators(RangerAccessResource resource, Map<String, ResourceElementMatchingScope> scopes, Collection<RangerServiceResourceMatcher> evaluators) {
+        cacheEvaluators(resource.getCacheKey(), resource, scopes, evaluators);
+    }
+
+    public void removeCacheEvaluators(Set<String> resourceKeys) {
+        removeCacheEvaluators(resourceKeys, Collections.emptySet());
     }
 
-    public void removeCacheEvaluators(Set<String> resources) {
-        try (RangerReadWriteLock.RangerLock ignored = cacheLock.getWriteLock()) {
-            resources.forEach(cache::remove);
+    /**
+     * Removes entries for the given resources, and entries that could be affected by the given changed matchers: i.e.
+     * entries that have one of these matchers, and entries for resources that one of these matchers now matches.
+     *
+     * @param resourceKeys    cache-keys of changed resources
+     * @param changedMatchers matchers removed from, or added to, the tries
+     */
+    public void removeCacheEvaluators(Set<String> resourceKeys, Collection<RangerServiceResourceMatcher> changedMatchers) {
+        LOG.debug("==> CachedResourceEvaluators.removeCacheEvaluators(resourceKeys={}, changedMatchers={})", resourceKeys, changedMatchers);
+
+        if (changedMatchers.size() > MAX_MATCHERS_FOR_TARGETED_INVALIDATION) {
+            clearCache();
+        } else if (!resourceKeys.isEmpty() || !changedMatchers.isEmpty()) {
+            for (Map.Entry<CacheKey, CacheEntry> entry : cache.entrySet()) {
+                if (resourceKeys.contains(entry.getKey().resourceKey) || isAffectedBy(entry.getKey(), entry.getValue(), changedMatchers)) {
+                    if (removeEntry(entry.getKey(), entry.getValue())) {
+                        removalCount.increment();
+                    }
+                }
+            }
         }
+
+        LOG.debug("<== CachedResourceEvaluators.removeCacheEvaluators(resourceKeys={}, changedMatchers={}): {}", resourceKeys, changedMatchers, this);
     }
 
     public void clearCache() {
-        try (RangerReadWriteLock.RangerLock ignored = cacheLock.getWriteLock()) {
-            cache.clear();
+        for (Map.Entry<CacheKey, CacheEntry> entry : cache.entrySet()) {
+            if (removeEntry(entry.getKey(), entry.getValue())) {
+                removalCount.increment();
+            }
+        }
+
+        LOG.debug("CachedResourceEvaluators.clearCache(): {}", this);
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getRemovalCount() {
+        return removalCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResourceEvaluators={size=" + getSize() + ", weight=" + getWeight() + ", maxEntries=" + maxEntries + ", maxWeight=" + maxWeight +
+                ", hitCount=" + getHitCount() + ", missCount=" + getMissCount() + ", evictionCount=" + getEvictionCount() + ", removalCount=" + getRemovalCount() + "}";
+    }
+
+    private void cacheEvaluators(String resourceKey, RangerAccessResource resource, Map<String, ResourceElementMatchingScope> scopes, Collection<RangerServiceResourceMatcher> evaluators) {
+        if (resourceKey == null || evaluators == null) {
+            return;
+        }
+
+        CacheKey   key      = new CacheKey(resourceKey, scopes == null || scopes.isEmpty() ? Collections.emptyMap() : new HashMap<>(scopes));
+        CacheEntry entry    = new CacheEntry(resource, evaluators);
+        CacheEntry replaced = cache.put(key, entry);
+
+        weight.addAndGet(replaced != null ? entry.weight - replaced.weight : entry.weight);
+
+        if (cache.size() > maxEntries || weight.get() > maxWeight) {
+            evictEntries();
+        }
+    }
+
+    private boolean removeEntry(CacheKey key, CacheEntry entry) {
+        boolean ret = cache.remove(key, entry);
+
+        if (ret) {
+            weight.addAndGet(-entry.weight);
+        }
+
+        return ret;
+    }
+
+    // second-chance eviction; only one thread sweeps at a time, others continue without waiting
+    private void evictEntries() {
+        if (!evictionLock.tryLock()) {
+            return;
         }
+
+        try {
+            for (int pass = 0; pass < 2 && isOverLimit(); pass++) {
+                Iterator<Map.Entry<CacheKey, CacheEntry>> iter = cache.entrySet().iterator();
+
+                while (iter.hasNext() && isOverLimit()) {
+                    Map.Entry<CacheKey, CacheEntry> entry = iter.next();
+
+                    if (pass == 0 && entry.getValue().isAccessed) {
+                        entry.getValue().isAccessed = false;
+                    } else if (removeEntry(entry.getKey(), entry.getValue())) {
+                        evictionCount.increment();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean isOverLimit() {
+        return cache.size() > maxEntries || weight.get() > maxWeight;
+    }
+
+    private static boolean isAffectedBy(CacheKey key, CacheEntry entry, Collection<RangerServiceResourceMatcher> changedMatchers) {
+        if (entry.resource == null) { // can't tell whether the matchers match the resource
+            return !changedMatchers.isEmpty();
+        }
+
+        for (RangerServiceResourceMatcher matcher : changedMatchers) {
+            if (entry.evaluators.contains(matcher)) {
+                return true;
+            }
+
+            RangerPolicyResourceMatcher.MatchType matchType = matcher.getMatchType(entry.resource, key.scopes, Collections.emptyMap());
+
+            if (matchType == RangerPolicyResourceMatcher.MatchType.SELF || matchType == RangerPolicyResourceMatcher.MatchType.ANCESTOR || matchType == RangerPolicyResourceMatcher.MatchType.SELF_AND_ALL_DESCENDANTS) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     private static class SelfOrAncestorPredicate implements Predicate {
@@ -165,4 +407,47 @@ public boolean evaluate(Object o) {
             return false;
         }
     }
+
+    private static final class CacheKey {
+        final String                                    resourceKey;
+        final Map<String, ResourceElementMatchingScope> scopes;
+        final int                                       hashCode;
+
+        CacheKey(String resourceKey, Map<String, ResourceElementMatchingScope> scopes) {
+            this.resourceKey = resourceKey;
+            this.scopes      = scopes == null ? Collections.emptyMap() : scopes;
+            this.hashCode    = Objects.hash(this.resourceKey, this.scopes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) obj;
+
+            return hashCode == other.hashCode && Objects.equals(resourceKey, other.resourceKey) && Objects.equals(scopes, other.scopes);
+        }
+    }
+
+    private static final class CacheEntry {
+        final RangerAccessResource                     resource;
+        final Collection<RangerServiceResourceMatcher> evaluators;
+        final int                                      weight;
+        volatile boolean                               isAccessed;
+
+        CacheEntry(RangerAccessResource resource, Collection<RangerServiceResourceMatcher> evaluators) {
+            this.resource   = resource;
+            this.evaluators = evaluators;
+            this.weight     = evaluators.size() + 1;
+        }
+    }
 }
@@ -25,6 +25,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPathPrefixChain;
 import org.apache.ranger.plugin.policyengine.gds.GdsAccessResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +57,7 @@ public class RangerAccessRequestUtil {
     public static final  String KEY_CONTEXT_GDS_RESULT                       = "_GDS_RESULT";
     public static final  String KEY_CONTEXT_IS_REQUEST_PREPROCESSED          = "ISREQUESTPREPROCESSED";
     public static final  String KEY_CONTEXT_RESOURCE_ZONE_NAMES              = "RESOURCE_ZONE_NAMES";
+    public static final  String KEY_CONTEXT_PATH_PREFIX_CHAIN                = "PATH_PREFIX_CHAIN";
     private static final Logger LOG                                          = LoggerFactory.getLogger(RangerAccessRequestUtil.class);
 
     private RangerAccessRequestUtil() {
@@ -152,12 +154,28 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
             ret.remove(KEY_CONTEXT_ALL_ACCESS_TYPE_ACL_RESULTS);
             ret.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
             ret.remove(KEY_CONTEXT_IGNORE_IF_NOT_DENIED_ACCESSTYPES);
+            ret.remove(KEY_CONTEXT_PATH_PREFIX_CHAIN);
             // don't remove REQUESTED_RESOURCES
         }
 
         return ret;
     }
 
+    public static void setPathPrefixChainInContext(Map<String, Object> context, RangerPathPrefixChain chain) {
+        context.put(KEY_CONTEXT_PATH_PREFIX_CHAIN, chain);
+    }
+
+    public static RangerPathPrefixChain getPathPrefixChainFromContext(Map<String, Object> context) {
+        RangerPathPrefixChain ret = null;
+        Object                val = MapUtils.isNotEmpty(context) ? context.get(KEY_CONTEXT_PATH_PREFIX_CHAIN) : null;
+
+        if (val instanceof RangerPathPrefixChain) {
+            ret = (RangerPathPrefixChain) val;
+        }
+
+        return ret;
+    }
+
     public static void setCurrentUserInContext(Map<String, Object> context, String user) {
         setTokenInContext(context, KEY_USER, user);
     }
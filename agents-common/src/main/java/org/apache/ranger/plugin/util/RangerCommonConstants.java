@@ -26,19 +26,29 @@ public class RangerCommonConstants {
     public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_DELTA                    = ".supports.policy.deltas";
     public static final String  RANGER_ADMIN_SUFFIX_TAG_DELTA                        = ".supports.tag.deltas";
     public static final String  PLUGIN_CONFIG_SUFFIX_TAG_DELTA                       = ".supports.tag.deltas";
+    public static final String  RANGER_ADMIN_SUFFIX_ROLE_DELTA                       = ".supports.role.deltas";
+    public static final String  PLUGIN_CONFIG_SUFFIX_ROLE_DELTA                      = ".supports.role.deltas";
+    public static final String  RANGER_ADMIN_SUFFIX_USERSTORE_DELTA                  = ".supports.userstore.deltas";
+    public static final String  PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA                 = ".supports.userstore.deltas";
     public static final String  RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES          = ".supports.in.place.policy.updates";
     public static final String  PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES         = ".supports.in.place.policy.updates";
     public static final String  RANGER_ADMIN_SUFFIX_IN_PLACE_TAG_UPDATES             = ".supports.in.place.tag.updates";
     public static final String  PLUGIN_CONFIG_SUFFIX_IN_PLACE_TAG_UPDATES            = ".supports.in.place.tag.updates";
+    public static final String  PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE        = ".policyengine.option.resource.acls.cache.size";
     public static final String  RANGER_SUPPORTS_TAGS_DEDUP                           = ".supports.tags.dedup";
     public static final boolean RANGER_ADMIN_SUFFIX_POLICY_DELTA_DEFAULT             = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT            = false;
     public static final boolean RANGER_ADMIN_SUFFIX_TAG_DELTA_DEFAULT                = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT               = false;
+    public static final boolean RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT               = false;
+    public static final boolean PLUGIN_CONFIG_SUFFIX_ROLE_DELTA_DEFAULT              = false;
+    public static final boolean RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT          = false;
+    public static final boolean PLUGIN_CONFIG_SUFFIX_USERSTORE_DELTA_DEFAULT         = false;
     public static final boolean RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT  = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT = false;
     public static final boolean RANGER_ADMIN_SUFFIX_IN_PLACE_TAG_UPDATES_DEFAULT     = false;
     public static final boolean PLUGIN_CONFIG_SUFFIX_IN_PLACE_TAG_UPDATES_DEFAULT    = false;
+    public static final int     PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE_DEFAULT = 1024;
     public static final boolean RANGER_SUPPORTS_TAGS_DEDUP_DEFAULT                   = true;
     public static final boolean POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED            = true;
     public static final String  SCRIPT_OPTION_ENABLE_JSON_CTX                        = "enableJsonCtx";
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, with log-linear buckets (as in HdrHistogram): values below 128 are
+ * counted exactly, larger values in buckets that are at most 1/64th of the value wide. Values larger than ~18 minutes
+ * are counted in the last bucket.
+ *
+ * Recording a value takes a few atomic increments, with no allocation or lock. Percentiles are computed from a pass
+ * over the buckets, and are approximate while values are being recorded concurrently.
+ */
+public class RangerLatencyHistogram implements RangerLatencyHistogramMBean {
+    private static final int  SUB_BUCKET_BITS      = 6;
+    private static final int  SUB_BUCKET_HALF_SIZE = 1 << SUB_BUCKET_BITS;
+    private static final int  SUB_BUCKET_SIZE      = SUB_BUCKET_HALF_SIZE << 1;
+    private static final int  MAX_VALUE_BITS       = 40;
+    private static final long MAX_VALUE            = (1L << MAX_VALUE_BITS) - 1;
+    private static final int  BUCKET_COUNT         = getIndex(MAX_VALUE) + 1;
+
+    private final String          name;
+    private final AtomicLongArray counts   = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder       count    = new LongAdder();
+    private final LongAdder       sum      = new LongAdder();
+    private final AtomicLong      maxValue = new AtomicLong();
+
+    public RangerLatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordValue(long valueNanos) {
+        long value = valueNanos < 0 ? 0 : valueNanos;
+
+        counts.incrementAndGet(getIndex(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+
+        for (long max = maxValue.get(); value > max; max = maxValue.get()) {
+            if (maxValue.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return highest value in the bucket that contains the given percentile of recorded values; 0 if no value is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot   = new long[BUCKET_COUNT];
+        long   totalCount = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            totalCount += snapshot[i];
+        }
+
+        long ret = 0;
+
+        if (totalCount > 0) {
+            long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+            long cumulativeCount   = 0;
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulativeCount += snapshot[i];
+
+                if (cumulativeCount >= countAtPercentile) {
+                    ret = Math.min(getHighestValue(i), getMaxNanos());
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        long count = this.count.sum();
+
+        return count > 0 ? sum.sum() / count : 0;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return maxValue.get();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+
+        count.reset();
+        sum.reset();
+        maxValue.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerLatencyHistogram={name=" + name + ", count=" + getCount() + ", meanNanos=" + getMeanNanos() + ", p50Nanos=" + getP50Nanos() + ", p99Nanos=" + getP99Nanos() + ", maxNanos=" + getMaxNanos() + "}";
+    }
+
+    static int getIndex(long value) {
+        final int ret;
+
+        if (value < SUB_BUCKET_SIZE) {
+            ret = (int) value;
+        } else {
+            int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+
+            ret = (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+        }
+
+        return ret;
+    }
+
+    static long getLowestValue(int index) {
+        final long ret;
+
+        if (index < SUB_BUCKET_SIZE) {
+            ret = index;
+        } else {
+            int shift = (index >> SUB_BUCKET_BITS) - 1;
+
+            ret = (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+        }
+
+        return ret;
+    }
+
+    static long getHighestValue(int index) {
+        int shift = index < SUB_BUCKET_SIZE ? 0 : (index >> SUB_BUCKET_BITS) - 1;
+
+        return getLowestValue(index) + (1L << shift) - 1;
+    }
+}
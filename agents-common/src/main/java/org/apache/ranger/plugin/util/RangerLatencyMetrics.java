@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Always-on latency histograms for stages of the authorization of a request, shared by all plugins in the JVM.
+ *
+ * Usage:
+ * <pre>
+ *   long startTime = RangerLatencyMetrics.start();
+ *   ...
+ *   RangerLatencyMetrics.record(Stage.TRIE_LOOKUP, startTime);
+ * </pre>
+ *
+ * Histograms are available via JMX, as beans named org.apache.ranger:type=LatencyHistogram,name=&lt;stage&gt;, and
+ * via getMetrics() for metrics sinks.
+ *
+ * As histograms are shared, recording is enabled when any of the plugins in the JVM enables it; see enableForPlugin().
+ */
+public final class RangerLatencyMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerLatencyMetrics.class);
+
+    public static final String JMX_DOMAIN = "org.apache.ranger";
+    public static final String JMX_TYPE   = "LatencyHistogram";
+
+    private static final RangerLatencyHistogram[] HISTOGRAMS = new RangerLatencyHistogram[Stage.values().length];
+
+    private static volatile boolean isEnabled = true;
+    private static          boolean isEnabledByPlugins;
+    private static          boolean isMBeansRegistered;
+
+    static {
+        for (Stage stage : Stage.values()) {
+            HISTOGRAMS[stage.ordinal()] = new RangerLatencyHistogram(stage.getName());
+        }
+    }
+
+    private RangerLatencyMetrics() {
+        // to block instantiation
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public static void setEnabled(boolean isEnabled) {
+        RangerLatencyMetrics.isEnabled = isEnabled;
+    }
+
+    /**
+     * Called by each plugin with its configuration. Recording is disabled only when all plugins disable it: a plugin
+     * created later doesn't turn off recording enabled by another plugin in the JVM.
+     *
+     * @return true if recording is enabled after this call
+     */
+    public static synchronized boolean enableForPlugin(boolean isEnabledForPlugin) {
+        if (isEnabledForPlugin) {
+            isEnabledByPlugins = true;
+        }
+
+        isEnabled = isEnabledByPlugins;
+
+        return isEnabled;
+    }
+
+    /**
+     * @return start time to pass to record(); 0 if recording is disabled
+     */
+    public static long start() {
+        return isEnabled ? System.nanoTime() : 0;
+    }
+
+    public static void record(Stage stage, long startTime) {
+        if (startTime != 0) {
+            HISTOGRAMS[stage.ordinal()].recordValue(System.nanoTime() - startTime);
+        }
+    }
+
+    public static RangerLatencyHistogram getHistogram(Stage stage) {
+        return HISTOGRAMS[stage.ordinal()];
+    }
+
+    /**
+     * @return count, mean, max and percentiles of each stage, keyed by names like TrieLookupCount and TrieLookupP99Nanos
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+
+        for (RangerLatencyHistogram histogram : HISTOGRAMS) {
+            String name = histogram.getName();
+
+            ret.put(name + "Count", histogram.getCount());
+            ret.put(name + "MeanNanos", histogram.getMeanNanos());
+            ret.put(name + "MaxNanos", histogram.getMaxNanos());
+            ret.put(name + "P50Nanos", histogram.getP50Nanos());
+            ret.put(name + "P90Nanos", histogram.getP90Nanos());
+            ret.put(name + "P99Nanos", histogram.getP99Nanos());
+            ret.put(name + "P999Nanos", histogram.getP999Nanos());
+        }
+
+        return ret;
+    }
+
+    public static void reset() {
+        for (RangerLatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    public static synchronized void registerMBeans() {
+        if (!isMBeansRegistered) {
+            isMBeansRegistered = true;
+
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            for (RangerLatencyHistogram histogram : HISTOGRAMS) {
+                try {
+                    ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + JMX_TYPE + ",name=" + histogram.getName());
+
+                    if (!mbeanServer.isRegistered(objectName)) {
+                        mbeanServer.registerMBean(histogram, objectName);
+                    }
+                } catch (Exception excp) {
+                    LOG.warn("RangerLatencyMetrics.registerMBeans(): failed to register MBean for {}", histogram.getName(), excp);
+                }
+            }
+        }
+    }
+
+    public enum Stage {
+        ENRICHMENT("Enrichment"),
+        TRIE_LOOKUP("TrieLookup"),
+        POLICY_EVALUATION("PolicyEvaluation"),
+        CONDITIONS("Conditions"),
+        AUDIT("Audit");
+
+        private final String name;
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -33,6 +33,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class RangerPolicyDeltaUtil {
     private static final Logger LOG                   = LoggerFactory.getLogger(RangerPolicyDeltaUtil.class);
@@ -123,6 +124,60 @@ public static List<RangerPolicy> applyDeltas(List<RangerPolicy> policies, List<R
         return ret;
     }
 
+    /**
+     * Computes the deltas that transform policies {@code from} into policies {@code to}. Policies are matched by id;
+     * a policy is considered unchanged when both sides have the same non-null version.
+     */
+    public static List<RangerPolicyDelta> computeDeltas(List<RangerPolicy> from, List<RangerPolicy> to, Long policiesVersion) {
+        LOG.debug("==> computeDeltas(fromCount={}, toCount={}, policiesVersion={})", CollectionUtils.size(from), CollectionUtils.size(to), policiesVersion);
+
+        List<RangerPolicyDelta> ret  = new ArrayList<>();
+        RangerPerfTracer        perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICY_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_DELTA_LOG, "RangerPolicyDelta.computeDeltas(policiesVersion=" + policiesVersion + ")");
+        }
+
+        Map<Long, RangerPolicy> fromPolicies = new HashMap<>();
+
+        if (from != null) {
+            for (RangerPolicy policy : from) {
+                fromPolicies.put(policy.getId(), policy);
+            }
+        }
+
+        List<RangerPolicyDelta> createsAndUpdates = new ArrayList<>();
+
+        if (to != null) {
+            for (RangerPolicy policy : to) {
+                RangerPolicy existing = fromPolicies.remove(policy.getId());
+
+                if (existing == null) {
+                    createsAndUpdates.add(new RangerPolicyDelta(null, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, policiesVersion, policy));
+                } else if (existing != policy && (policy.getVersion() == null || !policy.getVersion().equals(existing.getVersion()))) {
+                    if (Objects.equals(existing.getPolicyType(), policy.getPolicyType())) {
+                        createsAndUpdates.add(new RangerPolicyDelta(null, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, policiesVersion, policy));
+                    } else { // evaluators of different policy-types are kept in different tries
+                        ret.add(new RangerPolicyDelta(null, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, policiesVersion, existing));
+                        createsAndUpdates.add(new RangerPolicyDelta(null, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, policiesVersion, policy));
+                    }
+                }
+            }
+        }
+
+        for (RangerPolicy deleted : fromPolicies.values()) {
+            ret.add(new RangerPolicyDelta(null, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, policiesVersion, deleted));
+        }
+
+        ret.addAll(createsAndUpdates);
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== computeDeltas(fromCount={}, toCount={}, policiesVersion={}): deltaCount={}", CollectionUtils.size(from), CollectionUtils.size(to), policiesVersion, ret.size());
+
+        return ret;
+    }
+
     public static boolean isValidDeltas(List<RangerPolicyDelta> deltas, String componentServiceType) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> isValidDeltas(deltas={}, componentServiceType={})", Arrays.toString(deltas.toArray()), componentServiceType);
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class RangerRolesDeltaUtil {
+    private static final Logger LOG                  = LoggerFactory.getLogger(RangerRolesDeltaUtil.class);
+    private static final Logger PERF_ROLES_DELTA_LOG = RangerPerfTracer.getPerfLogger("roles.delta");
+
+    private RangerRolesDeltaUtil() {
+        // to block instantiation
+    }
+
+    /*
+    Returns roles that, when applied to 'from' with applyDelta(), results in 'to'. Roles are identified by their names;
+    a role that is added or updated is included in its entirety, and names of removed roles are listed in deletedRoles.
+     */
+    public static RangerRoles computeDelta(RangerRoles from, RangerRoles to) {
+        LOG.debug("==> RangerRolesDeltaUtil.computeDelta(fromVersion={}, toVersion={})", from.getRoleVersion(), to.getRoleVersion());
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_ROLES_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_ROLES_DELTA_LOG, "RangerRolesDeltaUtil.computeDelta(fromVersion=" + from.getRoleVersion() + ", toVersion=" + to.getRoleVersion() + ")");
+        }
+
+        Map<String, RangerRole> fromRoles    = getRolesByName(from);
+        Set<RangerRole>         updatedRoles = new HashSet<>();
+        Set<String>             deletedRoles = new HashSet<>();
+
+        if (CollectionUtils.isNotEmpty(to.getRangerRoles())) {
+            for (RangerRole role : to.getRangerRoles()) {
+                RangerRole existing = fromRoles.remove(role.getName());
+
+                if (existing == null || !existing.equals(role)) {
+                    updatedRoles.add(role);
+                }
+            }
+        }
+
+        deletedRoles.addAll(fromRoles.keySet());
+
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName(to.getServiceName());
+        ret.setRoleVersion(to.getRoleVersion());
+        ret.setRoleUpdateTime(to.getRoleUpdateTime());
+        ret.setRangerRoles(updatedRoles);
+        ret.setDeletedRoles(deletedRoles);
+        ret.setIsDelta(Boolean.TRUE);
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerRolesDeltaUtil.computeDelta(fromVersion={}, toVersion={}): updatedRoles={}, deletedRoles={}", from.getRoleVersion(), to.getRoleVersion(), updatedRoles.size(), deletedRoles.size());
+
+        return ret;
+    }
+
+    /*
+    Combines two consecutive deltas into one. Applying the returned delta is equivalent to applying 'older' followed by 'newer'.
+     */
+    public static RangerRoles mergeDeltas(RangerRoles older, RangerRoles newer) {
+        Map<String, RangerRole> updatedRoles = getRolesByName(older);
+        Set<String>             deletedRoles = new HashSet<>();
+
+        if (older.getDeletedRoles() != null) {
+            deletedRoles.addAll(older.getDeletedRoles());
+        }
+
+        if (newer.getDeletedRoles() != null) {
+            for (String roleName : newer.getDeletedRoles()) {
+                updatedRoles.remove(roleName);
+                deletedRoles.add(roleName);
+            }
+        }
+
+        if (newer.getRangerRoles() != null) {
+            for (RangerRole role : newer.getRangerRoles()) {
+                updatedRoles.put(role.getName(), role);
+                deletedRoles.remove(role.getName());
+            }
+        }
+
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName(newer.getServiceName());
+        ret.setRoleVersion(newer.getRoleVersion());
+        ret.setRoleUpdateTime(newer.getRoleUpdateTime());
+        ret.setRangerRoles(new HashSet<>(updatedRoles.values()));
+        ret.setDeletedRoles(deletedRoles);
+        ret.setIsDelta(Boolean.TRUE);
+
+        return ret;
+    }
+
+    public static RangerRoles applyDelta(RangerRoles roles, RangerRoles delta) {
+        LOG.debug("==> RangerRolesDeltaUtil.applyDelta(version={}, deltaVersion={})", roles.getRoleVersion(), delta.getRoleVersion());
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_ROLES_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_ROLES_DELTA_LOG, "RangerRolesDeltaUtil.applyDelta(version=" + roles.getRoleVersion() + ", deltaVersion=" + delta.getRoleVersion() + ")");
+        }
+
+        Map<String, RangerRole> rolesByName = getRolesByName(roles);
+
+        if (delta.getDeletedRoles() != null) {
+            for (String roleName : delta.getDeletedRoles()) {
+                rolesByName.remove(roleName);
+            }
+        }
+
+        if (delta.getRangerRoles() != null) {
+            for (RangerRole role : delta.getRangerRoles()) {
+                rolesByName.put(role.getName(), role);
+            }
+        }
+
+        RangerRoles ret = new RangerRoles();
+
+        ret.setServiceName(roles.getServiceName());
+        ret.setRoleVersion(delta.getRoleVersion());
+        ret.setRoleUpdateTime(delta.getRoleUpdateTime());
+        ret.setRangerRoles(new HashSet<>(rolesByName.values()));
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerRolesDeltaUtil.applyDelta(version={}, deltaVersion={}): roleCount={}", roles.getRoleVersion(), delta.getRoleVersion(), rolesByName.size());
+
+        return ret;
+    }
+
+    public static int getDeltaSize(RangerRoles delta) {
+        int ret = 0;
+
+        if (delta.getRangerRoles() != null) {
+            ret += delta.getRangerRoles().size();
+        }
+
+        if (delta.getDeletedRoles() != null) {
+            ret += delta.getDeletedRoles().size();
+        }
+
+        return ret;
+    }
+
+    private static Map<String, RangerRole> getRolesByName(RangerRoles roles) {
+        Map<String, RangerRole> ret = new HashMap<>();
+
+        if (roles != null && roles.getRangerRoles() != null) {
+            for (RangerRole role : roles.getRangerRoles()) {
+                ret.put(role.getName(), role);
+            }
+        }
+
+        return ret;
+    }
+}
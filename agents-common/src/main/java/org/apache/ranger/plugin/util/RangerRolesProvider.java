@@ -103,7 +103,7 @@ public void loadUserGroupRoles(RangerBasePlugin plugIn) {
 
         try {
             //load userGroupRoles from ranger admin
-            RangerRoles roles = loadUserGroupRolesFromAdmin();
+            RangerRoles roles = loadUserGroupRolesFromAdmin(plugIn);
 
             if (roles == null) {
                 //if userGroupRoles fetch from ranger Admin Fails, load from cache
@@ -210,7 +210,7 @@ public void saveToCache(RangerRoles roles) {
         LOG.debug("<== RangerRolesProvider.saveToCache(serviceName={})", serviceName);
     }
 
-    private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundException {
+    private RangerRoles loadUserGroupRolesFromAdmin(RangerBasePlugin plugIn) throws RangerServiceNotFoundException {
         LOG.debug("==> RangerRolesProvider(serviceName={}).loadUserGroupRolesFromAdmin()", serviceName);
 
         RangerRoles roles;
@@ -224,6 +224,10 @@ private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundEx
         try {
             roles = rangerAdmin.getRolesIfUpdated(lastKnownRoleVersion, lastActivationTimeInMillis);
 
+            if (roles != null && roles.getIsDelta()) {
+                roles = applyRoleDeltas(plugIn.getRoles(), roles);
+            }
+
             boolean isUpdated = roles != null;
 
             if (isUpdated) {
@@ -252,6 +256,25 @@ private RangerRoles loadUserGroupRolesFromAdmin() throws RangerServiceNotFoundEx
         return roles;
     }
 
+    private RangerRoles applyRoleDeltas(RangerRoles currentRoles, RangerRoles deltas) {
+        final RangerRoles ret;
+
+        if (currentRoles != null && currentRoles.getRoleVersion() != null && currentRoles.getRoleVersion() == lastKnownRoleVersion) {
+            ret = RangerRolesDeltaUtil.applyDelta(currentRoles, deltas);
+
+            ret.setServiceName(serviceName);
+
+            LOG.debug("RangerRolesProvider(serviceName={}): applied role-deltas. lastKnownRoleVersion={}; newVersion={}; updatedRoles={}; deletedRoles={}", serviceName, lastKnownRoleVersion, deltas.getRoleVersion(), deltas.getRangerRoles() != null ? deltas.getRangerRoles().size() : 0, deltas.getDeletedRoles() != null ? deltas.getDeletedRoles().size() : 0);
+        } else {
+            LOG.warn("RangerRolesProvider(serviceName={}): received role-deltas, but roles in plugin are not at version {}. Will download all roles", serviceName, lastKnownRoleVersion);
+
+            lastKnownRoleVersion = -1L;
+            ret                  = null;
+        }
+
+        return ret;
+    }
+
     private RangerRoles loadUserGroupRolesFromCache() {
         RangerRoles roles = null;
 
@@ -23,10 +23,12 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.model.RangerRole;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 public class RangerRolesUtil {
@@ -41,31 +43,35 @@ public class RangerRolesUtil {
     private RangerRoles roles;
 
     public RangerRolesUtil(RangerRoles roles) {
+        this(roles, null);
+    }
+
+    /*
+    Mappings of roles not affected by changes since prevRolesUtil are copied from prevRolesUtil; only the changed roles and
+    the roles that contain them are expanded again. This avoids recomputing the closure of every role on each role update.
+     */
+    public RangerRolesUtil(RangerRoles roles, RangerRolesUtil prevRolesUtil) {
         if (roles != null) {
             this.roles  = roles;
             roleVersion = roles.getRoleVersion() != null ? roles.getRoleVersion() : -1;
 
             if (CollectionUtils.isNotEmpty(roles.getRangerRoles())) {
-                for (RangerRole role : roles.getRangerRoles()) {
-                    Set<RangerRole> containedRoles = getAllContainedRoles(roles.getRangerRoles(), role);
-
-                    buildMap(userRoleMapping, role, containedRoles, ROLES_FOR.USER);
-                    buildMap(groupRoleMapping, role, containedRoles, ROLES_FOR.GROUP);
-                    buildMap(roleRoleMapping, role, containedRoles, ROLES_FOR.ROLE);
-
-                    Set<String> roleUsers  = new HashSet<>();
-                    Set<String> roleGroups = new HashSet<>();
+                Map<String, RangerRole> rolesByName    = getRolesByName(roles);
+                boolean                 hasUniqueNames = rolesByName.size() == roles.getRangerRoles().size();
+                Collection<String>      rolesToBuild   = (prevRolesUtil != null && hasUniqueNames) ? copyUnaffectedMappings(prevRolesUtil, rolesByName) : null;
 
-                    addMemberNames(role.getUsers(), roleUsers);
-                    addMemberNames(role.getGroups(), roleGroups);
-
-                    for (RangerRole containedRole : containedRoles) {
-                        addMemberNames(containedRole.getUsers(), roleUsers);
-                        addMemberNames(containedRole.getGroups(), roleGroups);
+                if (rolesToBuild == null) {
+                    for (RangerRole role : roles.getRangerRoles()) {
+                        buildMappings(role, rolesByName);
                     }
+                } else {
+                    for (String roleName : rolesToBuild) {
+                        RangerRole role = rolesByName.get(roleName);
 
-                    roleToUserMapping.put(role.getName(), roleUsers);
-                    roleToGroupMapping.put(role.getName(), roleGroups);
+                        if (role != null) {
+                            buildMappings(role, rolesByName);
+                        }
+                    }
                 }
             }
         } else {
@@ -101,24 +107,127 @@ public Map<String, Set<String>> getRoleToGroupMapping() {
         return this.roleToGroupMapping;
     }
 
-    private Set<RangerRole> getAllContainedRoles(Set<RangerRole> roles, RangerRole role) {
+    private void buildMappings(RangerRole role, Map<String, RangerRole> rolesByName) {
+        Set<RangerRole> containedRoles = getAllContainedRoles(rolesByName, role);
+
+        buildMap(userRoleMapping, role, containedRoles, ROLES_FOR.USER);
+        buildMap(groupRoleMapping, role, containedRoles, ROLES_FOR.GROUP);
+        buildMap(roleRoleMapping, role, containedRoles, ROLES_FOR.ROLE);
+
+        Set<String> roleUsers  = new HashSet<>();
+        Set<String> roleGroups = new HashSet<>();
+
+        addMemberNames(role.getUsers(), roleUsers);
+        addMemberNames(role.getGroups(), roleGroups);
+
+        for (RangerRole containedRole : containedRoles) {
+            addMemberNames(containedRole.getUsers(), roleUsers);
+            addMemberNames(containedRole.getGroups(), roleGroups);
+        }
+
+        roleToUserMapping.put(role.getName(), roleUsers);
+        roleToGroupMapping.put(role.getName(), roleGroups);
+    }
+
+    /*
+    Copies mappings from prevRolesUtil, excluding those of roles that were added, updated or deleted, and of the roles that contain
+    them. Returns names of the excluded roles, which must be built again; or null if most roles are affected, to rebuild all roles.
+     */
+    private Set<String> copyUnaffectedMappings(RangerRolesUtil prevRolesUtil, Map<String, RangerRole> rolesByName) {
+        Map<String, RangerRole> prevRolesByName = getRolesByName(prevRolesUtil.getRoles());
+        Set<String>             changedRoles    = new HashSet<>();
+
+        if (prevRolesUtil.getRoles() == null || prevRolesByName.size() != CollectionUtils.size(prevRolesUtil.getRoles().getRangerRoles())) {
+            return null;
+        }
+
+        for (Map.Entry<String, RangerRole> entry : rolesByName.entrySet()) {
+            if (!Objects.equals(entry.getValue(), prevRolesByName.get(entry.getKey()))) {
+                changedRoles.add(entry.getKey());
+            }
+        }
+
+        for (String prevRoleName : prevRolesByName.keySet()) {
+            if (!rolesByName.containsKey(prevRoleName)) {
+                changedRoles.add(prevRoleName);
+            }
+        }
+
+        Set<String> ret = new HashSet<>(changedRoles);
+
+        for (String changedRole : changedRoles) {
+            Set<String> containingRoles = prevRolesUtil.getRoleRoleMapping().get(changedRole);
+
+            if (containingRoles != null) {
+                ret.addAll(containingRoles);
+            }
+        }
+
+        if (ret.size() > rolesByName.size() / 2) {
+            return null;
+        }
+
+        copyMapping(prevRolesUtil.getUserRoleMapping(), userRoleMapping, ret);
+        copyMapping(prevRolesUtil.getGroupRoleMapping(), groupRoleMapping, ret);
+        copyMapping(prevRolesUtil.getRoleRoleMapping(), roleRoleMapping, ret);
+
+        for (Map.Entry<String, Set<String>> entry : prevRolesUtil.getRoleToUserMapping().entrySet()) {
+            if (!ret.contains(entry.getKey())) {
+                roleToUserMapping.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : prevRolesUtil.getRoleToGroupMapping().entrySet()) {
+            if (!ret.contains(entry.getKey())) {
+                roleToGroupMapping.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
+    private void copyMapping(Map<String, Set<String>> from, Map<String, Set<String>> to, Set<String> rolesToExclude) {
+        for (Map.Entry<String, Set<String>> entry : from.entrySet()) {
+            Set<String> roleNames = new HashSet<>(entry.getValue());
+
+            roleNames.removeAll(rolesToExclude);
+
+            if (!roleNames.isEmpty()) {
+                to.put(entry.getKey(), roleNames);
+            }
+        }
+    }
+
+    private Map<String, RangerRole> getRolesByName(RangerRoles roles) {
+        Map<String, RangerRole> ret = new HashMap<>();
+
+        if (roles != null && roles.getRangerRoles() != null) {
+            for (RangerRole role : roles.getRangerRoles()) {
+                ret.put(role.getName(), role);
+            }
+        }
+
+        return ret;
+    }
+
+    private Set<RangerRole> getAllContainedRoles(Map<String, RangerRole> rolesByName, RangerRole role) {
         Set<RangerRole> allRoles = new HashSet<>();
 
         allRoles.add(role);
-        addContainedRoles(allRoles, roles, role);
+        addContainedRoles(allRoles, rolesByName, role);
 
         return allRoles;
     }
 
-    private void addContainedRoles(Set<RangerRole> allRoles, Set<RangerRole> roles, RangerRole role) {
+    private void addContainedRoles(Set<RangerRole> allRoles, Map<String, RangerRole> rolesByName, RangerRole role) {
         List<RangerRole.RoleMember> roleMembers = role.getRoles();
 
         for (RangerRole.RoleMember roleMember : roleMembers) {
-            RangerRole containedRole = getContainedRole(roles, roleMember.getName());
+            RangerRole containedRole = rolesByName.get(roleMember.getName());
 
             if (containedRole != null && !allRoles.contains(containedRole)) {
                 allRoles.add(containedRole);
-                addContainedRoles(allRoles, roles, containedRole);
+                addContainedRoles(allRoles, rolesByName, containedRole);
             }
         }
     }
@@ -160,10 +269,6 @@ private void getRoleMap(Map<String, Set<String>> map, String roleName, List<Rang
         }
     }
 
-    private RangerRole getContainedRole(Set<RangerRole> roles, String role) {
-        return (roles.stream().filter(containedRole -> role.equals(containedRole.getName())).findAny().orElse(null));
-    }
-
     private void addMemberNames(List<RangerRole.RoleMember> members, Set<String> names) {
         for (RangerRole.RoleMember member : members) {
             names.add(member.getName());
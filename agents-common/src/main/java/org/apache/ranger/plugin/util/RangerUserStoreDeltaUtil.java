@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.apache.ranger.plugin.util.RangerUserStore.CLOUD_IDENTITY_NAME;
+
+public class RangerUserStoreDeltaUtil {
+    private static final Logger LOG                      = LoggerFactory.getLogger(RangerUserStoreDeltaUtil.class);
+    private static final Logger PERF_USERSTORE_DELTA_LOG = RangerPerfTracer.getPerfLogger("userstore.delta");
+
+    private RangerUserStoreDeltaUtil() {
+        // to block instantiation
+    }
+
+    /*
+    Returns a delta that, when applied to 'from' with applyDelta(), results in 'to'.
+    A changed user/group is listed in deletedUsers/deletedGroups, so that all its existing entries are removed, and its current
+    attributes/group-memberships, if any, are included in the delta maps.
+     */
+    public static RangerUserStore computeDelta(RangerUserStore from, RangerUserStore to) {
+        LOG.debug("==> RangerUserStoreDeltaUtil.computeDelta(fromVersion={}, toVersion={})", from.getUserStoreVersion(), to.getUserStoreVersion());
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_USERSTORE_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_USERSTORE_DELTA_LOG, "RangerUserStoreDeltaUtil.computeDelta(fromVersion=" + from.getUserStoreVersion() + ", toVersion=" + to.getUserStoreVersion() + ")");
+        }
+
+        Map<String, Map<String, String>> userAttrMapping  = new HashMap<>();
+        Map<String, Map<String, String>> groupAttrMapping = new HashMap<>();
+        Map<String, Set<String>>         userGroupMapping = new HashMap<>();
+        Set<String>                      deletedUsers     = new HashSet<>();
+        Set<String>                      deletedGroups    = new HashSet<>();
+
+        Map<String, Map<String, String>> fromUserAttrs  = nullSafe(from.getUserAttrMapping());
+        Map<String, Set<String>>         fromUserGroups = nullSafe(from.getUserGroupMapping());
+        Map<String, Map<String, String>> toUserAttrs    = nullSafe(to.getUserAttrMapping());
+        Map<String, Set<String>>         toUserGroups   = nullSafe(to.getUserGroupMapping());
+        Set<String>                      userNames      = new HashSet<>(fromUserAttrs.keySet());
+
+        userNames.addAll(fromUserGroups.keySet());
+        userNames.addAll(toUserAttrs.keySet());
+        userNames.addAll(toUserGroups.keySet());
+
+        for (String userName : userNames) {
+            Map<String, String> toAttrs  = toUserAttrs.get(userName);
+            Set<String>         toGroups = toUserGroups.get(userName);
+
+            if (!Objects.equals(fromUserAttrs.get(userName), toAttrs) || !Objects.equals(fromUserGroups.get(userName), toGroups)) {
+                deletedUsers.add(userName);
+
+                if (toAttrs != null) {
+                    userAttrMapping.put(userName, toAttrs);
+                }
+
+                if (toGroups != null) {
+                    userGroupMapping.put(userName, toGroups);
+                }
+            }
+        }
+
+        Map<String, Map<String, String>> fromGroupAttrs = nullSafe(from.getGroupAttrMapping());
+        Map<String, Map<String, String>> toGroupAttrs   = nullSafe(to.getGroupAttrMapping());
+        Set<String>                      groupNames     = new HashSet<>(fromGroupAttrs.keySet());
+
+        groupNames.addAll(toGroupAttrs.keySet());
+
+        for (String groupName : groupNames) {
+            Map<String, String> toAttrs = toGroupAttrs.get(groupName);
+
+            if (!Objects.equals(fromGroupAttrs.get(groupName), toAttrs)) {
+                deletedGroups.add(groupName);
+
+                if (toAttrs != null) {
+                    groupAttrMapping.put(groupName, toAttrs);
+                }
+            }
+        }
+
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserStoreVersion(to.getUserStoreVersion());
+        ret.setUserStoreUpdateTime(to.getUserStoreUpdateTime());
+        ret.setUserAttrMapping(userAttrMapping);
+        ret.setGroupAttrMapping(groupAttrMapping);
+        ret.setUserGroupMapping(userGroupMapping);
+        ret.setDeletedUsers(deletedUsers);
+        ret.setDeletedGroups(deletedGroups);
+        ret.setIsDelta(Boolean.TRUE);
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerUserStoreDeltaUtil.computeDelta(fromVersion={}, toVersion={}): changedUsers={}, changedGroups={}", from.getUserStoreVersion(), to.getUserStoreVersion(), deletedUsers.size(), deletedGroups.size());
+
+        return ret;
+    }
+
+    /*
+    Combines two consecutive deltas into one. Applying the returned delta is equivalent to applying 'older' followed by 'newer'.
+     */
+    public static RangerUserStore mergeDeltas(RangerUserStore older, RangerUserStore newer) {
+        Map<String, Map<String, String>> userAttrMapping  = new HashMap<>(nullSafe(older.getUserAttrMapping()));
+        Map<String, Map<String, String>> groupAttrMapping = new HashMap<>(nullSafe(older.getGroupAttrMapping()));
+        Map<String, Set<String>>         userGroupMapping = new HashMap<>(nullSafe(older.getUserGroupMapping()));
+        Set<String>                      deletedUsers     = new HashSet<>(nullSafe(older.getDeletedUsers()));
+        Set<String>                      deletedGroups    = new HashSet<>(nullSafe(older.getDeletedGroups()));
+
+        for (String userName : nullSafe(newer.getDeletedUsers())) {
+            userAttrMapping.remove(userName);
+            userGroupMapping.remove(userName);
+            deletedUsers.add(userName);
+        }
+
+        for (String groupName : nullSafe(newer.getDeletedGroups())) {
+            groupAttrMapping.remove(groupName);
+            deletedGroups.add(groupName);
+        }
+
+        userAttrMapping.putAll(nullSafe(newer.getUserAttrMapping()));
+        userGroupMapping.putAll(nullSafe(newer.getUserGroupMapping()));
+        groupAttrMapping.putAll(nullSafe(newer.getGroupAttrMapping()));
+
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserStoreVersion(newer.getUserStoreVersion());
+        ret.setUserStoreUpdateTime(newer.getUserStoreUpdateTime());
+        ret.setUserAttrMapping(userAttrMapping);
+        ret.setGroupAttrMapping(groupAttrMapping);
+        ret.setUserGroupMapping(userGroupMapping);
+        ret.setDeletedUsers(deletedUsers);
+        ret.setDeletedGroups(deletedGroups);
+        ret.setIsDelta(Boolean.TRUE);
+
+        return ret;
+    }
+
+    /*
+    Returns a new userstore with the delta applied; the given userStore is not modified, as it could be in use by other threads.
+     */
+    public static RangerUserStore applyDelta(RangerUserStore userStore, RangerUserStore delta) {
+        LOG.debug("==> RangerUserStoreDeltaUtil.applyDelta(version={}, deltaVersion={})", userStore.getUserStoreVersion(), delta.getUserStoreVersion());
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_USERSTORE_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_USERSTORE_DELTA_LOG, "RangerUserStoreDeltaUtil.applyDelta(version=" + userStore.getUserStoreVersion() + ", deltaVersion=" + delta.getUserStoreVersion() + ")");
+        }
+
+        Map<String, Map<String, String>> userAttrMapping     = new HashMap<>(nullSafe(userStore.getUserAttrMapping()));
+        Map<String, Map<String, String>> groupAttrMapping    = new HashMap<>(nullSafe(userStore.getGroupAttrMapping()));
+        Map<String, Set<String>>         userGroupMapping    = new HashMap<>(nullSafe(userStore.getUserGroupMapping()));
+        Map<String, String>              userCloudIdMapping  = new HashMap<>(nullSafe(userStore.getUserCloudIdMapping()));
+        Map<String, String>              groupCloudIdMapping = new HashMap<>(nullSafe(userStore.getGroupCloudIdMapping()));
+
+        for (String userName : nullSafe(delta.getDeletedUsers())) {
+            removeCloudId(userCloudIdMapping, userAttrMapping.remove(userName), userName);
+            userGroupMapping.remove(userName);
+        }
+
+        for (String groupName : nullSafe(delta.getDeletedGroups())) {
+            removeCloudId(groupCloudIdMapping, groupAttrMapping.remove(groupName), groupName);
+        }
+
+        for (Map.Entry<String, Map<String, String>> entry : nullSafe(delta.getUserAttrMapping()).entrySet()) {
+            removeCloudId(userCloudIdMapping, userAttrMapping.put(entry.getKey(), entry.getValue()), entry.getKey());
+            addCloudId(userCloudIdMapping, entry.getValue(), entry.getKey());
+        }
+
+        for (Map.Entry<String, Map<String, String>> entry : nullSafe(delta.getGroupAttrMapping()).entrySet()) {
+            removeCloudId(groupCloudIdMapping, groupAttrMapping.put(entry.getKey(), entry.getValue()), entry.getKey());
+            addCloudId(groupCloudIdMapping, entry.getValue(), entry.getKey());
+        }
+
+        userGroupMapping.putAll(nullSafe(delta.getUserGroupMapping()));
+
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserStoreVersion(delta.getUserStoreVersion());
+        ret.setUserStoreUpdateTime(delta.getUserStoreUpdateTime());
+        ret.setUserAttrMapping(userAttrMapping);
+        ret.setGroupAttrMapping(groupAttrMapping);
+        ret.setUserGroupMapping(userGroupMapping);
+        ret.setUserCloudIdMapping(userCloudIdMapping);
+        ret.setGroupCloudIdMapping(groupCloudIdMapping);
+
+        RangerPerfTracer.log(perf);
+
+        LOG.debug("<== RangerUserStoreDeltaUtil.applyDelta(version={}, deltaVersion={}): users={}, groups={}", userStore.getUserStoreVersion(), delta.getUserStoreVersion(), userAttrMapping.size(), groupAttrMapping.size());
+
+        return ret;
+    }
+
+    public static int getDeltaSize(RangerUserStore delta) {
+        return nullSafe(delta.getDeletedUsers()).size() + nullSafe(delta.getDeletedGroups()).size() +
+                nullSafe(delta.getUserAttrMapping()).size() + nullSafe(delta.getGroupAttrMapping()).size() + nullSafe(delta.getUserGroupMapping()).size();
+    }
+
+    public static int getSize(RangerUserStore userStore) {
+        return nullSafe(userStore.getUserAttrMapping()).size() + nullSafe(userStore.getGroupAttrMapping()).size() + nullSafe(userStore.getUserGroupMapping()).size();
+    }
+
+    private static void removeCloudId(Map<String, String> cloudIdMapping, Map<String, String> attrs, String name) {
+        String cloudId = attrs != null ? attrs.get(CLOUD_IDENTITY_NAME) : null;
+
+        if (StringUtils.isNotEmpty(cloudId) && StringUtils.equals(cloudIdMapping.get(cloudId), name)) {
+            cloudIdMapping.remove(cloudId);
+        }
+    }
+
+    private static void addCloudId(Map<String, String> cloudIdMapping, Map<String, String> attrs, String name) {
+        String cloudId = attrs != null ? attrs.get(CLOUD_IDENTITY_NAME) : null;
+
+        if (StringUtils.isNotEmpty(cloudId)) {
+            cloudIdMapping.put(cloudId, name);
+        }
+    }
+
+    private static <K, V> Map<K, V> nullSafe(Map<K, V> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+
+    private static <T> Set<T> nullSafe(Set<T> set) {
+        return set != null ? set : Collections.emptySet();
+    }
+}
@@ -26,8 +26,11 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -229,6 +232,100 @@ public void test_integration() {
         Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20.33.10")));
     }
 
+    @Test
+    public void test_cidrAndRanges() {
+        RangerIpMatcher ipMatcher = createMatcher(new String[] {"10.20.0.0/14", "192.168.1.10-192.168.1.20", "2001:db8::/32", "fe80::1-fe80::ff", "172.16.5.5"});
+
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.0.1")));
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("10.23.255.255")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("10.24.0.0")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("10.19.255.255")));
+
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.10")));
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.15")));
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.20")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.9")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.21")));
+
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:DB8:0:1::5")));
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db9::1")));
+
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("fe80::1")));
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("fe80:0:0:0:0:0:0:a0")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("fe80::100")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("fe80::")));
+
+        Assert.assertTrue(ipMatcher.isMatched(createRequest("172.16.5.5")));
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("172.16.5.50")));
+
+        // ipv4 policy values don't match ipv6 addresses, including ipv4-mapped ones
+        Assert.assertFalse(ipMatcher.isMatched(createRequest("::ffff:10.20.0.1")));
+    }
+
+    @Test
+    public void test_compiledMatchesStringMatching() {
+        Random          random  = new Random(20261019L);
+        RangerIpMatcher matcher = new RangerIpMatcher();
+
+        for (int i = 0; i < 2000; i++) {
+            List<String> exactIps    = new ArrayList<>();
+            List<String> wildCardIps = new ArrayList<>();
+
+            for (int j = random.nextInt(8); j >= 0; j--) {
+                String policyIp   = randomPolicyIp(random);
+                String digestedIp = matcher.digestPolicyIp(policyIp);
+
+                if (digestedIp.equals(policyIp)) {
+                    exactIps.add(policyIp);
+                } else if (!digestedIp.isEmpty()) {
+                    wildCardIps.add(digestedIp);
+                }
+            }
+
+            IpAddressSet ipAddressSet = IpAddressSet.compile(exactIps, wildCardIps);
+
+            for (int j = 0; j < 20; j++) {
+                String  requestIp = randomRequestIp(random);
+                boolean expected  = matcher.isWildcardMatched(wildCardIps, requestIp) || matcher.isExactlyMatched(exactIps, requestIp);
+
+                Assert.assertEquals("isMatch(" + requestIp + "): " + ipAddressSet, expected, ipAddressSet.isMatch(requestIp));
+            }
+        }
+    }
+
+    @Test
+    public void test_ipAddressSetIsShared() {
+        List<String> exactIps    = Arrays.asList("10.0.0.0/8", "1.2.3.4");
+        List<String> wildCardIps = Collections.singletonList("192.168.");
+
+        IpAddressSet ipAddressSet = IpAddressSet.compile(exactIps, wildCardIps);
+
+        Assert.assertSame(ipAddressSet, IpAddressSet.compile(new ArrayList<>(exactIps), new ArrayList<>(wildCardIps)));
+        Assert.assertEquals(3, ipAddressSet.getCompiledCount());
+    }
+
+    @Test
+    public void test_parseAddress() {
+        Assert.assertArrayEquals(new byte[] {10, 20, 30, (byte) 255}, IpAddressSet.parseAddress("10.20.30.255"));
+        Assert.assertEquals(16, IpAddressSet.parseAddress("::").length);
+        Assert.assertEquals(16, IpAddressSet.parseAddress("::ffff:1.2.3.4").length);
+        Assert.assertEquals(1, IpAddressSet.parseAddress("::1")[15]);
+        Assert.assertEquals((byte) 0xfe, IpAddressSet.parseAddress("FE80::")[0]);
+
+        Assert.assertNull(IpAddressSet.parseAddress("1.2.3"));
+        Assert.assertNull(IpAddressSet.parseAddress("1.2.3.4.5"));
+        Assert.assertNull(IpAddressSet.parseAddress("1.2.3.256"));
+        Assert.assertNull(IpAddressSet.parseAddress("01.2.3.4"));
+        Assert.assertNull(IpAddressSet.parseAddress("localhost"));
+        Assert.assertNull(IpAddressSet.parseAddress("1:2:3:4:5:6"));
+        Assert.assertNull(IpAddressSet.parseAddress("1::2::3"));
+        Assert.assertNull(IpAddressSet.parseAddress("1:2:3:4:5:6:7:8:9"));
+        Assert.assertNull(IpAddressSet.parseAddress("1:2:3:4::5:6:7:8"));
+        Assert.assertNull(IpAddressSet.parseAddress("fe80::1%eth0"));
+        Assert.assertNull(IpAddressSet.parseAddress("fe80:"));
+    }
+
     RangerIpMatcher createMatcher(String[] ipArray) {
         RangerIpMatcher matcher = new RangerIpMatcher();
 
@@ -249,6 +346,44 @@ RangerIpMatcher createMatcher(String[] ipArray) {
         return matcher;
     }
 
+    private static String randomPolicyIp(Random random) {
+        boolean       isIpv4 = random.nextBoolean();
+        int           count  = 1 + random.nextInt(isIpv4 ? 4 : 8);
+        StringBuilder sb     = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(isIpv4 ? '.' : ':');
+            }
+
+            sb.append(random.nextInt(4) == 0 && i > 0 ? "*" : randomPart(random, isIpv4));
+        }
+
+        return sb.toString();
+    }
+
+    private static String randomRequestIp(Random random) {
+        boolean       isIpv4 = random.nextBoolean();
+        int           count  = random.nextInt(10) == 0 ? 3 + random.nextInt(7) : (isIpv4 ? 4 : 8);
+        StringBuilder sb     = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(isIpv4 ? '.' : ':');
+            }
+
+            sb.append(randomPart(random, isIpv4));
+        }
+
+        return sb.toString();
+    }
+
+    private static String randomPart(Random random, boolean isIpv4) {
+        int part = random.nextInt(3);
+
+        return isIpv4 ? Integer.toString(part) : (random.nextBoolean() ? "A" : "a") + part;
+    }
+
     RangerAccessRequest createRequest(String requestIp) {
         RangerAccessRequest request = mock(RangerAccessRequest.class);
 
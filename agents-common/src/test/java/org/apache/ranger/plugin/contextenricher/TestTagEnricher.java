@@ -30,6 +30,7 @@
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
 import org.apache.ranger.plugin.model.RangerTagDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
@@ -157,6 +158,37 @@ private void runTests(InputStreamReader reader, String testName) {
 
             assertEquals(test.name, expectedTags, resultTags);
         }
+
+        // enriching all requests in a batch should find the same tags as enriching each request
+        List<RangerAccessRequestImpl> singleRequests = new ArrayList<>();
+        List<RangerAccessRequest>     batchRequests  = new ArrayList<>();
+
+        for (TestData test : testCase.tests) {
+            RangerAccessRequestImpl singleRequest = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null, null);
+            RangerAccessRequestImpl batchRequest  = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null, null);
+
+            ((RangerMutableResource) singleRequest.getResource()).setServiceDef(testCase.serviceDef);
+
+            tagEnricher.enrich(singleRequest);
+
+            singleRequests.add(singleRequest);
+            batchRequests.add(batchRequest);
+        }
+
+        tagEnricher.enrich(batchRequests);
+
+        for (int i = 0; i < singleRequests.size(); i++) {
+            Set<RangerTagForEval> expected = RangerAccessRequestUtil.getRequestTagsFromContext(singleRequests.get(i).getContext());
+            Set<RangerTagForEval> result   = RangerAccessRequestUtil.getRequestTagsFromContext(batchRequests.get(i).getContext());
+
+            assertEquals("batch: " + testCase.tests.get(i).name, expected, result);
+
+            if (expected != null) {
+                for (RangerTagForEval tag : result) {
+                    assertTrue("batch: " + testCase.tests.get(i).name, expected.stream().anyMatch(t -> t == tag));
+                }
+            }
+        }
     }
 
     static class TagEnricherTestCase {
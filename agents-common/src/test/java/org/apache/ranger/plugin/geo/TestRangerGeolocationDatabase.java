@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.geo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestRangerGeolocationDatabase {
+    @Test
+    public void testFindInSortedRanges() {
+        RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+        database.setMetadata(GeolocationMetadata.create(new String[] {"FROM_IP", "TO_IP", "COUNTRY_CODE", "COUNTRY_NAME"}, 0));
+
+        // ranges in ascending order, as in most geolocation files
+        for (int i = 0; i < 1000; i++) {
+            database.add(data("10." + (i / 256) + "." + (i % 256) + ".0", "10." + (i / 256) + "." + (i % 256) + ".255", "C" + i));
+        }
+
+        database.optimize();
+
+        assertEquals(1000, database.getData().size());
+        assertEquals("C0", database.getValue(database.find("10.0.0.1"), "COUNTRY_CODE"));
+        assertEquals("C258", database.getValue(database.find("10.1.2.255"), "COUNTRY_CODE"));
+        assertEquals("C999", database.getValue(database.find("10.3.231.0"), "COUNTRY_CODE"));
+        assertNull(database.find("10.3.232.0"));
+        assertNull(database.find("9.255.255.255"));
+    }
+
+    @Test
+    public void testFindInNestedRanges() {
+        List<RangerGeolocationData> ranges = new ArrayList<>(Arrays.asList(
+                data("20.0.0.0", "20.0.255.255", "OUTER"),
+                data("20.0.1.0", "20.0.1.255", "INNER"),
+                data("20.0.1.0", "20.0.1.255", "INNER"), // duplicate
+                data("20.0.3.0", "20.0.3.255", "LATER")));
+
+        IPRangeIndex index = IPRangeIndex.build(ranges);
+
+        assertEquals(3, index.size());
+        assertEquals("INNER", index.find(RangerGeolocationData.ipAddressToLong("20.0.1.10")).getLocationData()[0]);
+        assertEquals("OUTER", index.find(RangerGeolocationData.ipAddressToLong("20.0.2.10")).getLocationData()[0]);
+        assertEquals("OUTER", index.find(RangerGeolocationData.ipAddressToLong("20.0.4.10")).getLocationData()[0]);
+        assertEquals("LATER", index.find(RangerGeolocationData.ipAddressToLong("20.0.3.10")).getLocationData()[0]);
+        assertNull(index.find(RangerGeolocationData.ipAddressToLong("20.1.0.0")));
+        assertNull(IPRangeIndex.EMPTY.find(RangerGeolocationData.ipAddressToLong("20.0.1.10")));
+    }
+
+    private static RangerGeolocationData data(String fromIP, String toIP, String... location) {
+        String[] fields = new String[location.length + 2];
+
+        fields[0] = fromIP;
+        fields[1] = toIP;
+
+        System.arraycopy(location, 0, fields, 2, location.length);
+
+        return RangerGeolocationData.create(fields, 0, true);
+    }
+}
@@ -28,12 +28,14 @@
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
@@ -103,6 +105,39 @@ public void test_getResourceHierarchies() {
         assertTrue(hierarchies.contains(hierarchy));
     }
 
+    @Test
+    public void test_sharedInstanceAndCachedHierarchies() {
+        RangerResourceDef database = createResourceDef("Database", "");
+        RangerResourceDef udf      = createResourceDef("UDF", "Database");
+        RangerResourceDef table    = createResourceDef("Table", "Database");
+        RangerResourceDef column   = createResourceDef("Column", "Table", true);
+
+        when(serviceDef.getResources()).thenReturn(Lists.newArrayList(database, udf, table, column));
+        when(serviceDef.getUpdateTime()).thenReturn(getNow());
+
+        helper = RangerServiceDefHelper.getSharedInstance(serviceDef);
+
+        assertSame(helper, RangerServiceDefHelper.getSharedInstance(serviceDef));
+
+        Set<String>                  keys        = new HashSet<>(Lists.newArrayList("Database", "Table"));
+        Set<List<RangerResourceDef>> hierarchies = helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_ACCESS, keys);
+
+        assertEquals(Collections.singleton(Lists.newArrayList(database, table, column)), hierarchies);
+        assertSame(hierarchies, helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_ACCESS, new HashSet<>(keys)));
+        assertSame(hierarchies, helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_AUDIT, keys));
+        assertEquals(hierarchies, helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_ACCESS, Lists.newArrayList(keys)));
+
+        // updates to keys after the call must not affect cached hierarchies
+        keys.add("UDF");
+
+        assertTrue(helper.getResourceHierarchies(RangerPolicy.POLICY_TYPE_ACCESS, keys).isEmpty());
+
+        // a new version of the service-def gets a new helper
+        when(serviceDef.getUpdateTime()).thenReturn(getLastMonth());
+
+        assertNotSame(helper, RangerServiceDefHelper.getSharedInstance(serviceDef));
+    }
+
     @Test
     public final void test_isResourceGraphValid_detectCycle() {
         /*
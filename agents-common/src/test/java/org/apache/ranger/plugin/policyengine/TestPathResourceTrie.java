@@ -37,6 +37,7 @@
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestPathResourceTrie {
     private static final RangerResourceDef       PATH_RESOURCE_DEF = getPathResourceDef();
@@ -113,6 +114,24 @@ public void testSelfScope() {
         verifyEvaluators("invalid: does-not-begin-with-sep", scope);
     }
 
+    @Test
+    public void testResourcePrefixes() {
+        for (String resource : Arrays.asList("/", "/tmp", "/tmp/", "/tmp/a/b", "/tmp/ac/d/e/f/g", "/tmpa/b", "/unmatched/x")) {
+            Set<RangerResourceEvaluator> prefixEvaluators = trie.getEvaluatorsForResourcePrefixes(resource);
+
+            for (int len = 1; len <= resource.length(); len++) {
+                String                       prefix     = resource.substring(0, len);
+                Set<RangerResourceEvaluator> evaluators = trie.getEvaluatorsForResource(prefix, ResourceElementMatchingScope.SELF);
+
+                if (evaluators != null) {
+                    assertTrue("missing evaluators of prefix " + prefix + " for resource " + resource, prefixEvaluators.containsAll(evaluators));
+                }
+            }
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList(EVAL_, EVAL_nr, EVAL_TMPnr, EVAL_TMP_nr, EVAL_TMP_A_B)), trie.getEvaluatorsForResourcePrefixes("/tmp/a/b"));
+    }
+
     private void verifyEvaluators(String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
         Set<RangerResourceEvaluator> expected = evaluators.length == 0 ? null : new HashSet<>(Arrays.asList(evaluators));
         Set<RangerResourceEvaluator> result   = trie.getEvaluatorsForResource(resource, scope);
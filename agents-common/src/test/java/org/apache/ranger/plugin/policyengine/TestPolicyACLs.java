@@ -31,6 +31,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceMatchingScope;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs.DataMaskResult;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs.RowFilterResult;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -41,6 +42,7 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -285,7 +287,40 @@ private void runTests(InputStreamReader reader, String testName) {
                 assertTrue("getResourceACLs() failed! " + testCase.name + ":" + oneTest.name + " - roleACLsMatched", roleACLsMatched);
                 assertTrue("getResourceACLs() failed! " + testCase.name + ":" + oneTest.name + " - rowFiltersMatched", rowFiltersMatched);
                 assertTrue("getResourceACLs() failed! " + testCase.name + ":" + oneTest.name + " - dataMaskingMatched", dataMaskingMatched);
+
+                // updates to returned ACLs must not affect ACLs returned later for the same resource
+                RangerResourceACLs      expectedACLs = new RangerResourceACLs(acls);
+                RangerAccessRequestImpl requestAgain = new RangerAccessRequestImpl(oneTest.resource, RangerPolicyEngine.ANY_ACCESS, null, null, null);
+
+                requestAgain.setResourceMatchingScope(oneTest.resourceMatchingScope);
+
+                acls.getUserACLs().clear();
+                acls.getGroupACLs().clear();
+
+                assertEquals("getResourceACLs() failed! " + testCase.name + ":" + oneTest.name + " - ACLs after update", expectedACLs, policyEngine.getResourceACLs(requestAgain));
             });
+
+            // bulk API returns the same ACLs as getResourceACLs(request); ACLs cache is disabled, to compute ACLs for all resources together
+            RangerPluginConfig noCacheConfig = new RangerPluginConfig(serviceType, null, "test-policy-acls", "cl1", "on-prem", policyEngineOptions);
+
+            noCacheConfig.setInt(noCacheConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_RESOURCE_ACLS_CACHE_SIZE, 0);
+
+            RangerPolicyEngine         noCacheEngine = new RangerPolicyEngineImpl(testCase.servicePolicies, new RangerPluginContext(noCacheConfig), null);
+            List<RangerAccessResource> resources     = new ArrayList<>();
+
+            for (PolicyACLsTests.TestCase.OneTest oneTest : testCase.tests) {
+                if (oneTest != null && (oneTest.resourceMatchingScope == null || oneTest.resourceMatchingScope == ResourceMatchingScope.SELF)) {
+                    resources.add(oneTest.resource);
+                }
+            }
+
+            Map<RangerAccessResource, RangerResourceACLs> bulkACLs = noCacheEngine.getResourceACLs(resources, null);
+
+            for (RangerAccessResource resource : resources) {
+                RangerResourceACLs expected = policyEngine.getResourceACLs(new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, null, null, null));
+
+                assertEquals("getResourceACLs(resources) failed! " + testCase.name + ":" + resource.getAsString(), expected, bulkACLs.get(resource));
+            }
         }
     }
 
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerResourceACLsCache {
+    @Test
+    public void testCacheIsBoundedAndKeepsEntriesInUse() {
+        RangerResourceACLsCache          cache    = new RangerResourceACLsCache(4);
+        RangerResourceACLsCache.Versions versions = cache.setVersions(1, 1, 1);
+
+        for (int i = 0; i < 4; i++) {
+            cache.put(key(i), new RangerResourceACLs(), versions);
+        }
+
+        cache.put(key(4), new RangerResourceACLs(), versions);
+
+        assertTrue("cache size must be bounded", cache.size() <= cache.getCacheSize());
+
+        for (int i = 5; i < 16; i++) {
+            assertNotNull("entry in use must not be evicted", cache.get(key(4)));
+
+            cache.put(key(i), new RangerResourceACLs(), versions);
+
+            assertTrue("cache size must be bounded", cache.size() <= cache.getCacheSize());
+        }
+
+        assertNotNull("entry in use must not be evicted", cache.get(key(4)));
+    }
+
+    @Test
+    public void testVersionChangeClearsCache() {
+        RangerResourceACLsCache          cache       = new RangerResourceACLsCache(4);
+        RangerResourceACLsCache.Versions oldVersions = cache.setVersions(1, 1, 1);
+
+        cache.put(key(0), new RangerResourceACLs(), oldVersions);
+
+        assertEquals(1, cache.size());
+
+        cache.setVersions(2, 1, 1);
+
+        assertNull(cache.get(key(0)));
+
+        cache.put(key(0), new RangerResourceACLs(), oldVersions); // ACLs computed with older versions must not be cached
+
+        assertEquals(0, cache.size());
+    }
+
+    private static List<Object> key(int i) {
+        return Collections.singletonList("resource-" + i);
+    }
+}
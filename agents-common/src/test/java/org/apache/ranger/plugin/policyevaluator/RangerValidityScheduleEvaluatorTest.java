@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import org.apache.ranger.plugin.model.RangerValidityRecurrence;
+import org.apache.ranger.plugin.model.RangerValidityRecurrence.RecurrenceSchedule;
+import org.apache.ranger.plugin.model.RangerValidityRecurrence.ValidityInterval;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangerValidityScheduleEvaluatorTest {
+    @Test
+    public void testStartAndEndTime() {
+        RangerValidityScheduleEvaluator evaluator = new RangerValidityScheduleEvaluator("2024/01/12 00:00:00", "2024/01/13 00:00:00", TimeZone.getDefault().getID(), null);
+        long                            startTime = getTime(2024, 1, 12, 0, 0, 0);
+        long                            endTime   = getTime(2024, 1, 13, 0, 0, 0);
+
+        assertFalse(evaluator.isApplicable(startTime - 1));
+        assertEquals(startTime, evaluator.getNextTransitionTime(startTime - 1));
+        assertTrue(evaluator.isApplicable(startTime));
+        assertTrue(evaluator.isApplicable(endTime));
+        assertEquals(endTime + 1, evaluator.getNextTransitionTime(endTime));
+        assertFalse(evaluator.isApplicable(endTime + 1));
+        assertEquals(Long.MAX_VALUE, evaluator.getNextTransitionTime(endTime + 1));
+
+        // going back in time
+        assertTrue(evaluator.isApplicable(startTime + 1000));
+        assertFalse(evaluator.isApplicable(startTime - 1000));
+    }
+
+    @Test
+    public void testRecurrenceWindows() {
+        RangerValidityRecurrence        weekdayMornings = new RangerValidityRecurrence(new RecurrenceSchedule("0", "9", null, "2-6", "*", "*"), new ValidityInterval(0, 3, 0));
+        RangerValidityScheduleEvaluator evaluator       = new RangerValidityScheduleEvaluator(null, null, null, Collections.singletonList(weekdayMornings));
+        long                            monday9am       = getTime(2024, 1, 15, 9, 0, 0);
+
+        assertFalse(evaluator.isApplicable(monday9am - 1));
+        assertTrue(evaluator.isApplicable(monday9am));
+        assertEquals(monday9am + 3 * 60 * 60 * 1000 + 1, evaluator.getNextTransitionTime(monday9am + 1000));
+        assertTrue(evaluator.isApplicable(monday9am + 3 * 60 * 60 * 1000));
+        assertFalse(evaluator.isApplicable(monday9am + 3 * 60 * 60 * 1000 + 1));
+        assertFalse(evaluator.isApplicable(getTime(2024, 1, 20, 10, 0, 0))); // saturday
+    }
+
+    @Test
+    public void testNonMatchingRecurrenceWindowLastsUntilNextMinute() {
+        RangerValidityRecurrence        futureYear = new RangerValidityRecurrence(new RecurrenceSchedule("0", "9", null, null, "*", "2030"), new ValidityInterval(0, 1, 0));
+        RangerValidityScheduleEvaluator evaluator  = new RangerValidityScheduleEvaluator(null, null, null, Collections.singletonList(futureYear));
+        long                            accessTime = getTime(2024, 1, 15, 10, 20, 30) + 500;
+        long                            nextMinute = getTime(2024, 1, 15, 10, 21, 0);
+
+        assertFalse(evaluator.isApplicable(accessTime));
+        assertEquals(nextMinute, evaluator.getNextTransitionTime(accessTime));
+        assertFalse(evaluator.isApplicable(nextMinute - 1));
+        assertEquals("served from the window computed earlier", nextMinute, evaluator.getNextTransitionTime(nextMinute - 1));
+    }
+
+    @Test
+    public void testPrecomputedWindowsMatchFullEvaluation() {
+        List<List<RangerValidityRecurrence>> recurrencesList = Arrays.asList(
+                Collections.singletonList(new RangerValidityRecurrence(new RecurrenceSchedule("0", "9", null, "2-6", "*", "*"), new ValidityInterval(0, 8, 0))),
+                Collections.singletonList(new RangerValidityRecurrence(new RecurrenceSchedule("15,45", "*", null, null, "*", "*"), new ValidityInterval(0, 0, 10))),
+                Collections.singletonList(new RangerValidityRecurrence(new RecurrenceSchedule("30", "22", "1,15", null, "*", "*"), new ValidityInterval(1, 0, 0))),
+                Arrays.asList(new RangerValidityRecurrence(new RecurrenceSchedule("0", "8", null, "2", "*", "*"), new ValidityInterval(0, 1, 0)),
+                        new RangerValidityRecurrence(new RecurrenceSchedule("0", "17", null, "6", "*", "*"), new ValidityInterval(0, 2, 30))));
+        Random random    = new Random(1);
+        long   startTime = getTime(2024, 1, 1, 0, 0, 0);
+
+        for (List<RangerValidityRecurrence> recurrences : recurrencesList) {
+            RangerValidityScheduleEvaluator evaluator  = new RangerValidityScheduleEvaluator("2024/01/03 00:00:00", "2024/02/20 00:00:00", null, recurrences);
+            long                            accessTime = startTime;
+
+            for (int i = 0; i < 20000; i++) {
+                boolean expected = new RangerValidityScheduleEvaluator("2024/01/03 00:00:00", "2024/02/20 00:00:00", null, recurrences).isApplicable(accessTime);
+
+                assertEquals("accessTime=" + accessTime + ", recurrences=" + recurrences, expected, evaluator.isApplicable(accessTime));
+
+                accessTime += random.nextInt(10 * 60 * 1000);
+            }
+        }
+    }
+
+    private static long getTime(int year, int month, int day, int hour, int minute, int sec) {
+        Calendar cal = new GregorianCalendar(year, month - 1, day, hour, minute, sec);
+
+        return cal.getTimeInMillis();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestWildcardPattern {
+    private static final char   SEPARATOR       = '/';
+    private static final String PATTERN_CHARS   = "aAb\u00e9/*?";
+    private static final String VALUE_CHARS     = "aAb\u00c9\u00e9/";
+    private static final int    ITERATION_COUNT = 20000;
+
+    @Test
+    public void testMatchesFilenameUtils() {
+        Random random = new Random(20261019L);
+
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            String pattern = randomString(random, PATTERN_CHARS, 8);
+            String value   = randomString(random, VALUE_CHARS, 10);
+
+            for (boolean isCaseSensitive : new boolean[] {true, false}) {
+                IOCase  ioCase   = isCaseSensitive ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+                boolean expected = FilenameUtils.wildcardMatch(value, pattern, ioCase);
+
+                assertEquals("isMatch(value=" + value + ", pattern=" + pattern + ", ioCase=" + ioCase + ")", expected, WildcardPattern.compile(pattern, isCaseSensitive).isMatch(value));
+            }
+        }
+    }
+
+    @Test
+    public void testRecursiveMatchesPathResourceMatcher() {
+        Random random = new Random(20261020L);
+
+        for (int i = 0; i < ITERATION_COUNT; i++) {
+            String pattern = randomString(random, PATTERN_CHARS, 8);
+            String path    = randomString(random, VALUE_CHARS, 12);
+
+            if (!StringUtils.containsAny(pattern, "*?")) {
+                pattern += '*';
+            }
+
+            for (boolean isCaseSensitive : new boolean[] {true, false}) {
+                IOCase  ioCase   = isCaseSensitive ? IOCase.SENSITIVE : IOCase.INSENSITIVE;
+                boolean expected = RangerPathResourceMatcher.isRecursiveWildCardMatch(path, pattern, SEPARATOR, ioCase, StringUtils.split(pattern, SEPARATOR));
+
+                assertEquals("isRecursiveMatch(path=" + path + ", pattern=" + pattern + ", ioCase=" + ioCase + ")", expected, WildcardPattern.compile(pattern, isCaseSensitive).isRecursiveMatch(path, SEPARATOR));
+            }
+        }
+    }
+
+    @Test
+    public void testRecursiveMatch() {
+        WildcardPattern pattern = WildcardPattern.compile("/app/hive/test*", true);
+
+        assertTrue(pattern.isRecursiveMatch("/app/hive/test.db", SEPARATOR));
+        assertTrue(pattern.isRecursiveMatch("/app/hive/test.db/tbl1/part=1", SEPARATOR));
+        assertFalse(pattern.isRecursiveMatch("/app/hive/tmp/test.db", SEPARATOR));
+        assertFalse(pattern.isRecursiveMatch("/app/hbase/test.tbl", SEPARATOR));
+        assertTrue(WildcardPattern.compile("/home/*", true).isRecursiveMatch("/home/", SEPARATOR));
+        assertTrue(WildcardPattern.compile("/app/*/data", false).isRecursiveMatch("/APP/hive/DATA/file1", SEPARATOR));
+    }
+
+    @Test
+    public void testLongPatternFallsBack() {
+        StringBuilder sb = new StringBuilder("/data");
+
+        for (int i = 0; i < 20; i++) {
+            sb.append("/d").append(i).append('?');
+        }
+
+        String          patternStr = sb.toString();
+        WildcardPattern pattern    = WildcardPattern.compile(patternStr, true);
+        String          path       = patternStr.replace('?', 'x');
+
+        assertTrue(pattern.isMatch(path));
+        assertTrue(pattern.isRecursiveMatch(path + "/file1", SEPARATOR));
+        assertFalse(pattern.isMatch(path + "/file1"));
+    }
+
+    @Test
+    public void testCompiledPatternsAreShared() {
+        assertSame(WildcardPattern.compile("/app/*/data", true), WildcardPattern.compile("/app/*/data", true));
+    }
+
+    @Test
+    public void testCompiledPatternsCacheIsBounded() {
+        for (int i = 0; i < WildcardPattern.MAX_CACHED_PATTERNS + 100; i++) {
+            assertTrue(WildcardPattern.compile("/user/u" + i + "/*", false).isMatch("/USER/U" + i + "/file1"));
+        }
+
+        assertTrue(WildcardPattern.getCachedPatternCount(false) <= WildcardPattern.MAX_CACHED_PATTERNS);
+
+        // recently used patterns are still cached after the cache is full
+        assertSame(WildcardPattern.compile("/user/u1/*", false), WildcardPattern.compile("/user/u1/*", false));
+    }
+
+    @Test
+    public void testPatternsInUseAreNotEvicted() {
+        WildcardPattern inUse = WildcardPattern.compile("/data/*/in-use", false);
+
+        for (int i = 0; i < 2 * WildcardPattern.MAX_CACHED_PATTERNS; i++) {
+            WildcardPattern.compile("/data/d" + i + "/*", false);
+
+            assertSame(inUse, WildcardPattern.compile("/data/*/in-use", false));
+        }
+
+        assertTrue(WildcardPattern.getCachedPatternCount(false) <= WildcardPattern.MAX_CACHED_PATTERNS);
+    }
+
+    private static String randomString(Random random, String chars, int maxLen) {
+        int           len = random.nextInt(maxLen + 1);
+        StringBuilder sb  = new StringBuilder(len);
+
+        for (int i = 0; i < len; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+
+        return sb.toString();
+    }
+}
@@ -27,12 +27,19 @@
 import com.google.gson.JsonParseException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs;
@@ -51,8 +58,12 @@
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +72,7 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class TestRangerBasePlugin {
     static Gson                      gsonBuilder;
@@ -87,6 +99,113 @@ public void testBasePluginHive() throws Exception {
         runTestsFromResourceFile("/plugin/test_base_plugin_hive.json");
     }
 
+    @Test
+    public void testPathPrefixes() throws Exception {
+        RangerServiceDef serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HDFS_NAME);
+        ServicePolicies  policies   = new ServicePolicies();
+        RangerPolicy     policyA    = getPathPolicy(1L, "/a", false, "execute");
+        RangerPolicy     policyAbc  = getPathPolicy(2L, "/a/b/c", false, "read");
+        RangerPolicy     policyAbX  = getPathPolicy(3L, "/a/b/*", true, "execute");
+        RangerPolicy     denyAb     = getPathPolicy(4L, "/a/b", false, "execute");
+
+        denyAb.setDenyPolicyItems(denyAb.getPolicyItems());
+        denyAb.setPolicyItems(null);
+
+        policies.setServiceName("dev_hdfs");
+        policies.setServiceId(1L);
+        policies.setPolicyVersion(1L);
+        policies.setServiceDef(serviceDef);
+        policies.setPolicies(Arrays.asList(policyA, policyAbc, policyAbX, denyAb));
+
+        RangerPluginConfig       pluginConfig = new RangerPluginConfig(serviceDef.getName(), policies.getServiceName(), "hdfs", "cl1", "on-prem", peOptions);
+        RangerBasePlugin         plugin       = new RangerBasePlugin(pluginConfig, policies, null, null);
+        RangerAccessRequestImpl  request      = getPathRequest("/a/b/c", "read", "user1");
+        List<RangerAccessResult> processed    = new ArrayList<>();
+        List<RangerAccessResult> results      = plugin.isAccessAllowedForPathPrefixes(request, "path", new RangerAccessResultProcessor() {
+            @Override
+            public void processResult(RangerAccessResult result) {
+                processed.add(result);
+            }
+
+            @Override
+            public void processResults(Collection<RangerAccessResult> results) {
+                processed.addAll(results);
+            }
+        });
+
+        assertEquals(4, results.size());
+
+        String[]  expectedPaths       = {"/", "/a", "/a/b", "/a/b/c"};
+        String[]  expectedAccessTypes = {"execute", "execute", "execute", "read"};
+        boolean[] expectedAllowed     = {false, true, false, true};
+
+        for (int i = 0; i < results.size(); i++) {
+            RangerAccessResult result       = results.get(i);
+            RangerAccessResult singleResult = plugin.isAccessAllowed(getPathRequest(expectedPaths[i], expectedAccessTypes[i], "user1"), null);
+
+            assertEquals(expectedPaths[i], result.getAccessRequest().getResource().getValue("path"));
+            assertEquals(expectedPaths[i], expectedAccessTypes[i], result.getAccessRequest().getAccessType());
+            assertEquals(expectedPaths[i], expectedAllowed[i], result.getIsAllowed());
+            assertEquals(expectedPaths[i], singleResult.getIsAllowed(), result.getIsAllowed());
+            assertEquals(expectedPaths[i], singleResult.getIsAccessDetermined(), result.getIsAccessDetermined());
+            assertEquals(expectedPaths[i], singleResult.getPolicyId(), result.getPolicyId());
+        }
+
+        assertEquals(denyAb.getId().longValue(), results.get(2).getPolicyId());
+        assertEquals(policyAbc.getId().longValue(), results.get(3).getPolicyId());
+        assertEquals(Collections.singletonList(results.get(3)), processed); // only the result for the full path is audited
+        assertNull(RangerAccessRequestUtil.getPathPrefixChainFromContext(request.getContext()));
+        assertEquals(1, plugin.isAccessAllowedForPathPrefixes(getPathRequest("/", "execute", "user1"), "path", null).size());
+    }
+
+    @Test
+    public void testBulkDataMask() throws Exception {
+        RangerServiceDef                  serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+        ServicePolicies                   policies   = new ServicePolicies();
+        RangerPolicy                      maskPolicy = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources  = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource("db1"));
+        resources.put("table", new RangerPolicyResource("tbl1"));
+        resources.put("column", new RangerPolicyResource("ssn"));
+
+        maskPolicy.setId(1L);
+        maskPolicy.setName("mask-ssn");
+        maskPolicy.setService("dev_hive");
+        maskPolicy.setPolicyType(RangerPolicy.POLICY_TYPE_DATAMASK);
+        maskPolicy.setResources(resources);
+        maskPolicy.setDataMaskPolicyItems(Collections.singletonList(new RangerDataMaskPolicyItem(Collections.singletonList(new RangerPolicyItemAccess("select")), new RangerPolicyItemDataMaskInfo("MASK", null, null), Collections.singletonList("user1"), null, null, null, false)));
+
+        policies.setServiceName("dev_hive");
+        policies.setServiceId(1L);
+        policies.setPolicyVersion(1L);
+        policies.setServiceDef(serviceDef);
+        policies.setPolicies(Collections.singletonList(maskPolicy));
+
+        RangerPluginConfig        pluginConfig = new RangerPluginConfig(serviceDef.getName(), policies.getServiceName(), "hive", "cl1", "on-prem", peOptions);
+        RangerBasePlugin          plugin       = new RangerBasePlugin(pluginConfig, policies, null, null);
+        String[]                  columns      = {"id", "ssn", "name", "ssn"};
+        List<RangerAccessRequest> requests     = new ArrayList<>();
+
+        for (String column : columns) {
+            requests.add(getColumnRequest("db1", "tbl1", column, "user1"));
+        }
+
+        List<RangerAccessResult> results = new ArrayList<>(plugin.evalDataMaskPolicies(requests, null));
+
+        assertEquals(columns.length, results.size());
+
+        for (int i = 0; i < columns.length; i++) {
+            RangerAccessResult result   = results.get(i);
+            RangerAccessResult expected = plugin.evalDataMaskPolicies(getColumnRequest("db1", "tbl1", columns[i], "user1"), null);
+
+            assertEquals(columns[i], result.getAccessRequest().getResource().getValue("column"));
+            assertEquals(columns[i], "ssn".equals(columns[i]), result.isMaskEnabled());
+            assertEquals(columns[i], expected.isMaskEnabled(), result.isMaskEnabled());
+            assertEquals(columns[i], expected.getMaskType(), result.getMaskType());
+        }
+    }
+
     private void runTestsFromResourceFile(String resourceFile) throws Exception {
         InputStream       inStream = this.getClass().getResourceAsStream(resourceFile);
         InputStreamReader reader   = new InputStreamReader(inStream);
@@ -177,6 +296,40 @@ private RangerBasePluginTestCase readTestCase(Reader reader) throws Exception {
         return testCase;
     }
 
+    private static RangerPolicy getPathPolicy(Long id, String path, boolean isRecursive, String accessType) {
+        RangerPolicy policy = new RangerPolicy();
+
+        policy.setId(id);
+        policy.setName("path-" + id);
+        policy.setService("dev_hdfs");
+        policy.setResources(Collections.singletonMap("path", new RangerPolicyResource(path, false, isRecursive)));
+        policy.setPolicyItems(Collections.singletonList(new RangerPolicyItem(Collections.singletonList(new RangerPolicyItemAccess(accessType)), Collections.singletonList("user1"), null, null, null, false)));
+
+        return policy;
+    }
+
+    private static RangerAccessRequestImpl getPathRequest(String path, String accessType, String user) {
+        RangerAccessRequestImpl ret = new RangerAccessRequestImpl(new RangerAccessResourceImpl(Collections.singletonMap("path", path)), accessType, user, Collections.emptySet(), null);
+
+        ret.setAccessTime(new Date());
+
+        return ret;
+    }
+
+    private static RangerAccessRequestImpl getColumnRequest(String database, String table, String column, String user) {
+        Map<String, Object> resource = new HashMap<>();
+
+        resource.put("database", database);
+        resource.put("table", table);
+        resource.put("column", column);
+
+        RangerAccessRequestImpl ret = new RangerAccessRequestImpl(new RangerAccessResourceImpl(resource), "select", user, Collections.emptySet(), null);
+
+        ret.setAccessTime(new Date());
+
+        return ret;
+    }
+
     static class RangerBasePluginTestCase {
         public ServicePolicies policies;
         public ServiceTags     tags;
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.contextenricher.RangerServiceResourceMatcher;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher.MatchType;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CachedResourceEvaluatorsTest {
+    @Test
+    public void testHitsAndMisses() {
+        CachedResourceEvaluators                 cache      = new CachedResourceEvaluators();
+        Collection<RangerServiceResourceMatcher> evaluators = Collections.singletonList(Mockito.mock(RangerServiceResourceMatcher.class));
+
+        assertNull(cache.getEvaluators("database=db1", null));
+
+        cache.cacheEvaluators("database=db1", null, evaluators);
+
+        assertSame(evaluators, cache.getEvaluators("database=db1", null));
+        assertSame(evaluators, cache.getEvaluators("database=db1", Collections.emptyMap()));
+        assertNull(cache.getEvaluators("database=db2", null));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getSize());
+        assertEquals(2, cache.getWeight());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        CachedResourceEvaluators                 cache      = new CachedResourceEvaluators(100, 1000);
+        Collection<RangerServiceResourceMatcher> evaluators = Arrays.asList(Mockito.mock(RangerServiceResourceMatcher.class), Mockito.mock(RangerServiceResourceMatcher.class));
+
+        cache.cacheEvaluators("database=hot", null, evaluators);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.cacheEvaluators("database=db" + i, null, evaluators);
+
+            assertNotNull(cache.getEvaluators("database=hot", null));
+        }
+
+        assertTrue(cache.getSize() <= 100);
+        assertTrue(cache.getWeight() <= 1000);
+        assertTrue(cache.getEvictionCount() >= 900);
+
+        // recently read entry survives eviction
+        assertNotNull(cache.getEvaluators("database=hot", null));
+
+        // weight bound applies as well
+        cache = new CachedResourceEvaluators(100, 10);
+
+        for (int i = 0; i < 20; i++) {
+            cache.cacheEvaluators("database=db" + i, null, evaluators);
+        }
+
+        assertTrue(cache.getWeight() <= 10);
+    }
+
+    @Test
+    public void testTargetedInvalidation() {
+        CachedResourceEvaluators     cache           = new CachedResourceEvaluators();
+        RangerServiceResourceMatcher dbMatcher       = Mockito.mock(RangerServiceResourceMatcher.class);
+        RangerServiceResourceMatcher tblMatcher      = Mockito.mock(RangerServiceResourceMatcher.class);
+        RangerServiceResourceMatcher newMatcher      = Mockito.mock(RangerServiceResourceMatcher.class);
+        RangerAccessResource         db1Tbl1Resource = mockResource("database=db1;table=tbl1");
+        RangerAccessResource         db2Tbl1Resource = mockResource("database=db2;table=tbl1");
+        RangerAccessResource         db3Resource     = mockResource("database=db3");
+
+        Mockito.when(newMatcher.getMatchType(Mockito.same(db2Tbl1Resource), Mockito.any(), Mockito.any())).thenReturn(MatchType.ANCESTOR);
+        Mockito.when(newMatcher.getMatchType(Mockito.same(db3Resource), Mockito.any(), Mockito.any())).thenReturn(MatchType.NONE);
+
+        cache.cacheEvaluators(db1Tbl1Resource, null, Arrays.asList(dbMatcher, tblMatcher));
+        cache.cacheEvaluators(db2Tbl1Resource, null, Collections.emptyList());
+        cache.cacheEvaluators(db3Resource, null, Collections.emptyList());
+        cache.cacheEvaluators("database=db4", null, Collections.emptyList());
+
+        // removal of a resource, by its key
+        cache.removeCacheEvaluators(Collections.singleton("database=db4"), Collections.emptySet());
+
+        assertNull(cache.getEvaluators("database=db4", null));
+        assertEquals(3, cache.getSize());
+
+        // removed matcher: entries having the matcher are removed; new matcher: entries for resources it matches are removed
+        cache.removeCacheEvaluators(Collections.emptySet(), new HashSet<>(Arrays.asList(tblMatcher, newMatcher)));
+
+        assertNull(cache.getEvaluators("database=db1;table=tbl1", null));
+        assertNull(cache.getEvaluators("database=db2;table=tbl1", null));
+        assertNotNull(cache.getEvaluators("database=db3", null));
+        assertEquals(3, cache.getRemovalCount());
+
+        cache.clearCache();
+
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+
+    private static RangerAccessResource mockResource(String cacheKey) {
+        RangerAccessResource ret = Mockito.mock(RangerAccessResource.class);
+
+        Mockito.when(ret.getCacheKey()).thenReturn(cacheKey);
+
+        return ret;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.util.RangerLatencyMetrics.Stage;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangerLatencyHistogramTest {
+    @Test
+    public void testBucketBoundaries() {
+        int prevIndex = -1;
+
+        for (long value = 0; value < 1_000_000; value++) {
+            int index = RangerLatencyHistogram.getIndex(value);
+
+            assertTrue(index == prevIndex || index == prevIndex + 1);
+            assertTrue(RangerLatencyHistogram.getLowestValue(index) <= value && value <= RangerLatencyHistogram.getHighestValue(index));
+
+            prevIndex = index;
+        }
+
+        // bucket width is at most 1/64th of the value
+        for (long value = 128; value < (1L << 40); value = value * 3 / 2) {
+            int index = RangerLatencyHistogram.getIndex(value);
+
+            assertTrue(RangerLatencyHistogram.getHighestValue(index) - RangerLatencyHistogram.getLowestValue(index) <= value / 64);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        RangerLatencyHistogram histogram = new RangerLatencyHistogram("test");
+
+        for (long value = 1; value <= 10000; value++) {
+            histogram.recordValue(value * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000 * 1000, histogram.getMaxNanos());
+        assertEquals(5000500, histogram.getMeanNanos());
+        assertWithin(5000 * 1000, histogram.getP50Nanos());
+        assertWithin(9000 * 1000, histogram.getP90Nanos());
+        assertWithin(9900 * 1000, histogram.getP99Nanos());
+        assertWithin(9990 * 1000, histogram.getP999Nanos());
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP99Nanos());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        RangerLatencyHistogram histogram = new RangerLatencyHistogram("test");
+        List<Thread>           threads   = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    histogram.recordValue(j);
+                }
+            }));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800000, histogram.getCount());
+        assertEquals(99999, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testStageMetricsAndMBeans() throws Exception {
+        long startTime = RangerLatencyMetrics.start();
+
+        RangerLatencyMetrics.record(Stage.TRIE_LOOKUP, startTime);
+
+        Map<String, Long> metrics = RangerLatencyMetrics.getMetrics();
+
+        assertTrue(metrics.get("TrieLookupCount") > 0);
+        assertTrue(metrics.containsKey("PolicyEvaluationP99Nanos"));
+
+        RangerLatencyMetrics.registerMBeans();
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName  objectName  = new ObjectName(RangerLatencyMetrics.JMX_DOMAIN + ":type=" + RangerLatencyMetrics.JMX_TYPE + ",name=TrieLookup");
+
+        assertTrue((Long) mbeanServer.getAttribute(objectName, "Count") > 0);
+    }
+
+    @Test
+    public void testPluginDoesNotDisableRecordingEnabledByAnotherPlugin() {
+        assertTrue(RangerLatencyMetrics.enableForPlugin(true));
+        assertTrue(RangerLatencyMetrics.enableForPlugin(false));
+        assertTrue(RangerLatencyMetrics.isEnabled());
+        assertTrue(RangerLatencyMetrics.start() != 0);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected=" + expected + ", actual=" + actual, Math.abs(expected - actual) <= expected / 64);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerRole.RoleMember;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangerRolesDeltaUtilTest {
+    @Test
+    public void testComputeAndApplyDelta() {
+        RangerRoles v1 = createRoles(1L, role("r1", "u1"), role("r2", "u2"), role("r3", "u3"));
+        RangerRoles v2 = createRoles(2L, role("r1", "u1"), role("r2", "u2", "u22"), role("r4", "u4"));
+
+        RangerRoles delta = RangerRolesDeltaUtil.computeDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getRoleVersion());
+        assertEquals(new HashSet<>(Arrays.asList("r2", "r4")), getRoleNames(delta));
+        assertEquals(Collections.singleton("r3"), delta.getDeletedRoles());
+
+        RangerRoles applied = RangerRolesDeltaUtil.applyDelta(v1, delta);
+
+        assertEquals(Long.valueOf(2L), applied.getRoleVersion());
+        assertEquals(v2.getRangerRoles(), applied.getRangerRoles());
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        RangerRoles v1 = createRoles(1L, role("r1", "u1"), role("r2", "u2"));
+        RangerRoles v2 = createRoles(2L, role("r1", "u1", "u11"), role("r3", "u3"));
+        RangerRoles v3 = createRoles(3L, role("r2", "u2"), role("r3", "u33"));
+
+        RangerRoles merged  = RangerRolesDeltaUtil.mergeDeltas(RangerRolesDeltaUtil.computeDelta(v1, v2), RangerRolesDeltaUtil.computeDelta(v2, v3));
+        RangerRoles applied = RangerRolesDeltaUtil.applyDelta(v1, merged);
+
+        assertEquals(Long.valueOf(3L), merged.getRoleVersion());
+        assertEquals(v3.getRangerRoles(), applied.getRangerRoles());
+    }
+
+    @Test
+    public void testIncrementalRolesUtil() {
+        List<RangerRole> unchangedRoles = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            unchangedRoles.add(role("other" + i, "otheruser" + i));
+        }
+
+        RangerRole r1 = role("r1", "u1");
+        RangerRole r2 = role("r2", "u2");
+        RangerRole r3 = role("r3", "u3");
+        RangerRole r4 = role("r4", "u4");
+
+        r1.setRoles(Collections.singletonList(new RoleMember("r2", false)));
+        r2.setRoles(Collections.singletonList(new RoleMember("r3", false)));
+        unchangedRoles.get(0).setRoles(Collections.singletonList(new RoleMember("r4", false)));
+
+        List<RangerRole> v1Roles = new ArrayList<>(unchangedRoles);
+        List<RangerRole> v2Roles = new ArrayList<>(unchangedRoles);
+
+        v1Roles.addAll(Arrays.asList(r1, r2, r3, r4));
+        v2Roles.addAll(Arrays.asList(r1, r2, role("r3", "u3", "u33")));
+
+        RangerRolesUtil prevRolesUtil        = new RangerRolesUtil(createRoles(1L, v1Roles.toArray(new RangerRole[0])));
+        RangerRoles     v2                   = createRoles(2L, v2Roles.toArray(new RangerRole[0]));
+        RangerRolesUtil incrementalRolesUtil = new RangerRolesUtil(v2, prevRolesUtil);
+        RangerRolesUtil fullRolesUtil        = new RangerRolesUtil(v2);
+
+        assertEquals(fullRolesUtil.getUserRoleMapping(), incrementalRolesUtil.getUserRoleMapping());
+        assertEquals(fullRolesUtil.getGroupRoleMapping(), incrementalRolesUtil.getGroupRoleMapping());
+        assertEquals(fullRolesUtil.getRoleRoleMapping(), incrementalRolesUtil.getRoleRoleMapping());
+        assertEquals(fullRolesUtil.getRoleToUserMapping(), incrementalRolesUtil.getRoleToUserMapping());
+        assertEquals(fullRolesUtil.getRoleToGroupMapping(), incrementalRolesUtil.getRoleToGroupMapping());
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r2", "r3")), incrementalRolesUtil.getUserRoleMapping().get("u33"));
+        assertEquals(Collections.singleton("other0"), incrementalRolesUtil.getRoleRoleMapping().get("r4"));
+    }
+
+    private static RangerRoles createRoles(Long version, RangerRole... roles) {
+        RangerRoles ret = new RangerRoles();
+
+        ret.setRoleVersion(version);
+        ret.setRangerRoles(new HashSet<>(Arrays.asList(roles)));
+
+        return ret;
+    }
+
+    private static RangerRole role(String name, String... users) {
+        List<RoleMember> members = new ArrayList<>();
+
+        for (String user : users) {
+            members.add(new RoleMember(user, false));
+        }
+
+        return new RangerRole(name, null, null, members, new ArrayList<>(), new ArrayList<>());
+    }
+
+    private static Set<String> getRoleNames(RangerRoles roles) {
+        Set<String> ret = new HashSet<>();
+
+        for (RangerRole role : roles.getRangerRoles()) {
+            ret.add(role.getName());
+        }
+
+        return ret;
+    }
+}
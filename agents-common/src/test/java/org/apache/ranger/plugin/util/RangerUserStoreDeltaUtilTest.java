@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.plugin.model.GroupInfo;
+import org.apache.ranger.plugin.model.UserInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.ranger.plugin.util.RangerUserStore.CLOUD_IDENTITY_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangerUserStoreDeltaUtilTest {
+    @Test
+    public void testComputeAndApplyDelta() {
+        RangerUserStore v1 = createUserStore(1L,
+                users(user("u1", "dept", "eng"), user("u2", CLOUD_IDENTITY_NAME, "cloud-u2"), user("u3", "dept", "sales")),
+                groups(group("g1", "site", "sfo"), group("g2", "site", "nyc")),
+                userGroups("u1", "g1", "u2", "g2", "u3", "g1"));
+        RangerUserStore v2 = createUserStore(2L,
+                users(user("u1", "dept", "eng"), user("u2", CLOUD_IDENTITY_NAME, "cloud-u2-new"), user("u4", "dept", "hr")),
+                groups(group("g1", "site", "sfo"), group("g3", "site", "lax")),
+                userGroups("u1", "g3", "u2", "g2", "u4", "g1"));
+
+        RangerUserStore delta = RangerUserStoreDeltaUtil.computeDelta(v1, v2);
+
+        assertTrue(delta.getIsDelta());
+        assertEquals(Long.valueOf(2L), delta.getUserStoreVersion());
+        assertEquals(new HashSet<>(Arrays.asList("u1", "u2", "u3", "u4")), delta.getDeletedUsers());
+        assertEquals(new HashSet<>(Arrays.asList("g2", "g3")), delta.getDeletedGroups());
+
+        assertSameContent(v2, RangerUserStoreDeltaUtil.applyDelta(v1, delta));
+    }
+
+    @Test
+    public void testMergeDeltas() {
+        RangerUserStore v1 = createUserStore(1L, users(user("u1", "dept", "eng"), user("u2", "dept", "eng")), groups(group("g1", "site", "sfo")), userGroups("u1", "g1"));
+        RangerUserStore v2 = createUserStore(2L, users(user("u1", "dept", "hr")), groups(group("g1", "site", "sfo"), group("g2", "site", "nyc")), userGroups("u1", "g2"));
+        RangerUserStore v3 = createUserStore(3L, users(user("u1", "dept", "hr"), user("u2", "dept", "sales")), groups(group("g2", "site", "nyc")), userGroups("u2", "g2"));
+
+        RangerUserStore merged = RangerUserStoreDeltaUtil.mergeDeltas(RangerUserStoreDeltaUtil.computeDelta(v1, v2), RangerUserStoreDeltaUtil.computeDelta(v2, v3));
+
+        assertEquals(Long.valueOf(3L), merged.getUserStoreVersion());
+        assertSameContent(v3, RangerUserStoreDeltaUtil.applyDelta(v1, merged));
+    }
+
+    private static void assertSameContent(RangerUserStore expected, RangerUserStore actual) {
+        assertEquals(expected.getUserStoreVersion(), actual.getUserStoreVersion());
+        assertEquals(expected.getUserAttrMapping(), actual.getUserAttrMapping());
+        assertEquals(expected.getGroupAttrMapping(), actual.getGroupAttrMapping());
+        assertEquals(expected.getUserGroupMapping(), actual.getUserGroupMapping());
+        assertEquals(expected.getUserCloudIdMapping(), actual.getUserCloudIdMapping());
+        assertEquals(expected.getGroupCloudIdMapping(), actual.getGroupCloudIdMapping());
+        assertFalse(actual.getIsDelta());
+    }
+
+    private static RangerUserStore createUserStore(Long version, Set<UserInfo> users, Set<GroupInfo> groups, Map<String, Set<String>> userGroups) {
+        return new RangerUserStore(version, users, groups, userGroups);
+    }
+
+    private static Set<UserInfo> users(UserInfo... users) {
+        return new HashSet<>(Arrays.asList(users));
+    }
+
+    private static Set<GroupInfo> groups(GroupInfo... groups) {
+        return new HashSet<>(Arrays.asList(groups));
+    }
+
+    private static UserInfo user(String name, String attrName, String attrValue) {
+        return new UserInfo(name, null, Collections.singletonMap(attrName, attrValue));
+    }
+
+    private static GroupInfo group(String name, String attrName, String attrValue) {
+        return new GroupInfo(name, null, Collections.singletonMap(attrName, attrValue));
+    }
+
+    private static Map<String, Set<String>> userGroups(String... userAndGroups) {
+        Map<String, Set<String>> ret = new HashMap<>();
+
+        for (int i = 0; i + 1 < userAndGroups.length; i += 2) {
+            ret.computeIfAbsent(userAndGroups[i], k -> new HashSet<>()).add(userAndGroups[i + 1]);
+        }
+
+        return ret;
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.ranger.authorization.hbase;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.hbase.security.AccessDeniedException;
 import org.apache.hadoop.hbase.security.User;
@@ -30,6 +31,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,6 +65,8 @@ public class AuthorizationSession {
     boolean             superUser;    // is this session for a super user?
     RangerAccessRequest request;      // internal state per-authorization
     RangerAccessResult  result;
+    boolean             anyRequestAudited; // was any of the requests authorized in this session audited?
+    boolean             anyRequestTagged;  // was any of the requests authorized in this session on a tagged resource?
 
     private RangerAccessRequest.ResourceMatchingScope resourceMatchingScope = RangerAccessRequest.ResourceMatchingScope.SELF;
     private boolean                                   ignoreDescendantDeny  = true;
@@ -227,6 +231,14 @@ AuthorizationSession authorize() {
             }
 
             result = authorizer.isAccessAllowed(request, auditHandler);
+
+            if (result != null && result.getIsAudited()) {
+                anyRequestAudited = true;
+            }
+
+            if (CollectionUtils.isNotEmpty(RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext()))) {
+                anyRequestTagged = true;
+            }
         }
 
         if (LOG.isDebugEnabled()) {
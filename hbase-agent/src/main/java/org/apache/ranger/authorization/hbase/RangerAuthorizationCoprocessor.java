@@ -152,7 +152,8 @@ public class RangerAuthorizationCoprocessor implements AccessControlService.Inte
 
     private static boolean updateRangerPoliciesOnGrantRevoke = RangerHadoopConstants.HBASE_UPDATE_RANGER_POLICIES_ON_GRANT_REVOKE_DEFAULT_VALUE;
 
-    private static volatile RangerHBasePlugin hbasePlugin;
+    private static volatile RangerHBasePlugin             hbasePlugin;
+    private static volatile RangerHBaseAuthorizationCache authorizationCache;
 
     /*
      * These are package level only for testability and aren't meant to be exposed outside via getters/setters or made available to derived classes.
@@ -652,6 +653,19 @@ public void start(CoprocessorEnvironment env) {
 
                     updateRangerPoliciesOnGrantRevoke = plugin.getConfig().getBoolean(RangerHadoopConstants.HBASE_UPDATE_RANGER_POLICIES_ON_GRANT_REVOKE_PROP, RangerHadoopConstants.HBASE_UPDATE_RANGER_POLICIES_ON_GRANT_REVOKE_DEFAULT_VALUE);
 
+                    int     cacheSize                = plugin.getConfig().getInt(RangerHBaseAuthorizationCache.PROP_CACHE_SIZE, RangerHBaseAuthorizationCache.DEFAULT_CACHE_SIZE);
+                    boolean excludeConditionalTables = plugin.getConfig().getBoolean(RangerHBaseAuthorizationCache.PROP_EXCLUDE_CONDITIONAL_TABLES, true);
+
+                    LOG.info("{}={}, {}={}", RangerHBaseAuthorizationCache.PROP_CACHE_SIZE, cacheSize, RangerHBaseAuthorizationCache.PROP_EXCLUDE_CONDITIONAL_TABLES, excludeConditionalTables);
+
+                    if (cacheSize > 0) {
+                        RangerHBaseAuthorizationCache cache = new RangerHBaseAuthorizationCache(cacheSize, excludeConditionalTables);
+
+                        cache.registerMBean();
+
+                        authorizationCache = cache;
+                    }
+
                     hbasePlugin = plugin;
                 }
             }
@@ -1030,6 +1044,33 @@ ColumnFamilyAccessResult evaluateAccess(ObserverContext<?> ctx, String operation
                 .access(access)
                 .table(table);
 
+        // decisions that need no audit are looked up in the RegionServer-wide cache; see RangerHBaseAuthorizationCache
+        RangerHBaseAuthorizationCache cache         = authorizationCache;
+        String                        cacheVersions = null;
+        String                        cacheKey      = null;
+
+        if (cache != null) {
+            cacheVersions = getCacheVersions();
+
+            if (!cache.isExcludedTable(table, cacheVersions, hbasePlugin::getResourcePoliciesOfAllZones)) {
+                cacheKey = RangerHBaseAuthorizationCache.getKey(userName, session.groups, table, operation, access, familyMap);
+            }
+
+            if (cacheKey != null) {
+                RangerHBaseAuthorizationCache.Decision decision = cache.get(cacheKey, cacheVersions);
+
+                if (decision != null) {
+                    result = new ColumnFamilyAccessResult(decision.isAllowed(), decision.isAllowed(), null, null, null, decision.getDenialReason(), null);
+
+                    LOG.debug("evaluateAccess: exiting: user[{}], Operation[{}], access[{}], families[{}], verdict[{}] (cached)", userName, operation, access, colFamiliesForDebugLoggingOnly, result);
+
+                    return result;
+                }
+            }
+        }
+
+        long evaluationStartNanos = System.nanoTime();
+
         LOG.debug("evaluateAccess: families to process: {}", colFamiliesForDebugLoggingOnly);
 
         if (familyMap == null || familyMap.isEmpty()) {
@@ -1050,6 +1091,8 @@ ColumnFamilyAccessResult evaluateAccess(ObserverContext<?> ctx, String operation
             // if authorized then pass captured events as access allowed set else as access denied set.
             result = new ColumnFamilyAccessResult(authorized, authorized, authorized ? Collections.singletonList(event) : null, null, authorized ? null : event, reason, null);
 
+            cacheResult(cache, cacheKey, cacheVersions, session, result, evaluationStartNanos);
+
             LOG.debug("evaluateAccess: exiting: user[{}], Operation[{}], access[{}], families[{}], verdict[{}]", userName, operation, access, colFamiliesForDebugLoggingOnly, result);
 
             return result;
@@ -1267,11 +1310,33 @@ ColumnFamilyAccessResult evaluateAccess(ObserverContext<?> ctx, String operation
 
         result = new ColumnFamilyAccessResult(everythingIsAccessible, somethingIsAccessible, authorizedEvents, familyLevelAccessEvents, deniedEvent, denialReason, filter);
 
+        cacheResult(cache, cacheKey, cacheVersions, session, result, evaluationStartNanos);
+
         LOG.debug("evaluateAccess: exiting: user[{}], Operation[{}], access[{}], families[{}], verdict[{}]", userName, operation, access, colFamiliesForDebugLoggingOnly, result);
 
         return result;
     }
 
+    /*
+     * Only decisions that are the same for every request with the same key are cached: everything or nothing accessible
+     * (partial access needs the filter, which holds per-request state), with no audit events to log.
+     */
+    void cacheResult(RangerHBaseAuthorizationCache cache, String cacheKey, String cacheVersions, AuthorizationSession session, ColumnFamilyAccessResult result, long evaluationStartNanos) {
+        if (cacheKey != null && !session.anyRequestAudited && (result.everythingIsAccessible || !result.somethingIsAccessible)) {
+            if (session.anyRequestTagged && cache.isExcludeConditionalTables()) {
+                LOG.debug("cacheResult: not caching decision on tagged resource: key={}", cacheKey);
+            } else {
+                cache.put(cacheKey, cacheVersions, result.everythingIsAccessible, result.denialReason, System.nanoTime() - evaluationStartNanos);
+            }
+        }
+    }
+
+    String getCacheVersions() {
+        RangerHBasePlugin plugin = hbasePlugin;
+
+        return plugin.getPoliciesVersion() + ":" + plugin.getTagsVersion() + ":" + plugin.getRolesVersion() + ":" + plugin.getUserStoreVersion() + ":" + plugin.getPropertyIsColumnAuthOptimizationEnabled();
+    }
+
     Filter authorizeAccess(ObserverContext<?> ctx, String operation, Action action, final RegionCoprocessorEnvironment env, final Map<byte[], NavigableSet<byte[]>> familyMap, String commandStr) throws AccessDeniedException {
         LOG.debug("==> authorizeAccess");
 
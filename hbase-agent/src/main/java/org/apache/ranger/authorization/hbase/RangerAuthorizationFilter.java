@@ -20,7 +20,6 @@
 package org.apache.ranger.authorization.hbase;
 
 import org.apache.hadoop.hbase.Cell;
-import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.filter.FilterBase;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.thirdparty.com.google.common.base.MoreObjects;
@@ -28,13 +27,26 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Filters cells of a scan based on column-family/column level authorization results computed when the scanner is
+ * opened. The results are compiled into byte-keyed structures, so that a cell is looked up using its backing array
+ * without copying or decoding its family and qualifier. Decisions made in this filter for columns of families having
+ * no cached column-level results are cached as well, except when the access is audited.
+ *
+ * As with other HBase filters, an instance is used by a single scanner thread at a time.
+ */
 public class RangerAuthorizationFilter extends FilterBase {
     private static final Logger LOG = LoggerFactory.getLogger(RangerAuthorizationFilter.class.getName());
 
+    static final int MAX_CACHED_COLUMN_DECISIONS = 10000;
+
     final Set<String>              familiesAccessAllowed;
     final Set<String>              familiesAccessDenied;
     final Set<String>              familiesAccessIndeterminate;
@@ -43,6 +55,11 @@ public class RangerAuthorizationFilter extends FilterBase {
     final AuthorizationSession     session;
     final HbaseAuditHandler        auditHandler = HbaseFactory.getInstance().getAuditHandler();
 
+    private final FamilyEntry[] families;
+    private final BytesKey      lookupKey = new BytesKey();
+    private       FamilyEntry   lastFamily;        // cells are sorted by family, hence the next cell is likely to be in the same family
+    private       int           cachedDecisionCount;
+
     public RangerAuthorizationFilter(AuthorizationSession session, Set<String> familiesAccessAllowed, Set<String> familiesAccessDenied, Set<String> familiesAccessIndeterminate, Map<String, Set<String>> columnsAccessAllowed, Set<String> familiesFullyAuthorized) {
         // the class assumes that all of these can be empty but none of these can be null
         this.familiesAccessAllowed       = familiesAccessAllowed;
@@ -56,69 +73,75 @@ public RangerAuthorizationFilter(AuthorizationSession session, Set<String> famil
 
         // we don't want to audit denial, so we need to make sure the hander is what we need it to be.
         this.session.auditHandler(auditHandler);
+
+        this.families = compileFamilies(session.getPropertyIsColumnAuthOptimizationEnabled());
     }
 
     @Override
     public ReturnCode filterKeyValue(Cell kv) {
         LOG.debug("==> filterKeyValue");
 
-        String family      = null;
-        byte[] familyBytes = CellUtil.cloneFamily(kv);
+        FamilyEntry family          = kv.getFamilyLength() > 0 ? getFamily(kv) : null;
+        ReturnCode  result          = ReturnCode.NEXT_COL;
+        boolean     authCheckNeeded = false;
 
-        if (familyBytes.length > 0) {
-            family = Bytes.toString(familyBytes);
-
-            LOG.debug("filterKeyValue: evaluating family[{}].", family);
+        if (kv.getQualifierLength() == 0) {
+            LOG.warn("filterKeyValue: empty/null column set! Unexpected!");
         }
 
-        String column    = null;
-        byte[] qualifier = CellUtil.cloneQualifier(kv);
+        if (kv.getFamilyLength() == 0) {
+            LOG.warn("filterKeyValue: Unexpected - null/empty family! Access denied!");
+        } else if (family == null) {
+            LOG.warn("filterKeyValue: Unexpected - alien family encountered that wasn't seen by pre-hook!  Access Denied.!");
+        } else {
+            LOG.debug("filterKeyValue: evaluating family[{}].", family.name);
 
-        if (qualifier.length > 0) {
-            column = Bytes.toString(qualifier);
+            switch (family.access) {
+                case DENIED:
+                    LOG.debug("filterKeyValue: family found in access denied families cache.  Access denied.");
+                    break;
 
-            LOG.debug("filterKeyValue: evaluating column[{}].", column);
-        } else {
-            LOG.warn("filterKeyValue: empty/null column set! Unexpected!");
-        }
+                case FULLY_AUTHORIZED:
+                    LOG.debug("filterKeyValue: ColumnAuthOptimizationEnabled and family found in fully authorized families cache.  Column authorization is not required");
 
-        ReturnCode result          = ReturnCode.NEXT_COL;
-        boolean    authCheckNeeded = false;
+                    result = ReturnCode.INCLUDE;
+                    break;
 
-        if (family == null) {
-            LOG.warn("filterKeyValue: Unexpected - null/empty family! Access denied!");
-        } else if (familiesAccessDenied.contains(family)) {
-            LOG.debug("filterKeyValue: family found in access denied families cache.  Access denied.");
-        } else if (session.getPropertyIsColumnAuthOptimizationEnabled() && familiesFullyAuthorized.contains(family)) {
-            LOG.debug("filterKeyValue: ColumnAuthOptimizationEnabled and family found in fully authorized families cache.  Column authorization is not required");
+                case COLUMNS_ALLOWED:
+                    LOG.debug("filterKeyValue: family found in column level access results cache.");
 
-            result = ReturnCode.INCLUDE;
-        } else if (columnsAccessAllowed.containsKey(family)) {
-            LOG.debug("filterKeyValue: family found in column level access results cache.");
+                    if (family.columnResults.containsKey(lookupKey.set(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength()))) {
+                        LOG.debug("filterKeyValue: family/column found in column level access results cache. Access allowed.");
 
-            if (columnsAccessAllowed.get(family).contains(column)) {
-                LOG.debug("filterKeyValue: family/column found in column level access results cache. Access allowed.");
+                        result = ReturnCode.INCLUDE;
+                    } else {
+                        LOG.debug("filterKeyValue: family/column not in column level access results cache. Access denied.");
+                    }
+                    break;
 
-                result = ReturnCode.INCLUDE;
-            } else {
-                LOG.debug("filterKeyValue: family/column not in column level access results cache. Access denied.");
-            }
-        } else if (familiesAccessAllowed.contains(family)) {
-            LOG.debug("filterKeyValue: family found in access allowed families cache.  Must re-authorize for correct audit generation.");
+                case ALLOWED:
+                case INDETERMINATE:
+                    ReturnCode cachedResult = family.columnResults.get(lookupKey.set(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength()));
 
-            authCheckNeeded = true;
-        } else if (familiesAccessIndeterminate.contains(family)) {
-            LOG.debug("filterKeyValue: family found in indeterminate families cache.  Evaluating access...");
+                    if (cachedResult != null) {
+                        LOG.debug("filterKeyValue: family/column found in cache of earlier decisions of this filter: {}", cachedResult);
 
-            authCheckNeeded = true;
-        } else {
-            LOG.warn("filterKeyValue: Unexpected - alien family encountered that wasn't seen by pre-hook!  Access Denied.!");
+                        result = cachedResult;
+                    } else {
+                        LOG.debug("filterKeyValue: family found in {} families cache.  Evaluating access...", family.access);
+
+                        authCheckNeeded = true;
+                    }
+                    break;
+            }
         }
 
         if (authCheckNeeded) {
-            LOG.debug("filterKeyValue: Checking authorization...");
+            String column = kv.getQualifierLength() > 0 ? Bytes.toString(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength()) : null;
+
+            LOG.debug("filterKeyValue: Checking authorization... column[{}]", column);
 
-            session.columnFamily(family)
+            session.columnFamily(family.name)
                     .column(column)
                     .buildRequest()
                     .authorize();
@@ -141,6 +164,13 @@ public ReturnCode filterKeyValue(Cell kv) {
             } else {
                 LOG.debug("filterKeyValue: Access denied.  Denial not audited.");
             }
+
+            // allowed accesses that are audited must be re-authorized for every cell, for correct audit generation
+            if ((auditEvent == null || result != ReturnCode.INCLUDE) && cachedDecisionCount < MAX_CACHED_COLUMN_DECISIONS) {
+                family.columnResults.put(lookupKey.copy(), result);
+
+                cachedDecisionCount++;
+            }
         }
 
         LOG.debug("filterKeyValue: {}", result);
@@ -157,4 +187,140 @@ public String toString() {
                 .add("columnsAccessAllowed", columnsAccessAllowed)
                 .toString();
     }
+
+    private FamilyEntry getFamily(Cell kv) {
+        FamilyEntry ret = lastFamily;
+
+        if (ret == null || !ret.matches(kv)) {
+            ret = null;
+
+            for (FamilyEntry family : families) {
+                if (family.matches(kv)) {
+                    ret = family;
+
+                    break;
+                }
+            }
+
+            if (ret != null) {
+                lastFamily = ret;
+            }
+        }
+
+        return ret;
+    }
+
+    // precedence of the caches is same as earlier: denied, fully-authorized, column-level results, allowed and indeterminate
+    private FamilyEntry[] compileFamilies(boolean isColumnAuthOptimizationEnabled) {
+        Set<String> names = new LinkedHashSet<>();
+
+        names.addAll(familiesAccessDenied);
+        names.addAll(familiesFullyAuthorized);
+        names.addAll(columnsAccessAllowed.keySet());
+        names.addAll(familiesAccessAllowed);
+        names.addAll(familiesAccessIndeterminate);
+
+        FamilyEntry[] ret = new FamilyEntry[names.size()];
+        int           idx = 0;
+
+        for (String name : names) {
+            final FamilyAccess access;
+
+            if (familiesAccessDenied.contains(name)) {
+                access = FamilyAccess.DENIED;
+            } else if (isColumnAuthOptimizationEnabled && familiesFullyAuthorized.contains(name)) {
+                access = FamilyAccess.FULLY_AUTHORIZED;
+            } else if (columnsAccessAllowed.containsKey(name)) {
+                access = FamilyAccess.COLUMNS_ALLOWED;
+            } else if (familiesAccessAllowed.contains(name)) {
+                access = FamilyAccess.ALLOWED;
+            } else if (familiesAccessIndeterminate.contains(name)) {
+                access = FamilyAccess.INDETERMINATE;
+            } else { // fully-authorized family, with column-auth optimization disabled
+                access = null;
+            }
+
+            if (access != null) {
+                FamilyEntry family = new FamilyEntry(name, access);
+
+                if (access == FamilyAccess.COLUMNS_ALLOWED) {
+                    for (String column : columnsAccessAllowed.get(name)) {
+                        if (column != null && !column.isEmpty()) { // empty qualifier of a cell is never matched with cached columns
+                            byte[] columnBytes = Bytes.toBytes(column);
+
+                            family.columnResults.put(new BytesKey().set(columnBytes, 0, columnBytes.length), ReturnCode.INCLUDE);
+                        }
+                    }
+                }
+
+                ret[idx++] = family;
+            }
+        }
+
+        return idx == ret.length ? ret : Arrays.copyOf(ret, idx);
+    }
+
+    private enum FamilyAccess { DENIED, FULLY_AUTHORIZED, COLUMNS_ALLOWED, ALLOWED, INDETERMINATE }
+
+    private static final class FamilyEntry {
+        final String                    name;
+        final byte[]                    nameBytes;
+        final FamilyAccess              access;
+        final Map<BytesKey, ReturnCode> columnResults = new HashMap<>();
+
+        FamilyEntry(String name, FamilyAccess access) {
+            this.name      = name;
+            this.nameBytes = Bytes.toBytes(name);
+            this.access    = access;
+        }
+
+        boolean matches(Cell kv) {
+            return Bytes.equals(nameBytes, 0, nameBytes.length, kv.getFamilyArray(), kv.getFamilyOffset(), kv.getFamilyLength());
+        }
+    }
+
+    /**
+     * Key for a range of bytes; a single instance is reused to look up qualifiers of cells without copying them.
+     */
+    private static final class BytesKey {
+        private byte[] bytes;
+        private int    offset;
+        private int    length;
+        private int    hash;
+
+        BytesKey set(byte[] bytes, int offset, int length) {
+            this.bytes  = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.hash   = Bytes.hashCode(bytes, offset, length);
+
+            return this;
+        }
+
+        BytesKey copy() {
+            return new BytesKey().set(Arrays.copyOfRange(bytes, offset, offset + length), 0, length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            final boolean ret;
+
+            if (this == obj) {
+                ret = true;
+            } else if (obj instanceof BytesKey) {
+                BytesKey other = (BytesKey) obj;
+
+                ret = hash == other.hash && Bytes.equals(bytes, offset, length, other.bytes, other.offset, other.length);
+            } else {
+                ret = false;
+            }
+
+            return ret;
+        }
+    }
 }
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hbase;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * RegionServer-wide bounded cache of the decisions made by RangerAuthorizationCoprocessor.evaluateAccess(), keyed on
+ * user, groups, table, column families/columns, operation and access type.
+ *
+ * Decisions are kept per version of policies, tags, roles and user-store: a change in any of these discards all
+ * earlier decisions. Only decisions that don't depend on per-request state are cached - i.e. access allowed to all,
+ * or denied to all, requested families/columns, with none of the evaluations audited. When excludeConditionalTables
+ * is set, decisions are not cached for tables covered by policies having conditions or validity schedules, nor for
+ * requests on tagged resources; outcome of such policies can change without a version change.
+ */
+public class RangerHBaseAuthorizationCache implements RangerHBaseAuthorizationCacheMBean {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerHBaseAuthorizationCache.class);
+
+    public static final String PROP_CACHE_SIZE                 = "ranger.plugin.hbase.authorization.cache.size";
+    public static final String PROP_EXCLUDE_CONDITIONAL_TABLES = "ranger.plugin.hbase.authorization.cache.exclude.conditional.tables";
+    public static final int    DEFAULT_CACHE_SIZE              = 10000;
+    public static final String JMX_OBJECT_NAME                 = "org.apache.ranger:type=HBaseAuthorizationCache";
+
+    static final int MAX_KEY_COLUMNS = 256;
+
+    private static final String RESOURCE_TABLE           = "table";
+    private static final String DEFAULT_NAMESPACE_PREFIX = "default:";
+
+    private final int        size;
+    private final boolean    excludeConditionalTables;
+    private final AtomicLong hitCount             = new AtomicLong();
+    private final AtomicLong missCount            = new AtomicLong();
+    private final AtomicLong savedEvaluationNanos = new AtomicLong();
+
+    private volatile Generation generation;
+
+    RangerHBaseAuthorizationCache(int size, boolean excludeConditionalTables) {
+        this.size                     = size;
+        this.excludeConditionalTables = excludeConditionalTables;
+        this.generation               = new Generation("", size);
+    }
+
+    /**
+     * @return key for the decision; null if the request has too many columns to be worth caching
+     */
+    static String getKey(String user, Set<String> groups, String table, String operation, String access, Map<byte[], ? extends Collection<?>> familyMap) {
+        StringBuilder sb = new StringBuilder(user).append('\u0000');
+
+        if (groups != null && !groups.isEmpty()) {
+            sb.append(new TreeSet<>(groups));
+        }
+
+        sb.append('\u0000').append(table).append('\u0000').append(operation).append('\u0000').append(access);
+
+        if (familyMap != null && !familyMap.isEmpty()) {
+            Map<String, Set<String>> families    = new TreeMap<>();
+            int                      columnCount = 0;
+
+            for (Map.Entry<byte[], ? extends Collection<?>> entry : familyMap.entrySet()) {
+                Set<String>   familyColumns = new TreeSet<>();
+                Collection<?> columns       = entry.getValue();
+
+                if (columns != null && !columns.isEmpty()) {
+                    columnCount += columns.size();
+
+                    if (columnCount > MAX_KEY_COLUMNS) {
+                        return null;
+                    }
+
+                    for (Iterator<String> iter = new ColumnIterator(columns); iter.hasNext(); ) {
+                        familyColumns.add(iter.next());
+                    }
+                }
+
+                families.put(Bytes.toString(entry.getKey()), familyColumns);
+            }
+
+            sb.append('\u0000').append(families);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param versions versions of policies, tags, roles and user-store the decision is looked up for
+     * @return cached decision; null if none
+     */
+    Decision get(String key, String versions) {
+        Decision ret = getGeneration(versions).decisions.get(key);
+
+        if (ret != null) {
+            hitCount.incrementAndGet();
+            savedEvaluationNanos.addAndGet(ret.evaluationNanos);
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Caches the decision, unless versions have changed since the decision was computed.
+     */
+    void put(String key, String versions, boolean isAllowed, String denialReason, long evaluationNanos) {
+        Generation generation = this.generation;
+
+        if (generation.versions.equals(versions)) {
+            generation.decisions.put(key, new Decision(isAllowed, denialReason, evaluationNanos));
+        }
+    }
+
+    boolean isExcludeConditionalTables() {
+        return excludeConditionalTables;
+    }
+
+    /**
+     * @param policies supplies resource policies, of all security zones; called only when the table is first looked up after a version change
+     * @return true if decisions for the table should not be cached, as it is covered by a policy with conditions or validity schedules
+     */
+    boolean isExcludedTable(String table, String versions, Supplier<List<RangerPolicy>> policies) {
+        boolean ret = false;
+
+        if (excludeConditionalTables) {
+            Map<String, Boolean> conditionalTables = getGeneration(versions).conditionalTables;
+            Boolean              isConditional     = conditionalTables.get(table);
+
+            if (isConditional == null) {
+                isConditional = isConditionalTable(table, policies.get());
+
+                conditionalTables.put(table, isConditional);
+
+                LOG.debug("RangerHBaseAuthorizationCache.isExcludedTable(table={}, versions={}): isConditional={}", table, versions, isConditional);
+            }
+
+            ret = isConditional;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hits  = hitCount.get();
+        long total = hits + missCount.get();
+
+        return total == 0 ? 0 : ((double) hits) / total;
+    }
+
+    @Override
+    public long getSavedEvaluationNanos() {
+        return savedEvaluationNanos.get();
+    }
+
+    @Override
+    public int getSize() {
+        return generation.decisions.size();
+    }
+
+    @Override
+    public void reset() {
+        hitCount.set(0);
+        missCount.set(0);
+        savedEvaluationNanos.set(0);
+    }
+
+    void registerMBean() {
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName  objectName  = new ObjectName(JMX_OBJECT_NAME);
+
+            if (!mbeanServer.isRegistered(objectName)) {
+                mbeanServer.registerMBean(this, objectName);
+            }
+        } catch (Exception excp) {
+            LOG.warn("RangerHBaseAuthorizationCache.registerMBean(): failed to register MBean {}", JMX_OBJECT_NAME, excp);
+        }
+    }
+
+    private Generation getGeneration(String versions) {
+        Generation ret = generation;
+
+        if (!ret.versions.equals(versions)) {
+            LOG.debug("RangerHBaseAuthorizationCache: versions changed from [{}] to [{}]; discarding {} cached decisions", ret.versions, versions, ret.decisions.size());
+
+            ret        = new Generation(versions, size);
+            generation = ret;
+        }
+
+        return ret;
+    }
+
+    private static boolean isConditionalTable(String table, List<RangerPolicy> policies) {
+        boolean ret = false;
+
+        if (policies != null) {
+            for (RangerPolicy policy : policies) {
+                if ((policy.getIsEnabled() == null || policy.getIsEnabled()) && hasConditions(policy) && isForTable(policy, table)) {
+                    LOG.debug("RangerHBaseAuthorizationCache.isConditionalTable(table={}): policy {} has conditions", table, policy.getId());
+
+                    ret = true;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean hasConditions(RangerPolicy policy) {
+        return CollectionUtils.isNotEmpty(policy.getValiditySchedules()) ||
+                CollectionUtils.isNotEmpty(policy.getConditions()) ||
+                hasConditions(policy.getPolicyItems()) ||
+                hasConditions(policy.getDenyPolicyItems()) ||
+                hasConditions(policy.getAllowExceptions()) ||
+                hasConditions(policy.getDenyExceptions());
+    }
+
+    private static boolean hasConditions(List<RangerPolicyItem> policyItems) {
+        if (policyItems != null) {
+            for (RangerPolicyItem policyItem : policyItems) {
+                if (policyItem != null && CollectionUtils.isNotEmpty(policyItem.getConditions())) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // conservative: a policy without table values, or with excluded values, is treated as covering every table
+    private static boolean isForTable(RangerPolicy policy, String table) {
+        RangerPolicyResource tableResource = policy.getResources() != null ? policy.getResources().get(RESOURCE_TABLE) : null;
+
+        if (tableResource == null || Boolean.TRUE.equals(tableResource.getIsExcludes()) || CollectionUtils.isEmpty(tableResource.getValues())) {
+            return true;
+        }
+
+        String qualifiedTable = table.indexOf(':') == -1 ? (DEFAULT_NAMESPACE_PREFIX + table) : table;
+
+        for (String value : tableResource.getValues()) {
+            if (value != null && (FilenameUtils.wildcardMatch(table, value, IOCase.INSENSITIVE) || FilenameUtils.wildcardMatch(qualifiedTable, value, IOCase.INSENSITIVE))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static final class Decision {
+        private final boolean isAllowed;
+        private final String  denialReason;
+        private final long    evaluationNanos;
+
+        Decision(boolean isAllowed, String denialReason, long evaluationNanos) {
+            this.isAllowed       = isAllowed;
+            this.denialReason    = denialReason;
+            this.evaluationNanos = evaluationNanos;
+        }
+
+        boolean isAllowed() {
+            return isAllowed;
+        }
+
+        String getDenialReason() {
+            return denialReason;
+        }
+    }
+
+    private static final class Generation {
+        final String                versions;
+        final Map<String, Decision> decisions;
+        final Map<String, Boolean>  conditionalTables;
+
+        Generation(String versions, int size) {
+            this.versions          = versions;
+            this.decisions         = Collections.synchronizedMap(new CacheMap<>(size));
+            this.conditionalTables = Collections.synchronizedMap(new CacheMap<>(size));
+        }
+    }
+}
@@ -18,22 +18,33 @@
  */
 package org.apache.ranger.authorization.hbase;
 
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 public class RangerHBasePlugin extends RangerBasePlugin {
     private static final Logger LOG = LoggerFactory.getLogger(RangerHBasePlugin.class);
 
     private boolean isHBaseShuttingDown;
     private boolean isColumnAuthOptimizationEnabled;
 
+    private volatile Set<String> securityZoneNames = Collections.emptySet();
+
     public RangerHBasePlugin(String appType) {
         super("hbase", appType);
     }
@@ -46,6 +57,14 @@ public void setHBaseShuttingDown(boolean hbaseShuttingDown) {
     public void setPolicies(ServicePolicies policies) {
         super.setPolicies(policies);
 
+        if (policies != null && MapUtils.isNotEmpty(policies.getSecurityZones())) {
+            Set<String> zoneNames = new HashSet<>(securityZoneNames);
+
+            zoneNames.addAll(policies.getSecurityZones().keySet());
+
+            securityZoneNames = zoneNames;
+        }
+
         this.isColumnAuthOptimizationEnabled = Boolean.parseBoolean(this.getServiceConfigs().get(RangerHadoopConstants.HBASE_COLUMN_AUTH_OPTIMIZATION));
 
         LOG.info("isColumnAuthOptimizationEnabled={}", this.isColumnAuthOptimizationEnabled);
@@ -69,6 +88,26 @@ public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAcc
         return ret;
     }
 
+    /**
+     * @return resource policies of the default zone and of all security zones
+     */
+    public List<RangerPolicy> getResourcePoliciesOfAllZones() {
+        List<RangerPolicy> ret          = new ArrayList<>(getResourcePolicies());
+        RangerPolicyEngine policyEngine = getPolicyEngine();
+
+        if (policyEngine != null) {
+            for (String zoneName : securityZoneNames) {
+                List<RangerPolicy> zonePolicies = policyEngine.getResourcePolicies(zoneName);
+
+                if (CollectionUtils.isNotEmpty(zonePolicies)) {
+                    ret.addAll(zonePolicies);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public boolean getPropertyIsColumnAuthOptimizationEnabled() {
         return this.isColumnAuthOptimizationEnabled;
     }
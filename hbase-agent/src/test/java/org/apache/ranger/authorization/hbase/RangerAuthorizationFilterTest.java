@@ -32,6 +32,8 @@
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RangerAuthorizationFilterTest {
@@ -97,6 +99,53 @@ public void testFilterKeyValueCell_happyPath() throws IOException {
         }
     }
 
+    @Test
+    public void testFilterKeyValueCell_cachedDecisionsAndOffsets() throws IOException {
+        Map<String, Set<String>> columnsAccessAllowed = new HashMap<>();
+
+        columnsAccessAllowed.put("family7", ImmutableSet.of("column1"));
+
+        AuthorizationSession      session = createSessionMock();
+        RangerAuthorizationFilter filter  = new RangerAuthorizationFilter(session, ImmutableSet.of(), ImmutableSet.of(), ImmutableSet.of("family5"), columnsAccessAllowed, new HashSet<>());
+
+        // family and qualifier within a larger backing array, as in cells read from HFile blocks
+        byte[] backingArray = "rowfamily5column1family7column1".getBytes();
+        Cell   aCell        = mock(Cell.class);
+
+        setFamilyArray(aCell, backingArray, 3, "family5".length());
+        setQualifierArray(aCell, backingArray, 10, "column1".length());
+
+        when(session.isAuthorized()).thenReturn(true);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(aCell));
+        }
+
+        // decision for the column of indeterminate family is cached in the filter
+        verify(session, times(1)).authorize();
+        verify(session, times(1)).columnFamily("family5");
+        verify(session, times(1)).column("column1");
+
+        setQualifierArray(aCell, backingArray, 3, "family5".length());
+
+        assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(aCell));
+        verify(session, times(1)).column("family5");
+
+        setFamilyArray(aCell, backingArray, 17, "family7".length());
+        setQualifierArray(aCell, backingArray, 24, "column1".length());
+
+        assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(aCell));
+
+        setQualifierArray(aCell, backingArray, 24, "column".length());
+
+        assertEquals(ReturnCode.NEXT_COL, filter.filterKeyValue(aCell));
+
+        setFamilyArray(aCell, backingArray, 17, "family".length());
+
+        assertEquals("prefix of a known family", ReturnCode.NEXT_COL, filter.filterKeyValue(aCell));
+        verify(session, times(2)).authorize();
+    }
+
     AuthorizationSession createSessionMock() {
         AuthorizationSession session = mock(AuthorizationSession.class);
         when(session.column(anyString())).thenReturn(session);
@@ -113,14 +162,22 @@ AuthorizationSession createSessionMock() {
     }
 
     private void setFamilyArray(Cell aCell, byte[] familyArray) {
+        setFamilyArray(aCell, familyArray, 0, familyArray.length);
+    }
+
+    private void setFamilyArray(Cell aCell, byte[] familyArray, int offset, int length) {
         when(aCell.getFamilyArray()).thenReturn(familyArray);
-        when(aCell.getFamilyLength()).thenReturn((byte) familyArray.length);
-        when(aCell.getFamilyOffset()).thenReturn(0);
+        when(aCell.getFamilyLength()).thenReturn((byte) length);
+        when(aCell.getFamilyOffset()).thenReturn(offset);
     }
 
     private void setQualifierArray(Cell aCell, byte[] qualifierArray) {
+        setQualifierArray(aCell, qualifierArray, 0, qualifierArray.length);
+    }
+
+    private void setQualifierArray(Cell aCell, byte[] qualifierArray, int offset, int length) {
         when(aCell.getQualifierArray()).thenReturn(qualifierArray);
-        when(aCell.getQualifierLength()).thenReturn(qualifierArray.length);
-        when(aCell.getQualifierOffset()).thenReturn(0);
+        when(aCell.getQualifierLength()).thenReturn(length);
+        when(aCell.getQualifierOffset()).thenReturn(offset);
     }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hbase;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.thirdparty.com.google.common.collect.Sets;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RangerHBaseAuthorizationCacheTest {
+    @Test
+    public void testGetKey() {
+        Map<byte[], NavigableSet<byte[]>> familyMap1 = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        Map<byte[], NavigableSet<byte[]>> familyMap2 = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+        familyMap1.put(Bytes.toBytes("f1"), columns("c1", "c2"));
+        familyMap1.put(Bytes.toBytes("f2"), null);
+        familyMap2.put(Bytes.toBytes("f2"), columns());
+        familyMap2.put(Bytes.toBytes("f1"), columns("c2", "c1"));
+
+        String key1 = RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g1", "g2"), "t1", "get", "read", familyMap1);
+        String key2 = RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g2", "g1"), "t1", "get", "read", familyMap2);
+
+        assertEquals(key1, key2);
+        assertFalse(key1.equals(RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g1"), "t1", "get", "read", familyMap1)));
+        assertFalse(key1.equals(RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g1", "g2"), "t1", "put", "write", familyMap1)));
+        assertFalse(key1.equals(RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g1", "g2"), "t1", "get", "read", null)));
+
+        familyMap1.get(Bytes.toBytes("f1")).add(Bytes.toBytes("c3"));
+
+        assertFalse(key1.equals(RangerHBaseAuthorizationCache.getKey("user1", Sets.newHashSet("g1", "g2"), "t1", "get", "read", familyMap1)));
+
+        String[] manyColumns = new String[RangerHBaseAuthorizationCache.MAX_KEY_COLUMNS + 1];
+
+        for (int i = 0; i < manyColumns.length; i++) {
+            manyColumns[i] = "c" + i;
+        }
+
+        familyMap1.put(Bytes.toBytes("f1"), columns(manyColumns));
+
+        assertNull("too many columns to cache", RangerHBaseAuthorizationCache.getKey("user1", null, "t1", "get", "read", familyMap1));
+    }
+
+    @Test
+    public void testDecisionsAndMetrics() {
+        RangerHBaseAuthorizationCache cache = new RangerHBaseAuthorizationCache(10, true);
+
+        assertNull(cache.get("k1", "1:1"));
+
+        cache.put("k1", "1:1", true, null, 1000);
+        cache.put("k2", "1:1", false, "denied", 2000);
+
+        RangerHBaseAuthorizationCache.Decision decision = cache.get("k1", "1:1");
+
+        assertNotNull(decision);
+        assertTrue(decision.isAllowed());
+
+        decision = cache.get("k2", "1:1");
+
+        assertNotNull(decision);
+        assertFalse(decision.isAllowed());
+        assertEquals("denied", decision.getDenialReason());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3000, cache.getSavedEvaluationNanos());
+        assertEquals(2.0 / 3, cache.getHitRate(), 0.0001);
+        assertEquals(2, cache.getSize());
+
+        // a version change discards earlier decisions; decisions computed with old versions are not cached
+        assertNull(cache.get("k1", "2:1"));
+        assertEquals(0, cache.getSize());
+
+        cache.put("k1", "1:1", true, null, 1000);
+
+        assertNull(cache.get("k1", "2:1"));
+
+        cache.reset();
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(0, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testExcludedTables() {
+        List<RangerPolicy> policies    = new ArrayList<>();
+        AtomicInteger      lookupCount = new AtomicInteger();
+        RangerPolicyItem   item        = new RangerPolicyItem();
+
+        item.setConditions(Collections.singletonList(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.0.0.*"))));
+
+        policies.add(createPolicy("finance*"));
+        policies.add(createPolicy("default:hr"));
+        policies.add(createPolicy("ns1:sales"));
+        policies.get(1).setPolicyItems(new ArrayList<>(Collections.singletonList(item)));
+        policies.get(2).setPolicyItems(new ArrayList<>(Collections.singletonList(item)));
+        policies.get(0).setConditions(Collections.singletonList(new RangerPolicyItemCondition("expression", Collections.singletonList("true"))));
+
+        RangerHBaseAuthorizationCache cache            = new RangerHBaseAuthorizationCache(10, true);
+        Supplier<List<RangerPolicy>>  countingSupplier = () -> {
+            lookupCount.incrementAndGet();
+
+            return policies;
+        };
+
+        assertTrue(cache.isExcludedTable("finance_2024", "1", countingSupplier));
+        assertTrue(cache.isExcludedTable("hr", "1", countingSupplier));
+        assertTrue(cache.isExcludedTable("ns1:sales", "1", countingSupplier));
+        assertFalse(cache.isExcludedTable("sales", "1", countingSupplier));
+        assertFalse(cache.isExcludedTable("sales", "1", countingSupplier));
+        assertEquals("policies are looked up once per table", 4, lookupCount.get());
+
+        policies.get(1).getPolicyItems().clear();
+
+        assertTrue("unchanged versions", cache.isExcludedTable("hr", "1", () -> policies));
+        assertFalse("changed versions", cache.isExcludedTable("hr", "2", () -> policies));
+
+        policies.get(2).getResources().get("table").setIsExcludes(true);
+
+        assertTrue("excludes are treated as covering all tables", cache.isExcludedTable("sales", "3", () -> policies));
+
+        assertFalse(new RangerHBaseAuthorizationCache(10, false).isExcludedTable("finance_2024", "1", () -> policies));
+    }
+
+    private static NavigableSet<byte[]> columns(String... names) {
+        NavigableSet<byte[]> ret = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+
+        for (String name : names) {
+            ret.add(Bytes.toBytes(name));
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicy createPolicy(String table) {
+        RangerPolicy                      policy    = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("table", new RangerPolicyResource(table));
+        resources.put("column-family", new RangerPolicyResource("*"));
+        resources.put("column", new RangerPolicyResource("*"));
+
+        policy.setService("hbase");
+        policy.setName("table=" + table);
+        policy.setResources(resources);
+
+        return policy;
+    }
+}
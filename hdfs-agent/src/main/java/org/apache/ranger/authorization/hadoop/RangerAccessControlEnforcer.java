@@ -32,19 +32,24 @@
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
 import org.apache.hadoop.hdfs.util.ReadOnlyList;
 import org.apache.hadoop.ipc.CallerContext;
+import org.apache.hadoop.ipc.Server;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.thirdparty.com.google.common.collect.Sets;
 import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.apache.ranger.authorization.hadoop.exceptions.RangerAccessControlException;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
@@ -65,8 +70,10 @@ public class RangerAccessControlEnforcer implements AccessControlEnforcer {
 
     private static final Map<FsAction, Set<String>> ACCESS_TO_ACTIONS;
 
-    private final RangerHdfsPlugin      plugin;
-    private final AccessControlEnforcer defaultEnforcer;
+    private final RangerHdfsPlugin                     plugin;
+    private final AccessControlEnforcer                defaultEnforcer;
+    private final ThreadLocal<RangerHdfsAccessRequest> traversalRequest = ThreadLocal.withInitial(RangerHdfsAccessRequest::new);
+    private final ThreadLocal<TraversalCache>          traversalCache   = ThreadLocal.withInitial(TraversalCache::new);
 
     private Map<String, OptimizedAuthzContext> pathToContextCache;
 
@@ -526,24 +533,50 @@ private AuthzStatus isAccessAllowedForTraversal(INode inode, INodeAttributes ino
 
         LOG.debug("==> RangerAccessControlEnforcer.isAccessAllowedForTraversal({}, {}, {}, {}, {})", path, access, context.user, skipAuditOnAllow, context.operationName);
 
-        RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, EXECUTE_ACCCESS_TYPE, operation, context.user, context.userGroups);
-        RangerAccessResult      result  = plugin.isAccessAllowed(request, null);
+        TraversalCache          cache    = getTraversalCache(context.user);
+        int                     cacheIdx = cache != null ? cache.indexOf(path, skipAuditOnAllow) : -1;
+        RangerHdfsAccessRequest request  = traversalRequest.get(); // not retained beyond this call: audit handler copies the details it needs from the result
 
-        context.saveResult(result);
+        request.init(inode, path, pathOwner, access, EXECUTE_ACCCESS_TYPE, operation, context.user, context.userGroups);
 
-        if (result != null && result.getIsAccessDetermined() && !result.getIsAllowed()) {
-            ret = AuthzStatus.DENY;
+        if (cacheIdx != -1) {
+            LOG.debug("Traversal of path:[{}] already allowed for user:[{}] during this RPC", path, context.user);
+
+            RangerAccessResult cachedResult = cache.getResult(cacheIdx);
+
+            ret = cache.getStatus(cacheIdx);
+
+            // last result is audited if the default enforcer is called later for this context
+            if (cachedResult != null) {
+                context.saveResult(copyResult(cachedResult, request));
+            }
         } else {
-            ret = AuthzStatus.ALLOW;
-        }
+            // parent directories are evaluated for EXECUTE in the same call, with one lookup of the resource-trie
+            List<RangerAccessResult> results = plugin.isAccessAllowedForPathPrefixes(request, RangerHdfsAuthorizer.KEY_RESOURCE_PATH, null);
+            RangerAccessResult       result  = results.isEmpty() ? null : results.get(results.size() - 1);
 
-        if (ret == AuthzStatus.ALLOW) {
-            LOG.debug("This request is for the first time allowed by Ranger policies. request:[{}]", request);
-        }
+            context.saveResult(result);
 
-        if (ret == AuthzStatus.DENY || (!skipAuditOnAllow && result != null && result.getIsAccessDetermined())) {
-            if (context.auditHandler != null) {
-                context.auditHandler.processResult(result);
+            if (result != null && result.getIsAccessDetermined() && !result.getIsAllowed()) {
+                ret = AuthzStatus.DENY;
+            } else {
+                ret = AuthzStatus.ALLOW;
+            }
+
+            if (ret == AuthzStatus.ALLOW) {
+                LOG.debug("This request is for the first time allowed by Ranger policies. request:[{}]", request);
+            }
+
+            if (ret == AuthzStatus.DENY || (!skipAuditOnAllow && result != null && result.getIsAccessDetermined())) {
+                if (context.auditHandler != null) {
+                    context.auditHandler.processResult(result);
+                }
+            } else if (cache != null) { // cache only decisions that don't generate audit, so that audit logs remain unchanged
+                cache.put(path, skipAuditOnAllow, ret, result != null ? copyResult(result, null) : null);
+            }
+
+            if (cache != null) {
+                cacheAncestorResults(cache, results);
             }
         }
 
@@ -552,6 +585,57 @@ private AuthzStatus isAccessAllowedForTraversal(INode inode, INodeAttributes ino
         return ret;
     }
 
+    /*
+     * traversal decisions for parent directories, evaluated along with the path, are cached while there is room in
+     * the cache - without evicting decisions made for paths checked in this RPC. As for the path, only decisions that
+     * don't generate audit are cached: an allow without skipAuditOnAllow is audited when it is determined by a policy
+     */
+    private static void cacheAncestorResults(TraversalCache cache, List<RangerAccessResult> results) {
+        for (int i = 0; i < results.size() - 1; i++) {
+            RangerAccessResult result = results.get(i);
+
+            if (result == null || (result.getIsAccessDetermined() && !result.getIsAllowed())) {
+                continue;
+            }
+
+            String ancestorPath = (String) result.getAccessRequest().getResource().getValue(RangerHdfsAuthorizer.KEY_RESOURCE_PATH);
+
+            cache.putIfAbsent(ancestorPath, true, AuthzStatus.ALLOW, copyResult(result, null));
+
+            if (!result.getIsAccessDetermined()) {
+                cache.putIfAbsent(ancestorPath, false, AuthzStatus.ALLOW, copyResult(result, null));
+            }
+        }
+    }
+
+    /*
+     * copy of the result for the given request; results saved in the context can be updated later, hence are not shared
+     */
+    private static RangerAccessResult copyResult(RangerAccessResult result, RangerAccessRequest request) {
+        RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+        ret.setAccessResultFrom(result);
+        ret.setAuditResultFrom(result);
+
+        return ret;
+    }
+
+    /*
+     * returns null if the current thread is not serving an RPC
+     */
+    private TraversalCache getTraversalCache(String user) {
+        Server.Call    call = Server.getCurCall().get();
+        TraversalCache ret  = null;
+
+        if (call != null) {
+            ret = traversalCache.get();
+
+            ret.setCall(call, user);
+        }
+
+        return ret;
+    }
+
     private AuthzStatus checkDefaultEnforcer(String fsOwner, String superGroup, UserGroupInformation ugi, INodeAttributes[] inodeAttrs, INode[] inodes, byte[][] pathByNameArr,
             int snapshotId, String path, int ancestorIndex, boolean doCheckOwner, FsAction ancestorAccess, FsAction parentAccess, FsAction access,
             FsAction subAccess, boolean ignoreEmptyDir, INode ancestor, INode parent, INode inode, AuthzContext context
@@ -839,6 +923,80 @@ public RangerAccessResult getLastResult() {
         }
     }
 
+    /*
+        Traversal decisions made while serving the current RPC. Namenode can check traversal of the same directory more
+        than once for an RPC - like for source and destination of a rename within a directory, or for each path of
+        a concat. Entries are discarded when the thread starts serving another RPC.
+
+        Entries are keyed by path and skipAuditOnAllow, as a determined allow is audited only when skipAuditOnAllow is false.
+     */
+    private static class TraversalCache {
+        private static final int MAX_ENTRIES = 8;
+
+        private final String[]                   paths             = new String[MAX_ENTRIES];
+        private final boolean[]                  skipAuditOnAllows = new boolean[MAX_ENTRIES];
+        private final AuthzStatus[]              statuses          = new AuthzStatus[MAX_ENTRIES];
+        private final RangerAccessResult[]       results           = new RangerAccessResult[MAX_ENTRIES];
+        private       WeakReference<Server.Call> call              = new WeakReference<>(null);
+        private       String                     user;
+        private       int                        count;
+
+        void setCall(Server.Call call, String user) {
+            if (this.call.get() != call || !StringUtils.equals(this.user, user)) {
+                this.call = new WeakReference<>(call);
+                this.user = user;
+
+                Arrays.fill(paths, 0, count, null);
+                Arrays.fill(results, 0, count, null);
+
+                count = 0;
+            }
+        }
+
+        /*
+         * returns -1 if no decision is cached for the path and skipAuditOnAllow
+         */
+        int indexOf(String path, boolean skipAuditOnAllow) {
+            int ret = -1;
+
+            for (int i = 0; i < count; i++) {
+                if (skipAuditOnAllows[i] == skipAuditOnAllow && paths[i].equals(path)) {
+                    ret = i;
+
+                    break;
+                }
+            }
+
+            return ret;
+        }
+
+        AuthzStatus getStatus(int idx) {
+            return statuses[idx];
+        }
+
+        RangerAccessResult getResult(int idx) {
+            return results[idx];
+        }
+
+        /*
+         * adds the entry only if there is room and no decision is cached for the path and skipAuditOnAllow
+         */
+        void putIfAbsent(String path, boolean skipAuditOnAllow, AuthzStatus status, RangerAccessResult result) {
+            if (count < MAX_ENTRIES && indexOf(path, skipAuditOnAllow) == -1) {
+                put(path, skipAuditOnAllow, status, result);
+            }
+        }
+
+        void put(String path, boolean skipAuditOnAllow, AuthzStatus status, RangerAccessResult result) {
+            int idx = count < MAX_ENTRIES ? count++ : MAX_ENTRIES - 1; // when full, replace the last entry
+
+            paths[idx]             = path;
+            skipAuditOnAllows[idx] = skipAuditOnAllow;
+            statuses[idx]          = status;
+            results[idx]           = result;
+        }
+    }
+
     private static class SubAccessData {
         final INodeDirectory    dir;
         final String            resourcePath;
@@ -31,19 +31,43 @@
 
 class RangerHdfsAccessRequest extends RangerAccessRequestImpl {
     public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAction access, String accessType, String action, String user, Set<String> groups) {
+        init(inode, path, pathOwner, access, accessType, action, user, groups);
+    }
+
+    RangerHdfsAccessRequest() {
+        // to be initialized by init()
+    }
+
+    /*
+     * (re)initializes this request; fields and context updated by the policy-engine during an earlier evaluation
+     * are reset as well, so that a thread can reuse the instance for its next access check
+     */
+    final void init(INode inode, String path, String pathOwner, FsAction access, String accessType, String action, String user, Set<String> groups) {
         if (action == null && access != null) {
             action = access.toString();
         }
 
-        super.setResource(new RangerHdfsResource(path, pathOwner));
+        String remoteIp = getRemoteIp();
+
+        if (getResource() instanceof RangerHdfsResource) {
+            ((RangerHdfsResource) getResource()).init(path, pathOwner);
+        } else {
+            super.setResource(new RangerHdfsResource(path, pathOwner));
+        }
+
         super.setAccessType(accessType);
         super.setUser(user);
         super.setUserGroups(groups);
+        super.setUserRoles(null);
         super.setAccessTime(new Date());
-        super.setClientIPAddress(getRemoteIp());
+        super.setClientIPAddress(remoteIp);
         super.setAction(action);
         super.setForwardedAddresses(null);
-        super.setRemoteIPAddress(getRemoteIp());
+        super.setRemoteIPAddress(remoteIp);
+        super.setClusterName(null);
+        super.setClusterType(null);
+
+        getContext().clear();
 
         if (inode != null) {
             buildRequestContext(inode);
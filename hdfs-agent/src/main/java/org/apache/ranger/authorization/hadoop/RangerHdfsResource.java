@@ -25,6 +25,10 @@
 
 class RangerHdfsResource extends RangerAccessResourceImpl {
     public RangerHdfsResource(String path, String owner) {
+        init(path, owner);
+    }
+
+    final void init(String path, String owner) {
         super.setValue(RangerHdfsAuthorizer.KEY_RESOURCE_PATH, path);
         super.setOwnerUser(owner);
     }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import org.apache.hadoop.hdfs.server.namenode.INode;
+import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider.AccessControlEnforcer;
+import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
+import org.apache.hadoop.ipc.RPC;
+import org.apache.hadoop.ipc.Server;
+import org.apache.hadoop.security.AccessControlException;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for traversal decisions cached by {@link RangerAccessControlEnforcer} while serving an RPC.
+ */
+public class RangerAccessControlEnforcerTest {
+    private static final String FILE_OWNER = "fileOwner";
+    private static final String FILE_GROUP = "superGroup";
+
+    private final List<RangerAccessResult> results = new ArrayList<>();
+
+    private RangerHdfsPlugin            plugin;
+    private RangerAccessControlEnforcer enforcer;
+
+    @Before
+    public void setup() {
+        plugin = Mockito.mock(RangerHdfsPlugin.class);
+
+        // every traversal is allowed by a policy; audit is enabled
+        when(plugin.isAccessAllowedForPathPrefixes(any(RangerAccessRequest.class), eq(RangerHdfsAuthorizer.KEY_RESOURCE_PATH), isNull())).thenAnswer(invocation -> {
+            RangerAccessRequest      request = invocation.getArgument(0);
+            String                   path    = request.getResource().getAsString();
+            List<RangerAccessResult> ret     = new ArrayList<>();
+
+            for (int idx = path.indexOf('/'); idx != -1 && idx < path.length() - 1; idx = path.indexOf('/', idx + 1)) {
+                RangerAccessResourceImpl prefix = new RangerAccessResourceImpl(Collections.singletonMap(RangerHdfsAuthorizer.KEY_RESOURCE_PATH, idx == 0 ? "/" : path.substring(0, idx)));
+
+                ret.add(createAllowedResult(new RangerAccessRequestImpl(prefix, "execute", request.getUser(), request.getUserGroups(), null)));
+            }
+
+            RangerAccessResult result = Mockito.spy(createAllowedResult(request));
+
+            results.add(result);
+            ret.add(result);
+
+            return ret;
+        });
+
+        enforcer = new RangerAccessControlEnforcer(plugin, Mockito.mock(AccessControlEnforcer.class));
+
+        Server.getCurCall().set(new Server.Call(1, 0, null, null, RPC.RpcKind.RPC_PROTOCOL_BUFFER, new byte[0]));
+    }
+
+    @After
+    public void teardown() {
+        Server.getCurCall().remove();
+    }
+
+    @Test
+    public void testAllowOnTraversalIsAuditedAfterCachedUnauditedAllow() throws AccessControlException {
+        INode[] fileNodes = createNodes("/a/f");
+        INode[] dirNodes  = new INode[] {fileNodes[0], fileNodes[1]};
+
+        // traversal to a file checks its parent; allow is not audited
+        checkTraversal(fileNodes, false, "bob");
+        checkTraversal(fileNodes, false, "bob");
+
+        assertEquals("repeated traversal within the RPC must be served from cache", 1, results.size());
+
+        // traversal to the parent directory itself: allow is audited, hence must not be served from the cached unaudited allow
+        checkTraversal(dirNodes, false, "bob");
+
+        assertEquals(2, results.size());
+        assertEquals("/a", results.get(1).getAccessRequest().getResource().getAsString());
+
+        verify(results.get(1), atLeastOnce()).getIsAudited(); // read by the audit handler in processResult()
+    }
+
+    @Test
+    public void testLastResultIsSavedOnCacheHit() throws AccessControlException {
+        INode[] fileNodes = createNodes("/a/f");
+
+        when(plugin.isHadoopAuthEnabled()).thenReturn(true);
+
+        // user is not the owner: default enforcer is called after the traversal check, which audits the last result
+        checkTraversal(fileNodes, true, "bob");
+        checkTraversal(fileNodes, true, "bob");
+
+        assertEquals("repeated traversal within the RPC must be served from cache", 1, results.size());
+
+        ArgumentCaptor<RangerAccessResult> lastResults = ArgumentCaptor.forClass(RangerAccessResult.class);
+
+        verify(plugin, times(2)).evalAuditPolicies(lastResults.capture());
+
+        RangerAccessResult first  = lastResults.getAllValues().get(0);
+        RangerAccessResult second = lastResults.getAllValues().get(1);
+
+        assertNotSame("cached result must not be shared across access checks", first, second);
+        assertEquals("/a", second.getAccessRequest().getResource().getAsString());
+        assertEquals(results.get(0).getPolicyId(), second.getPolicyId());
+        assertTrue(second.getIsAllowed());
+    }
+
+    @Test
+    public void testAncestorDecisionsAreCached() throws AccessControlException {
+        INode[] fileNodes = createNodes("/a/b/f");
+
+        // traversal to /a/b/f checks /a/b; /a and / are evaluated in the same call
+        checkTraversal(fileNodes, false, "bob");
+
+        assertEquals(1, results.size());
+
+        // traversal to /a/g checks /a: allow for /a isn't audited, hence is served from the decision cached for the ancestor
+        checkTraversal(createNodes("/a/g"), false, "bob");
+
+        assertEquals("traversal of ancestor within the RPC must be served from cache", 1, results.size());
+
+        // traversal to the directory /a itself: allow determined by a policy is audited, hence must be evaluated
+        checkTraversal(new INode[] {fileNodes[0], fileNodes[1]}, false, "bob");
+
+        assertEquals(2, results.size());
+        assertEquals("/a", results.get(1).getAccessRequest().getResource().getAsString());
+    }
+
+    private void checkTraversal(INode[] nodes, boolean doCheckOwner, String userName) throws AccessControlException {
+        UserGroupInformation ugi = UserGroupInformation.createUserForTesting(userName, new String[0]);
+
+        enforcer.checkPermission(FILE_OWNER, FILE_GROUP, ugi, nodes, nodes, new byte[0][0], Snapshot.CURRENT_STATE_ID, nodes[nodes.length - 1].getFullPathName(),
+                nodes.length - 2, doCheckOwner, null, null, null, null, false);
+    }
+
+    private static RangerAccessResult createAllowedResult(RangerAccessRequest request) {
+        RangerAccessResult ret = new RangerAccessResult(0, "dev_hdfs", null, request);
+
+        ret.setIsAccessDetermined(true);
+        ret.setIsAllowed(true);
+        ret.setIsAuditedDetermined(true);
+        ret.setIsAudited(true);
+
+        return ret;
+    }
+
+    private static INode[] createNodes(String path) {
+        String[] pathSegments = path.split("/");
+        INode[]  ret          = new INode[pathSegments.length];
+
+        for (int i = 0; i < pathSegments.length; i++) {
+            boolean file     = i == pathSegments.length - 1;
+            String  fullPath = i == 0 ? "/" : String.join("/", Arrays.copyOf(pathSegments, i + 1));
+            INode   node     = Mockito.mock(INode.class);
+
+            when(node.getLocalNameBytes()).thenReturn(pathSegments[i].getBytes(StandardCharsets.UTF_8));
+            when(node.getUserName()).thenReturn(FILE_OWNER);
+            when(node.getGroupName()).thenReturn(FILE_GROUP);
+            when(node.getFullPathName()).thenReturn(fullPath);
+            when(node.isFile()).thenReturn(file);
+            when(node.isDirectory()).thenReturn(!file);
+
+            ret[i] = node;
+        }
+
+        return ret;
+    }
+}
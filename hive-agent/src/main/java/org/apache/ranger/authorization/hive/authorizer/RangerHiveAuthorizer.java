@@ -87,6 +87,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -1115,6 +1116,9 @@ public List<HivePrivilegeObject> filterListCmdObjects(List<HivePrivilegeObject>
                 ret = new ArrayList<>(objs.size());
             }
 
+            List<HivePrivilegeObject> requestObjs = new ArrayList<>(objs.size());
+            List<RangerAccessRequest> requests    = new ArrayList<>(objs.size());
+
             for (HivePrivilegeObject privilegeObject : objs) {
                 if (LOG.isDebugEnabled()) {
                     HivePrivObjectActionType actionType    = privilegeObject.getActionType();
@@ -1134,21 +1138,38 @@ public List<HivePrivilegeObject> filterListCmdObjects(List<HivePrivilegeObject>
                 if (resource == null) {
                     LOG.error("filterListCmdObjects: RangerHiveResource returned by createHiveResource is null");
                 } else {
-                    RangerHiveAccessRequest request = new RangerHiveAccessRequest(resource, user, groups, roles, context, sessionContext);
-                    RangerAccessResult      result  = hivePlugin.isAccessAllowed(request, auditHandler);
+                    requestObjs.add(privilegeObject);
+                    requests.add(new RangerHiveAccessRequest(resource, user, groups, roles, context, sessionContext));
+                }
+            }
+
+            if (!requests.isEmpty()) {
+                // evaluate all objects in a single call to the policy-engine; results are audited below, one event per object
+                Collection<RangerAccessResult> results     = hivePlugin.isAccessAllowed(requests, null);
+                Iterator<RangerAccessResult>   iterResults = results != null ? results.iterator() : Collections.emptyIterator();
+
+                for (int i = 0; i < requests.size(); i++) {
+                    HivePrivilegeObject     privilegeObject = requestObjs.get(i);
+                    RangerHiveAccessRequest request         = (RangerHiveAccessRequest) requests.get(i);
+                    RangerHiveResource      resource        = (RangerHiveResource) request.getResource();
+                    RangerAccessResult      result          = iterResults.hasNext() ? iterResults.next() : null;
 
                     if (result == null) {
                         LOG.error("filterListCmdObjects: Internal error: null RangerAccessResult object received back from isAccessAllowed()!");
-                    } else if (!result.getIsAllowed()) {
-                        if (LOG.isDebugEnabled()) {
-                            String path = resource.getAsString();
-
-                            LOG.debug("filterListCmdObjects: Permission denied: user [{}] does not have [{}] privilege on [{}]. resource[{}], request[{}], result[{}]", user, request.getHiveAccessType().name(), path, resource, request, result);
-                        }
                     } else {
-                        LOG.debug("filterListCmdObjects: access allowed. resource[{}], request[{}], result[{}]", resource, request, result);
+                        auditHandler.processResult(result);
+
+                        if (!result.getIsAllowed()) {
+                            if (LOG.isDebugEnabled()) {
+                                String path = resource.getAsString();
 
-                        ret.add(privilegeObject);
+                                LOG.debug("filterListCmdObjects: Permission denied: user [{}] does not have [{}] privilege on [{}]. resource[{}], request[{}], result[{}]", user, request.getHiveAccessType().name(), path, resource, request, result);
+                            }
+                        } else {
+                            LOG.debug("filterListCmdObjects: access allowed. resource[{}], request[{}], result[{}]", resource, request, result);
+
+                            ret.add(privilegeObject);
+                        }
                     }
                 }
             }
@@ -1371,15 +1392,12 @@ public List<HivePrivilegeObject> applyRowFilterAndColumnMasking(HiveAuthzContext
                     }
 
                     if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
-                        List<String> columnTransformers = new ArrayList<>();
-
-                        for (String column : hiveObj.getColumns()) {
-                            boolean isColumnTransformed = addCellValueTransformerAndCheckIfTransformed(queryContext, hiveObj, column, columnTransformers, metaStoreClient, objOwners);
+                        List<String> columnTransformers = new ArrayList<>(hiveObj.getColumns().size());
+                        boolean      isTransformed      = addCellValueTransformersAndCheckIfTransformed(queryContext, hiveObj, columnTransformers, metaStoreClient, objOwners);
 
-                            LOG.debug("addCellValueTransformerAndCheckIfTransformed(database={}, table={}, column={}): {}", database, table, column, isColumnTransformed);
+                        LOG.debug("addCellValueTransformersAndCheckIfTransformed(database={}, table={}, columnCount={}): {}", database, table, hiveObj.getColumns().size(), isTransformed);
 
-                            needToTransform = needToTransform || isColumnTransformed;
-                        }
+                        needToTransform = needToTransform || isTransformed;
 
                         hiveObj.setCellValueTransformers(columnTransformers);
                     }
@@ -1549,79 +1567,120 @@ private String getRowFilterExpression(HiveAuthzContext context, HivePrivilegeObj
         return ret;
     }
 
-    private boolean addCellValueTransformerAndCheckIfTransformed(HiveAuthzContext context, HivePrivilegeObject tableOrView, String columnName, List<String> columnTransformers, IMetaStoreClient metaStoreClient, Map<String, String> objOwners) throws SemanticException {
+    /**
+     * Adds cell-value transformers for all columns of the table/view to columnTransformers, in the order of the
+     * columns. Data-mask policies for all the columns are evaluated in a single call to the policy-engine; owner of the
+     * table and types of the columns are looked up in the metastore at most once for the table.
+     *
+     * @return true if any of the columns is transformed
+     */
+    private boolean addCellValueTransformersAndCheckIfTransformed(HiveAuthzContext context, HivePrivilegeObject tableOrView, List<String> columnTransformers, IMetaStoreClient metaStoreClient, Map<String, String> objOwners) throws SemanticException {
         UserGroupInformation ugi = getCurrentUserGroupInfo();
 
         if (ugi == null) {
             throw new SemanticException("user information not available");
         }
 
-        String databaseName    = tableOrView.getDbname();
-        String tableOrViewName = tableOrView.getObjectName();
+        String       databaseName    = tableOrView.getDbname();
+        String       tableOrViewName = tableOrView.getObjectName();
+        List<String> columns         = tableOrView.getColumns();
 
-        LOG.debug("==> addCellValueTransformerAndCheckIfTransformed({}, {}, {})", databaseName, tableOrViewName, columnName);
+        LOG.debug("==> addCellValueTransformersAndCheckIfTransformed({}, {}, columnCount={})", databaseName, tableOrViewName, columns.size());
 
-        boolean ret;
-        String  columnTransformer = columnName;
+        boolean ret = false;
 
         RangerHiveAuditHandler auditHandler = new RangerHiveAuditHandler(hivePlugin.getConfig());
 
         try {
-            HiveAuthzSessionContext sessionContext = getHiveAuthzSessionContext();
-            String                  user           = ugi.getShortUserName();
-            Set<String>             groups         = Sets.newHashSet(ugi.getGroupNames());
-            Set<String>             roles          = getCurrentRolesForUser(user, groups);
-            HiveObjectType          objectType     = HiveObjectType.COLUMN;
-            RangerHiveResource      resource       = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
+            HiveAuthzSessionContext   sessionContext = getHiveAuthzSessionContext();
+            String                    user           = ugi.getShortUserName();
+            Set<String>               groups         = Sets.newHashSet(ugi.getGroupNames());
+            Set<String>               roles          = getCurrentRolesForUser(user, groups);
+            HiveObjectType            objectType     = HiveObjectType.COLUMN;
+            RangerHiveResource        tblResource    = new RangerHiveResource(HiveObjectType.TABLE, databaseName, tableOrViewName);
+            List<RangerAccessRequest> requests       = new ArrayList<>(columns.size());
 
-            setOwnerUser(resource, tableOrView, metaStoreClient, objOwners);
+            setOwnerUser(tblResource, tableOrView, metaStoreClient, objOwners);
 
-            RangerHiveAccessRequest request = new RangerHiveAccessRequest(resource, user, groups, roles, objectType.name(), HiveAccessType.SELECT, context, sessionContext);
-            RangerAccessResult      result  = hivePlugin.evalDataMaskPolicies(request, auditHandler);
+            for (String columnName : columns) {
+                RangerHiveResource resource = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
 
-            ret = isDataMaskEnabled(result);
+                resource.setOwnerUser(tblResource.getOwnerUser());
 
-            if (ret) {
-                String                maskType    = result.getMaskType();
-                RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
-                String                transformer = null;
-                if (maskTypeDef != null) {
-                    transformer = maskTypeDef.getTransformer();
-                }
+                requests.add(new RangerHiveAccessRequest(resource, user, groups, roles, objectType.name(), HiveAccessType.SELECT, context, sessionContext));
+            }
 
-                if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
-                    columnTransformer = "NULL";
-                } else if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
-                    String maskedValue = result.getMaskedValue();
+            Collection<RangerAccessResult> results     = hivePlugin.evalDataMaskPolicies(requests, null);
+            Iterator<RangerAccessResult>   iterResults = results != null ? results.iterator() : Collections.emptyIterator();
+            Map<String, String>            columnTypes = null; // retrieved from metastore only when a transformer needs column type
 
-                    if (maskedValue == null) {
-                        columnTransformer = "NULL";
-                    } else {
-                        columnTransformer = maskedValue.replace("{col}", columnName);
-                    }
-                } else if (StringUtils.isNotEmpty(transformer)) {
-                    columnTransformer = transformer.replace("{col}", columnName);
+            for (String columnName : columns) {
+                RangerAccessResult result            = iterResults.hasNext() ? iterResults.next() : null;
+                boolean            isTransformed     = isDataMaskEnabled(result);
+                String             columnTransformer = columnName;
+
+                if (result != null) {
+                    auditHandler.processResult(result);
                 }
 
-                if (columnTransformer.contains("{colType}")) {
-                    String colType = getColumnType(tableOrView, columnName, metaStoreClient);
+                if (isTransformed) {
+                    columnTransformer = getCellValueTransformer(result, columnName);
+
+                    if (columnTransformer.contains("{colType}")) {
+                        if (columnTypes == null) {
+                            columnTypes = getColumnTypes(tableOrView, metaStoreClient);
+                        }
+
+                        String colType = columnTypes.get(StringUtils.lowerCase(columnName));
+
+                        if (StringUtils.isBlank(colType)) {
+                            LOG.warn("addCellValueTransformersAndCheckIfTransformed({}, {}, {}): failed to find column datatype", databaseName, tableOrViewName, columnName);
 
-                    if (StringUtils.isBlank(colType)) {
-                        LOG.warn("addCellValueTransformerAndCheckIfTransformed({}, {}, {}): failed to find column datatype", databaseName, tableOrViewName, columnName);
+                            colType = "string";
+                        }
 
-                        colType = "string";
+                        columnTransformer = columnTransformer.replace("{colType}", colType);
                     }
 
-                    columnTransformer = columnTransformer.replace("{colType}", colType);
+                    ret = true;
                 }
+
+                columnTransformers.add(columnTransformer);
+
+                LOG.debug("addCellValueTransformersAndCheckIfTransformed({}, {}, {}): isTransformed={}", databaseName, tableOrViewName, columnName, isTransformed);
             }
         } finally {
             auditHandler.flushAudit();
         }
 
-        columnTransformers.add(columnTransformer);
+        LOG.debug("<== addCellValueTransformersAndCheckIfTransformed({}, {}, columnCount={}): {}", databaseName, tableOrViewName, columns.size(), ret);
 
-        LOG.debug("<== addCellValueTransformerAndCheckIfTransformed({}, {}, {}): {}", databaseName, tableOrViewName, columnName, ret);
+        return ret;
+    }
+
+    private static String getCellValueTransformer(RangerAccessResult result, String columnName) {
+        String                ret         = columnName;
+        String                maskType    = result.getMaskType();
+        RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
+        String                transformer = null;
+
+        if (maskTypeDef != null) {
+            transformer = maskTypeDef.getTransformer();
+        }
+
+        if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
+            ret = "NULL";
+        } else if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
+            String maskedValue = result.getMaskedValue();
+
+            if (maskedValue == null) {
+                ret = "NULL";
+            } else {
+                ret = maskedValue.replace("{col}", columnName);
+            }
+        } else if (StringUtils.isNotEmpty(transformer)) {
+            ret = transformer.replace("{col}", columnName);
+        }
 
         return ret;
     }
@@ -3238,8 +3297,11 @@ private RangerHiveAccessRequest buildRequestForAlterTableSetOwnerFromCommandStri
         return request;
     }
 
-    private static String getColumnType(HivePrivilegeObject hiveObj, String colName, IMetaStoreClient metaStoreClient) {
-        String ret = null;
+    /**
+     * @return types of columns of the table/view, by lower-case column name; retrieved with a single metastore call
+     */
+    private static Map<String, String> getColumnTypes(HivePrivilegeObject hiveObj, IMetaStoreClient metaStoreClient) {
+        Map<String, String> ret = new HashMap<>();
 
         if (hiveObj != null && metaStoreClient != null) {
             try {
@@ -3251,20 +3313,17 @@ private static String getColumnType(HivePrivilegeObject hiveObj, String colName,
 
                         if (CollectionUtils.isNotEmpty(cols)) {
                             for (FieldSchema col : cols) {
-                                if (StringUtils.equalsIgnoreCase(col.getName(), colName)) {
-                                    ret = col.getType();
-                                    break;
-                                }
+                                ret.put(StringUtils.lowerCase(col.getName()), col.getType());
                             }
                         }
                         break;
                 }
             } catch (Exception excp) {
-                LOG.error("failed to get column type from Hive metastore. dbName={}, tblName={}, colName={}", hiveObj.getDbname(), hiveObj.getObjectName(), colName, excp);
+                LOG.error("failed to get column types from Hive metastore. dbName={}, tblName={}", hiveObj.getDbname(), hiveObj.getObjectName(), excp);
             }
         }
 
-        LOG.debug("getColumnType({}, {}): columnType={}", hiveObj, colName, ret);
+        LOG.debug("getColumnTypes({}): columnTypes={}", hiveObj, ret);
 
         return ret;
     }
@@ -44,11 +44,21 @@ public void processResult(RangerAccessResult result) {
         LOG.trace("==> RangerKafkaAuditHandler.processResult()");
 
         if (!isAuditingNeeded(result)) {
+            auditEvent = null;
+
             return;
         }
 
         auditEvent = super.getAuthzEvents(result);
 
+        if (auditEvent != null) {
+            Object actionCount = result.getAccessRequest().getContext().get(RangerKafkaAuthorizer.CONTEXT_KEY_ACTION_COUNT);
+
+            if (actionCount instanceof Integer) {
+                auditEvent.setEventCount((Integer) actionCount);
+            }
+        }
+
         LOG.trace("<== RangerKafkaAuditHandler.processResult()");
     }
 
@@ -71,6 +81,8 @@ public void flushAudit() {
 
         if (auditEvent != null) {
             super.logAuthzAudit(auditEvent);
+
+            auditEvent = null;
         }
 
         LOG.trace("<== RangerKafkaAuditHandler.flushAudit()");
@@ -41,6 +41,11 @@
 import org.apache.kafka.server.authorizer.Authorizer;
 import org.apache.kafka.server.authorizer.AuthorizerServerInfo;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher.EnrichedServiceTags;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
@@ -51,9 +56,11 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -84,10 +91,15 @@ public class RangerKafkaAuthorizer implements Authorizer {
 
     private static final String KAFKA_SUPER_USERS_PROP = "super.users";
 
+    // number of actions evaluated by a request, when more than one; used to aggregate their audit
+    static final String CONTEXT_KEY_ACTION_COUNT = "KAFKA_ACTION_COUNT";
+
     private static volatile RangerBasePlugin rangerPlugin;
 
     RangerKafkaAuditHandler auditHandler;
 
+    private volatile RangerKafkaResourceTypeIndex resourceTypeIndex;
+
     public RangerKafkaAuthorizer() {
     }
 
@@ -211,18 +223,73 @@ public Iterable<AclBinding> acls(AclBindingFilter filter) {
         throw new UnsupportedOperationException("(getting) acls is not supported by Ranger for Kafka");
     }
 
-    // TODO: provide a real implementation (RANGER-3809)
-    // Currently we return a dummy implementation because KAFKA-13598 makes producers idempotent by default and this causes
-    // a failure in the InitProducerId API call on the broker side because of the missing acls() method implementation.
-    // Overriding this with a dummy impl will make Kafka return an authorization error instead of an exception if the
-    // IDEMPOTENT_WRITE permission wasn't set on the producer.
+    /**
+     * Checks whether the user has the given access on any resource of the given type, for example when a producer
+     * without transactional-id initializes. Evaluated using an index of policies, rebuilt on policy, role or tag change;
+     * when the index can't decide, the policy engine evaluates the resource values referenced by policies and tags.
+     */
     @Override
     public AuthorizationResult authorizeByResourceType(AuthorizableRequestContext requestContext, AclOperation op, ResourceType resourceType) {
         SecurityUtils.authorizeByResourceTypeCheckArgs(op, resourceType);
 
-        logger.debug("authorizeByResourceType call is not supported by Ranger for Kafka yet");
+        RangerBasePlugin plugin = rangerPlugin;
+
+        if (plugin == null) {
+            MiscUtil.logErrorMessageByInterval(logger, "Authorizer is still not initialized");
+
+            return AuthorizationResult.DENIED;
+        }
+
+        String accessType      = mapToRangerAccessType(op);
+        String resourceTypeKey = mapToResourceType(resourceType);
+
+        if (accessType == null || resourceTypeKey == null) {
+            MiscUtil.logErrorMessageByInterval(logger, "Unsupported access type or resource type, requestContext=" + toString(requestContext) + ", operation=" + op + ", resourceType=" + resourceType);
+
+            return AuthorizationResult.DENIED;
+        }
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_KAFKAAUTH_REQUEST_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_KAFKAAUTH_REQUEST_LOG, "RangerKafkaAuthorizer.authorizeByResourceType(operation=" + op + ", resourceType=" + resourceType + ")");
+        }
+
+        try {
+            String             userName  = requestContext.principal() == null ? null : requestContext.principal().getName();
+            RangerPluginConfig config    = plugin.getConfig();
+            Boolean            isAllowed = config.isSuperUser(userName) ? Boolean.TRUE : null;
+
+            if (isAllowed == null) {
+                Set<String> userGroups = MiscUtil.getGroupsForRequestUser(userName);
+
+                if (config.hasSuperGroup(userGroups)) {
+                    isAllowed = Boolean.TRUE;
+                } else {
+                    RangerKafkaResourceTypeIndex index = getResourceTypeIndex(plugin);
+
+                    isAllowed = index.getCachedResult(userName, userGroups, accessType, resourceTypeKey);
+
+                    if (isAllowed == null) {
+                        isAllowed = index.isAllowed(userName, userGroups, plugin.getRolesFromUserAndGroups(userName, userGroups), accessType, resourceTypeKey);
+                    }
 
-        return AuthorizationResult.DENIED;
+                    if (isAllowed == null) {
+                        isAllowed = isAllowedOnAnyValue(plugin, userName, userGroups, accessType, resourceTypeKey, index.getCandidateValues(resourceTypeKey));
+
+                        index.setCachedResult(userName, userGroups, accessType, resourceTypeKey, isAllowed);
+                    }
+                }
+            }
+
+            AuthorizationResult ret = isAllowed ? AuthorizationResult.ALLOWED : AuthorizationResult.DENIED;
+
+            logger.debug("authorizeByResourceType(requestContext={}, operation={}, resourceType={}): ret={}", toString(requestContext), op, resourceType, ret);
+
+            return ret;
+        } finally {
+            RangerPerfTracer.log(perf);
+        }
     }
 
     private static String mapToRangerAccessType(AclOperation operation) {
@@ -302,16 +369,27 @@ private static List<AuthorizationResult> denyAll(List<Action> actions) {
         return actions.stream().map(a -> AuthorizationResult.DENIED).collect(Collectors.toList());
     }
 
-    private static List<AuthorizationResult> mapResults(List<Action> actions, Collection<RangerAccessResult> results) {
-        if (CollectionUtils.isEmpty(results)) {
-            logger.error("Ranger Plugin returned null or empty. Returning Denied for all");
+    private static List<AuthorizationResult> mapResults(List<Action> actions, Collection<RangerAccessResult> results, int[] actionIndexes, int requestCount) {
+        if (CollectionUtils.isEmpty(results) || results.size() != requestCount) {
+            logger.error("Ranger Plugin returned null, empty or incomplete results. Returning Denied for all");
 
             return denyAll(actions);
         }
 
-        return results.stream()
-                .map(r -> r != null && r.getIsAllowed() ? AuthorizationResult.ALLOWED : AuthorizationResult.DENIED)
-                .collect(Collectors.toList());
+        AuthorizationResult[] requestResults = new AuthorizationResult[requestCount];
+        int                   requestIndex   = 0;
+
+        for (RangerAccessResult result : results) {
+            requestResults[requestIndex++] = result != null && result.getIsAllowed() ? AuthorizationResult.ALLOWED : AuthorizationResult.DENIED;
+        }
+
+        List<AuthorizationResult> ret = new ArrayList<>(actionIndexes.length);
+
+        for (int actionIndex : actionIndexes) {
+            ret.add(requestResults[actionIndex]);
+        }
+
+        return ret;
     }
 
     private static String toString(AuthorizableRequestContext requestContext) {
@@ -331,9 +409,13 @@ private List<AuthorizationResult> wrappedAuthorization(AuthorizableRequestContex
         String      ip          = StringUtils.isNotEmpty(hostAddress) && hostAddress.charAt(0) == '/' ? hostAddress.substring(1) : hostAddress;
         Date        eventTime   = new Date();
 
-        List<RangerAccessRequest> rangerRequests = new ArrayList<>();
+        // identical (resource, operation) actions - common in metadata and fetch requests - are evaluated once
+        List<RangerAccessRequest>  rangerRequests = new ArrayList<>();
+        Map<List<String>, Integer> requestIndexes = new HashMap<>();
+        int[]                      actionIndexes  = new int[actions.size()];
 
-        for (Action action : actions) {
+        for (int i = 0; i < actions.size(); i++) {
+            Action action     = actions.get(i);
             String accessType = mapToRangerAccessType(action.operation());
 
             if (accessType == null) {
@@ -350,20 +432,90 @@ private List<AuthorizationResult> wrappedAuthorization(AuthorizableRequestContex
                 return denyAll(actions);
             }
 
-            RangerAccessRequestImpl rangerAccessRequest = createRangerAccessRequest(userName, userGroups, ip, eventTime, resourceTypeKey, action.resourcePattern().name(), accessType);
+            List<String> key          = Arrays.asList(resourceTypeKey, action.resourcePattern().name(), accessType);
+            Integer      requestIndex = requestIndexes.get(key);
+
+            if (requestIndex == null) {
+                requestIndex = rangerRequests.size();
+
+                requestIndexes.put(key, requestIndex);
+                rangerRequests.add(createRangerAccessRequest(userName, userGroups, ip, eventTime, resourceTypeKey, action.resourcePattern().name(), accessType));
+            } else {
+                Map<String, Object> context     = rangerRequests.get(requestIndex).getContext();
+                Integer             actionCount = (Integer) context.get(CONTEXT_KEY_ACTION_COUNT);
+
+                context.put(CONTEXT_KEY_ACTION_COUNT, actionCount == null ? 2 : actionCount + 1);
+            }
 
-            rangerRequests.add(rangerAccessRequest);
+            actionIndexes[i] = requestIndex;
         }
 
+        logger.debug("actionCount={}, distinctCount={}", actions.size(), rangerRequests.size());
+
         Collection<RangerAccessResult> results = callRangerPlugin(rangerRequests);
 
-        List<AuthorizationResult> authorizationResults = mapResults(actions, results);
+        List<AuthorizationResult> authorizationResults = mapResults(actions, results, actionIndexes, rangerRequests.size());
 
         logger.debug("rangerRequests={}, return={}", rangerRequests, authorizationResults);
 
         return authorizationResults;
     }
 
+    // evaluates the values without audit: the request is not for a specific resource
+    static boolean isAllowedOnAnyValue(RangerBasePlugin plugin, String userName, Set<String> userGroups, String accessType, String resourceTypeKey, Collection<String> values) {
+        boolean ret       = false;
+        Date    eventTime = new Date();
+
+        for (String value : values) {
+            RangerAccessResult result = plugin.isAccessAllowed(createRangerAccessRequest(userName, userGroups, null, eventTime, resourceTypeKey, value, accessType), null);
+
+            if (result != null && result.getIsAllowed()) {
+                ret = true;
+
+                break;
+            }
+        }
+
+        return ret;
+    }
+
+    static RangerKafkaResourceTypeIndex createResourceTypeIndex(RangerBasePlugin plugin, long policyVersion, long roleVersion, long tagVersion) {
+        List<RangerPolicy>          tagPolicies     = plugin.getTagPolicies();
+        Set<String>                 zoneNames       = plugin.getZoneNames();
+        List<RangerPolicy>          zonePolicies    = new ArrayList<>();
+        List<RangerServiceResource> taggedResources = Collections.emptyList();
+
+        for (String zoneName : zoneNames) {
+            zonePolicies.addAll(plugin.getResourcePolicies(zoneName));
+        }
+
+        RangerTagEnricher   tagEnricher         = CollectionUtils.isEmpty(tagPolicies) ? null : plugin.getTagEnricher();
+        EnrichedServiceTags enrichedServiceTags = tagEnricher != null ? tagEnricher.getEnrichedServiceTags() : null;
+
+        if (enrichedServiceTags != null && enrichedServiceTags.getServiceTags() != null && enrichedServiceTags.getServiceTags().getServiceResources() != null) {
+            taggedResources = enrichedServiceTags.getServiceTags().getServiceResources();
+        }
+
+        boolean evaluateByEngine = CollectionUtils.isNotEmpty(tagPolicies) || CollectionUtils.isNotEmpty(zoneNames);
+
+        return new RangerKafkaResourceTypeIndex(plugin.getResourcePolicies(), zonePolicies, taggedResources, evaluateByEngine, plugin.getServiceDef(), policyVersion, roleVersion, tagVersion);
+    }
+
+    private RangerKafkaResourceTypeIndex getResourceTypeIndex(RangerBasePlugin plugin) {
+        long                         policyVersion = plugin.getPoliciesVersion();
+        long                         roleVersion   = plugin.getRolesVersion();
+        long                         tagVersion    = plugin.getTagsVersion();
+        RangerKafkaResourceTypeIndex ret           = resourceTypeIndex;
+
+        if (ret == null || !ret.isFor(policyVersion, roleVersion, tagVersion)) {
+            ret = createResourceTypeIndex(plugin, policyVersion, roleVersion, tagVersion);
+
+            resourceTypeIndex = ret;
+        }
+
+        return ret;
+    }
+
     private Collection<RangerAccessResult> callRangerPlugin(List<RangerAccessRequest> rangerRequests) {
         try {
             return rangerPlugin.isAccessAllowed(rangerRequests);
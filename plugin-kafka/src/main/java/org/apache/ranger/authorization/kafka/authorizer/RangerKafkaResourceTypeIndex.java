@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index of access policies by resource type, to answer "does the user have the given access on any resource of the
+ * given type", as needed by Authorizer.authorizeByResourceType().
+ *
+ * As in Kafka's AclAuthorizer, the access is allowed if an allow item grants it on some resource of the type, unless
+ * every such resource is denied - by a deny item of the same policy, or by a deny policy of equal or higher priority
+ * on the same value or on '*'. Allow items whose outcome depends on conditions are treated conservatively: they never
+ * allow access.
+ *
+ * When the index can't decide - a matching deny item or deny exception is conditional, a deny covers the allowed
+ * values only partially, or tag or security-zone policies exist - isAllowed() returns null; the caller then evaluates
+ * getCandidateValues() with the policy engine.
+ *
+ * An instance is built for a policy, role and tag version, and caches results per (user, groups, access type, resource type).
+ */
+final class RangerKafkaResourceTypeIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerKafkaResourceTypeIndex.class);
+
+    private static final int    CACHE_SIZE              = 1024;
+    private static final String WILDCARD_OR_MACRO_CHARS = "*?{$";
+
+    private final long                             policyVersion;
+    private final long                             roleVersion;
+    private final long                             tagVersion;
+    private final boolean                          evaluateByEngine;
+    private final Map<String, List<IndexedPolicy>> policiesByResourceType   = new HashMap<>();
+    private final Map<String, Set<String>>         candidatesByResourceType = new HashMap<>();
+    private final Map<String, Boolean>             cache                    = Collections.synchronizedMap(new CacheMap<>(CACHE_SIZE));
+
+    RangerKafkaResourceTypeIndex(List<RangerPolicy> policies, RangerServiceDef serviceDef, long policyVersion, long roleVersion, long tagVersion) {
+        this(policies, Collections.emptyList(), Collections.emptyList(), false, serviceDef, policyVersion, roleVersion, tagVersion);
+    }
+
+    /**
+     * @param policies         resource policies of the default zone, which are indexed
+     * @param zonePolicies     resource policies of security zones; only their values are collected, as candidates
+     * @param taggedResources  resources having tags; only their values are collected, as candidates
+     * @param evaluateByEngine true if tag or security-zone policies exist, in which case isAllowed() never decides
+     */
+    RangerKafkaResourceTypeIndex(List<RangerPolicy> policies, List<RangerPolicy> zonePolicies, List<RangerServiceResource> taggedResources, boolean evaluateByEngine, RangerServiceDef serviceDef, long policyVersion, long roleVersion, long tagVersion) {
+        LOG.debug("==> RangerKafkaResourceTypeIndex(policyCount={}, evaluateByEngine={}, policyVersion={}, roleVersion={}, tagVersion={})", policies != null ? policies.size() : 0, evaluateByEngine, policyVersion, roleVersion, tagVersion);
+
+        Map<String, Collection<String>> impliedGrants = ServiceDefUtil.getExpandedImpliedGrants(serviceDef);
+
+        this.policyVersion    = policyVersion;
+        this.roleVersion      = roleVersion;
+        this.tagVersion       = tagVersion;
+        this.evaluateByEngine = evaluateByEngine;
+
+        if (policies != null) {
+            for (RangerPolicy policy : policies) {
+                if (!isIndexable(policy)) {
+                    continue;
+                }
+
+                for (Map<String, RangerPolicyResource> resource : getResources(policy)) {
+                    for (Map.Entry<String, RangerPolicyResource> entry : resource.entrySet()) {
+                        IndexedPolicy indexedPolicy = new IndexedPolicy(policy, entry.getValue(), impliedGrants);
+
+                        policiesByResourceType.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(indexedPolicy);
+
+                        addCandidates(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        if (zonePolicies != null) {
+            for (RangerPolicy policy : zonePolicies) {
+                if (!isIndexable(policy)) {
+                    continue;
+                }
+
+                for (Map<String, RangerPolicyResource> resource : getResources(policy)) {
+                    for (Map.Entry<String, RangerPolicyResource> entry : resource.entrySet()) {
+                        addCandidates(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        if (taggedResources != null) {
+            for (RangerServiceResource taggedResource : taggedResources) {
+                if (taggedResource != null && taggedResource.getResourceElements() != null) {
+                    for (Map.Entry<String, RangerPolicyResource> entry : taggedResource.getResourceElements().entrySet()) {
+                        addCandidates(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+
+        LOG.debug("<== RangerKafkaResourceTypeIndex(policyCount={}, evaluateByEngine={}, policyVersion={}, roleVersion={}, tagVersion={})", policies != null ? policies.size() : 0, evaluateByEngine, policyVersion, roleVersion, tagVersion);
+    }
+
+    boolean isFor(long policyVersion, long roleVersion, long tagVersion) {
+        return this.policyVersion == policyVersion && this.roleVersion == roleVersion && this.tagVersion == tagVersion;
+    }
+
+    /**
+     * @return result cached by an earlier call to isAllowed() or setCachedResult() for the user and groups; null if not cached
+     */
+    Boolean getCachedResult(String user, Set<String> groups, String accessType, String resourceTypeKey) {
+        return cache.get(getCacheKey(user, groups, accessType, resourceTypeKey));
+    }
+
+    void setCachedResult(String user, Set<String> groups, String accessType, String resourceTypeKey, boolean isAllowed) {
+        cache.put(getCacheKey(user, groups, accessType, resourceTypeKey), isAllowed);
+    }
+
+    /**
+     * @return resource values to evaluate with the policy engine when isAllowed() returns null: values of policies and of
+     * tagged resources, with wildcard values as-is; '*' stands for values not listed in policies with excludes
+     */
+    Set<String> getCandidateValues(String resourceTypeKey) {
+        Set<String> ret = candidatesByResourceType.get(resourceTypeKey);
+
+        return ret != null ? ret : Collections.emptySet();
+    }
+
+    /**
+     * @return true/false if the index decides the access, null if it must be evaluated by the policy engine
+     */
+    Boolean isAllowed(String user, Set<String> groups, Set<String> roles, String accessType, String resourceTypeKey) {
+        LOG.debug("==> RangerKafkaResourceTypeIndex.isAllowed(user={}, groups={}, roles={}, accessType={}, resourceType={})", user, groups, roles, accessType, resourceTypeKey);
+
+        Boolean ret = evaluateByEngine ? null : evaluate(user, groups, roles, accessType, resourceTypeKey);
+
+        if (ret != null) {
+            setCachedResult(user, groups, accessType, resourceTypeKey, ret);
+        }
+
+        LOG.debug("<== RangerKafkaResourceTypeIndex.isAllowed(user={}, groups={}, roles={}, accessType={}, resourceType={}): ret={}", user, groups, roles, accessType, resourceTypeKey, ret);
+
+        return ret;
+    }
+
+    private Boolean evaluate(String user, Set<String> groups, Set<String> roles, String accessType, String resourceTypeKey) {
+        List<IndexedPolicy> policies      = policiesByResourceType.get(resourceTypeKey);
+        List<IndexedPolicy> allowPolicies = new ArrayList<>();
+        List<IndexedPolicy> denyPolicies  = new ArrayList<>();
+        boolean             isDecidable   = true;
+
+        if (policies != null) {
+            for (IndexedPolicy policy : policies) {
+                PolicyResult result = policy.evaluate(user, groups, roles, accessType);
+
+                if (result == PolicyResult.UNDECIDED) {
+                    isDecidable = false;
+
+                    break;
+                } else if (result == PolicyResult.ALLOW) {
+                    allowPolicies.add(policy);
+                } else if (result == PolicyResult.DENY) {
+                    denyPolicies.add(policy);
+                }
+            }
+        }
+
+        Boolean ret = isDecidable ? Boolean.FALSE : null;
+
+        if (isDecidable) {
+            for (IndexedPolicy allowPolicy : allowPolicies) {
+                Boolean isGranted = allowPolicy.isGrantedOnSomeValue(denyPolicies);
+
+                if (Boolean.TRUE.equals(isGranted)) {
+                    ret = Boolean.TRUE;
+
+                    break;
+                } else if (isGranted == null) {
+                    ret = null;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private void addCandidates(String resourceTypeKey, RangerPolicyResource resource) {
+        if (resource == null || resource.getValues() == null) {
+            return;
+        }
+
+        Set<String> candidates = candidatesByResourceType.computeIfAbsent(resourceTypeKey, k -> new HashSet<>());
+
+        if (Boolean.TRUE.equals(resource.getIsExcludes())) {
+            candidates.add(RangerAbstractResourceMatcher.WILDCARD_ASTERISK);
+        } else {
+            candidates.addAll(resource.getValues());
+        }
+    }
+
+    private static List<Map<String, RangerPolicyResource>> getResources(RangerPolicy policy) {
+        List<Map<String, RangerPolicyResource>> ret = new ArrayList<>();
+
+        if (MapUtils.isNotEmpty(policy.getResources())) {
+            ret.add(policy.getResources());
+        }
+
+        if (policy.getAdditionalResources() != null) {
+            for (Map<String, RangerPolicyResource> resource : policy.getAdditionalResources()) {
+                if (MapUtils.isNotEmpty(resource)) {
+                    ret.add(resource);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isIndexable(RangerPolicy policy) {
+        return policy != null &&
+                (policy.getIsEnabled() == null || policy.getIsEnabled()) &&
+                (policy.getPolicyType() == null || policy.getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS);
+    }
+
+    // roles are derived from the user and groups, for the role version of this index
+    private static String getCacheKey(String user, Set<String> groups, String accessType, String resourceTypeKey) {
+        String sortedGroups = CollectionUtils.isEmpty(groups) ? "" : String.join("\u0000", new TreeSet<>(groups));
+
+        return user + '\u0001' + sortedGroups + '\u0001' + accessType + '\u0001' + resourceTypeKey;
+    }
+
+    // UNDECIDED: the outcome depends on conditions that could deny the access
+    private enum PolicyResult { ALLOW, DENY, NONE, UNDECIDED }
+
+    private static final class IndexedPolicy {
+        final int               priority;
+        final boolean           isConditional;
+        final boolean           isForAllValues;
+        final boolean           isExcludes;
+        final List<String>      values;
+        final boolean           isDenyAllElse;
+        final List<IndexedItem> allowItems;
+        final List<IndexedItem> allowExceptions;
+        final List<IndexedItem> denyItems;
+        final List<IndexedItem> denyExceptions;
+
+        IndexedPolicy(RangerPolicy policy, RangerPolicyResource resource, Map<String, Collection<String>> impliedGrants) {
+            List<String> values = resource != null && resource.getValues() != null ? resource.getValues() : Collections.emptyList();
+
+            this.priority        = policy.getPolicyPriority() != null ? policy.getPolicyPriority() : RangerPolicy.POLICY_PRIORITY_NORMAL;
+            this.isConditional   = CollectionUtils.isNotEmpty(policy.getValiditySchedules()) || CollectionUtils.isNotEmpty(policy.getConditions());
+            this.isExcludes      = resource != null && Boolean.TRUE.equals(resource.getIsExcludes());
+            this.isForAllValues  = !isExcludes && values.contains(RangerAbstractResourceMatcher.WILDCARD_ASTERISK);
+            this.values          = new ArrayList<>(values.size());
+            this.isDenyAllElse   = Boolean.TRUE.equals(policy.getIsDenyAllElse());
+            this.allowItems      = toIndexedItems(policy.getPolicyItems(), impliedGrants);
+            this.allowExceptions = toIndexedItems(policy.getAllowExceptions(), impliedGrants);
+            this.denyItems       = toIndexedItems(policy.getDenyPolicyItems(), impliedGrants);
+            this.denyExceptions  = toIndexedItems(policy.getDenyExceptions(), impliedGrants);
+
+            // resource matchers of Kafka service-def ignore case
+            for (String value : values) {
+                if (value != null) {
+                    this.values.add(value.toLowerCase());
+                }
+            }
+        }
+
+        PolicyResult evaluate(String user, Set<String> groups, Set<String> roles, String accessType) {
+            final PolicyResult ret;
+
+            if (isConditional) {
+                ret = isDenyAllElse || hasMatch(denyItems, user, groups, roles, accessType, true) ? PolicyResult.UNDECIDED : PolicyResult.NONE;
+            } else if (hasMatch(denyItems, user, groups, roles, accessType, true) && !hasMatch(denyExceptions, user, groups, roles, accessType, false)) {
+                boolean isDenied = hasMatch(denyItems, user, groups, roles, accessType, false) && !hasMatch(denyExceptions, user, groups, roles, accessType, true);
+
+                ret = isDenied ? PolicyResult.DENY : PolicyResult.UNDECIDED;
+            } else if (hasMatch(allowItems, user, groups, roles, accessType, false) && !hasMatch(allowExceptions, user, groups, roles, accessType, true)) {
+                ret = PolicyResult.ALLOW;
+            } else if (isDenyAllElse) {
+                ret = hasMatch(allowItems, user, groups, roles, accessType, true) ? PolicyResult.UNDECIDED : PolicyResult.DENY;
+            } else {
+                ret = PolicyResult.NONE;
+            }
+
+            return ret;
+        }
+
+        /**
+         * @return TRUE if some value of this allow policy is not denied by denyPolicies of equal or higher priority,
+         * FALSE if all its values are, null if that can't be decided from the values
+         */
+        Boolean isGrantedOnSomeValue(List<IndexedPolicy> denyPolicies) {
+            List<IndexedPolicy> overridingDenies = new ArrayList<>();
+
+            for (IndexedPolicy denyPolicy : denyPolicies) {
+                if (denyPolicy.priority >= priority) {
+                    overridingDenies.add(denyPolicy);
+                }
+            }
+
+            Boolean ret = Boolean.FALSE;
+
+            if (isExcludes) {
+                if (!values.contains(RangerAbstractResourceMatcher.WILDCARD_ASTERISK)) {
+                    ret = overridingDenies.isEmpty() ? Boolean.TRUE : null;
+                }
+            } else {
+                for (String value : values) {
+                    Boolean isGranted = Boolean.TRUE;
+
+                    for (IndexedPolicy denyPolicy : overridingDenies) {
+                        Boolean isDenied = denyPolicy.isDenyOn(value);
+
+                        if (Boolean.TRUE.equals(isDenied)) {
+                            isGranted = Boolean.FALSE;
+
+                            break;
+                        } else if (isDenied == null) {
+                            isGranted = null;
+                        }
+                    }
+
+                    if (Boolean.TRUE.equals(isGranted)) {
+                        ret = Boolean.TRUE;
+
+                        break;
+                    } else if (isGranted == null) {
+                        ret = null;
+                    }
+                }
+            }
+
+            return ret;
+        }
+
+        /**
+         * @return TRUE if this deny policy covers all resources matched by the given value, FALSE if it covers none of
+         * them, null if it might cover some
+         */
+        private Boolean isDenyOn(String value) {
+            Boolean ret = Boolean.FALSE;
+
+            if (isForAllValues) {
+                ret = Boolean.TRUE;
+            } else if (isExcludes) {
+                ret = null;
+            } else {
+                for (String deniedValue : values) {
+                    if (deniedValue.equals(value)) {
+                        ret = Boolean.TRUE;
+
+                        break;
+                    } else if (mayOverlap(deniedValue, value)) {
+                        ret = null;
+                    }
+                }
+            }
+
+            return ret;
+        }
+
+        // values without wildcards or macros overlap only when equal; otherwise compare the literal prefixes
+        private static boolean mayOverlap(String value1, String value2) {
+            int     len1 = getLiteralPrefixLength(value1);
+            int     len2 = getLiteralPrefixLength(value2);
+            boolean ret;
+
+            if (len1 == value1.length() && len2 == value2.length()) {
+                ret = value1.equals(value2);
+            } else {
+                int len = Math.min(len1, len2);
+
+                ret = value1.regionMatches(0, value2, 0, len);
+            }
+
+            return ret;
+        }
+
+        private static int getLiteralPrefixLength(String value) {
+            int ret = 0;
+
+            while (ret < value.length() && WILDCARD_OR_MACRO_CHARS.indexOf(value.charAt(ret)) == -1) {
+                ret++;
+            }
+
+            return ret;
+        }
+
+        private static boolean hasMatch(List<IndexedItem> items, String user, Set<String> groups, Set<String> roles, String accessType, boolean includeConditional) {
+            boolean ret = false;
+
+            for (IndexedItem item : items) {
+                if ((includeConditional || !item.hasConditions) && item.matches(user, groups, roles, accessType)) {
+                    ret = true;
+
+                    break;
+                }
+            }
+
+            return ret;
+        }
+
+        private static List<IndexedItem> toIndexedItems(List<RangerPolicyItem> policyItems, Map<String, Collection<String>> impliedGrants) {
+            final List<IndexedItem> ret;
+
+            if (CollectionUtils.isEmpty(policyItems)) {
+                ret = Collections.emptyList();
+            } else {
+                ret = new ArrayList<>(policyItems.size());
+
+                for (RangerPolicyItem policyItem : policyItems) {
+                    ret.add(new IndexedItem(policyItem, impliedGrants));
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    private static final class IndexedItem {
+        final Set<String> users;
+        final Set<String> groups;
+        final Set<String> roles;
+        final Set<String> accessTypes = new HashSet<>();
+        final boolean     hasConditions;
+        final boolean     isForAnyUser;
+
+        IndexedItem(RangerPolicyItem policyItem, Map<String, Collection<String>> impliedGrants) {
+            this.users         = toSet(policyItem.getUsers());
+            this.groups        = toSet(policyItem.getGroups());
+            this.roles         = toSet(policyItem.getRoles());
+            this.hasConditions = CollectionUtils.isNotEmpty(policyItem.getConditions());
+            this.isForAnyUser  = users.contains(RangerPolicyEngine.USER_CURRENT) || groups.contains(RangerPolicyEngine.GROUP_PUBLIC);
+
+            if (policyItem.getAccesses() != null) {
+                for (RangerPolicyItemAccess access : policyItem.getAccesses()) {
+                    if (access == null || Boolean.FALSE.equals(access.getIsAllowed())) {
+                        continue;
+                    }
+
+                    Collection<String> accessTypes = impliedGrants.get(access.getType());
+
+                    this.accessTypes.add(access.getType());
+
+                    if (accessTypes != null) {
+                        this.accessTypes.addAll(accessTypes);
+                    }
+                }
+            }
+        }
+
+        boolean matches(String user, Set<String> userGroups, Set<String> userRoles, String accessType) {
+            return accessTypes.contains(accessType) &&
+                    (isForAnyUser || users.contains(user) || containsAny(groups, userGroups) || containsAny(roles, userRoles));
+        }
+
+        private static boolean containsAny(Set<String> values, Set<String> userValues) {
+            return !values.isEmpty() && userValues != null && !userValues.isEmpty() && CollectionUtils.containsAny(values, userValues);
+        }
+
+        private static Set<String> toSet(List<String> values) {
+            return CollectionUtils.isEmpty(values) ? Collections.emptySet() : new HashSet<>(values);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import org.apache.kafka.common.acl.AclOperation;
+import org.apache.kafka.common.resource.PatternType;
+import org.apache.kafka.common.resource.ResourcePattern;
+import org.apache.kafka.common.resource.ResourceType;
+import org.apache.kafka.common.security.auth.KafkaPrincipal;
+import org.apache.kafka.common.security.auth.SecurityProtocol;
+import org.apache.kafka.server.authorizer.Action;
+import org.apache.kafka.server.authorizer.AuthorizableRequestContext;
+import org.apache.kafka.server.authorizer.AuthorizationResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares authorizing the actions of a large request one at a time - as done earlier - with authorizing them in one
+ * call, in which identical (resource, operation) actions are evaluated once. The number of actions and of distinct
+ * topics can be changed with system properties ranger.benchmark.kafka.actions and ranger.benchmark.kafka.topics.
+ */
+public class RangerKafkaAuthorizerBenchmarkTest {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerKafkaAuthorizerBenchmarkTest.class);
+
+    private static final int ACTION_COUNT   = Integer.getInteger("ranger.benchmark.kafka.actions", 1000);
+    private static final int TOPIC_COUNT    = Integer.getInteger("ranger.benchmark.kafka.topics", 10);
+    private static final int WARM_UP_ROUNDS = 3;
+
+    private static RangerKafkaAuthorizer authorizer;
+
+    @BeforeAll
+    public static void setup() {
+        authorizer = new RangerKafkaAuthorizer();
+
+        authorizer.configure(Collections.emptyMap());
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        if (authorizer != null) {
+            authorizer.close();
+        }
+    }
+
+    @Test
+    public void testBulkAuthorizationMatchesPerAction() throws Exception {
+        AuthorizableRequestContext requestContext = new TestRequestContext("someone");
+        List<Action>               actions        = new ArrayList<>(ACTION_COUNT);
+
+        for (int i = 0; i < ACTION_COUNT; i++) {
+            String          topic     = i % TOPIC_COUNT == 0 ? "test" : (i % TOPIC_COUNT == 1 ? "dev" : ("topic-" + (i % TOPIC_COUNT)));
+            AclOperation    operation = (i / TOPIC_COUNT) % 2 == 0 ? AclOperation.READ : AclOperation.DESCRIBE;
+            ResourcePattern resource  = new ResourcePattern(ResourceType.TOPIC, topic, PatternType.LITERAL);
+
+            actions.add(new Action(operation, resource, 1, true, true));
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            authorizePerAction(requestContext, actions);
+            authorizer.authorize(requestContext, actions);
+        }
+
+        long perActionStartNs = System.nanoTime();
+
+        List<AuthorizationResult> perActionResults = authorizePerAction(requestContext, actions);
+
+        long perActionNs = System.nanoTime() - perActionStartNs;
+        long bulkStartNs = System.nanoTime();
+
+        List<AuthorizationResult> bulkResults = authorizer.authorize(requestContext, actions);
+
+        long bulkNs = System.nanoTime() - bulkStartNs;
+
+        LOG.info("actions={}, topics={}: per-action authorization {} us, bulk authorization {} us", ACTION_COUNT, TOPIC_COUNT, perActionNs / 1000, bulkNs / 1000);
+
+        assertEquals(perActionResults, bulkResults);
+
+        for (int i = 0; i < ACTION_COUNT; i++) {
+            String topic = actions.get(i).resourcePattern().name();
+
+            assertEquals("test".equals(topic) || "dev".equals(topic) ? AuthorizationResult.ALLOWED : AuthorizationResult.DENIED, bulkResults.get(i), "action " + i + ": " + actions.get(i));
+        }
+    }
+
+    private static List<AuthorizationResult> authorizePerAction(AuthorizableRequestContext requestContext, List<Action> actions) {
+        List<AuthorizationResult> ret = new ArrayList<>(actions.size());
+
+        for (Action action : actions) {
+            ret.addAll(authorizer.authorize(requestContext, Collections.singletonList(action)));
+        }
+
+        return ret;
+    }
+
+    private static class TestRequestContext implements AuthorizableRequestContext {
+        private final KafkaPrincipal principal;
+
+        TestRequestContext(String userName) {
+            this.principal = new KafkaPrincipal(KafkaPrincipal.USER_TYPE, userName);
+        }
+
+        @Override
+        public String listenerName() {
+            return "PLAINTEXT";
+        }
+
+        @Override
+        public SecurityProtocol securityProtocol() {
+            return SecurityProtocol.PLAINTEXT;
+        }
+
+        @Override
+        public KafkaPrincipal principal() {
+            return principal;
+        }
+
+        @Override
+        public InetAddress clientAddress() {
+            return InetAddress.getLoopbackAddress();
+        }
+
+        @Override
+        public int requestType() {
+            return 3; // METADATA
+        }
+
+        @Override
+        public int requestVersion() {
+            return 0;
+        }
+
+        @Override
+        public String clientId() {
+            return "benchmark";
+        }
+
+        @Override
+        public int correlationId() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RangerKafkaResourceTypeIndexTest {
+    private static final Set<String> NO_GROUPS = Collections.emptySet();
+    private static final Set<String> NO_ROLES  = Collections.emptySet();
+
+    @Test
+    public void testAllowOnAnyResourceOfType() throws Exception {
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        policies.add(createPolicy("topic", "orders*", createItem("user1", null, null, "publish")));
+        policies.add(createPolicy("consumergroup", "*", createItem(null, "group1", null, "consume")));
+        policies.add(createPolicy("topic", "payments", createItem(null, null, "role1", "kafka_admin")));
+
+        RangerKafkaResourceTypeIndex index = new RangerKafkaResourceTypeIndex(policies, getServiceDef(), 1, 1, 1);
+
+        assertTrue(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertTrue(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_DESCRIBE, RangerKafkaAuthorizer.KEY_TOPIC), "describe is implied by publish");
+        assertFalse(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertFalse(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TRANSACTIONALID));
+        assertFalse(index.isAllowed("user2", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertTrue(index.isAllowed("user2", Collections.singleton("group1"), NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_CONSUMER_GROUP));
+        assertTrue(index.isAllowed("user3", NO_GROUPS, Collections.singleton("role1"), RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "publish is implied by kafka_admin");
+    }
+
+    @Test
+    public void testDenyOnAllResourcesOfType() throws Exception {
+        List<RangerPolicy> policies    = new ArrayList<>();
+        RangerPolicy       allowPolicy = createPolicy("topic", "orders*", createItem(null, "public", null, "publish"));
+        RangerPolicy       denyPolicy  = createPolicy("topic", "*");
+        RangerPolicy       denySome    = createPolicy("topic", "secret*");
+
+        denyPolicy.addDenyPolicyItem(createItem("user1", null, null, "publish"));
+        denyPolicy.addDenyException(createItem("user2", null, null, "publish"));
+        denySome.addDenyPolicyItem(createItem("user3", null, null, "publish"));
+
+        policies.add(allowPolicy);
+        policies.add(denyPolicy);
+        policies.add(denySome);
+
+        RangerKafkaResourceTypeIndex index = new RangerKafkaResourceTypeIndex(policies, getServiceDef(), 1, 1, 1);
+
+        assertFalse(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "denied on all topics");
+        assertTrue(index.isAllowed("user2", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "deny exception");
+        assertTrue(index.isAllowed("user3", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "denied only on some topics");
+
+        RangerPolicy overridePolicy = createPolicy("topic", "orders", createItem("user1", null, null, "publish"));
+
+        overridePolicy.setPolicyPriority(RangerPolicy.POLICY_PRIORITY_OVERRIDE);
+
+        policies.add(overridePolicy);
+
+        index = new RangerKafkaResourceTypeIndex(policies, getServiceDef(), 2, 1, 1);
+
+        assertTrue(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "override priority allow");
+    }
+
+    @Test
+    public void testConditionalItemsAndCache() throws Exception {
+        RangerPolicyItem conditionalItem = createItem("user1", null, null, "publish");
+
+        conditionalItem.addCondition(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.0.0.*")));
+
+        List<RangerPolicy> policies = Collections.singletonList(createPolicy("topic", "*", conditionalItem));
+
+        RangerKafkaResourceTypeIndex index = new RangerKafkaResourceTypeIndex(policies, getServiceDef(), 1, 1, 1);
+
+        assertNull(index.getCachedResult("user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertFalse(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "conditional allow");
+        assertEquals(Boolean.FALSE, index.getCachedResult("user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertTrue(index.isFor(1, 1, 1));
+        assertFalse(index.isFor(2, 1, 1));
+        assertFalse(index.isFor(1, 2, 1));
+        assertFalse(index.isFor(1, 1, 2), "tag change");
+    }
+
+    @Test
+    public void testCacheIsPerUserGroups() throws Exception {
+        List<RangerPolicy> policies = Collections.singletonList(createPolicy("topic", "orders*", createItem(null, "group1", null, "publish")));
+
+        RangerKafkaResourceTypeIndex index = new RangerKafkaResourceTypeIndex(policies, getServiceDef(), 1, 1, 1);
+
+        Set<String> groups = new HashSet<>(Arrays.asList("group2", "group1"));
+
+        assertTrue(index.isAllowed("user1", groups, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertEquals(Boolean.TRUE, index.getCachedResult("user1", new TreeSet<>(groups), RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "order of groups");
+
+        // user removed from group1: cached allow must not be returned
+        assertNull(index.getCachedResult("user1", Collections.singleton("group2"), RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertNull(index.getCachedResult("user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertFalse(index.isAllowed("user1", Collections.singleton("group2"), NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertEquals(Boolean.FALSE, index.getCachedResult("user1", Collections.singleton("group2"), RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertEquals(Boolean.TRUE, index.getCachedResult("user1", groups, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+    }
+
+    @Test
+    public void testDenyOnAllowedValues() throws Exception {
+        RangerPolicy samePolicy = createPolicy("topic", "foo", createItem("user1", null, null, "publish"));
+
+        samePolicy.addDenyPolicyItem(createItem("user1", null, null, "publish"));
+
+        RangerKafkaResourceTypeIndex index = new RangerKafkaResourceTypeIndex(Collections.singletonList(samePolicy), getServiceDef(), 1, 1, 1);
+
+        assertEquals(Boolean.FALSE, index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "denied by the same policy");
+
+        samePolicy.addDenyException(createItem("user1", null, null, "publish"));
+
+        index = new RangerKafkaResourceTypeIndex(Collections.singletonList(samePolicy), getServiceDef(), 2, 1, 1);
+
+        assertEquals(Boolean.TRUE, index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "deny exception");
+
+        RangerPolicy allowPolicy = createPolicy("topic", "foo", createItem("user1", null, null, "publish"));
+        RangerPolicy denyPolicy  = createPolicy("topic", "FOO");
+
+        denyPolicy.addDenyPolicyItem(createItem("user1", null, null, "publish"));
+
+        index = new RangerKafkaResourceTypeIndex(Arrays.asList(allowPolicy, denyPolicy), getServiceDef(), 3, 1, 1);
+
+        assertEquals(Boolean.FALSE, index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "denied on the only allowed value");
+
+        allowPolicy.getResources().get("topic").addValue("bar");
+
+        index = new RangerKafkaResourceTypeIndex(Arrays.asList(allowPolicy, denyPolicy), getServiceDef(), 4, 1, 1);
+
+        assertEquals(Boolean.TRUE, index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "allowed on bar");
+
+        allowPolicy.setResources(Collections.singletonMap("topic", new RangerPolicyResource("foo*")));
+
+        index = new RangerKafkaResourceTypeIndex(Arrays.asList(allowPolicy, denyPolicy), getServiceDef(), 5, 1, 1);
+
+        assertNull(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "deny on some of the allowed values");
+        assertNull(index.getCachedResult("user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC));
+        assertEquals(new HashSet<>(Arrays.asList("foo*", "FOO")), index.getCandidateValues(RangerKafkaAuthorizer.KEY_TOPIC));
+
+        RangerPolicyItem conditionalDeny = createItem("user1", null, null, "publish");
+
+        conditionalDeny.addCondition(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.0.0.*")));
+
+        denyPolicy = createPolicy("topic", "*");
+
+        denyPolicy.addDenyPolicyItem(conditionalDeny);
+
+        index = new RangerKafkaResourceTypeIndex(Arrays.asList(allowPolicy, denyPolicy), getServiceDef(), 6, 1, 1);
+
+        assertNull(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "conditional deny");
+    }
+
+    @Test
+    public void testTagDeny() throws Exception {
+        RangerServiceDef tagServiceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME);
+        RangerPolicy     tagPolicy     = new RangerPolicy();
+        RangerPolicyItem denyItem      = createItem("user1", null, null, "kafka:publish");
+
+        tagPolicy.setId(2L);
+        tagPolicy.setService("dev_tag");
+        tagPolicy.setName("PII");
+        tagPolicy.setResources(Collections.singletonMap("tag", new RangerPolicyResource("PII")));
+        tagPolicy.addDenyPolicyItem(denyItem);
+
+        ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+        tagPolicies.setServiceName("dev_tag");
+        tagPolicies.setServiceId(2L);
+        tagPolicies.setPolicyVersion(1L);
+        tagPolicies.setServiceDef(tagServiceDef);
+        tagPolicies.setPolicies(Collections.singletonList(tagPolicy));
+
+        ServicePolicies policies = createServicePolicies(createPolicy("topic", "orders", createItem("user1", null, null, "publish")));
+
+        policies.setTagPolicies(tagPolicies);
+
+        RangerBasePlugin             plugin = createPlugin(policies, createServiceTags("orders"));
+        RangerKafkaResourceTypeIndex index  = RangerKafkaAuthorizer.createResourceTypeIndex(plugin, 1, 1, 1);
+
+        assertNull(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "tag policies are evaluated by the engine");
+        assertFalse(RangerKafkaAuthorizer.isAllowedOnAnyValue(plugin, "user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC, index.getCandidateValues(RangerKafkaAuthorizer.KEY_TOPIC)), "denied by tag policy");
+
+        plugin = createPlugin(policies, createServiceTags("payments"));
+        index  = RangerKafkaAuthorizer.createResourceTypeIndex(plugin, 1, 1, 2);
+
+        assertTrue(RangerKafkaAuthorizer.isAllowedOnAnyValue(plugin, "user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC, index.getCandidateValues(RangerKafkaAuthorizer.KEY_TOPIC)), "orders is not tagged");
+    }
+
+    @Test
+    public void testZonePolicy() throws Exception {
+        ServicePolicies               policies     = createServicePolicies(createPolicy("topic", "finance_orders", createItem("user1", null, null, "publish")));
+        SecurityZoneInfo              zone         = new SecurityZoneInfo();
+        RangerPolicy                  zonePolicy   = createPolicy("topic", "finance_payments", createItem("user2", null, null, "publish"));
+        HashMap<String, List<String>> zoneResource = new HashMap<>();
+
+        zoneResource.put("topic", Collections.singletonList("finance_*"));
+        zonePolicy.setId(3L);
+        zonePolicy.setZoneName("finance");
+        zone.setZoneName("finance");
+        zone.setResources(Collections.singletonList(zoneResource));
+        zone.setPolicies(Collections.singletonList(zonePolicy));
+        policies.setSecurityZones(Collections.singletonMap("finance", zone));
+
+        RangerBasePlugin             plugin     = createPlugin(policies, null);
+        RangerKafkaResourceTypeIndex index      = RangerKafkaAuthorizer.createResourceTypeIndex(plugin, 1, 1, 1);
+        Set<String>                  candidates = index.getCandidateValues(RangerKafkaAuthorizer.KEY_TOPIC);
+
+        assertNull(index.isAllowed("user1", NO_GROUPS, NO_ROLES, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC), "zone policies are evaluated by the engine");
+        assertFalse(RangerKafkaAuthorizer.isAllowedOnAnyValue(plugin, "user1", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC, candidates), "finance_orders is in a zone without policy for user1");
+        assertTrue(RangerKafkaAuthorizer.isAllowedOnAnyValue(plugin, "user2", NO_GROUPS, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.KEY_TOPIC, candidates), "allowed by zone policy");
+    }
+
+    private static RangerServiceDef getServiceDef() throws Exception {
+        return EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_KAFKA_NAME);
+    }
+
+    private static ServicePolicies createServicePolicies(RangerPolicy... resourcePolicies) throws Exception {
+        ServicePolicies ret = new ServicePolicies();
+        long            id  = 1;
+
+        for (RangerPolicy policy : resourcePolicies) {
+            policy.setId(id++);
+        }
+
+        ret.setServiceName("kafka");
+        ret.setServiceId(1L);
+        ret.setPolicyVersion(1L);
+        ret.setServiceDef(getServiceDef());
+        ret.setPolicies(new ArrayList<>(Arrays.asList(resourcePolicies)));
+
+        return ret;
+    }
+
+    private static ServiceTags createServiceTags(String taggedTopic) {
+        ServiceTags                       ret       = new ServiceTags();
+        Map<String, RangerPolicyResource> resources = Collections.singletonMap("topic", new RangerPolicyResource(taggedTopic));
+        RangerServiceResource             resource  = new RangerServiceResource("kafka", resources);
+        RangerTag                         tag       = new RangerTag("PII", Collections.emptyMap());
+
+        resource.setId(1L);
+        tag.setId(1L);
+
+        ret.setServiceName("kafka");
+        ret.setTagVersion(1L);
+        ret.setTags(Collections.singletonMap(1L, tag));
+        ret.setServiceResources(Collections.singletonList(resource));
+        ret.setResourceToTagIds(Collections.singletonMap(1L, Collections.singletonList(1L)));
+
+        return ret;
+    }
+
+    private static RangerBasePlugin createPlugin(ServicePolicies policies, ServiceTags tags) {
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.disablePolicyRefresher    = true;
+        options.disableTagRetriever       = true;
+        options.disableUserStoreRetriever = true;
+        options.disableGdsInfoRetriever   = true;
+
+        RangerPluginConfig pluginConfig = new RangerPluginConfig("kafka", policies.getServiceName(), "kafka", "cl1", "on-prem", options);
+
+        return new RangerBasePlugin(pluginConfig, policies, tags, null);
+    }
+
+    private static RangerPolicy createPolicy(String resourceType, String value, RangerPolicyItem... allowItems) {
+        RangerPolicy policy = new RangerPolicy();
+
+        policy.setService("kafka");
+        policy.setName(resourceType + "=" + value);
+        policy.setResources(Collections.singletonMap(resourceType, new RangerPolicyResource(value)));
+
+        for (RangerPolicyItem allowItem : allowItems) {
+            policy.addPolicyItem(allowItem);
+        }
+
+        return policy;
+    }
+
+    private static RangerPolicyItem createItem(String user, String group, String role, String accessType) {
+        RangerPolicyItem item = new RangerPolicyItem();
+
+        item.addAccess(new RangerPolicyItemAccess(accessType));
+
+        if (user != null) {
+            item.addUser(user);
+        }
+
+        if (group != null) {
+            item.addGroup(group);
+        }
+
+        if (role != null) {
+            item.addRole(role);
+        }
+
+        return item;
+    }
+}
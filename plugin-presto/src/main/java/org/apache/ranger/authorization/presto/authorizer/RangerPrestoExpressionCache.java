@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.ranger.authorization.presto.authorizer;
+
+import org.apache.ranger.plugin.policyengine.CacheMap;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded LRU cache of row-filter and column-mask expressions, shared across queries. Keys include the versions of
+ * policies, tags, roles and user-store the expression was computed with, hence an update to any of these makes
+ * earlier entries unreachable. Entries also expire after a configured time, as outcome of policies having
+ * conditions or validity schedules can change without a version change.
+ */
+class RangerPrestoExpressionCache {
+    private final Map<String, CachedExpression> cache;
+    private final long                          ttlMs;
+
+    RangerPrestoExpressionCache(int size, long ttlMs) {
+        this.cache = Collections.synchronizedMap(new CacheMap<>(size));
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @return cached expression; null if the key is not cached or the entry has expired
+     */
+    CachedExpression get(String key) {
+        CachedExpression ret = cache.get(key);
+
+        if (ret != null && ret.expiryTimeMs < System.currentTimeMillis()) {
+            cache.remove(key);
+
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    void put(String key, boolean isEnabled, String expression) {
+        cache.put(key, new CachedExpression(isEnabled, expression, System.currentTimeMillis() + ttlMs));
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    static String getKey(String type, String user, Collection<String> userGroups, String versions, String... resourceValues) {
+        StringBuilder sb = new StringBuilder(type).append('\u0000').append(user).append('\u0000');
+
+        if (userGroups != null && !userGroups.isEmpty()) {
+            sb.append(new TreeSet<>(userGroups));
+        }
+
+        sb.append('\u0000').append(versions);
+
+        for (String resourceValue : resourceValues) {
+            sb.append('\u0000').append(resourceValue);
+        }
+
+        return sb.toString();
+    }
+
+    static final class CachedExpression {
+        private final boolean isEnabled;
+        private final String  expression;
+        private final long    expiryTimeMs;
+
+        CachedExpression(boolean isEnabled, String expression, long expiryTimeMs) {
+            this.isEnabled    = isEnabled;
+            this.expression   = expression;
+            this.expiryTimeMs = expiryTimeMs;
+        }
+
+        boolean isEnabled() {
+            return isEnabled;
+        }
+
+        String getExpression() {
+            return expression;
+        }
+    }
+}
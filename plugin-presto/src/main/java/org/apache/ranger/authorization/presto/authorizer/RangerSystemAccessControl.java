@@ -33,9 +33,11 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.ranger.authorization.presto.authorizer.RangerPrestoExpressionCache.CachedExpression;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
@@ -46,7 +48,11 @@
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -55,16 +61,24 @@
 public class RangerSystemAccessControl implements SystemAccessControl {
     private static final Logger LOG = LoggerFactory.getLogger(RangerSystemAccessControl.class);
 
-    public static final String RANGER_CONFIG_KEYTAB              = "ranger.keytab";
-    public static final String RANGER_CONFIG_PRINCIPAL           = "ranger.principal";
-    public static final String RANGER_CONFIG_USE_UGI             = "ranger.use_ugi";
-    public static final String RANGER_CONFIG_HADOOP_CONFIG       = "ranger.hadoop_config";
-    public static final String RANGER_PRESTO_DEFAULT_HADOOP_CONF = "presto-ranger-site.xml";
-    public static final String RANGER_PRESTO_SERVICETYPE         = "presto";
-    public static final String RANGER_PRESTO_APPID               = "presto";
-
-    private final RangerBasePlugin rangerPlugin;
-    private       boolean          useUgi;
+    public static final String RANGER_CONFIG_KEYTAB                  = "ranger.keytab";
+    public static final String RANGER_CONFIG_PRINCIPAL               = "ranger.principal";
+    public static final String RANGER_CONFIG_USE_UGI                 = "ranger.use_ugi";
+    public static final String RANGER_CONFIG_HADOOP_CONFIG           = "ranger.hadoop_config";
+    public static final String RANGER_PRESTO_DEFAULT_HADOOP_CONF     = "presto-ranger-site.xml";
+    public static final String RANGER_PRESTO_SERVICETYPE             = "presto";
+    public static final String RANGER_PRESTO_APPID                   = "presto";
+    public static final String RANGER_CONFIG_EXPRESSION_CACHE_SIZE   = "ranger.expression_cache_size";
+    public static final String RANGER_CONFIG_EXPRESSION_CACHE_TTL_MS = "ranger.expression_cache_ttl_ms";
+
+    private static final int    DEFAULT_EXPRESSION_CACHE_SIZE   = 10000;
+    private static final long   DEFAULT_EXPRESSION_CACHE_TTL_MS = 60 * 1000L;
+    private static final String CACHE_TYPE_ROW_FILTER           = "rowFilter";
+    private static final String CACHE_TYPE_COLUMN_MASK          = "columnMask";
+
+    private final RangerBasePlugin            rangerPlugin;
+    private final RangerPrestoExpressionCache expressionCache;
+    private       boolean                     useUgi;
 
     public RangerSystemAccessControl(Map<String, String> config) {
         super();
@@ -110,6 +124,17 @@ public RangerSystemAccessControl(Map<String, String> config) {
             useUgi = true;
         }
 
+        int  expressionCacheSize  = Integer.parseInt(config.getOrDefault(RANGER_CONFIG_EXPRESSION_CACHE_SIZE, Integer.toString(DEFAULT_EXPRESSION_CACHE_SIZE)));
+        long expressionCacheTtlMs = Long.parseLong(config.getOrDefault(RANGER_CONFIG_EXPRESSION_CACHE_TTL_MS, Long.toString(DEFAULT_EXPRESSION_CACHE_TTL_MS)));
+
+        if (expressionCacheSize > 0 && expressionCacheTtlMs > 0) {
+            LOG.info("Row-filter and column-mask expressions will be cached: size={}, ttlMs={}", expressionCacheSize, expressionCacheTtlMs);
+
+            expressionCache = new RangerPrestoExpressionCache(expressionCacheSize, expressionCacheTtlMs);
+        } else {
+            expressionCache = null;
+        }
+
         rangerPlugin = new RangerBasePlugin(RANGER_PRESTO_SERVICETYPE, RANGER_PRESTO_APPID);
 
         rangerPlugin.init();
@@ -186,11 +211,19 @@ public void checkCanAccessCatalog(SystemSecurityContext context, String catalogN
     public Set<String> filterCatalogs(SystemSecurityContext context, Set<String> catalogs) {
         LOG.debug("==> RangerSystemAccessControl.filterCatalogs{}", catalogs);
 
-        Set<String> filteredCatalogs = new HashSet<>(catalogs.size());
+        Set<String>                filteredCatalogs = new HashSet<>(catalogs.size());
+        List<String>               catalogList      = new ArrayList<>(catalogs);
+        List<RangerPrestoResource> resources        = new ArrayList<>(catalogList.size());
+
+        for (String catalog : catalogList) {
+            resources.add(createResource(catalog));
+        }
+
+        boolean[] isAllowed = hasPermissions(resources, context, PrestoAccessType.SELECT);
 
-        for (String catalog : catalogs) {
-            if (hasPermission(createResource(catalog), context, PrestoAccessType.SELECT)) {
-                filteredCatalogs.add(catalog);
+        for (int i = 0; i < isAllowed.length; i++) {
+            if (isAllowed[i]) {
+                filteredCatalogs.add(catalogList.get(i));
             }
         }
 
@@ -258,11 +291,28 @@ public void checkCanShowSchemas(SystemSecurityContext context, String catalogNam
     public Set<String> filterSchemas(SystemSecurityContext context, String catalogName, Set<String> schemaNames) {
         LOG.debug("==> RangerSystemAccessControl.filterSchemas({}) denied", catalogName);
 
-        Set<String> filteredSchemaNames = new HashSet<>(schemaNames.size());
+        Set<String>               filteredSchemaNames = new HashSet<>(schemaNames.size());
+        RangerPrestoAccessRequest userRequest         = createAccessRequest(createResource(catalogName), context, PrestoAccessType.SELECT);
 
-        for (String schemaName : schemaNames) {
-            if (hasPermission(createResource(catalogName, schemaName), context, PrestoAccessType.SELECT)) {
-                filteredSchemaNames.add(schemaName);
+        // when no policy applies to the catalog or its descendants, all schemas are decided with one lookup
+        if (schemaNames.size() > 1 && !hasPoliciesOnDescendants(userRequest)) {
+            LOG.debug("RangerSystemAccessControl.filterSchemas({}): no access to any schema", catalogName);
+
+            return filteredSchemaNames;
+        }
+
+        List<String>               schemaList = new ArrayList<>(schemaNames);
+        List<RangerPrestoResource> resources  = new ArrayList<>(schemaList.size());
+
+        for (String schemaName : schemaList) {
+            resources.add(createResource(catalogName, schemaName));
+        }
+
+        boolean[] isAllowed = hasPermissions(resources, userRequest, PrestoAccessType.SELECT);
+
+        for (int i = 0; i < isAllowed.length; i++) {
+            if (isAllowed[i]) {
+                filteredSchemaNames.add(schemaList.get(i));
             }
         }
 
@@ -343,13 +393,40 @@ public void checkCanShowTables(SystemSecurityContext context, CatalogSchemaName
     public Set<SchemaTableName> filterTables(SystemSecurityContext context, String catalogName, Set<SchemaTableName> tableNames) {
         LOG.debug("==> RangerSystemAccessControl.filterTables({})", catalogName);
 
-        Set<SchemaTableName> filteredTableNames = new HashSet<>(tableNames.size());
+        Set<SchemaTableName>               filteredTableNames = new HashSet<>(tableNames.size());
+        Map<String, List<SchemaTableName>> tablesBySchema     = new HashMap<>();
 
         for (SchemaTableName tableName : tableNames) {
-            RangerPrestoResource res = createResource(catalogName, tableName.getSchemaName(), tableName.getTableName());
+            tablesBySchema.computeIfAbsent(tableName.getSchemaName(), k -> new ArrayList<>()).add(tableName);
+        }
+
+        RangerPrestoAccessRequest  userRequest   = createAccessRequest(createResource(catalogName), context, PrestoAccessType.SELECT);
+        List<SchemaTableName>      tablesToCheck = new ArrayList<>(tableNames.size());
+        List<RangerPrestoResource> resources     = new ArrayList<>(tableNames.size());
 
-            if (hasPermission(res, context, PrestoAccessType.SELECT)) {
-                filteredTableNames.add(tableName);
+        for (Map.Entry<String, List<SchemaTableName>> entry : tablesBySchema.entrySet()) {
+            String                schemaName = entry.getKey();
+            List<SchemaTableName> tables     = entry.getValue();
+
+            // when no policy applies to the schema or its tables, all its tables are decided with one lookup
+            if (tables.size() > 1 && !hasPoliciesOnDescendants(createAccessRequest(createResource(catalogName, schemaName), userRequest, PrestoAccessType.SELECT))) {
+                LOG.debug("RangerSystemAccessControl.filterTables({}): no access to any table in schema {}", catalogName, schemaName);
+
+                continue;
+            }
+
+            for (SchemaTableName tableName : tables) {
+                tablesToCheck.add(tableName);
+                resources.add(createResource(catalogName, schemaName, tableName.getTableName()));
+            }
+        }
+
+        // tables are evaluated in one call, which shares the lookups and tag enrichment of tables in the same schema
+        boolean[] isAllowed = hasPermissions(resources, userRequest, PrestoAccessType.SELECT);
+
+        for (int i = 0; i < isAllowed.length; i++) {
+            if (isAllowed[i]) {
+                filteredTableNames.add(tablesToCheck.get(i));
             }
         }
 
@@ -561,12 +638,27 @@ public void checkCanExecuteFunction(SystemSecurityContext context, String functi
     @Override
     public Optional<ViewExpression> getRowFilter(SystemSecurityContext context, CatalogSchemaTableName tableName) {
         RangerPrestoAccessRequest request        = createAccessRequest(createResource(tableName), context, PrestoAccessType.SELECT);
-        RangerAccessResult        result         = getRowFilterResult(request);
+        String                    cacheKey       = getCacheKey(CACHE_TYPE_ROW_FILTER, request, getCacheVersions(), tableName, null);
+        CachedExpression          cached         = cacheKey != null ? expressionCache.get(cacheKey) : null;
         ViewExpression            viewExpression = null;
+        boolean                   isEnabled;
+        String                    filter;
 
-        if (isRowFilterEnabled(result)) {
-            String filter = result.getFilterExpr();
+        if (cached != null) {
+            isEnabled = cached.isEnabled();
+            filter    = cached.getExpression();
+        } else {
+            RangerAccessResult result = getRowFilterResult(request);
 
+            isEnabled = isRowFilterEnabled(result);
+            filter    = isEnabled ? result.getFilterExpr() : null;
+
+            if (cacheKey != null && result != null) {
+                expressionCache.put(cacheKey, isEnabled, filter);
+            }
+        }
+
+        if (isEnabled) {
             viewExpression = new ViewExpression(context.getIdentity().getUser(), Optional.of(tableName.getCatalogName()), Optional.of(tableName.getSchemaTableName().getSchemaName()), filter);
         }
 
@@ -575,53 +667,97 @@ public Optional<ViewExpression> getRowFilter(SystemSecurityContext context, Cata
 
     @Override
     public Optional<ViewExpression> getColumnMask(SystemSecurityContext context, CatalogSchemaTableName tableName, String columnName, Type type) {
-        RangerPrestoAccessRequest request        = createAccessRequest(createResource(tableName.getCatalogName(), tableName.getSchemaTableName().getSchemaName(), tableName.getSchemaTableName().getTableName(), Optional.of(columnName)), context, PrestoAccessType.SELECT);
-        RangerAccessResult        result         = getDataMaskResult(request);
-        ViewExpression            viewExpression = null;
+        Map<String, ViewExpression> columnMasks = getColumnMasks(context, tableName, Collections.singletonMap(columnName, type));
 
-        if (isDataMaskEnabled(result)) {
-            String                                 maskType    = result.getMaskType();
-            RangerServiceDef.RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
-            String                                 transformer = null;
+        return Optional.ofNullable(columnMasks.get(columnName));
+    }
 
-            if (maskTypeDef != null) {
-                transformer = maskTypeDef.getTransformer();
+    /**
+     * Returns masks for the given columns of a table. The user is resolved once, and data-mask policies for columns
+     * not found in the expression cache are evaluated in a single call to the policy-engine.
+     *
+     * @param columns types of the columns, by column name
+     * @return mask expressions of masked columns, by column name; columns that are not masked are not included
+     */
+    public Map<String, ViewExpression> getColumnMasks(SystemSecurityContext context, CatalogSchemaTableName tableName, Map<String, Type> columns) {
+        LOG.debug("==> getColumnMasks(user={}, table={}, columns={})", context.getIdentity().getUser(), tableName, columns.keySet());
+
+        Map<String, ViewExpression> ret           = new HashMap<>();
+        Map<String, String>         transformers  = new HashMap<>();
+        String                      cacheVersions = getCacheVersions();
+        List<String>                toEvaluate    = new ArrayList<>();
+        List<String>                cacheKeys     = new ArrayList<>();
+        List<RangerAccessRequest>   requests      = new ArrayList<>();
+        RangerPrestoAccessRequest   userRequest   = null;
+
+        for (String columnName : columns.keySet()) {
+            RangerPrestoResource      resource = createResource(tableName.getCatalogName(), tableName.getSchemaTableName().getSchemaName(), tableName.getSchemaTableName().getTableName(), Optional.of(columnName));
+            RangerPrestoAccessRequest request  = userRequest == null ? createAccessRequest(resource, context, PrestoAccessType.SELECT) : createAccessRequest(resource, userRequest, PrestoAccessType.SELECT);
+            String                    cacheKey = getCacheKey(CACHE_TYPE_COLUMN_MASK, request, cacheVersions, tableName, columnName);
+            CachedExpression          cached   = cacheKey != null ? expressionCache.get(cacheKey) : null;
+
+            if (userRequest == null) {
+                userRequest = request;
+            }
+
+            if (cached == null) {
+                toEvaluate.add(columnName);
+                cacheKeys.add(cacheKey);
+                requests.add(request);
+            } else if (cached.isEnabled()) {
+                transformers.put(columnName, cached.getExpression());
             }
+        }
+
+        if (!requests.isEmpty()) {
+            Collection<RangerAccessResult> results = getDataMaskResults(requests);
+            Iterator<RangerAccessResult>   iter    = results != null ? results.iterator() : Collections.emptyIterator();
 
-            if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
-                transformer = "NULL";
-            } else if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
-                String maskedValue = result.getMaskedValue();
+            for (int i = 0; i < toEvaluate.size(); i++) {
+                String             columnName  = toEvaluate.get(i);
+                String             cacheKey    = cacheKeys.get(i);
+                RangerAccessResult result      = iter.hasNext() ? iter.next() : null;
+                boolean            isEnabled   = isDataMaskEnabled(result);
+                String             transformer = isEnabled ? getMaskTransformer(result) : null;
 
-                if (maskedValue == null) {
-                    transformer = "NULL";
-                } else {
-                    transformer = maskedValue;
+                if (cacheKey != null && result != null) {
+                    expressionCache.put(cacheKey, isEnabled, transformer);
+                }
+
+                if (isEnabled) {
+                    transformers.put(columnName, transformer);
                 }
             }
+        }
+
+        for (Map.Entry<String, String> entry : transformers.entrySet()) {
+            String columnName  = entry.getKey();
+            String transformer = entry.getValue();
 
             if (StringUtils.isNotEmpty(transformer)) {
-                transformer = transformer.replace("{col}", columnName).replace("{type}", type.getDisplayName());
+                transformer = transformer.replace("{col}", columnName).replace("{type}", columns.get(columnName).getDisplayName());
             }
 
-            viewExpression = new ViewExpression(context.getIdentity().getUser(), Optional.of(tableName.getCatalogName()), Optional.of(tableName.getSchemaTableName().getSchemaName()), transformer);
+            ret.put(columnName, new ViewExpression(context.getIdentity().getUser(), Optional.of(tableName.getCatalogName()), Optional.of(tableName.getSchemaTableName().getSchemaName()), transformer));
 
             LOG.debug("getColumnMask: user: {}, catalog: {}, schema: {}, transformer: {}", context.getIdentity().getUser(), tableName.getCatalogName(), tableName.getSchemaTableName().getSchemaName(), transformer);
         }
 
-        return Optional.ofNullable(viewExpression);
+        LOG.debug("<== getColumnMasks(user={}, table={}, columns={}): ret={}", context.getIdentity().getUser(), tableName, columns.keySet(), ret.keySet());
+
+        return ret;
     }
 
     /**
      * FILTERING AND DATA MASKING
      **/
 
-    private RangerAccessResult getDataMaskResult(RangerPrestoAccessRequest request) {
-        LOG.debug("==> getDataMaskResult(request={})", request);
+    private Collection<RangerAccessResult> getDataMaskResults(List<RangerAccessRequest> requests) {
+        LOG.debug("==> getDataMaskResults(requests={})", requests);
 
-        RangerAccessResult ret = rangerPlugin.evalDataMaskPolicies(request, null);
+        Collection<RangerAccessResult> ret = rangerPlugin.evalDataMaskPolicies(requests, null);
 
-        LOG.debug("<== getDataMaskResult(request={}): ret={}", request, ret);
+        LOG.debug("<== getDataMaskResults(requests={}): ret={}", requests, ret);
 
         return ret;
     }
@@ -644,6 +780,57 @@ private boolean isRowFilterEnabled(RangerAccessResult result) {
         return result != null && result.isRowFilterEnabled();
     }
 
+    private static String getMaskTransformer(RangerAccessResult result) {
+        String                                 maskType    = result.getMaskType();
+        RangerServiceDef.RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
+        String                                 ret         = null;
+
+        if (maskTypeDef != null) {
+            ret = maskTypeDef.getTransformer();
+        }
+
+        if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
+            ret = "NULL";
+        } else if (StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
+            String maskedValue = result.getMaskedValue();
+
+            if (maskedValue == null) {
+                ret = "NULL";
+            } else {
+                ret = maskedValue;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return versions of policies, tags, roles and user-store, to be included in cache keys; null if expressions are not cached
+     */
+    private String getCacheVersions() {
+        final String ret;
+
+        if (expressionCache != null) {
+            ret = rangerPlugin.getPoliciesVersion() + ":" + rangerPlugin.getTagsVersion() + ":" + rangerPlugin.getRolesVersion() + ":" + rangerPlugin.getUserStoreVersion();
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    private static String getCacheKey(String type, RangerAccessRequest request, String cacheVersions, CatalogSchemaTableName tableName, String columnName) {
+        final String ret;
+
+        if (cacheVersions != null) {
+            ret = RangerPrestoExpressionCache.getKey(type, request.getUser(), request.getUserGroups(), cacheVersions, tableName.getCatalogName(), tableName.getSchemaTableName().getSchemaName(), tableName.getSchemaTableName().getTableName(), columnName);
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
     /**
      * HELPER FUNCTIONS
      **/
@@ -670,6 +857,67 @@ private RangerPrestoAccessRequest createAccessRequest(RangerPrestoResource resou
         return new RangerPrestoAccessRequest(resource, userName, userGroups, accessType);
     }
 
+    private static RangerPrestoAccessRequest createAccessRequest(RangerPrestoResource resource, RangerPrestoAccessRequest userRequest, PrestoAccessType accessType) {
+        return new RangerPrestoAccessRequest(resource, userRequest.getUser(), userRequest.getUserGroups(), accessType);
+    }
+
+    private boolean[] hasPermissions(List<RangerPrestoResource> resources, SystemSecurityContext context, PrestoAccessType accessType) {
+        final boolean[] ret;
+
+        if (resources.isEmpty()) {
+            ret = new boolean[0];
+        } else {
+            ret = hasPermissions(resources, createAccessRequest(resources.get(0), context, accessType), accessType);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Evaluates access to the resources in one call to the plugin, for the user and groups of userRequest
+     */
+    private boolean[] hasPermissions(List<RangerPrestoResource> resources, RangerPrestoAccessRequest userRequest, PrestoAccessType accessType) {
+        boolean[] ret = new boolean[resources.size()];
+
+        if (!resources.isEmpty()) {
+            List<RangerAccessRequest> requests = new ArrayList<>(resources.size());
+
+            for (RangerPrestoResource resource : resources) {
+                requests.add(createAccessRequest(resource, userRequest, accessType));
+            }
+
+            Collection<RangerAccessResult> results = rangerPlugin.isAccessAllowed(requests);
+
+            if (results != null) {
+                int i = 0;
+
+                for (RangerAccessResult result : results) {
+                    if (i >= ret.length) {
+                        break;
+                    }
+
+                    ret[i++] = result != null && result.getIsAllowed();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return false if no policy determines the access on the resource or on any of its descendants, in which case the
+     * access is denied on all descendants. A deny on the resource itself doesn't decide its descendants, as their own
+     * policies can allow them. Not audited, as the descendants are either audited when evaluated individually or not
+     * returned to the user
+     */
+    private boolean hasPoliciesOnDescendants(RangerPrestoAccessRequest request) {
+        request.setResourceMatchingScope(RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS);
+
+        RangerAccessResult result = rangerPlugin.isAccessAllowed(request, null);
+
+        return result == null || result.getIsAccessDetermined();
+    }
+
     private boolean hasPermission(RangerPrestoResource resource, SystemSecurityContext context, PrestoAccessType accessType) {
         boolean                   ret     = false;
         RangerPrestoAccessRequest request = createAccessRequest(resource, context, accessType);
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.authorization.presto.authorizer;
+
+import org.apache.ranger.authorization.presto.authorizer.RangerPrestoExpressionCache.CachedExpression;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RangerPrestoExpressionCacheTest {
+    @Test
+    public void testCacheKeys() {
+        String key1 = RangerPrestoExpressionCache.getKey("columnMask", "alice", new LinkedHashSet<>(Arrays.asList("g1", "g2")), "1:1:1:1", "catalog", "schema", "table", "col");
+        String key2 = RangerPrestoExpressionCache.getKey("columnMask", "alice", new LinkedHashSet<>(Arrays.asList("g2", "g1")), "1:1:1:1", "catalog", "schema", "table", "col");
+
+        assertEquals("order of groups should not matter", key1, key2);
+        assertNotEquals(key1, RangerPrestoExpressionCache.getKey("columnMask", "alice", null, "1:1:1:1", "catalog", "schema", "table", "col"));
+        assertNotEquals(key1, RangerPrestoExpressionCache.getKey("columnMask", "alice", new LinkedHashSet<>(Arrays.asList("g1", "g2")), "2:1:1:1", "catalog", "schema", "table", "col"));
+        assertNotEquals(key1, RangerPrestoExpressionCache.getKey("rowFilter", "alice", new LinkedHashSet<>(Arrays.asList("g1", "g2")), "1:1:1:1", "catalog", "schema", "table", null));
+    }
+
+    @Test
+    public void testExpiryAndEviction() throws Exception {
+        RangerPrestoExpressionCache cache = new RangerPrestoExpressionCache(2, 50);
+
+        cache.put("k1", true, "mask(col)");
+        cache.put("k2", false, null);
+
+        CachedExpression cached = cache.get("k1");
+
+        assertTrue(cached.isEnabled());
+        assertEquals("mask(col)", cached.getExpression());
+        assertFalse(cache.get("k2").isEnabled());
+
+        cache.put("k3", true, "NULL"); // evicts k1, the least recently used
+
+        assertNull(cache.get("k1"));
+        assertEquals(2, cache.size());
+
+        Thread.sleep(100);
+
+        assertNull(cache.get("k2"));
+        assertNull(cache.get("k3"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -26,6 +26,7 @@
 import io.prestosql.spi.security.PrestoPrincipal;
 import io.prestosql.spi.security.SystemSecurityContext;
 import io.prestosql.spi.security.ViewExpression;
+import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.VarcharType;
 import org.apache.hadoop.thirdparty.com.google.common.collect.ImmutableSet;
 import org.junit.BeforeClass;
@@ -33,7 +34,9 @@
 
 import javax.security.auth.kerberos.KerberosPrincipal;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -137,6 +140,41 @@ public void testTableOperations() {
         }
     }
 
+    @Test
+    public void testBulkFiltering() {
+        Set<String>          schemas     = ImmutableSet.of("schema", "other-schema");
+        Set<SchemaTableName> tables      = ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "view"), new SchemaTableName("schema", "other-table"), new SchemaTableName("other-schema", "table"), new SchemaTableName("other-schema", "view"));
+        Set<SchemaTableName> aliceTables = ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "view"));
+
+        assertEquals(ImmutableSet.of("schema"), accessControlManager.filterSchemas(context(alice), aliceCatalog, schemas));
+        assertEquals(ImmutableSet.of(), accessControlManager.filterSchemas(context(bob), aliceCatalog, schemas));
+        assertEquals(aliceTables, accessControlManager.filterTables(context(alice), aliceCatalog, tables));
+        assertEquals(ImmutableSet.of(), accessControlManager.filterTables(context(bob), aliceCatalog, tables));
+    }
+
+    @Test
+    public void testBulkFilteringMatchesSingleChecks() {
+        Set<SchemaTableName> tables = ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "alice"), new SchemaTableName("schema", "view"), new SchemaTableName("schema", "other-table"), new SchemaTableName("other-schema", "table"), new SchemaTableName("other-schema", "alice"), new SchemaTableName("third-schema", "view"), new SchemaTableName("bob-schema", "bob-table"), new SchemaTableName("bob-schema", "other-table"));
+
+        for (Identity user : Arrays.asList(alice, bob, admin)) {
+            Set<SchemaTableName> expected = new HashSet<>();
+
+            for (SchemaTableName table : tables) {
+                if (isSelectAllowed(user, new CatalogSchemaTableName(aliceCatalog, table))) {
+                    expected.add(table);
+                }
+            }
+
+            assertEquals("filterTables(user=" + user.getUser() + ")", expected, accessControlManager.filterTables(context(user), aliceCatalog, tables));
+        }
+
+        assertEquals(ImmutableSet.of(new SchemaTableName("schema", "table"), new SchemaTableName("schema", "alice"), new SchemaTableName("schema", "view")), accessControlManager.filterTables(context(alice), aliceCatalog, tables));
+
+        // a deny on the schema doesn't hide tables allowed by their own policies
+        assertEquals(ImmutableSet.of(new SchemaTableName("bob-schema", "bob-table")), accessControlManager.filterTables(context(bob), aliceCatalog, tables));
+        assertEquals(ImmutableSet.of(new SchemaTableName("bob-schema", "bob-table")), accessControlManager.filterTables(context(bob), aliceCatalog, ImmutableSet.of(new SchemaTableName("bob-schema", "bob-table"))));
+    }
+
     @Test
     @SuppressWarnings("PMD")
     public void testViewOperations() {
@@ -178,6 +216,70 @@ public void testMisc() {
         accessControlManager.checkCanExecuteProcedure(context(alice), aliceProcedure);
     }
 
+    @Test
+    public void testColumnMasks() {
+        final VarcharType varcharType = VarcharType.createVarcharType(20);
+
+        Map<String, Type> columns = new HashMap<>();
+
+        columns.put("cast_me", varcharType);
+        columns.put("do-not-cast-me", varcharType);
+
+        for (int i = 0; i < 2; i++) { // 2nd iteration is served from the expression cache
+            Map<String, ViewExpression> masks = accessControlManager.getColumnMasks(context(alice), aliceTable, columns);
+
+            assertEquals(ImmutableSet.of("cast_me"), masks.keySet());
+            assertEquals("cast cast_me as varchar(20)", masks.get("cast_me").getExpression());
+            assertEquals("cast cast_me as varchar(20)", accessControlManager.getColumnMask(context(alice), aliceTable, "cast_me", varcharType).get().getExpression());
+            assertFalse(accessControlManager.getColumnMask(context(alice), aliceTable, "do-not-cast-me", varcharType).isPresent());
+            assertFalse(accessControlManager.getRowFilter(context(alice), aliceTable).isPresent());
+        }
+    }
+
+    @Test
+    public void testCachedExpressionsMatchUncached() {
+        Map<String, String> config = new HashMap<>();
+
+        config.put(RangerSystemAccessControl.RANGER_CONFIG_EXPRESSION_CACHE_SIZE, "0");
+
+        RangerSystemAccessControl uncachedAccessControl = new RangerSystemAccessControl(config);
+        VarcharType               varcharType           = VarcharType.createVarcharType(20);
+        Map<String, Type>         columns               = new HashMap<>();
+
+        columns.put("only_first_4", varcharType);
+        columns.put("cast_me", varcharType);
+        columns.put("not_masked", varcharType);
+
+        for (int i = 0; i < 2; i++) { // 2nd iteration is served from the expression cache
+            for (Identity user : Arrays.asList(alice, bob)) {
+                Map<String, ViewExpression> expected = uncachedAccessControl.getColumnMasks(context(user), aliceTable, columns);
+                Map<String, ViewExpression> actual   = accessControlManager.getColumnMasks(context(user), aliceTable, columns);
+
+                assertEquals(ImmutableSet.of("only_first_4", "cast_me"), expected.keySet());
+                assertEquals(expected.keySet(), actual.keySet());
+
+                for (String columnName : columns.keySet()) {
+                    Optional<ViewExpression> expectedMask = Optional.ofNullable(expected.get(columnName));
+
+                    assertEquals(expectedMask.map(ViewExpression::getExpression), Optional.ofNullable(actual.get(columnName)).map(ViewExpression::getExpression));
+                    assertEquals(expectedMask.map(ViewExpression::getExpression), accessControlManager.getColumnMask(context(user), aliceTable, columnName, varcharType).map(ViewExpression::getExpression));
+                }
+
+                assertEquals(uncachedAccessControl.getRowFilter(context(user), aliceTable).isPresent(), accessControlManager.getRowFilter(context(user), aliceTable).isPresent());
+            }
+        }
+    }
+
+    private boolean isSelectAllowed(Identity user, CatalogSchemaTableName table) {
+        try {
+            accessControlManager.checkCanSelectFromColumns(context(user), table, ImmutableSet.of());
+
+            return true;
+        } catch (AccessDeniedException excp) {
+            return false;
+        }
+    }
+
     private SystemSecurityContext context(Identity id) {
         return new SystemSecurityContext(id, Optional.empty());
     }
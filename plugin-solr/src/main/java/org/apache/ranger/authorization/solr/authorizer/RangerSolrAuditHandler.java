@@ -37,9 +37,18 @@ public class RangerSolrAuditHandler extends RangerMultiResourceAuditHandler {
     private       AuthzAuditEvent auditEvent;
 
     public RangerSolrAuditHandler(Configuration config) {
+        this(getExcludeUsers(config));
+    }
+
+    public RangerSolrAuditHandler(List<String> excludeUsers) {
+        this.excludeUsers = excludeUsers;
+    }
+
+    public static List<String> getExcludeUsers(Configuration config) {
         String solrUser        = "solr";
         String excludeUserList = config.get(PROP_SOLR_PLUGIN_AUDIT_EXCLUDED_USERS, solrUser);
-        excludeUsers = Arrays.asList(excludeUserList.split(","));
+
+        return Arrays.asList(excludeUserList.split(","));
     }
 
     @Override
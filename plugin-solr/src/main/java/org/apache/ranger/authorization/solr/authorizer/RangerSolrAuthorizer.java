@@ -27,6 +27,7 @@
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerUserStoreEnricher;
 import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.CacheMap;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -57,6 +58,7 @@
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
@@ -64,14 +66,19 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class RangerSolrAuthorizer extends SearchComponent implements AuthorizationPlugin {
     private static final Logger logger = LoggerFactory.getLogger(RangerSolrAuthorizer.class);
 
     private static volatile RangerBasePlugin solrPlugin;
+    private static volatile List<String>     auditExcludeUsers;
 
     private final List<FieldToAttributeMapping> fieldAttributeMappings = new LinkedList<>();
 
+    // filter queries of users, keyed by user, groups and versions of user-store and roles; a search component is created per core
+    private Map<String, List<String>> filterQueryCache;
+
     private String  andQParserName;
     private String  authField;
     private String  allRolesToken;
@@ -81,7 +88,8 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
     private boolean attrsEnabled;
     private boolean enabled;
 
-    private RangerSolrConstants.MatchType matchMode;
+    private RangerSolrConstants.MatchType         matchMode;
+    private RangerSolrConstants.FilterQueryFormat fqFormat = RangerSolrConstants.FilterQueryFormat.RAW;
 
     String  proxyIPHeader = "HTTP_X_FORWARDED_FOR";
     String  solrAppName   = "Client";
@@ -133,7 +141,7 @@ public AuthorizationResponse authorize(AuthorizationContext context) {
                 logAuthorizationContext(context);
             }
 
-            RangerSolrAuditHandler auditHandler = new RangerSolrAuditHandler(solrPlugin.getConfig());
+            RangerSolrAuditHandler auditHandler = createAuditHandler();
 
             RangerPerfTracer perf = null;
 
@@ -366,57 +374,43 @@ public void prepare(ResponseBuilder rb) {
             return;
         }
 
-        RangerSolrAuditHandler auditHandler = new RangerSolrAuditHandler(solrPlugin.getConfig());
-        boolean                isDenied     = false;
+        RangerSolrAuditHandler auditHandler  = createAuditHandler();
+        Set<String>            userGroups    = getGroupsForUser(userName);
+        List<String>           filterQueries = null;
+        boolean                isDenied      = false;
 
         if (attrsEnabled) {
             logger.debug("Checking Ldap attributes to be added to the query filter");
 
-            if (getUserStoreEnricher() == null || getUserStoreEnricher().getRangerUserStore() == null) {
+            RangerUserStoreEnricher userStoreEnricher = getUserStoreEnricher();
+
+            if (userStoreEnricher == null || userStoreEnricher.getRangerUserStore() == null) {
                 logger.error("No User store enricher to read the ldap attributes");
 
                 isDenied = true;
-            }
-
-            // Ranger UserStore info for user/group attributes
-            Map<String, Map<String, String>> userAttrMapping = getUserStoreEnricher().getRangerUserStore().getUserAttrMapping();
-            if (MapUtils.isNotEmpty(userAttrMapping)) {
-                ModifiableSolrParams newParams      = new ModifiableSolrParams(rb.req.getParams());
-                Map<String, String>  userAttributes = userAttrMapping.get(userName);
-
-                for (FieldToAttributeMapping mapping : fieldAttributeMappings) {
-                    String filterQuery = buildFilterQueryString(userName, userAttributes, mapping);
-
-                    logger.debug("Adding filter clause : {}", filterQuery);
-
-                    newParams.add("fq", filterQuery);
-                }
-
-                rb.req.setParams(newParams);
+            } else {
+                filterQueries = getFilterQueries(userName, userGroups, userStoreEnricher);
             }
         } else {
             logger.debug("Checking User roles to be added to the query filter");
 
-            Set<String> roles = getRolesForUser(userName);
+            filterQueries = getFilterQueries(userName, userGroups, null);
 
-            if (roles != null && !roles.isEmpty()) {
-                String filterQuery;
+            if (filterQueries == null) {
+                isDenied = true;
+            }
+        }
 
-                if (matchMode == RangerSolrConstants.MatchType.DISJUNCTIVE) {
-                    filterQuery = getDisjunctiveFilterQueryStr(roles);
-                } else {
-                    filterQuery = getConjunctiveFilterQueryStr(roles);
-                }
+        if (CollectionUtils.isNotEmpty(filterQueries)) {
+            ModifiableSolrParams newParams = new ModifiableSolrParams(rb.req.getParams());
 
-                ModifiableSolrParams newParams = new ModifiableSolrParams(rb.req.getParams());
+            for (String filterQuery : filterQueries) {
+                logger.debug("Adding filter clause : {}", filterQuery);
 
                 newParams.add("fq", filterQuery);
-                rb.req.setParams(newParams);
-
-                logger.debug("Adding filter query {{}} for user {{}} with roles {{}}", filterQuery, userName, roles);
-            } else {
-                isDenied = true;
             }
+
+            rb.req.setParams(newParams);
         }
 
         HttpServletRequest httpServletRequest = (HttpServletRequest) rb.req.getContext().get("httpRequest");
@@ -444,7 +438,7 @@ public void prepare(ResponseBuilder rb) {
         }
 
         try {
-            RangerAccessRequestImpl rangerRequest = createQueryRequest(userName, getGroupsForUser(userName), ip, eventTime, rb.req);
+            RangerAccessRequestImpl rangerRequest = createQueryRequest(userName, userGroups, ip, eventTime, rb.req);
 
             if (isDenied) {
                 RangerAccessResult result = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, solrPlugin.getServiceName(), solrPlugin.getServiceDef(), rangerRequest);
@@ -492,8 +486,13 @@ public void init(NamedList args) {
         }
 
         this.attrsEnabled = params.getBool(RangerSolrConstants.ATTRS_ENABLED_PROP, false);
+        this.fqFormat     = RangerSolrConstants.FilterQueryFormat.valueOf(params.get(RangerSolrConstants.FQ_FORMAT_PROP, RangerSolrConstants.DEFAULT_FQ_FORMAT).toUpperCase());
+
+        int fqCacheSize = params.getInt(RangerSolrConstants.FQ_CACHE_SIZE_PROP, RangerSolrConstants.DEFAULT_FQ_CACHE_SIZE);
+
+        this.filterQueryCache = fqCacheSize > 0 ? Collections.synchronizedMap(new CacheMap<>(fqCacheSize)) : null;
 
-        logger.info("RangerSolrAuthorizer.init(): authField={{}}, allRolesToken={{}}, enabled={{}}, matchType={{}}, qParserName={{}}, allowMissingValue={{}}, tokenCountField={{}}, attrsEnabled={{}}", authField, allRolesToken, enabled, matchMode, qParserName, allowMissingValue, tokenCountField, attrsEnabled);
+        logger.info("RangerSolrAuthorizer.init(): authField={{}}, allRolesToken={{}}, enabled={{}}, matchType={{}}, qParserName={{}}, allowMissingValue={{}}, tokenCountField={{}}, attrsEnabled={{}}, fqFormat={{}}, fqCacheSize={{}}", authField, allRolesToken, enabled, matchMode, qParserName, allowMissingValue, tokenCountField, attrsEnabled, fqFormat, fqCacheSize);
 
         if (attrsEnabled) {
             if (params.get(RangerSolrConstants.FIELD_ATTR_MAPPINGS) != null) {
@@ -711,6 +710,16 @@ private void addDisjunctiveRawClause(StringBuilder builder, String value) {
 
     private String getDisjunctiveFilterQueryStr(Set<String> roles) {
         if (roles != null && !roles.isEmpty()) {
+            List<String> terms = new ArrayList<>(roles);
+
+            if (allRolesToken != null && !allRolesToken.isEmpty()) {
+                terms.add(allRolesToken);
+            }
+
+            if (canUseTermsFilterQuery(terms)) {
+                return buildTermsFilterQuery(authField, terms);
+            }
+
             StringBuilder builder = new StringBuilder();
 
             for (String role : roles) {
@@ -745,9 +754,9 @@ private String getConjunctiveFilterQueryStr(Set<String> roles) {
         return filterQuery.toString();
     }
 
-    private Set<String> getRolesForUser(String name) {
+    private Set<String> getRolesForUser(String name, Set<String> groups) {
         if (solrPlugin.getCurrentRangerAuthContext() != null) {
-            return solrPlugin.getRolesFromUserAndGroups(name, getGroupsForUser(name));
+            return solrPlugin.getRolesFromUserAndGroups(name, groups);
         } else {
             logger.info("Current Ranger Auth Context is null!!");
 
@@ -828,9 +837,72 @@ private <T> T getWithDefault(NamedList args, String key, T defaultValue) {
         }
     }
 
-    private String buildFilterQueryString(String userName, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
+    /**
+     * @param userStoreEnricher to read user attributes from; null if filter queries are on roles of the user
+     * @return filter queries to add to the search request of the user; null if the user has no roles
+     */
+    private List<String> getFilterQueries(String userName, Set<String> userGroups, RangerUserStoreEnricher userStoreEnricher) {
+        Map<String, List<String>> cache = filterQueryCache;
+        String                    key   = null;
+        List<String>              ret   = null;
+
+        if (cache != null) {
+            StringBuilder sb = new StringBuilder(userName).append('\u0000');
+
+            if (CollectionUtils.isNotEmpty(userGroups)) {
+                sb.append(new TreeSet<>(userGroups));
+            }
+
+            key = sb.append('\u0000').append(solrPlugin.getUserStoreVersion()).append('\u0000').append(solrPlugin.getRolesVersion()).toString();
+            ret = cache.get(key);
+        }
+
+        if (ret == null) {
+            if (userStoreEnricher != null) {
+                Map<String, Map<String, String>> userAttrMapping = userStoreEnricher.getRangerUserStore().getUserAttrMapping();
+
+                ret = new ArrayList<>();
+
+                if (MapUtils.isNotEmpty(userAttrMapping)) {
+                    Map<String, String> userAttributes = userAttrMapping.get(userName);
+
+                    for (FieldToAttributeMapping mapping : fieldAttributeMappings) {
+                        ret.add(buildFilterQueryString(userGroups, userAttributes, mapping));
+                    }
+                }
+            } else {
+                Set<String> roles = getRolesForUser(userName, userGroups);
+
+                if (roles != null && !roles.isEmpty()) {
+                    String filterQuery;
+
+                    if (matchMode == RangerSolrConstants.MatchType.DISJUNCTIVE) {
+                        filterQuery = getDisjunctiveFilterQueryStr(roles);
+                    } else {
+                        filterQuery = getConjunctiveFilterQueryStr(roles);
+                    }
+
+                    logger.debug("Built filter query {{}} for user {{}} with roles {{}}", filterQuery, userName, roles);
+
+                    ret = Collections.singletonList(filterQuery);
+                }
+            }
+
+            if (ret != null && key != null) {
+                ret = Collections.unmodifiableList(ret);
+
+                cache.put(key, ret);
+            }
+        } else {
+            logger.debug("Using cached filter queries {{}} for user {{}}", ret, userName);
+        }
+
+        return ret;
+    }
+
+    private String buildFilterQueryString(Set<String> userGroups, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
         String             fieldName       = mapping.getFieldName();
-        Collection<String> attributeValues = getUserAttributesForField(userName, userAttributes, mapping);
+        Collection<String> attributeValues = getUserAttributesForField(userGroups, userAttributes, mapping);
 
         switch (mapping.getFilterType()) {
             case OR:
@@ -846,12 +918,12 @@ private String buildFilterQueryString(String userName, Map<String, String> userA
         }
     }
 
-    private Collection<String> getUserAttributesForField(String userName, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
+    private Collection<String> getUserAttributesForField(Set<String> userGroups, Map<String, String> userAttributes, FieldToAttributeMapping mapping) {
         Set<String> userAttributesSubset = new HashSet<>();
 
         if (CollectionUtils.isNotEmpty(mapping.getAttributes())) {
             if (mapping.getAttributes().contains("groups")) {
-                userAttributesSubset.addAll(getGroupsForUser(userName));
+                userAttributesSubset.addAll(userGroups);
             }
         }
 
@@ -863,6 +935,18 @@ private Collection<String> getUserAttributesForField(String userName, Map<String
     }
 
     private String buildSimpleORFilterQuery(String fieldName, Collection<String> attributeValues, boolean allowEmptyField, String allUsersValue, String extraOpts) {
+        if (!allowEmptyField && (extraOpts == null || extraOpts.isEmpty())) {
+            List<String> terms = new ArrayList<>(attributeValues);
+
+            if (allUsersValue != null && !allUsersValue.isEmpty()) {
+                terms.add(allUsersValue);
+            }
+
+            if (canUseTermsFilterQuery(terms)) {
+                return buildTermsFilterQuery(fieldName, terms);
+            }
+        }
+
         StringBuilder s = new StringBuilder();
 
         for (String attributeValue : attributeValues) {
@@ -886,6 +970,48 @@ private String buildSimpleORFilterQuery(String fieldName, Collection<String> att
         return s.toString();
     }
 
+    // {!terms} splits values on ','; values with a ',' need clause per value
+    private boolean canUseTermsFilterQuery(Collection<String> values) {
+        boolean ret = fqFormat != RangerSolrConstants.FilterQueryFormat.RAW && !values.isEmpty();
+
+        if (ret) {
+            for (String value : values) {
+                if (value == null || value.isEmpty() || value.indexOf(',') != -1) {
+                    ret = false;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private String buildTermsFilterQuery(String fieldName, Collection<String> values) {
+        StringBuilder s = new StringBuilder("{!terms f=").append(fieldName);
+
+        if (fqFormat == RangerSolrConstants.FilterQueryFormat.TERMS_POSTFILTER) {
+            s.append(" method=docValuesTermsFilterTopLevel cache=false cost=100");
+        }
+
+        s.append("}");
+
+        Joiner.on(',').appendTo(s, values);
+
+        return s.toString();
+    }
+
+    private static RangerSolrAuditHandler createAuditHandler() {
+        List<String> excludeUsers = auditExcludeUsers;
+
+        if (excludeUsers == null) {
+            excludeUsers      = RangerSolrAuditHandler.getExcludeUsers(solrPlugin.getConfig());
+            auditExcludeUsers = excludeUsers;
+        }
+
+        return new RangerSolrAuditHandler(excludeUsers);
+    }
+
     private String buildSubsetFilterQuery(String fieldName, Collection<String> attributeValues, boolean allowEmptyField, String allUsersValue, String extraOpts) {
         StringBuilder s = new StringBuilder();
 
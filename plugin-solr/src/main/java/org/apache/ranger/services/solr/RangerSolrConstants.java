@@ -43,6 +43,11 @@ public class RangerSolrConstants {
     public static final String DEFAULT_TOKEN_COUNT_FIELD_PROP = "ranger_auth_count";
     public static final String QPARSER_PROP                   = "qParser";
 
+    public static final String FQ_CACHE_SIZE_PROP    = "fqCacheSize";
+    public static final int    DEFAULT_FQ_CACHE_SIZE = 1000;
+    public static final String FQ_FORMAT_PROP        = "fqFormat";
+    public static final String DEFAULT_FQ_FORMAT     = FilterQueryFormat.RAW.toString();
+
     public static final String PROP_USE_PROXY_IP      = "xasecure.solr.use_proxy_ip";
     public static final String PROP_PROXY_IP_HEADER   = "xasecure.solr.proxy_ip_header";
     public static final String PROP_SOLR_APP_NAME     = "xasecure.solr.app.name";
@@ -73,6 +78,17 @@ public enum MatchType {
         CONJUNCTIVE
     }
 
+    /**
+     * Format of the document-level filter queries on roles (DISJUNCTIVE match) and on attributes (OR filter_type):
+     * RAW - a clause per value; TERMS - a single {!terms} query, cached by Solr in the filter cache;
+     * TERMS_POSTFILTER - a {!terms} query evaluated as a post-filter on docValues, not cached
+     */
+    public enum FilterQueryFormat {
+        RAW,
+        TERMS,
+        TERMS_POSTFILTER
+    }
+
     // Constants from ServiceSolrClient
     public enum ResourceType {
         COLLECTION, FIELD, CONFIG, ADMIN, SCHEMA;
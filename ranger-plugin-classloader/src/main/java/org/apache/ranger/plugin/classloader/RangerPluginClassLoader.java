@@ -22,6 +22,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.AccessController;
@@ -31,23 +34,35 @@
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 public class RangerPluginClassLoader extends URLClassLoader {
     private static final Logger LOG = LoggerFactory.getLogger(RangerPluginClassLoader.class);
 
-    private static final String TAG_SERVICE_TYPE = "tag";
+    private static final String TAG_SERVICE_TYPE     = "tag";
+    private static final String MULTI_RELEASE_PREFIX = "META-INF/versions/";
+    private static final String CLASS_FILE_SUFFIX    = ".class";
 
     private static final Map<String, RangerPluginClassLoader> PLUGIN_CLASS_LOADERS = new HashMap<>();
 
     private final MyClassLoader            componentClassLoader;
     private final ThreadLocal<ClassLoader> preActivateClassLoader = new ThreadLocal<>();
+    private final Set<String>              pluginEntries; // names of classes and resources in plugin jars; null if not indexed
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
 
     public RangerPluginClassLoader(String pluginType, Class<?> pluginClass) throws Exception {
         super(RangerPluginClassLoaderUtil.getInstance().getPluginFilesForServiceTypeAndPluginclass(pluginType, pluginClass), null);
 
         componentClassLoader = AccessController.doPrivileged((PrivilegedAction<MyClassLoader>) () -> new MyClassLoader(Thread.currentThread().getContextClassLoader()));
+        pluginEntries        = buildPluginEntries(getURLs());
     }
 
     public static RangerPluginClassLoader getInstance(final String pluginType, final Class<?> pluginClass) throws Exception {
@@ -120,7 +135,7 @@ public Class<?> findClass(String name) throws ClassNotFoundException {
     public URL findResource(String name) {
         LOG.debug("==> RangerPluginClassLoader.findResource({}) ", name);
 
-        URL ret = super.findResource(name);
+        URL ret = isInPluginJars(name) ? super.findResource(name) : null;
 
         if (ret == null) {
             LOG.debug("RangerPluginClassLoader.findResource({}): calling componentClassLoader.getResources()", name);
@@ -150,26 +165,46 @@ public Enumeration<URL> findResources(String name) {
         return ret;
     }
 
+    /*
+     * Classes in plugin jars are loaded by this classloader, others by the component classloader. Loading is locked
+     * per class name, as this classloader is registered as parallel capable.
+     */
     @Override
-    public synchronized Class<?> loadClass(String name) throws ClassNotFoundException {
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
         LOG.debug("==> RangerPluginClassLoader.loadClass({})", name);
 
-        Class<?> ret = null;
+        Class<?> ret;
 
-        try {
-            // first we try to load a class inside the child classloader
-            LOG.debug("RangerPluginClassLoader.loadClass({}): calling childClassLoader.findClass()", name);
+        synchronized (getClassLoadingLock(name)) {
+            ret = findLoadedClass(name);
 
-            ret = super.loadClass(name);
-        } catch (Throwable e) {
-            // Use the Component ClassLoader loadClass to load when childClassLoader fails to find
-            LOG.debug("RangerPluginClassLoader.loadClass({}): calling componentClassLoader.loadClass()", name);
+            if (ret == null && isInPluginJars(name.replace('.', '/') + CLASS_FILE_SUFFIX)) {
+                try {
+                    // first we try to load a class inside the child classloader
+                    LOG.debug("RangerPluginClassLoader.loadClass({}): calling childClassLoader.findClass()", name);
 
-            MyClassLoader savedClassLoader = getComponentClassLoader();
+                    ret = super.loadClass(name, false);
+                } catch (Throwable e) {
+                    LOG.debug("RangerPluginClassLoader.loadClass({}): childClassLoader failed to load the class", name, e);
+                }
+            }
+
+            if (ret == null) {
+                // Use the Component ClassLoader loadClass to load when childClassLoader fails to find
+                LOG.debug("RangerPluginClassLoader.loadClass({}): calling componentClassLoader.loadClass()", name);
+
+                MyClassLoader savedClassLoader = getComponentClassLoader();
+
+                if (savedClassLoader == null) {
+                    throw new ClassNotFoundException(name);
+                }
 
-            if (savedClassLoader != null) {
                 ret = savedClassLoader.loadClass(name);
             }
+
+            if (resolve) {
+                resolveClass(ret);
+            }
         }
 
         LOG.debug("<== RangerPluginClassLoader.loadClass({}): {}", name, ret);
@@ -181,9 +216,11 @@ public Enumeration<URL> findResourcesUsingChildClassLoader(String name) {
         Enumeration<URL> ret = null;
 
         try {
-            LOG.debug("RangerPluginClassLoader.findResourcesUsingChildClassLoader({}): calling childClassLoader.findResources()", name);
+            if (isInPluginJars(name)) {
+                LOG.debug("RangerPluginClassLoader.findResourcesUsingChildClassLoader({}): calling childClassLoader.findResources()", name);
 
-            ret = super.findResources(name);
+                ret = super.findResources(name);
+            }
         } catch (Throwable t) {
             //Ignore any exceptions. Null / Empty return is handle in following statements
             LOG.debug("RangerPluginClassLoader.findResourcesUsingChildClassLoader({}): class not found in child. Falling back to componentClassLoader", name, t);
@@ -267,6 +304,63 @@ private MyClassLoader getComponentClassLoader() {
         //return componentClassLoader.get();
     }
 
+    private boolean isInPluginJars(String entryName) {
+        return pluginEntries == null || pluginEntries.contains(entryName);
+    }
+
+    /*
+     * Lists the entries of plugin jars once, so that lookups of classes and resources that are not in the plugin jars
+     * go directly to the component classloader, without searching every plugin jar and failing with an exception.
+     * Returns null, i.e. every lookup searches the plugin jars first, if any of the URLs is not a readable jar file.
+     */
+    private static Set<String> buildPluginEntries(URL[] urls) {
+        Set<String> ret = new HashSet<>();
+
+        for (URL url : urls) {
+            File file = null;
+
+            try {
+                file = "file".equals(url.getProtocol()) ? new File(url.toURI()) : null;
+            } catch (URISyntaxException excp) {
+                LOG.debug("RangerPluginClassLoader: failed to get file for {}", url, excp);
+            }
+
+            if (file == null || !file.isFile()) {
+                LOG.info("RangerPluginClassLoader: {} is not a jar file; lookups will not use the index of plugin jar entries", url);
+
+                return null;
+            }
+
+            try (JarFile jarFile = new JarFile(file)) {
+                for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+                    JarEntry entry = entries.nextElement();
+
+                    if (!entry.isDirectory()) {
+                        String entryName = entry.getName();
+
+                        ret.add(entryName);
+
+                        if (entryName.startsWith(MULTI_RELEASE_PREFIX)) {
+                            int idx = entryName.indexOf('/', MULTI_RELEASE_PREFIX.length());
+
+                            if (idx != -1) {
+                                ret.add(entryName.substring(idx + 1));
+                            }
+                        }
+                    }
+                }
+            } catch (IOException excp) {
+                LOG.warn("RangerPluginClassLoader: failed to read {}; lookups will not use the index of plugin jar entries", url, excp);
+
+                return null;
+            }
+        }
+
+        LOG.debug("RangerPluginClassLoader: indexed {} entries in {} plugin jars", ret.size(), urls.length);
+
+        return ret;
+    }
+
     static class MyClassLoader extends ClassLoader {
         public MyClassLoader(ClassLoader realClassLoader) {
             super(realClassLoader);
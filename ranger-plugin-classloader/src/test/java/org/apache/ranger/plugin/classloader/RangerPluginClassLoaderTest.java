@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.classloader;
+
+import org.apache.ranger.plugin.classloader.test.TestPlugin;
+import org.apache.ranger.plugin.classloader.test.impl.TestPluginImpl;
+import org.apache.ranger.plugin.classloader.test.impl.TestPrint;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RangerPluginClassLoaderTest {
+    private static final String PLUGIN_TYPE = "classloadertest";
+
+    private static File pluginJar;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        // plugin jars are looked up in ranger-<pluginType>-plugin-impl, next to the location of the plugin class
+        File targetDir = new File(RangerPluginClassLoaderTest.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getParentFile();
+        File pluginDir = new File(targetDir, "ranger-" + PLUGIN_TYPE + "-plugin-impl");
+
+        pluginDir.mkdirs();
+
+        pluginJar = new File(pluginDir, "test-plugin.jar");
+
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(pluginJar))) {
+            addClass(jar, TestPluginImpl.class);
+            addClass(jar, TestPrint.class);
+
+            jar.putNextEntry(new JarEntry("test-plugin.properties"));
+            jar.write("name=test".getBytes("UTF-8"));
+            jar.closeEntry();
+        }
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        if (pluginJar != null) {
+            pluginJar.delete();
+            pluginJar.getParentFile().delete();
+        }
+    }
+
+    @Test
+    public void testClassesAndResourcesAreRouted() throws Exception {
+        try (RangerPluginClassLoader classLoader = new RangerPluginClassLoader(PLUGIN_TYPE, RangerPluginClassLoaderTest.class)) {
+            Class<?> pluginClass = classLoader.loadClass(TestPluginImpl.class.getName());
+
+            assertSame(classLoader, pluginClass.getClassLoader(), "class in plugin jar must be loaded by the plugin classloader");
+            assertSame(TestPlugin.class, classLoader.loadClass(TestPlugin.class.getName()), "class not in plugin jars must be loaded by the component classloader");
+            assertSame(String.class, classLoader.loadClass(String.class.getName()));
+            assertSame(pluginClass, classLoader.loadClass(TestPluginImpl.class.getName()));
+            assertEquals("Class Loaded by RangerPlugingClassLoader", ((TestPlugin) pluginClass.newInstance()).print());
+
+            assertThrows(ClassNotFoundException.class, () -> classLoader.loadClass("org.apache.ranger.plugin.classloader.test.DoesNotExist"));
+
+            assertNotNull(classLoader.findResource("test-plugin.properties"));
+            assertNull(classLoader.findResourcesUsingChildClassLoader(TestPlugin.class.getName().replace('.', '/') + ".class"));
+        }
+    }
+
+    @Test
+    public void testParallelLoading() throws Exception {
+        try (RangerPluginClassLoader classLoader = new RangerPluginClassLoader(PLUGIN_TYPE, RangerPluginClassLoaderTest.class)) {
+            ExecutorService          executor = Executors.newFixedThreadPool(8);
+            List<Callable<Class<?>>> tasks    = new ArrayList<>();
+
+            for (int i = 0; i < 32; i++) {
+                String className = (i % 2 == 0) ? TestPluginImpl.class.getName() : TestPrint.class.getName();
+
+                tasks.add(() -> classLoader.loadClass(className));
+            }
+
+            try {
+                for (Future<Class<?>> future : executor.invokeAll(tasks)) {
+                    Class<?> clz = future.get();
+
+                    assertSame(classLoader, clz.getClassLoader());
+                    assertSame(clz, classLoader.loadClass(clz.getName()), "class must be defined once");
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void addClass(JarOutputStream jar, Class<?> clz) throws Exception {
+        String entryName = clz.getName().replace('.', '/') + ".class";
+
+        jar.putNextEntry(new JarEntry(entryName));
+
+        try (InputStream in = clz.getClassLoader().getResourceAsStream(entryName)) {
+            byte[] buffer = new byte[4096];
+
+            for (int len = in.read(buffer); len != -1; len = in.read(buffer)) {
+                jar.write(buffer, 0, len);
+            }
+        }
+
+        jar.closeEntry();
+    }
+}
@@ -61,8 +61,10 @@
 import javax.servlet.http.HttpServletResponse;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
@@ -179,10 +181,41 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             }
         }
 
+        // resolve names of referenced definitions and principals to ids with one query per type
+        Map<String, XXResourceDef>        resourceDefs     = new HashMap<>();
+        Map<String, XXAccessTypeDef>      accessTypeDefs   = new HashMap<>();
+        Map<String, XXPolicyConditionDef> conditionDefs    = new HashMap<>();
+        Map<String, XXDataMaskTypeDef>    dataMaskTypeDefs = new HashMap<>();
+        Map<String, Long>                 roleIds          = daoMgr.getXXRole().getIdsByRoleNames(roleNames);
+        Map<String, Long>                 groupIds         = daoMgr.getXXGroup().getIdsByGroupNames(groupNames);
+        Map<String, Long>                 userIds          = daoMgr.getXXUser().getIdsByUserNames(userNames);
+
+        for (XXResourceDef xResDef : daoMgr.getXXResourceDef().findByServiceDefId(xServiceDef.getId())) {
+            resourceDefs.putIfAbsent(xResDef.getName(), xResDef);
+        }
+
+        if (!accessTypes.isEmpty()) {
+            for (XXAccessTypeDef xAccTypeDef : daoMgr.getXXAccessTypeDef().findByServiceDefId(xServiceDef.getId())) {
+                accessTypeDefs.put(xAccTypeDef.getName(), xAccTypeDef);
+            }
+        }
+
+        if (!conditionTypes.isEmpty()) {
+            for (XXPolicyConditionDef xPolCondDef : daoMgr.getXXPolicyConditionDef().findByServiceDefId(xServiceDef.getId())) {
+                conditionDefs.put(xPolCondDef.getName(), xPolCondDef);
+            }
+        }
+
+        if (!dataMaskTypes.isEmpty()) {
+            for (XXDataMaskTypeDef dataMaskDef : daoMgr.getXXDataMaskTypeDef().findByServiceDefId(xServiceDef.getId())) {
+                dataMaskTypeDefs.put(dataMaskDef.getName(), dataMaskDef);
+            }
+        }
+
         List<XXPolicyRefResource> xPolResources = new ArrayList<>();
 
         for (String resource : resourceNames) {
-            XXResourceDef xResDef = daoMgr.getXXResourceDef().findByNameAndPolicyId(resource, policy.getId());
+            XXResourceDef xResDef = resourceDefs.get(resource);
 
             if (xResDef == null) {
                 throw new Exception(resource + ": is not a valid resource-type. policy='" + policy.getName() + "' service='" + policy.getService() + "'");
@@ -212,6 +245,14 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 continue;
             }
 
+            Long roleId = roleIds.get(role);
+
+            if (roleId != null) {
+                xPolRoles.add(createPolicyRefRole(xPolicy, roleId, role));
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.ROLE, role, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -232,11 +273,21 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
 
         daoMgr.getXXPolicyRefRole().batchCreate(xPolRoles);
 
+        List<XXPolicyRefGroup> xPolGroups = new ArrayList<>();
+
         for (String group : groupNames) {
             if (StringUtils.isBlank(group)) {
                 continue;
             }
 
+            Long groupId = groupIds.get(group);
+
+            if (groupId != null) {
+                xPolGroups.add(createPolicyRefGroup(xPolicy, groupId, group));
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.GROUP, group, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -253,11 +304,23 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             }
         }
 
+        daoMgr.getXXPolicyRefGroup().batchCreate(xPolGroups);
+
+        List<XXPolicyRefUser> xPolUsers = new ArrayList<>();
+
         for (String user : userNames) {
             if (StringUtils.isBlank(user)) {
                 continue;
             }
 
+            Long userId = userIds.get(user);
+
+            if (userId != null) {
+                xPolUsers.add(createPolicyRefUser(xPolicy, userId, user));
+
+                continue;
+            }
+
             PolicyPrincipalAssociator associator = new PolicyPrincipalAssociator(PRINCIPAL_TYPE.USER, user, xPolicy);
 
             if (!associator.doAssociate(false)) {
@@ -274,13 +337,15 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
             }
         }
 
+        daoMgr.getXXPolicyRefUser().batchCreate(xPolUsers);
+
         List<XXPolicyRefAccessType> xPolAccesses = new ArrayList<>();
 
         // ignore built-in access-types while creating ref-table entries
         accessTypes.removeAll(ServiceDefUtil.ACCESS_TYPE_MARKERS);
 
         for (String accessType : accessTypes) {
-            XXAccessTypeDef xAccTypeDef = daoMgr.getXXAccessTypeDef().findByNameAndServiceId(accessType, xPolicy.getService());
+            XXAccessTypeDef xAccTypeDef = accessTypeDefs.get(accessType);
 
             if (xAccTypeDef == null) {
                 throw new Exception(accessType + ": is not a valid access-type. policy='" + policy.getName() + "' service='" + policy.getService() + "'");
@@ -300,7 +365,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
         List<XXPolicyRefCondition> xPolConds = new ArrayList<>();
 
         for (String condition : conditionTypes) {
-            XXPolicyConditionDef xPolCondDef = daoMgr.getXXPolicyConditionDef().findByServiceDefIdAndName(xServiceDef.getId(), condition);
+            XXPolicyConditionDef xPolCondDef = conditionDefs.get(condition);
 
             if (xPolCondDef == null) {
                 if (StringUtils.equalsIgnoreCase(condition, ServiceDefUtil.IMPLICIT_CONDITION_EXPRESSION_NAME)) {
@@ -324,7 +389,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
         List<XXPolicyRefDataMaskType> xxDataMaskInfos = new ArrayList<>();
 
         for (String dataMaskType : dataMaskTypes) {
-            XXDataMaskTypeDef dataMaskDef = daoMgr.getXXDataMaskTypeDef().findByNameAndServiceId(dataMaskType, xPolicy.getService());
+            XXDataMaskTypeDef dataMaskDef = dataMaskTypeDefs.get(dataMaskType);
 
             if (dataMaskDef == null) {
                 throw new Exception(dataMaskType + ": is not a valid datamask-type. policy='" + policy.getName() + "' service='" + policy.getService() + "'");
@@ -360,6 +425,36 @@ public Boolean cleanupRefTables(RangerPolicy policy) {
         return true;
     }
 
+    private XXPolicyRefUser createPolicyRefUser(XXPolicy xPolicy, Long userId, String userName) {
+        XXPolicyRefUser ret = rangerAuditFields.populateAuditFields(new XXPolicyRefUser(), xPolicy);
+
+        ret.setPolicyId(xPolicy.getId());
+        ret.setUserId(userId);
+        ret.setUserName(userName);
+
+        return ret;
+    }
+
+    private XXPolicyRefGroup createPolicyRefGroup(XXPolicy xPolicy, Long groupId, String groupName) {
+        XXPolicyRefGroup ret = rangerAuditFields.populateAuditFields(new XXPolicyRefGroup(), xPolicy);
+
+        ret.setPolicyId(xPolicy.getId());
+        ret.setGroupId(groupId);
+        ret.setGroupName(groupName);
+
+        return ret;
+    }
+
+    private XXPolicyRefRole createPolicyRefRole(XXPolicy xPolicy, Long roleId, String roleName) {
+        XXPolicyRefRole ret = rangerAuditFields.populateAuditFields(new XXPolicyRefRole(), xPolicy);
+
+        ret.setPolicyId(xPolicy.getId());
+        ret.setRoleId(roleId);
+        ret.setRoleName(roleName);
+
+        return ret;
+    }
+
     public enum PRINCIPAL_TYPE { USER, GROUP, ROLE }
 
     private class PolicyPrincipalAssociator implements Runnable {
@@ -520,36 +615,15 @@ private void createPolicyAssociation(Long id, String name) {
             LOG.debug("===> PolicyPrincipalAssociator.createPolicyAssociation(policyId={}, type={}, name={}, id={})", xPolicy.getId(), type.name(), name, id);
 
             switch (type) {
-                case USER: {
-                    XXPolicyRefUser xPolUser = rangerAuditFields.populateAuditFields(new XXPolicyRefUser(), xPolicy);
-
-                    xPolUser.setPolicyId(xPolicy.getId());
-                    xPolUser.setUserId(id);
-                    xPolUser.setUserName(name);
-
-                    daoMgr.getXXPolicyRefUser().create(xPolUser);
-                }
-                break;
-                case GROUP: {
-                    XXPolicyRefGroup xPolGroup = rangerAuditFields.populateAuditFields(new XXPolicyRefGroup(), xPolicy);
-
-                    xPolGroup.setPolicyId(xPolicy.getId());
-                    xPolGroup.setGroupId(id);
-                    xPolGroup.setGroupName(name);
-
-                    daoMgr.getXXPolicyRefGroup().create(xPolGroup);
-                }
-                break;
-                case ROLE: {
-                    XXPolicyRefRole xPolRole = rangerAuditFields.populateAuditFields(new XXPolicyRefRole(), xPolicy);
-
-                    xPolRole.setPolicyId(xPolicy.getId());
-                    xPolRole.setRoleId(id);
-                    xPolRole.setRoleName(name);
-
-                    daoMgr.getXXPolicyRefRole().create(xPolRole);
-                }
-                break;
+                case USER:
+                    daoMgr.getXXPolicyRefUser().create(createPolicyRefUser(xPolicy, id, name));
+                    break;
+                case GROUP:
+                    daoMgr.getXXPolicyRefGroup().create(createPolicyRefGroup(xPolicy, id, name));
+                    break;
+                case ROLE:
+                    daoMgr.getXXPolicyRefRole().create(createPolicyRefRole(xPolicy, id, name));
+                    break;
                 default:
                     break;
             }
@@ -941,9 +941,9 @@ public void createTrxLog(List<XXTrxLogV2> trxLogList) {
             if (xTrxLog.getAddedByUserId() == null) {
                 xTrxLog.setAddedByUserId(userId);
             }
-
-            dao.create(xTrxLog);
         }
+
+        dao.batchCreate(trxLogList);
     }
 
     public String getDBVersion() {
@@ -19,7 +19,10 @@
 
 package org.apache.ranger.biz;
 
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
@@ -29,20 +32,35 @@
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class RangerPolicyAdminCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerPolicyAdminCache.class);
 
+    public static final String PROP_POLICY_DELTAS_MAX_PERCENT    = "ranger.admin.policy.admin.cache.policy.deltas.max.percent";
+    public static final int    DEFAULT_POLICY_DELTAS_MAX_PERCENT = 50;
+
     private final Map<String, RangerPolicyAdminWrapper> policyAdminCache = Collections.synchronizedMap(new HashMap<>());
+    private final int                                   maxDeltaPercent;
+
+    RangerPolicyAdminCache() {
+        this(RangerAdminConfig.getInstance().getInt(PROP_POLICY_DELTAS_MAX_PERCENT, DEFAULT_POLICY_DELTAS_MAX_PERCENT));
+    }
+
+    RangerPolicyAdminCache(int maxDeltaPercent) {
+        this.maxDeltaPercent = maxDeltaPercent;
+    }
 
     final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore svcStore, RoleStore roleStore, SecurityZoneStore zoneStore, RangerPolicyEngineOptions options) {
         if (serviceName == null || svcStore == null || roleStore == null || zoneStore == null) {
@@ -82,7 +100,7 @@ final RangerPolicyAdmin getServicePoliciesAdmin(String serviceName, ServiceStore
                     LOG.debug("There are no roles in ranger-admin for service:{}]", serviceName);
                 }
             } else {
-                policyVersion = ret.getPolicyAdmin().getPolicyVersion();
+                policyVersion = ret.getPolicyVersion();
                 roleVersion   = ret.getPolicyAdmin().getRoleVersion();
                 roles         = roleStore.getRoles(serviceName, roleVersion);
 
@@ -129,29 +147,8 @@ private RangerPolicyAdminWrapper addOrUpdatePolicyAdmin(RangerPolicyAdminWrapper
         if (hasPolicyDeltas != null) {
             if (hasPolicyDeltas.equals(Boolean.TRUE)) {
                 if (oldPolicyAdmin != null) {
-                    boolean isLocked = false;
-
-                    try {
-                        policyAdminWrapper.getLock().lockInterruptibly();
-
-                        isLocked = true;
-                    } catch (Exception e) {
-                        // Ignore
-                    }
-
-                    if (isLocked) {
-                        try {
-                            policyAdmin = RangerPolicyAdminImpl.getPolicyAdmin(oldPolicyAdmin, policies);
-
-                            if (policyAdmin != null) {
-                                policyAdmin.setRoles(roles);
-
-                                isPolicyEngineShared = true;
-                            }
-                        } finally {
-                            policyAdminWrapper.getLock().unlock();
-                        }
-                    }
+                    policyAdmin          = applyPolicyDeltas(policyAdminWrapper, oldPolicyAdmin, policies, roles);
+                    isPolicyEngineShared = policyAdmin != null;
                 } else {
                     LOG.error("Old policy engine is null! Cannot apply deltas without old policy engine!");
                 }
@@ -160,7 +157,24 @@ private RangerPolicyAdminWrapper addOrUpdatePolicyAdmin(RangerPolicyAdminWrapper
                     policies.setPolicies(new ArrayList<>());
                 }
 
-                policyAdmin = addPolicyAdmin(policies, roles, options);
+                ServicePolicies policyDeltas = oldPolicyAdmin != null ? computePolicyDeltas(policyAdminWrapper.getServicePolicies(), policies) : null;
+
+                if (policyDeltas != null && CollectionUtils.isEmpty(policyDeltas.getPolicyDeltas()) && !hasZonePolicyDeltas(policyDeltas)) {
+                    LOG.debug("No changes to policies of service:[{}] from version:[{}] to version:[{}]. Keeping old policy-engine", policies.getServiceName(), policyAdminWrapper.getPolicyVersion(), policies.getPolicyVersion());
+
+                    policyAdmin = oldPolicyAdmin;
+                } else if (policyDeltas != null) {
+                    policyAdmin          = applyPolicyDeltas(policyAdminWrapper, oldPolicyAdmin, policyDeltas, roles);
+                    isPolicyEngineShared = policyAdmin != null;
+
+                    if (policyAdmin == null) {
+                        LOG.warn("Failed to apply computed policy-deltas for service:[{}]. Building new policy-engine", policies.getServiceName());
+                    }
+                }
+
+                if (policyAdmin == null) {
+                    policyAdmin = addPolicyAdmin(policies, roles, options);
+                }
             }
         } else {
             LOG.warn("Provided policies do not require policy change !! [{}]. Keeping old policy-engine!", policies);
@@ -177,7 +191,11 @@ private RangerPolicyAdminWrapper addOrUpdatePolicyAdmin(RangerPolicyAdminWrapper
                 }
             }
 
-            ret = new RangerPolicyAdminWrapper(policyAdmin);
+            if (hasPolicyDeltas != null) {
+                ret = new RangerPolicyAdminWrapper(policyAdmin, policies.getPolicyVersion(), Boolean.FALSE.equals(hasPolicyDeltas) ? getSnapshot(policies) : null);
+            } else {
+                ret = new RangerPolicyAdminWrapper(policyAdmin, policyAdminWrapper.policyVersion, policyAdminWrapper.getServicePolicies());
+            }
 
             policyAdminCache.put(policies.getServiceName(), ret);
 
@@ -192,6 +210,33 @@ private RangerPolicyAdminWrapper addOrUpdatePolicyAdmin(RangerPolicyAdminWrapper
         return ret;
     }
 
+    private RangerPolicyAdmin applyPolicyDeltas(RangerPolicyAdminWrapper policyAdminWrapper, RangerPolicyAdminImpl oldPolicyAdmin, ServicePolicies policyDeltas, RangerRoles roles) {
+        RangerPolicyAdmin ret      = null;
+        boolean           isLocked = false;
+
+        try {
+            policyAdminWrapper.getLock().lockInterruptibly();
+
+            isLocked = true;
+        } catch (Exception e) {
+            // Ignore
+        }
+
+        if (isLocked) {
+            try {
+                ret = RangerPolicyAdminImpl.getPolicyAdmin(oldPolicyAdmin, policyDeltas);
+
+                if (ret != null) {
+                    ret.setRoles(roles);
+                }
+            } finally {
+                policyAdminWrapper.getLock().unlock();
+            }
+        }
+
+        return ret;
+    }
+
     private RangerPolicyAdmin addPolicyAdmin(ServicePolicies policies, RangerRoles roles, RangerPolicyEngineOptions options) {
         RangerServiceDef    serviceDef          = policies.getServiceDef();
         String              serviceType         = (serviceDef != null) ? serviceDef.getName() : "";
@@ -200,18 +245,247 @@ private RangerPolicyAdmin addPolicyAdmin(ServicePolicies policies, RangerRoles r
         return new RangerPolicyAdminImpl(policies, rangerPluginContext, roles);
     }
 
+    /*
+     * Computes the policy-deltas between the policies the current engine was built from and the latest policies of
+     * the service, so that the engine can be updated incrementally even when policy change-logs are not maintained.
+     * Returns null when a new engine must be built: no earlier policies are available, the service-def, tag-service,
+     * security-zones or service-config changed, or the changes are a large part of the policies.
+     */
+    ServicePolicies computePolicyDeltas(ServicePolicies from, ServicePolicies to) {
+        LOG.debug("==> RangerPolicyAdminCache.computePolicyDeltas(service={}, fromVersion={}, toVersion={})", to.getServiceName(), from != null ? from.getPolicyVersion() : null, to.getPolicyVersion());
+
+        ServicePolicies ret = null;
+
+        if (from != null && from.getPolicies() != null && to.getServiceDef() != null && !isStructureChanged(from, to)) {
+            Long                    policyVersion = to.getPolicyVersion();
+            List<RangerPolicyDelta> policyDeltas  = RangerPolicyDeltaUtil.computeDeltas(from.getPolicies(), to.getPolicies(), policyVersion);
+            int                     deltaCount    = policyDeltas.size();
+            int                     policyCount   = to.getPolicies().size();
+            String                  serviceType   = to.getServiceDef().getName();
+            boolean                 isValidDeltas = RangerPolicyDeltaUtil.isValidDeltas(policyDeltas, serviceType);
+
+            if (to.getTagPolicies() != null) {
+                List<RangerPolicyDelta> tagPolicyDeltas = RangerPolicyDeltaUtil.computeDeltas(from.getTagPolicies().getPolicies(), to.getTagPolicies().getPolicies(), policyVersion);
+
+                deltaCount    += tagPolicyDeltas.size();
+                policyCount   += CollectionUtils.size(to.getTagPolicies().getPolicies());
+                isValidDeltas = isValidDeltas && RangerPolicyDeltaUtil.isValidDeltas(tagPolicyDeltas, serviceType);
+
+                policyDeltas.addAll(tagPolicyDeltas);
+            }
+
+            Map<String, SecurityZoneInfo> zoneDeltas = null;
+
+            if (to.getSecurityZones() != null) {
+                zoneDeltas = new HashMap<>();
+
+                for (Map.Entry<String, SecurityZoneInfo> entry : to.getSecurityZones().entrySet()) {
+                    SecurityZoneInfo        fromZone = from.getSecurityZones().get(entry.getKey());
+                    SecurityZoneInfo        toZone   = entry.getValue();
+                    SecurityZoneInfo        zone     = new SecurityZoneInfo();
+                    List<RangerPolicyDelta> deltas   = RangerPolicyDeltaUtil.computeDeltas(fromZone.getPolicies(), toZone.getPolicies(), policyVersion);
+
+                    zone.setZoneName(toZone.getZoneName());
+                    zone.setResources(toZone.getResources());
+                    zone.setContainsAssociatedTagService(toZone.getContainsAssociatedTagService());
+                    zone.setPolicies(new ArrayList<>());
+                    zone.setPolicyDeltas(deltas);
+
+                    deltaCount    += deltas.size();
+                    policyCount   += CollectionUtils.size(toZone.getPolicies());
+                    isValidDeltas = isValidDeltas && RangerPolicyDeltaUtil.isValidDeltas(deltas, serviceType);
+
+                    zoneDeltas.put(entry.getKey(), zone);
+                }
+            }
+
+            if (!isValidDeltas) {
+                LOG.debug("computePolicyDeltas(service={}): policies can't be applied as deltas", to.getServiceName());
+            } else if (deltaCount > (long) policyCount * maxDeltaPercent / 100) {
+                LOG.debug("computePolicyDeltas(service={}): deltaCount={} exceeds {}% of policyCount={}", to.getServiceName(), deltaCount, maxDeltaPercent, policyCount);
+            } else if (ServiceDBStore.SUPPORTS_IN_PLACE_POLICY_UPDATES && zoneDeltas != null && hasZonePolicyDeltas(zoneDeltas)) {
+                LOG.debug("computePolicyDeltas(service={}): in-place updates of policy-engine don't support changes to zone policies", to.getServiceName());
+            } else {
+                ret = new ServicePolicies();
+
+                ret.setServiceName(to.getServiceName());
+                ret.setServiceId(to.getServiceId());
+                ret.setPolicyVersion(policyVersion);
+                ret.setPolicyUpdateTime(to.getPolicyUpdateTime());
+                ret.setAuditMode(to.getAuditMode());
+                ret.setServiceDef(to.getServiceDef());
+                ret.setServiceConfig(to.getServiceConfig());
+                ret.setPolicies(new ArrayList<>());
+                ret.setPolicyDeltas(policyDeltas);
+                ret.setSecurityZones(zoneDeltas);
+
+                if (to.getTagPolicies() != null) {
+                    ServicePolicies.TagPolicies tagPolicies = ServicePolicies.copyHeader(to.getTagPolicies(), serviceType);
+
+                    tagPolicies.setServiceConfig(to.getTagPolicies().getServiceConfig());
+
+                    ret.setTagPolicies(tagPolicies);
+                }
+            }
+        }
+
+        LOG.debug("<== RangerPolicyAdminCache.computePolicyDeltas(service={}): {}", to.getServiceName(), ret != null ? ret.getPolicyDeltas() : null);
+
+        return ret;
+    }
+
+    /*
+     * Copies the lists of policies, tag-policies and zones: the given instance can be shared with
+     * RangerServicePoliciesCache, which updates it in place on the next policy change.
+     */
+    private static ServicePolicies getSnapshot(ServicePolicies policies) {
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceName(policies.getServiceName());
+        ret.setServiceId(policies.getServiceId());
+        ret.setPolicyVersion(policies.getPolicyVersion());
+        ret.setPolicyUpdateTime(policies.getPolicyUpdateTime());
+        ret.setAuditMode(policies.getAuditMode());
+        ret.setServiceDef(policies.getServiceDef());
+        ret.setServiceConfig(copyOf(policies.getServiceConfig()));
+        ret.setPolicies(copyOf(policies.getPolicies()));
+
+        if (policies.getTagPolicies() != null) {
+            ServicePolicies.TagPolicies from        = policies.getTagPolicies();
+            ServicePolicies.TagPolicies tagPolicies = new ServicePolicies.TagPolicies();
+
+            tagPolicies.setServiceName(from.getServiceName());
+            tagPolicies.setServiceId(from.getServiceId());
+            tagPolicies.setPolicyVersion(from.getPolicyVersion());
+            tagPolicies.setPolicyUpdateTime(from.getPolicyUpdateTime());
+            tagPolicies.setAuditMode(from.getAuditMode());
+            tagPolicies.setServiceDef(from.getServiceDef());
+            tagPolicies.setServiceConfig(copyOf(from.getServiceConfig()));
+            tagPolicies.setPolicies(copyOf(from.getPolicies()));
+
+            ret.setTagPolicies(tagPolicies);
+        }
+
+        if (policies.getSecurityZones() != null) {
+            Map<String, SecurityZoneInfo> zones = new HashMap<>();
+
+            for (Map.Entry<String, SecurityZoneInfo> entry : policies.getSecurityZones().entrySet()) {
+                SecurityZoneInfo from = entry.getValue();
+                SecurityZoneInfo zone = new SecurityZoneInfo();
+
+                zone.setZoneName(from.getZoneName());
+                zone.setResources(copyOf(from.getResources()));
+                zone.setContainsAssociatedTagService(from.getContainsAssociatedTagService());
+                zone.setPolicies(copyOf(from.getPolicies()));
+                zone.setPolicyDeltas(copyOf(from.getPolicyDeltas()));
+
+                zones.put(entry.getKey(), zone);
+            }
+
+            ret.setSecurityZones(zones);
+        }
+
+        return ret;
+    }
+
+    private static <T> List<T> copyOf(List<T> list) {
+        return list != null ? new ArrayList<>(list) : null;
+    }
+
+    private static <K, V> Map<K, V> copyOf(Map<K, V> map) {
+        return map != null ? new HashMap<>(map) : null;
+    }
+
+    private static boolean isStructureChanged(ServicePolicies from, ServicePolicies to) {
+        boolean ret = !isSameServiceDef(from.getServiceDef(), to.getServiceDef())
+                || !Objects.equals(from.getAuditMode(), to.getAuditMode())
+                || !Objects.equals(from.getServiceConfig(), to.getServiceConfig());
+
+        if (!ret) {
+            ServicePolicies.TagPolicies fromTagPolicies = from.getTagPolicies();
+            ServicePolicies.TagPolicies toTagPolicies   = to.getTagPolicies();
+
+            if (fromTagPolicies == null || toTagPolicies == null) {
+                ret = fromTagPolicies != toTagPolicies;
+            } else {
+                ret = !Objects.equals(fromTagPolicies.getServiceName(), toTagPolicies.getServiceName())
+                        || !isSameServiceDef(fromTagPolicies.getServiceDef(), toTagPolicies.getServiceDef())
+                        || !Objects.equals(fromTagPolicies.getServiceConfig(), toTagPolicies.getServiceConfig())
+                        || fromTagPolicies.getPolicies() == null;
+            }
+        }
+
+        if (!ret) {
+            Map<String, SecurityZoneInfo> fromZones = from.getSecurityZones();
+            Map<String, SecurityZoneInfo> toZones   = to.getSecurityZones();
+
+            if (fromZones == null || toZones == null) {
+                ret = fromZones != toZones;
+            } else if (!fromZones.keySet().equals(toZones.keySet())) {
+                ret = true;
+            } else {
+                for (Map.Entry<String, SecurityZoneInfo> entry : toZones.entrySet()) {
+                    SecurityZoneInfo fromZone = fromZones.get(entry.getKey());
+                    SecurityZoneInfo toZone   = entry.getValue();
+
+                    if (fromZone.getPolicies() == null || CollectionUtils.isNotEmpty(toZone.getPolicyDeltas())
+                            || !Objects.equals(fromZone.getResources(), toZone.getResources())
+                            || !Objects.equals(fromZone.getContainsAssociatedTagService(), toZone.getContainsAssociatedTagService())) {
+                        ret = true;
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isSameServiceDef(RangerServiceDef from, RangerServiceDef to) {
+        return from == to || (from != null && to != null && Objects.equals(from.getId(), to.getId()) && Objects.equals(from.getVersion(), to.getVersion()));
+    }
+
+    private static boolean hasZonePolicyDeltas(ServicePolicies policies) {
+        return policies.getSecurityZones() != null && hasZonePolicyDeltas(policies.getSecurityZones());
+    }
+
+    private static boolean hasZonePolicyDeltas(Map<String, SecurityZoneInfo> zones) {
+        for (SecurityZoneInfo zone : zones.values()) {
+            if (CollectionUtils.isNotEmpty(zone.getPolicyDeltas())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     static class RangerPolicyAdminWrapper {
         final RangerPolicyAdmin policyAdmin;
+        final Long              policyVersion;
+        final ServicePolicies   servicePolicies;
         final Lock              lock = new ReentrantLock();
 
-        RangerPolicyAdminWrapper(RangerPolicyAdmin policyAdmin) {
-            this.policyAdmin = policyAdmin;
+        RangerPolicyAdminWrapper(RangerPolicyAdmin policyAdmin, Long policyVersion, ServicePolicies servicePolicies) {
+            this.policyAdmin     = policyAdmin;
+            this.policyVersion   = policyVersion;
+            this.servicePolicies = servicePolicies;
         }
 
         RangerPolicyAdmin getPolicyAdmin() {
             return policyAdmin;
         }
 
+        // version of policies the engine reflects; the engine's own version isn't updated when only zone or tag policies change
+        long getPolicyVersion() {
+            return policyVersion != null ? policyVersion : policyAdmin.getPolicyVersion();
+        }
+
+        // complete policies the engine was built or last updated from, used to compute deltas on the next update
+        ServicePolicies getServicePolicies() {
+            return servicePolicies;
+        }
+
         Lock getLock() {
             return lock;
         }
@@ -240,13 +240,18 @@ public List<String> getRoleNames(SearchFilter filter) {
 
     @Override
     public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion) throws Exception {
+        return getRoles(serviceName, lastKnownRoleVersion, false);
+    }
+
+    @Override
+    public RangerRoles getRoles(String serviceName, Long lastKnownRoleVersion, boolean getOnlyDeltas) throws Exception {
         RangerRoles ret                   = null;
         Long        rangerRoleVersionInDB = getRoleVersion(serviceName);
 
-        LOG.debug("==> RoleDBStore.getRoles() lastKnownRoleVersion= {} rangerRoleVersionInDB= {}", lastKnownRoleVersion, rangerRoleVersionInDB);
+        LOG.debug("==> RoleDBStore.getRoles() lastKnownRoleVersion= {} rangerRoleVersionInDB= {} getOnlyDeltas= {}", lastKnownRoleVersion, rangerRoleVersionInDB, getOnlyDeltas);
 
         if (rangerRoleVersionInDB != null) {
-            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB);
+            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB, getOnlyDeltas);
         }
 
         LOG.debug("<= RoleDBStore.getRoles() lastKnownRoleVersion= {} rangerRoleVersionInDB= {} RangerRoles= {}", lastKnownRoleVersion, rangerRoleVersionInDB, ret);
@@ -1505,10 +1505,9 @@ public RangerPolicy updatePolicy(RangerPolicy policy) throws Exception {
 
         XXPolicy newUpdPolicy = daoMgr.getXXPolicy().getById(policy.getId());
 
-        policyRefUpdater.cleanupRefTables(policy);
-
         deleteExistingPolicyLabel(policy);
 
+        // createNewPolMappingForRefTable() removes existing ref-table entries before creating new ones
         policyRefUpdater.createNewPolMappingForRefTable(policy, newUpdPolicy, xServiceDef, bizUtil.getCreatePrincipalsIfAbsent());
 
         createOrMapLabels(newUpdPolicy, uniquePolicyLabels);
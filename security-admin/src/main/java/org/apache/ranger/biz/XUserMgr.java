@@ -2807,15 +2807,26 @@ public Map<String, Set<String>> getUserGroups() {
     }
 
     public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion) {
-        logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={})", lastKnownUserStoreVersion);
+        return getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, false);
+    }
+
+    public RangerUserStore getRangerUserStoreIfUpdated(Long lastKnownUserStoreVersion, boolean getOnlyDeltas) {
+        logger.debug("==> XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}, getOnlyDeltas={})", lastKnownUserStoreVersion, getOnlyDeltas);
 
-        RangerUserStore ret = RangerUserStoreCache.getInstance().getLatestRangerUserStoreOrCached(this);
+        RangerUserStoreCache userStoreCache = RangerUserStoreCache.getInstance();
+        RangerUserStore      ret            = userStoreCache.getLatestRangerUserStoreOrCached(this);
 
         if (ret != null && Objects.equals(ret.getUserStoreVersion(), lastKnownUserStoreVersion)) {
             ret = null;
+        } else if (ret != null && getOnlyDeltas) {
+            RangerUserStore deltas = userStoreCache.getUserStoreDeltas(lastKnownUserStoreVersion, ret);
+
+            if (deltas != null) {
+                ret = deltas;
+            }
         }
 
-        logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}): ret={}", lastKnownUserStoreVersion, ret);
+        logger.debug("<== XUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion={}, getOnlyDeltas={}): ret={}", lastKnownUserStoreVersion, getOnlyDeltas, ret);
 
         return ret;
     }
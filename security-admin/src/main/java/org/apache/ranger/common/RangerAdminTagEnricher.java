@@ -23,6 +23,7 @@
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXServiceVersionInfo;
 import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher.EnrichedServiceTags;
 import org.apache.ranger.plugin.model.RangerService;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.store.ServiceStore;
@@ -32,6 +33,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 public class RangerAdminTagEnricher extends RangerTagEnricher {
     private static final Logger LOG = LoggerFactory.getLogger(RangerAdminTagEnricher.class);
 
@@ -40,8 +43,10 @@ public class RangerAdminTagEnricher extends RangerTagEnricher {
 
     private static boolean ADMIN_TAG_ENRICHER_SUPPORTS_TAG_DELTAS_INITIALIZED;
     private static boolean ADMIN_TAG_ENRICHER_SUPPORTS_TAG_DELTAS;
+    private static boolean ADMIN_TAG_ENRICHER_SHARES_TAG_INDEX;
 
-    private Long serviceId;
+    private Long   serviceId;
+    private String tagIndexKey;
 
     public static void setTagStore(TagStore tagStore) {
         RangerAdminTagEnricher.tagStore = tagStore;
@@ -61,6 +66,7 @@ public void init() {
             RangerAdminConfig config = RangerAdminConfig.getInstance();
 
             ADMIN_TAG_ENRICHER_SUPPORTS_TAG_DELTAS = config.getBoolean("ranger.admin.tag.enricher.supports.tag.deltas", true);
+            ADMIN_TAG_ENRICHER_SHARES_TAG_INDEX    = config.getBoolean("ranger.admin.tag.enricher.shares.tag.index", true);
 
             ADMIN_TAG_ENRICHER_SUPPORTS_TAG_DELTAS_INITIALIZED = true;
         }
@@ -75,7 +81,13 @@ public void init() {
             try {
                 RangerService service = svcStore.getServiceByName(serviceName);
 
-                serviceId = service.getId();
+                serviceId   = service.getId();
+                tagIndexKey = ADMIN_TAG_ENRICHER_SHARES_TAG_INDEX && !tagStore.isInPlaceTagUpdateSupported() ? getServiceTagsIndexKey() : null;
+
+                if (ADMIN_TAG_ENRICHER_SHARES_TAG_INDEX && tagIndexKey == null) {
+                    // tag-deltas are applied in place to the tags index, hence it can't be shared with other policy-engines
+                    LOG.info("Tags index of service {} will not be shared, as tags are updated in place", serviceName);
+                }
 
                 createLock();
             } catch (Exception e) {
@@ -97,6 +109,16 @@ public void enrich(RangerAccessRequest request) {
         LOG.debug("<== RangerAdminTagEnricher.enrich({})", request);
     }
 
+    @Override
+    public void enrich(Collection<RangerAccessRequest> requests) {
+        LOG.debug("==> RangerAdminTagEnricher.enrich(requestCount={})", requests.size());
+
+        refreshTagsIfNeeded();
+        super.enrich(requests);
+
+        LOG.debug("<== RangerAdminTagEnricher.enrich(requestCount={})", requests.size());
+    }
+
     @Override
     protected RangerReadWriteLock createLock() {
         boolean useReadWriteLock = tagStore != null && tagStore.isInPlaceTagUpdateSupported();
@@ -125,7 +147,9 @@ private void refreshTagsIfNeeded() {
             }
 
             if (serviceVersionInfoDbObj == null || serviceVersionInfoDbObj.getTagVersion() == null || !enrichedServiceTagsVersion.equals(serviceVersionInfoDbObj.getTagVersion())) {
-                serviceTags = RangerServiceTagsCache.getInstance().getServiceTags(serviceName, serviceId, enrichedServiceTagsVersion, needsBackwardCompatibility, tagStore);
+                if (!useSharedTagIndex(serviceVersionInfoDbObj != null ? serviceVersionInfoDbObj.getTagVersion() : null)) {
+                    serviceTags = RangerServiceTagsCache.getInstance().getServiceTags(serviceName, serviceId, enrichedServiceTagsVersion, needsBackwardCompatibility, tagStore);
+                }
             } else {
                 LOG.debug("Have the latest tag version already. Only need to check if it needs to be rebuilt");
 
@@ -152,8 +176,28 @@ private void refreshTagsIfNeeded() {
                     } else {
                         setServiceTags(serviceTags);
                     }
+
+                    if (tagIndexKey != null) {
+                        RangerServiceTagsCache.getInstance().setEnrichedServiceTags(serviceName, serviceId, tagIndexKey, getEnrichedServiceTags());
+                    }
                 }
             }
         }
     }
+
+    // Picks up tags index built by another admin policy-engine of this service, instead of building one from service-tags
+    private boolean useSharedTagIndex(Long tagVersionInDb) {
+        final EnrichedServiceTags sharedTagIndex = tagVersionInDb != null && tagIndexKey != null ? RangerServiceTagsCache.getInstance().getEnrichedServiceTags(serviceName, serviceId, tagIndexKey) : null;
+        final boolean             ret            = sharedTagIndex != null && sharedTagIndex != getEnrichedServiceTags() && tagVersionInDb.equals(sharedTagIndex.getResourceTrieVersion()) && tagVersionInDb.equals(sharedTagIndex.getServiceTags().getTagVersion());
+
+        if (ret) {
+            LOG.debug("Using shared tags index: serviceName={}, tagVersion={}", serviceName, tagVersionInDb);
+
+            synchronized (this) {
+                setEnrichedServiceTags(sharedTagIndex);
+            }
+        }
+
+        return ret;
+    }
 }
@@ -21,34 +21,50 @@
 
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.biz.RoleDBStore;
+import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesDeltaUtil;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class RangerRoleCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerRoleCache.class);
 
-    private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int    MAX_WAIT_TIME_FOR_UPDATE          = 10;
+    private static final int    DEFAULT_MAX_ROLE_DELTAS_TO_RETAIN = 10;
+    private static final float  DEFAULT_MAX_ROLE_DELTAS_RATIO     = 0.5f;
+    private static final String ALL_SERVICES_CACHE_KEY            = "";
 
     private static volatile RangerRoleCache sInstance;
 
-    private final int           waitTimeInSeconds;
-    private final ReentrantLock lock = new ReentrantLock();
-
-    RangerRoleCacheWrapper roleCacheWrapper;
+    private final int                                 waitTimeInSeconds;
+    private final boolean                             supportsRoleDeltas;
+    private final int                                 maxRoleDeltasToRetain;
+    private final float                               maxRoleDeltasRatio;
+    private final Map<String, RangerRoleCacheWrapper> roleCacheWrappers = new ConcurrentHashMap<>();
 
     private RangerRoleCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
-        waitTimeInSeconds = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+        waitTimeInSeconds     = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+        supportsRoleDeltas    = config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_ROLE_DELTA_DEFAULT);
+        maxRoleDeltasToRetain = config.getInt("ranger.admin.role.deltas.max.versions", DEFAULT_MAX_ROLE_DELTAS_TO_RETAIN);
+        maxRoleDeltasRatio    = config.getFloat("ranger.admin.role.deltas.max.ratio", DEFAULT_MAX_ROLE_DELTAS_RATIO);
+
+        LOG.info("RangerRoleCache: supportsRoleDeltas={}, maxRoleDeltasToRetain={}, maxRoleDeltasRatio={}", supportsRoleDeltas, maxRoleDeltasToRetain, maxRoleDeltasRatio);
     }
 
     public static RangerRoleCache getInstance() {
@@ -69,11 +85,17 @@ public static RangerRoleCache getInstance() {
     }
 
     public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
+        return getLatestRangerRoleOrCached(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB, false);
+    }
+
+    public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB, boolean getOnlyDeltas) throws Exception {
         final RangerRoles ret;
 
         if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-            roleCacheWrapper = new RangerRoleCacheWrapper();
-            ret              = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
+            String                 cacheKey         = ServiceDBStore.isSupportsRolesDownloadByService() ? serviceName : ALL_SERVICES_CACHE_KEY;
+            RangerRoleCacheWrapper roleCacheWrapper = roleCacheWrappers.computeIfAbsent(cacheKey, k -> new RangerRoleCacheWrapper());
+
+            ret = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB, getOnlyDeltas && supportsRoleDeltas);
         } else {
             ret = null;
         }
@@ -82,6 +104,15 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
     }
 
     private class RangerRoleCacheWrapper {
+        // role-deltas, keyed by the version they apply to; each delta updates roles to the version of the next delta
+        private final Map<Long, RangerRoles> roleDeltas = new LinkedHashMap<Long, RangerRoles>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RangerRoles> eldest) {
+                return size() > maxRoleDeltasToRetain;
+            }
+        };
+        private final ReentrantLock lock = new ReentrantLock();
+
         RangerRoles roles;
         Long        rolesVersion;
 
@@ -98,39 +129,31 @@ public Long getRolesVersion() {
             return this.rolesVersion;
         }
 
-        public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rolesVersionInDB) throws Exception {
+        public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rolesVersionInDB, boolean getOnlyDeltas) throws Exception {
             RangerRoles ret        = null;
             boolean     lockResult = false;
 
-            LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {})", serviceName, lastKnownRoleVersion, rolesVersionInDB);
+            LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= {} lastKnownRoleVersion= {} rolesVersionInDB= {} getOnlyDeltas= {})", serviceName, lastKnownRoleVersion, rolesVersionInDB, getOnlyDeltas);
 
             try {
-                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
-
-                if (lockResult) {
-                    // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
-                    final long            startTimeMs  = System.currentTimeMillis();
-                    SearchFilter          searchFilter = null;
-                    final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
-                    final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
-                    Date                  updateTime   = new Date();
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
+                if (!Objects.equals(getRolesVersion(), rolesVersionInDB)) {
+                    lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+
+                    if (lockResult) {
+                        if (!Objects.equals(getRolesVersion(), rolesVersionInDB)) {
+                            loadRoles(roleDBStore, rolesVersionInDB);
+                        }
+                    } else {
+                        LOG.debug("Could not get lock in [{}] seconds, returning cached RangerRoles", waitTimeInSeconds);
                     }
+                }
 
-                    ret = new RangerRoles();
-
-                    ret.setRangerRoles(rolesInDB);
-                    ret.setRoleUpdateTime(updateTime);
-                    ret.setRoleVersion(rolesVersionInDB);
+                RangerRoles cachedRoles = getRoles();
 
-                    rolesVersion = rolesVersionInDB;
-                    roles        = ret;
-                } else {
-                    LOG.debug("Could not get lock in [{}] seconds, returning cached RangerRoles", waitTimeInSeconds);
+                if (cachedRoles != null && !Objects.equals(cachedRoles.getRoleVersion(), lastKnownRoleVersion)) {
+                    RangerRoles deltas = getOnlyDeltas ? getRoleDeltas(lastKnownRoleVersion, cachedRoles) : null;
 
-                    ret = getRoles();
+                    ret = copyOf(deltas != null ? deltas : cachedRoles);
                 }
             } catch (InterruptedException exception) {
                 LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
@@ -144,5 +167,94 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 
             return ret;
         }
+
+        private void loadRoles(RoleDBStore roleDBStore, Long rolesVersionInDB) throws Exception {
+            // We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
+            final long            startTimeMs  = System.currentTimeMillis();
+            SearchFilter          searchFilter = null;
+            final Set<RangerRole> rolesInDB    = new HashSet<>(roleDBStore.getRoles(searchFilter));
+            final long            dbLoadTimeMs = System.currentTimeMillis() - startTimeMs;
+            Date                  updateTime   = new Date();
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("loading Roles from database and it took:{} seconds", TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs));
+            }
+
+            RangerRoles latestRoles = new RangerRoles();
+
+            latestRoles.setRangerRoles(rolesInDB);
+            latestRoles.setRoleUpdateTime(updateTime);
+            latestRoles.setRoleVersion(rolesVersionInDB);
+
+            RangerRoles prevRoles = roles;
+
+            if (supportsRoleDeltas && prevRoles != null && prevRoles.getRoleVersion() != null && prevRoles.getRoleVersion() != -1L) {
+                RangerRoles deltas = RangerRolesDeltaUtil.computeDelta(prevRoles, latestRoles);
+
+                synchronized (roleDeltas) {
+                    roleDeltas.put(prevRoles.getRoleVersion(), deltas);
+                }
+            }
+
+            rolesVersion = rolesVersionInDB;
+            roles        = latestRoles;
+        }
+
+        /*
+        Returns deltas to update roles from lastKnownRoleVersion to the version of cachedRoles, by combining retained deltas.
+        Returns null if deltas are not available for the version, or when the deltas are large compared to the roles.
+         */
+        private RangerRoles getRoleDeltas(Long lastKnownRoleVersion, RangerRoles cachedRoles) {
+            RangerRoles ret = null;
+
+            if (lastKnownRoleVersion != null && lastKnownRoleVersion != -1L) {
+                synchronized (roleDeltas) {
+                    Long version = lastKnownRoleVersion;
+
+                    for (int i = 0; i < roleDeltas.size() && !Objects.equals(version, cachedRoles.getRoleVersion()); i++) {
+                        RangerRoles deltas = roleDeltas.get(version);
+
+                        if (deltas == null) {
+                            ret = null;
+
+                            break;
+                        }
+
+                        ret     = ret == null ? deltas : RangerRolesDeltaUtil.mergeDeltas(ret, deltas);
+                        version = deltas.getRoleVersion();
+                    }
+
+                    if (!Objects.equals(version, cachedRoles.getRoleVersion())) {
+                        ret = null;
+                    }
+                }
+            }
+
+            if (ret != null) {
+                int roleCount = cachedRoles.getRangerRoles() != null ? cachedRoles.getRangerRoles().size() : 0;
+
+                if (RangerRolesDeltaUtil.getDeltaSize(ret) > roleCount * maxRoleDeltasRatio) {
+                    LOG.debug("RangerRoleCache.getRoleDeltas(lastKnownRoleVersion={}): deltas are too large, returning all roles", lastKnownRoleVersion);
+
+                    ret = null;
+                }
+            }
+
+            return ret;
+        }
+
+        // cached instance is shared by requests for multiple services; callers update serviceName in the returned object
+        private RangerRoles copyOf(RangerRoles other) {
+            RangerRoles ret = new RangerRoles();
+
+            ret.setServiceName(other.getServiceName());
+            ret.setRoleVersion(other.getRoleVersion());
+            ret.setRoleUpdateTime(other.getRoleUpdateTime());
+            ret.setRangerRoles(other.getRangerRoles());
+            ret.setIsDelta(other.getIsDelta());
+            ret.setDeletedRoles(other.getDeletedRoles());
+
+            return ret;
+        }
     }
 }
@@ -23,6 +23,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.biz.TagDBStore;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher.EnrichedServiceTags;
 import org.apache.ranger.plugin.store.TagStore;
 import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
@@ -33,6 +34,7 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -157,6 +159,53 @@ public ServiceTags getServiceTags(String serviceName, Long serviceId, Long lastK
         return ret;
     }
 
+    /**
+     * Returns the tags index built most recently for the service by an admin tag-enricher with the given index-key.
+     * Tags index is kept along with the cached service-tags, so that it is built once and shared by all admin
+     * policy-engines of the service.
+     *
+     * @param serviceName
+     * @param serviceId
+     * @param indexKey
+     * @return shared tags index, null if none is available
+     */
+    public EnrichedServiceTags getEnrichedServiceTags(String serviceName, Long serviceId, String indexKey) {
+        EnrichedServiceTags ret = null;
+
+        if (useServiceTagsCache && serviceName != null && serviceId != null && indexKey != null) {
+            final ServiceTagsWrapper serviceTagsWrapper;
+
+            synchronized (this) {
+                serviceTagsWrapper = serviceTagsMap.get(serviceName);
+            }
+
+            if (serviceTagsWrapper != null && serviceId.equals(serviceTagsWrapper.getServiceId())) {
+                ret = serviceTagsWrapper.tagIndexes.get(indexKey);
+            }
+        }
+
+        LOG.debug("RangerServiceTagsCache.getEnrichedServiceTags({}, {}, {}): version={}", serviceName, serviceId, indexKey, ret != null ? ret.getResourceTrieVersion() : null);
+
+        return ret;
+    }
+
+    public void setEnrichedServiceTags(String serviceName, Long serviceId, String indexKey, EnrichedServiceTags enrichedServiceTags) {
+        if (useServiceTagsCache && serviceName != null && serviceId != null && indexKey != null && enrichedServiceTags != null && enrichedServiceTags.getResourceTrieVersion() != null) {
+            final ServiceTagsWrapper serviceTagsWrapper;
+
+            synchronized (this) {
+                serviceTagsWrapper = serviceTagsMap.get(serviceName);
+            }
+
+            if (serviceTagsWrapper != null && serviceId.equals(serviceTagsWrapper.getServiceId())) {
+                // keep the index of the latest tag-version, as enrichers can publish their indexes in any order
+                serviceTagsWrapper.tagIndexes.merge(indexKey, enrichedServiceTags, (oldValue, newValue) -> oldValue.getResourceTrieVersion() != null && oldValue.getResourceTrieVersion() > newValue.getResourceTrieVersion() ? oldValue : newValue);
+
+                LOG.debug("RangerServiceTagsCache.setEnrichedServiceTags({}, {}, {}): version={}", serviceName, serviceId, indexKey, enrichedServiceTags.getResourceTrieVersion());
+            }
+        }
+    }
+
     /**
      * Reset service tag cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -206,6 +255,8 @@ private class ServiceTagsWrapper {
         ServiceTagsDeltasCache deltaCache;
         ReentrantLock          lock = new ReentrantLock();
 
+        final Map<String, EnrichedServiceTags> tagIndexes = new ConcurrentHashMap<>();
+
         ServiceTagsWrapper(Long serviceId) {
             this.serviceId = serviceId;
             serviceTags    = null;
@@ -23,10 +23,13 @@
 import org.apache.ranger.biz.XUserMgr;
 import org.apache.ranger.plugin.model.GroupInfo;
 import org.apache.ranger.plugin.model.UserInfo;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.RangerUserStoreDeltaUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -36,21 +39,38 @@
 public class RangerUserStoreCache {
     private static final Logger LOG = LoggerFactory.getLogger(RangerUserStoreCache.class);
 
-    private static final int MAX_WAIT_TIME_FOR_UPDATE = 10;
+    private static final int   MAX_WAIT_TIME_FOR_UPDATE               = 10;
+    private static final int   DEFAULT_MAX_USERSTORE_DELTAS_TO_RETAIN = 10;
+    private static final float DEFAULT_MAX_USERSTORE_DELTAS_RATIO     = 0.5f;
 
     public static volatile RangerUserStoreCache sInstance;
 
-    private final int             waitTimeInSeconds;
-    private final boolean         dedupStrings;
-    private final ReentrantLock   lock = new ReentrantLock();
-    private       RangerUserStore rangerUserStore;
+    private final int                        waitTimeInSeconds;
+    private final boolean                    dedupStrings;
+    private final boolean                    supportsUserStoreDeltas;
+    private final int                        maxUserStoreDeltasToRetain;
+    private final float                      maxUserStoreDeltasRatio;
+    private final ReentrantLock              lock = new ReentrantLock();
+    private final Map<Long, RangerUserStore> userStoreDeltas; // keyed by the version each delta applies to
+    private       RangerUserStore            rangerUserStore;
 
     private RangerUserStoreCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
-        this.waitTimeInSeconds = config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
-        this.dedupStrings      = config.getBoolean("ranger.admin.userstore.dedup.strings", Boolean.TRUE);
-        this.rangerUserStore   = new RangerUserStore();
+        this.waitTimeInSeconds          = config.getInt("ranger.admin.userstore.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+        this.dedupStrings               = config.getBoolean("ranger.admin.userstore.dedup.strings", Boolean.TRUE);
+        this.supportsUserStoreDeltas    = config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA, RangerCommonConstants.RANGER_ADMIN_SUFFIX_USERSTORE_DELTA_DEFAULT);
+        this.maxUserStoreDeltasToRetain = config.getInt("ranger.admin.userstore.deltas.max.versions", DEFAULT_MAX_USERSTORE_DELTAS_TO_RETAIN);
+        this.maxUserStoreDeltasRatio    = config.getFloat("ranger.admin.userstore.deltas.max.ratio", DEFAULT_MAX_USERSTORE_DELTAS_RATIO);
+        this.rangerUserStore            = new RangerUserStore();
+        this.userStoreDeltas            = new LinkedHashMap<Long, RangerUserStore>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RangerUserStore> eldest) {
+                return size() > maxUserStoreDeltasToRetain;
+            }
+        };
+
+        LOG.info("RangerUserStoreCache: supportsUserStoreDeltas={}, maxUserStoreDeltasToRetain={}, maxUserStoreDeltasRatio={}", supportsUserStoreDeltas, maxUserStoreDeltasToRetain, maxUserStoreDeltasRatio);
     }
 
     public static RangerUserStoreCache getInstance() {
@@ -108,6 +128,14 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
                         rangerUserStore.dedupStrings();
                     }
 
+                    if (supportsUserStoreDeltas && cachedUserStoreVersion != null && cachedUserStoreVersion != -1L) {
+                        RangerUserStore deltas = RangerUserStoreDeltaUtil.computeDelta(this.rangerUserStore, rangerUserStore);
+
+                        synchronized (userStoreDeltas) {
+                            userStoreDeltas.put(cachedUserStoreVersion, deltas);
+                        }
+                    }
+
                     this.rangerUserStore = rangerUserStore;
 
                     LOG.info("RangerUserStoreCache refreshed from version {} to {}: users={}, groups={}, userGroupMappings={}", cachedUserStoreVersion, dbUserStoreVersion, rangerUsersInDB.size(), rangerGroupsInDB.size(), userGroups.size());
@@ -129,4 +157,47 @@ public RangerUserStore getLatestRangerUserStoreOrCached(XUserMgr xUserMgr) {
 
         return ret;
     }
+
+    /*
+    Returns deltas to update userstore from lastKnownUserStoreVersion to the version of the given userStore, by combining retained deltas.
+    Returns null if deltas are not available for the version, or when the deltas are large compared to the userstore.
+     */
+    public RangerUserStore getUserStoreDeltas(Long lastKnownUserStoreVersion, RangerUserStore userStore) {
+        LOG.debug("==> RangerUserStoreCache.getUserStoreDeltas(lastKnownUserStoreVersion={}, userStoreVersion={})", lastKnownUserStoreVersion, userStore.getUserStoreVersion());
+
+        RangerUserStore ret = null;
+
+        if (supportsUserStoreDeltas && lastKnownUserStoreVersion != null && lastKnownUserStoreVersion != -1L) {
+            synchronized (userStoreDeltas) {
+                Long version = lastKnownUserStoreVersion;
+
+                for (int i = 0; i < userStoreDeltas.size() && !Objects.equals(version, userStore.getUserStoreVersion()); i++) {
+                    RangerUserStore deltas = userStoreDeltas.get(version);
+
+                    if (deltas == null) {
+                        ret = null;
+
+                        break;
+                    }
+
+                    ret     = ret == null ? deltas : RangerUserStoreDeltaUtil.mergeDeltas(ret, deltas);
+                    version = deltas.getUserStoreVersion();
+                }
+
+                if (!Objects.equals(version, userStore.getUserStoreVersion())) {
+                    ret = null;
+                }
+            }
+
+            if (ret != null && RangerUserStoreDeltaUtil.getDeltaSize(ret) > RangerUserStoreDeltaUtil.getSize(userStore) * maxUserStoreDeltasRatio) {
+                LOG.debug("RangerUserStoreCache.getUserStoreDeltas(lastKnownUserStoreVersion={}): deltas are too large, returning complete userstore", lastKnownUserStoreVersion);
+
+                ret = null;
+            }
+        }
+
+        LOG.debug("<== RangerUserStoreCache.getUserStoreDeltas(lastKnownUserStoreVersion={}, userStoreVersion={}): ret={}", lastKnownUserStoreVersion, userStore.getUserStoreVersion(), ret);
+
+        return ret;
+    }
 }
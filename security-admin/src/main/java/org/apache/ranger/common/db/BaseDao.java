@@ -40,7 +40,10 @@
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class BaseDao<T> {
     private static final Logger logger = LoggerFactory.getLogger(BaseDao.class);
@@ -93,7 +96,7 @@ public List<T> batchCreate(List<T> obj) {
         for (int n = 0; n < obj.size(); ++n) {
             em.persist(obj.get(n));
 
-            if (!RangerBizUtil.isBulkMode() && (n % RangerBizUtil.BATCH_PERSIST_SIZE == 0)) {
+            if (!RangerBizUtil.isBulkMode() && ((n + 1) % RangerBizUtil.BATCH_PERSIST_SIZE == 0)) {
                 em.flush();
             }
         }
@@ -127,6 +130,36 @@ public void batchDeleteByIds(String namedQuery, List<Long> ids, String paramName
         }
     }
 
+    /*
+    Returns ids of entities having the given names, using the named query that selects (name, id) pairs for names in
+    the parameter 'names'. Names are queried in chunks of ranger.admin.dao.batch.delete.batch.size, to stay within the
+    limits databases have on the number of IN list items. Names not found in the database are absent in the returned map.
+     */
+    public Map<String, Long> getIdsByNames(String namedQuery, Collection<String> names) {
+        Map<String, Long> ret = new HashMap<>();
+
+        if (names == null || names.isEmpty()) {
+            return ret;
+        }
+
+        List<String> nameList  = new ArrayList<>(names);
+        int          chunkSize = BATCH_DELETE_BATCH_SIZE <= 0 ? nameList.size() : BATCH_DELETE_BATCH_SIZE;
+
+        for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += chunkSize) {
+            int toIndex = Math.min(fromIndex + chunkSize, nameList.size());
+
+            List<Object[]> rows = getEntityManager().createNamedQuery(namedQuery, Object[].class).setParameter("names", nameList.subList(fromIndex, toIndex)).getResultList();
+
+            if (rows != null) {
+                for (Object[] row : rows) {
+                    ret.put((String) row[0], (Long) row[1]);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public T update(T obj) {
         em.merge(obj);
 
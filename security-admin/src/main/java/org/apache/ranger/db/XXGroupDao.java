@@ -32,6 +32,7 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,10 @@ public XXGroup findByGroupName(String groupName) {
         }
     }
 
+    public Map<String, Long> getIdsByGroupNames(Collection<String> groupNames) {
+        return getIdsByNames("XXGroup.getIdsByNames", groupNames);
+    }
+
     public Map<Long, String> getAllGroupIdNames() {
         Map<Long, String> groups = new HashMap<>();
 
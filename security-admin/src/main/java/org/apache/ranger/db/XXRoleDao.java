@@ -25,8 +25,10 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class XXRoleDao extends BaseDao<XXRole> {
@@ -61,6 +63,10 @@ public XXRole findByRoleName(String roleName) {
         }
     }
 
+    public Map<String, Long> getIdsByRoleNames(Collection<String> roleNames) {
+        return getIdsByNames("XXRole.getIdsByNames", roleNames);
+    }
+
     public List<XXRole> findByServiceId(Long serviceId) {
         List<XXRole> ret;
 
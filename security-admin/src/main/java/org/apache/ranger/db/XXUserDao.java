@@ -33,6 +33,7 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -68,6 +69,10 @@ public XXUser findByUserName(String name) {
         return null;
     }
 
+    public Map<String, Long> getIdsByUserNames(Collection<String> userNames) {
+        return getIdsByNames("XXUser.getIdsByNames", userNames);
+    }
+
     public XXUser findByPortalUserId(Long portalUserId) {
         if (portalUserId == null) {
             return null;
@@ -19,27 +19,47 @@
 
 package org.apache.ranger.metrics;
 
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.biz.ServiceDBStore;
 import org.apache.ranger.biz.XUserMgr;
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.service.XGroupService;
+import org.apache.ranger.util.RangerAdminCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.annotation.PostConstruct;
+
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Serves Ranger Admin metrics from an in-memory snapshot. Each metric is computed by its aggregate query when first
+ * requested, and then refreshed in the background every ranger.admin.metrics.refresh.interval.ms; so scrapes don't
+ * query the database and the values returned are at most one interval old.
+ */
 @Service
-@Transactional(propagation = Propagation.REQUIRES_NEW)
 public class RangerMetricsFetcher {
     private static final Logger LOG = LoggerFactory.getLogger(RangerMetricsFetcher.class);
 
+    public static final String PROP_METRICS_REFRESH_INTERVAL_MS    = "ranger.admin.metrics.refresh.interval.ms";
+    public static final long   DEFAULT_METRICS_REFRESH_INTERVAL_MS = 60 * 1000L;
+
+    private static final String METRIC_USERS             = "users";
+    private static final String METRIC_GROUPS            = "groups";
+    private static final String METRIC_SERVICES          = "services";
+    private static final String METRIC_POLICIES_PREFIX   = "policies.";
+    private static final String METRIC_DENY_CONDITIONS   = "deny-conditions";
+    private static final String METRIC_CONTEXT_ENRICHERS = "context-enrichers";
+    private static final String TOTAL                    = "Total";
+
     @Autowired
     private XUserMgr xUserMgr;
 
@@ -49,11 +69,93 @@ public class RangerMetricsFetcher {
     @Autowired
     private XGroupService groupService;
 
+    @Autowired
+    @Qualifier(value = "transactionManager")
+    private PlatformTransactionManager txManager;
+
+    private MetricsCache metricsCache;
+
+    @PostConstruct
+    public void init() {
+        long refreshIntervalMs = RangerAdminConfig.getInstance().getLong(PROP_METRICS_REFRESH_INTERVAL_MS, DEFAULT_METRICS_REFRESH_INTERVAL_MS);
+
+        LOG.info("{}={}", PROP_METRICS_REFRESH_INTERVAL_MS, refreshIntervalMs);
+
+        metricsCache = new MetricsCache(new MetricsLoader(txManager), refreshIntervalMs);
+    }
+
     public Long getGroupCount() {
-        return groupService.getAllGroupCount();
+        Long ret = getMetrics(METRIC_GROUPS).get(TOTAL);
+
+        return ret != null ? ret : 0L;
     }
 
     public Map<String, Long> getUserMetrics() {
+        return getMetrics(METRIC_USERS);
+    }
+
+    public Map<String, Long> getRangerServiceMetrics() {
+        return getMetrics(METRIC_SERVICES);
+    }
+
+    public Map<String, Long> getPolicyMetrics(Integer policyType) {
+        requireNonNull(policyType, "Policy type must not be null to get policy metrics.");
+
+        return getMetrics(METRIC_POLICIES_PREFIX + policyType);
+    }
+
+    public Map<String, Long> getDenyConditionsMetrics() {
+        return getMetrics(METRIC_DENY_CONDITIONS);
+    }
+
+    public Map<String, Long> getContextEnrichersMetrics() {
+        return getMetrics(METRIC_CONTEXT_ENRICHERS);
+    }
+
+    Map<String, Long> computeMetrics(String metric) {
+        final Map<String, Long> ret;
+
+        switch (metric) {
+            case METRIC_USERS:
+                ret = computeUserMetrics();
+                break;
+            case METRIC_GROUPS:
+                ret = Collections.singletonMap(TOTAL, groupService.getAllGroupCount());
+                break;
+            case METRIC_SERVICES:
+                ret = withTotal(svcStore.getServiceCountByType());
+                break;
+            case METRIC_DENY_CONDITIONS:
+                ret = withTotal(svcStore.getPolicyCountByDenyConditionsAndServiceDef());
+                break;
+            case METRIC_CONTEXT_ENRICHERS:
+                ret = computeContextEnrichersMetrics();
+                break;
+            default:
+                if (metric.startsWith(METRIC_POLICIES_PREFIX)) {
+                    ret = withTotal(svcStore.getPolicyCountByTypeAndServiceType(Integer.valueOf(metric.substring(METRIC_POLICIES_PREFIX.length()))));
+                } else {
+                    throw new IllegalArgumentException("unknown metric: " + metric);
+                }
+                break;
+        }
+
+        return Collections.unmodifiableMap(ret);
+    }
+
+    private Map<String, Long> getMetrics(String metric) {
+        Map<String, Long> ret = metricsCache.get(metric);
+
+        if (ret == null) {
+            LOG.warn("RangerMetricsFetcher.getMetrics({}): metrics not available", metric);
+
+            ret = Collections.emptyMap();
+        }
+
+        return ret;
+    }
+
+    private Map<String, Long> computeUserMetrics() {
         Map<String, Long> ret   = new HashMap<>();
         long              total = 0L;
 
@@ -83,70 +185,55 @@ public Map<String, Long> getUserMetrics() {
             total += entry.getValue();
         }
 
-        ret.put("Total", total);
+        ret.put(TOTAL, total);
 
         return ret;
     }
 
-    public Map<String, Long> getRangerServiceMetrics() {
+    private Map<String, Long> computeContextEnrichersMetrics() {
         Map<String, Long> ret   = new HashMap<>();
         long              total = 0L;
 
-        for (Map.Entry<String, Long> entry : svcStore.getServiceCountByType().entrySet()) {
-            ret.put(entry.getKey(), entry.getValue());
+        for (String serviceDef : svcStore.findAllServiceDefNamesHavingContextEnrichers()) {
+            ret.put(serviceDef, 1L);
 
-            total += entry.getValue();
+            total++;
         }
 
-        ret.put("Total", total);
+        ret.put(TOTAL, total);
 
         return ret;
     }
 
-    public Map<String, Long> getPolicyMetrics(Integer policyType) {
-        requireNonNull(policyType, "Policy type must not be null to get policy metrics.");
-
+    private static Map<String, Long> withTotal(Map<String, Long> counts) {
         Map<String, Long> ret   = new HashMap<>();
         long              total = 0L;
 
-        for (Map.Entry<String, Long> entry : svcStore.getPolicyCountByTypeAndServiceType(policyType).entrySet()) {
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
             ret.put(entry.getKey(), entry.getValue());
 
             total += entry.getValue();
         }
 
-        ret.put("Total", total);
+        ret.put(TOTAL, total);
 
         return ret;
     }
 
-    public Map<String, Long> getDenyConditionsMetrics() {
-        Map<String, Long> ret   = new HashMap<>();
-        long              total = 0L;
-
-        for (Map.Entry<String, Long> entry : svcStore.getPolicyCountByDenyConditionsAndServiceDef().entrySet()) {
-            ret.put(entry.getKey(), entry.getValue());
-
-            total += entry.getValue();
+    private static class MetricsCache extends RangerAdminCache<String, Map<String, Long>> {
+        MetricsCache(MetricsLoader loader, long refreshIntervalMs) {
+            super("metrics", loader, 1, RefreshMode.ON_SCHEDULE, refreshIntervalMs, DEFAULT_ADMIN_CACHE_VALUE_INIT_TIMEOUT_MS, DEFAULT_ADMIN_CACHE_VALUE_REFRESH_TIMEOUT_MS);
         }
-
-        ret.put("Total", total);
-
-        return ret;
     }
 
-    public Map<String, Long> getContextEnrichersMetrics() {
-        Map<String, Long> ret   = new HashMap<>();
-        long              total = 0L;
-
-        for (String serviceDef : svcStore.findAllServiceDefNamesHavingContextEnrichers()) {
-            ret.put(serviceDef, 1L);
-
-            total++;
+    private class MetricsLoader extends RangerAdminCache.RangerDBValueLoader<String, Map<String, Long>> {
+        MetricsLoader(PlatformTransactionManager txManager) {
+            super(txManager);
         }
 
-        ret.put("Total", total);
-
-        return ret;
+        @Override
+        protected RangerAdminCache.RefreshableValue<Map<String, Long>> dbLoad(String metric, RangerAdminCache.RefreshableValue<Map<String, Long>> currentValue) {
+            return new RangerAdminCache.RefreshableValue<>(computeMetrics(metric));
+        }
     }
 }
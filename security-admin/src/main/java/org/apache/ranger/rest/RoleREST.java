@@ -962,7 +962,7 @@ public List<String> getUserRoles(@PathParam("user") String userName, @Context Ht
     @GET
     @Path("/download/{serviceName}")
     @Produces("application/json")
-    public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
+    public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
         LOG.debug("==> RoleREST.getRangerRolesIfUpdated({}, {}, {})", serviceName, lastKnownRoleVersion, lastActivationTime);
 
         RangerRoles ret               = null;
@@ -985,7 +985,7 @@ public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serv
 
         if (isValid) {
             try {
-                RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion, supportsRoleDeltas);
 
                 if (roles == null) {
                     downloadedVersion = lastKnownRoleVersion;
@@ -1022,7 +1022,7 @@ public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serv
     @GET
     @Path("/secure/download/{serviceName}")
     @Produces("application/json")
-    public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
+    public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
         LOG.debug("==> RoleREST.getSecureRangerRolesIfUpdated({}, {}, {})", serviceName, lastKnownRoleVersion, lastActivationTime);
         RangerRoles ret               = null;
         int         httpCode          = HttpServletResponse.SC_OK;
@@ -1073,7 +1073,7 @@ public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") Strin
                 }
 
                 if (isAllowed) {
-                    RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion);
+                    RangerRoles roles = roleStore.getRoles(serviceName, lastKnownRoleVersion, supportsRoleDeltas);
                     if (roles == null) {
                         downloadedVersion = lastKnownRoleVersion;
                         httpCode          = HttpServletResponse.SC_NOT_MODIFIED;
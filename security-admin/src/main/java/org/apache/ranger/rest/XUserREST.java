@@ -1375,7 +1375,7 @@ public void deleteSingleGroupByGroupId(@Context HttpServletRequest request, @Pat
     @GET
     @Path("/download/{serviceName}")
     @Produces("application/json")
-    public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
+    public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS) Boolean supportsUserStoreDeltas, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
         logger.debug("==> XUserREST.getRangerUserStoreIfUpdated(serviceName={}, lastKnownUserStoreVersion={}, lastActivationTime={})", serviceName, lastKnownUserStoreVersion, lastActivationTime);
 
         RangerUserStore ret               = null;
@@ -1401,7 +1401,7 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
                 XXService xService = rangerDaoManager.getXXService().findByName(serviceName);
 
                 if (xService != null) {
-                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, supportsUserStoreDeltas);
 
                     if (rangerUserStore == null) {
                         downloadedVersion = lastKnownUserStoreVersion;
@@ -1437,7 +1437,7 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
     @GET
     @Path("/secure/download/{serviceName}")
     @Produces("application/json")
-    public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
+    public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName") String serviceName, @DefaultValue("-1") @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_USERSTORE_DELTAS) Boolean supportsUserStoreDeltas, @DefaultValue("") @QueryParam(RangerRESTUtils.REST_PARAM_CAPABILITIES) String pluginCapabilities, @Context HttpServletRequest request) {
         logger.debug("==> XUserREST.getSecureRangerUserStoreIfUpdated({}, {}, {})", serviceName, lastKnownUserStoreVersion, lastActivationTime);
 
         RangerUserStore ret               = null;
@@ -1485,7 +1485,7 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
                 }
 
                 if (isAllowed) {
-                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion);
+                    RangerUserStore rangerUserStore = xUserMgr.getRangerUserStoreIfUpdated(lastKnownUserStoreVersion, supportsUserStoreDeltas);
 
                     if (rangerUserStore == null) {
                         downloadedVersion = lastKnownUserStoreVersion;
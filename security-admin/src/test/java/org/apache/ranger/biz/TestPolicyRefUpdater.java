@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.biz;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXAccessTypeDefDao;
+import org.apache.ranger.db.XXDataMaskTypeDefDao;
+import org.apache.ranger.db.XXGroupDao;
+import org.apache.ranger.db.XXPolicyConditionDefDao;
+import org.apache.ranger.db.XXPolicyRefAccessTypeDao;
+import org.apache.ranger.db.XXPolicyRefConditionDao;
+import org.apache.ranger.db.XXPolicyRefDataMaskTypeDao;
+import org.apache.ranger.db.XXPolicyRefGroupDao;
+import org.apache.ranger.db.XXPolicyRefResourceDao;
+import org.apache.ranger.db.XXPolicyRefRoleDao;
+import org.apache.ranger.db.XXPolicyRefUserDao;
+import org.apache.ranger.db.XXResourceDefDao;
+import org.apache.ranger.db.XXRoleDao;
+import org.apache.ranger.db.XXUserDao;
+import org.apache.ranger.entity.XXAccessTypeDef;
+import org.apache.ranger.entity.XXDataMaskTypeDef;
+import org.apache.ranger.entity.XXPolicy;
+import org.apache.ranger.entity.XXPolicyConditionDef;
+import org.apache.ranger.entity.XXPolicyRefAccessType;
+import org.apache.ranger.entity.XXPolicyRefCondition;
+import org.apache.ranger.entity.XXPolicyRefDataMaskType;
+import org.apache.ranger.entity.XXPolicyRefGroup;
+import org.apache.ranger.entity.XXPolicyRefResource;
+import org.apache.ranger.entity.XXPolicyRefRole;
+import org.apache.ranger.entity.XXPolicyRefUser;
+import org.apache.ranger.entity.XXResourceDef;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.entity.XXUser;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.service.RangerAuditFields;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestPolicyRefUpdater {
+    private static final Long SERVICE_DEF_ID = 1L;
+    private static final Long SERVICE_ID     = 2L;
+    private static final Long POLICY_ID      = 3L;
+
+    @InjectMocks
+    PolicyRefUpdater policyRefUpdater = new PolicyRefUpdater();
+
+    @Mock
+    RangerDaoManager daoMgr;
+
+    @Mock
+    RangerAuditFields<?> rangerAuditFields;
+
+    @Mock
+    RangerBizUtil rangerBizUtil;
+
+    @Mock
+    XXResourceDefDao xResourceDefDao;
+
+    @Mock
+    XXAccessTypeDefDao xAccessTypeDefDao;
+
+    @Mock
+    XXPolicyConditionDefDao xPolicyConditionDefDao;
+
+    @Mock
+    XXDataMaskTypeDefDao xDataMaskTypeDefDao;
+
+    @Mock
+    XXUserDao xUserDao;
+
+    @Mock
+    XXGroupDao xGroupDao;
+
+    @Mock
+    XXRoleDao xRoleDao;
+
+    @Mock
+    XXPolicyRefResourceDao xPolicyRefResourceDao;
+
+    @Mock
+    XXPolicyRefUserDao xPolicyRefUserDao;
+
+    @Mock
+    XXPolicyRefGroupDao xPolicyRefGroupDao;
+
+    @Mock
+    XXPolicyRefRoleDao xPolicyRefRoleDao;
+
+    @Mock
+    XXPolicyRefAccessTypeDao xPolicyRefAccessTypeDao;
+
+    @Mock
+    XXPolicyRefConditionDao xPolicyRefConditionDao;
+
+    @Mock
+    XXPolicyRefDataMaskTypeDao xPolicyRefDataMaskTypeDao;
+
+    @Before
+    public void setup() {
+        Mockito.when(daoMgr.getXXResourceDef()).thenReturn(xResourceDefDao);
+        Mockito.when(daoMgr.getXXAccessTypeDef()).thenReturn(xAccessTypeDefDao);
+        Mockito.when(daoMgr.getXXUser()).thenReturn(xUserDao);
+        Mockito.when(daoMgr.getXXGroup()).thenReturn(xGroupDao);
+        Mockito.when(daoMgr.getXXRole()).thenReturn(xRoleDao);
+        Mockito.when(daoMgr.getXXPolicyRefResource()).thenReturn(xPolicyRefResourceDao);
+        Mockito.when(daoMgr.getXXPolicyRefUser()).thenReturn(xPolicyRefUserDao);
+        Mockito.when(daoMgr.getXXPolicyRefGroup()).thenReturn(xPolicyRefGroupDao);
+        Mockito.when(daoMgr.getXXPolicyRefRole()).thenReturn(xPolicyRefRoleDao);
+        Mockito.when(daoMgr.getXXPolicyRefAccessType()).thenReturn(xPolicyRefAccessTypeDao);
+        Mockito.when(daoMgr.getXXPolicyRefCondition()).thenReturn(xPolicyRefConditionDao);
+        Mockito.when(daoMgr.getXXPolicyRefDataMaskType()).thenReturn(xPolicyRefDataMaskTypeDao);
+        Mockito.when(rangerAuditFields.populateAuditFields(Mockito.any(), Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    public void testCreateNewPolMappingResolvesNamesInBulk() throws Exception {
+        RangerPolicy policy      = createPolicy();
+        XXPolicy     xPolicy     = new XXPolicy();
+        XXServiceDef xServiceDef = new XXServiceDef();
+
+        xPolicy.setId(POLICY_ID);
+        xPolicy.setService(SERVICE_ID);
+        xServiceDef.setId(SERVICE_DEF_ID);
+
+        Map<String, Long> userIds = new HashMap<>();
+
+        userIds.put("user1", 11L);
+        userIds.put("user2", 12L);
+
+        Mockito.when(xResourceDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(resourceDef(21L, "database"), resourceDef(22L, "table")));
+        Mockito.when(xAccessTypeDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(accessTypeDef(31L, "select"), accessTypeDef(32L, "update")));
+        Mockito.when(xUserDao.getIdsByUserNames(new HashSet<>(Arrays.asList("user1", "user2", "user3")))).thenReturn(userIds);
+        Mockito.when(xGroupDao.getIdsByGroupNames(Collections.singleton("group1"))).thenReturn(Collections.singletonMap("group1", 41L));
+        Mockito.when(xRoleDao.getIdsByRoleNames(Collections.singleton("role1"))).thenReturn(Collections.singletonMap("role1", 51L));
+
+        XXUser user3 = new XXUser();
+
+        user3.setId(13L);
+        user3.setName("user3");
+
+        // user3 is not returned by the bulk lookup, e.g. due to case-insensitive collation; it must be resolved individually
+        Mockito.when(xUserDao.findByUserName("user3")).thenReturn(user3);
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy, xPolicy, xServiceDef, false);
+
+        ArgumentCaptor<List<XXPolicyRefResource>>   resources   = captor();
+        ArgumentCaptor<List<XXPolicyRefAccessType>> accessTypes = captor();
+        ArgumentCaptor<List<XXPolicyRefUser>>       users       = captor();
+        ArgumentCaptor<List<XXPolicyRefGroup>>      groups      = captor();
+        ArgumentCaptor<List<XXPolicyRefRole>>       roles       = captor();
+        ArgumentCaptor<XXPolicyRefUser>             user        = ArgumentCaptor.forClass(XXPolicyRefUser.class);
+
+        Mockito.verify(xPolicyRefResourceDao).batchCreate(resources.capture());
+        Mockito.verify(xPolicyRefAccessTypeDao).batchCreate(accessTypes.capture());
+        Mockito.verify(xPolicyRefUserDao).batchCreate(users.capture());
+        Mockito.verify(xPolicyRefGroupDao).batchCreate(groups.capture());
+        Mockito.verify(xPolicyRefRoleDao).batchCreate(roles.capture());
+        Mockito.verify(xPolicyRefUserDao).create(user.capture());
+
+        Assert.assertEquals(2, resources.getValue().size());
+        Assert.assertEquals(1, accessTypes.getValue().size());
+        Assert.assertEquals(Long.valueOf(31L), accessTypes.getValue().get(0).getAccessDefId());
+        Assert.assertEquals(2, users.getValue().size());
+        Assert.assertEquals(1, groups.getValue().size());
+        Assert.assertEquals(Long.valueOf(41L), groups.getValue().get(0).getGroupId());
+        Assert.assertEquals(1, roles.getValue().size());
+        Assert.assertEquals(Long.valueOf(51L), roles.getValue().get(0).getRoleId());
+        Assert.assertEquals(Long.valueOf(13L), user.getValue().getUserId());
+
+        Mockito.verify(xResourceDefDao, Mockito.never()).findByNameAndPolicyId(Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(xAccessTypeDefDao, Mockito.never()).findByNameAndServiceId(Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(xUserDao, Mockito.never()).findByUserName("user1");
+        Mockito.verify(xGroupDao, Mockito.never()).findByGroupName(Mockito.anyString());
+        Mockito.verify(xRoleDao, Mockito.never()).findByRoleName(Mockito.anyString());
+    }
+
+    @Test
+    public void testLookupsAndInsertsAreBatchedPerPolicy() throws Exception {
+        final int userCount  = 200;
+        final int groupCount = 50;
+        final int roleCount  = 20;
+
+        RangerPolicy             policy      = new RangerPolicy();
+        RangerDataMaskPolicyItem item        = new RangerDataMaskPolicyItem();
+        XXPolicy                 xPolicy     = new XXPolicy();
+        XXServiceDef             xServiceDef = new XXServiceDef();
+        Map<String, Long>        userIds     = createIds("user", userCount, 1000L);
+        Map<String, Long>        groupIds    = createIds("group", groupCount, 2000L);
+        Map<String, Long>        roleIds     = createIds("role", roleCount, 3000L);
+
+        xPolicy.setId(POLICY_ID);
+        xPolicy.setService(SERVICE_ID);
+        xServiceDef.setId(SERVICE_DEF_ID);
+
+        item.setUsers(new ArrayList<>(userIds.keySet()));
+        item.setGroups(new ArrayList<>(groupIds.keySet()));
+        item.setRoles(new ArrayList<>(roleIds.keySet()));
+        item.setAccesses(Arrays.asList(new RangerPolicyItemAccess("select"), new RangerPolicyItemAccess("update")));
+        item.setConditions(Collections.singletonList(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.0.0.0/8"))));
+        item.setDataMaskInfo(new RangerPolicyItemDataMaskInfo("MASK", null, null));
+
+        policy.setId(POLICY_ID);
+        policy.setName("test-datamask-policy");
+        policy.setService("hive");
+        policy.setPolicyType(RangerPolicy.POLICY_TYPE_DATAMASK);
+        policy.getResources().put("database", new RangerPolicyResource("db1"));
+        policy.getResources().put("table", new RangerPolicyResource("tbl1"));
+        policy.setDataMaskPolicyItems(Collections.singletonList(item));
+
+        Mockito.when(daoMgr.getXXPolicyConditionDef()).thenReturn(xPolicyConditionDefDao);
+        Mockito.when(daoMgr.getXXDataMaskTypeDef()).thenReturn(xDataMaskTypeDefDao);
+        Mockito.when(xResourceDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(resourceDef(21L, "database"), resourceDef(22L, "table")));
+        Mockito.when(xAccessTypeDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Arrays.asList(accessTypeDef(31L, "select"), accessTypeDef(32L, "update")));
+        Mockito.when(xPolicyConditionDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Collections.singletonList(conditionDef(61L, "ip-range")));
+        Mockito.when(xDataMaskTypeDefDao.findByServiceDefId(SERVICE_DEF_ID)).thenReturn(Collections.singletonList(dataMaskTypeDef(71L, "MASK")));
+        Mockito.when(xUserDao.getIdsByUserNames(userIds.keySet())).thenReturn(userIds);
+        Mockito.when(xGroupDao.getIdsByGroupNames(groupIds.keySet())).thenReturn(groupIds);
+        Mockito.when(xRoleDao.getIdsByRoleNames(roleIds.keySet())).thenReturn(roleIds);
+
+        policyRefUpdater.createNewPolMappingForRefTable(policy, xPolicy, xServiceDef, false);
+
+        // one lookup per reference type, regardless of the number of names in the policy
+        Mockito.verify(xUserDao, Mockito.times(1)).getIdsByUserNames(Mockito.anySet());
+        Mockito.verify(xGroupDao, Mockito.times(1)).getIdsByGroupNames(Mockito.anySet());
+        Mockito.verify(xRoleDao, Mockito.times(1)).getIdsByRoleNames(Mockito.anySet());
+        Mockito.verify(xResourceDefDao, Mockito.times(1)).findByServiceDefId(SERVICE_DEF_ID);
+        Mockito.verify(xAccessTypeDefDao, Mockito.times(1)).findByServiceDefId(SERVICE_DEF_ID);
+        Mockito.verify(xPolicyConditionDefDao, Mockito.times(1)).findByServiceDefId(SERVICE_DEF_ID);
+        Mockito.verify(xDataMaskTypeDefDao, Mockito.times(1)).findByServiceDefId(SERVICE_DEF_ID);
+        Mockito.verify(xUserDao, Mockito.never()).findByUserName(Mockito.anyString());
+        Mockito.verify(xGroupDao, Mockito.never()).findByGroupName(Mockito.anyString());
+        Mockito.verify(xRoleDao, Mockito.never()).findByRoleName(Mockito.anyString());
+
+        // one batch insert per ref table, with a row for each referenced name
+        ArgumentCaptor<List<XXPolicyRefResource>>     resources     = captor();
+        ArgumentCaptor<List<XXPolicyRefAccessType>>   accessTypes   = captor();
+        ArgumentCaptor<List<XXPolicyRefCondition>>    conditions    = captor();
+        ArgumentCaptor<List<XXPolicyRefDataMaskType>> dataMaskTypes = captor();
+        ArgumentCaptor<List<XXPolicyRefUser>>         users         = captor();
+        ArgumentCaptor<List<XXPolicyRefGroup>>        groups        = captor();
+        ArgumentCaptor<List<XXPolicyRefRole>>         roles         = captor();
+
+        Mockito.verify(xPolicyRefResourceDao, Mockito.times(1)).batchCreate(resources.capture());
+        Mockito.verify(xPolicyRefAccessTypeDao, Mockito.times(1)).batchCreate(accessTypes.capture());
+        Mockito.verify(xPolicyRefConditionDao, Mockito.times(1)).batchCreate(conditions.capture());
+        Mockito.verify(xPolicyRefDataMaskTypeDao, Mockito.times(1)).batchCreate(dataMaskTypes.capture());
+        Mockito.verify(xPolicyRefUserDao, Mockito.times(1)).batchCreate(users.capture());
+        Mockito.verify(xPolicyRefGroupDao, Mockito.times(1)).batchCreate(groups.capture());
+        Mockito.verify(xPolicyRefRoleDao, Mockito.times(1)).batchCreate(roles.capture());
+        Mockito.verify(xPolicyRefUserDao, Mockito.never()).create(Mockito.any());
+        Mockito.verify(xPolicyRefGroupDao, Mockito.never()).create(Mockito.any());
+        Mockito.verify(xPolicyRefRoleDao, Mockito.never()).create(Mockito.any());
+
+        Assert.assertEquals(2, resources.getValue().size());
+        Assert.assertEquals(2, accessTypes.getValue().size());
+        Assert.assertEquals(1, conditions.getValue().size());
+        Assert.assertEquals(Long.valueOf(61L), conditions.getValue().get(0).getConditionDefId());
+        Assert.assertEquals(1, dataMaskTypes.getValue().size());
+        Assert.assertEquals(Long.valueOf(71L), dataMaskTypes.getValue().get(0).getDataMaskDefId());
+        Assert.assertEquals(userCount, users.getValue().size());
+        Assert.assertEquals(groupCount, groups.getValue().size());
+        Assert.assertEquals(roleCount, roles.getValue().size());
+
+        for (XXPolicyRefUser refUser : users.getValue()) {
+            Assert.assertEquals(userIds.get(refUser.getUserName()), refUser.getUserId());
+        }
+    }
+
+    private static Map<String, Long> createIds(String namePrefix, int count, long firstId) {
+        Map<String, Long> ret = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            ret.put(namePrefix + i, firstId + i);
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicy createPolicy() {
+        RangerPolicy     policy = new RangerPolicy();
+        RangerPolicyItem item1  = new RangerPolicyItem();
+        RangerPolicyItem item2  = new RangerPolicyItem();
+
+        policy.setId(POLICY_ID);
+        policy.setName("test-policy");
+        policy.setService("hive");
+        policy.getResources().put("database", new RangerPolicyResource("db1"));
+        policy.getResources().put("table", new RangerPolicyResource("tbl1"));
+
+        item1.setUsers(Arrays.asList("user1", "user2"));
+        item1.setGroups(Collections.singletonList("group1"));
+        item1.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        item2.setUsers(Arrays.asList("user2", "user3"));
+        item2.setRoles(Collections.singletonList("role1"));
+        item2.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        policy.setPolicyItems(Arrays.asList(item1, item2));
+
+        return policy;
+    }
+
+    private static XXResourceDef resourceDef(Long id, String name) {
+        XXResourceDef ret = new XXResourceDef();
+
+        ret.setId(id);
+        ret.setName(name);
+
+        return ret;
+    }
+
+    private static XXAccessTypeDef accessTypeDef(Long id, String name) {
+        XXAccessTypeDef ret = new XXAccessTypeDef();
+
+        ret.setId(id);
+        ret.setName(name);
+
+        return ret;
+    }
+
+    private static XXPolicyConditionDef conditionDef(Long id, String name) {
+        XXPolicyConditionDef ret = new XXPolicyConditionDef();
+
+        ret.setId(id);
+        ret.setName(name);
+
+        return ret;
+    }
+
+    private static XXDataMaskTypeDef dataMaskTypeDef(Long id, String name) {
+        XXDataMaskTypeDef ret = new XXDataMaskTypeDef();
+
+        ret.setId(id);
+        ret.setName(name);
+
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArgumentCaptor<List<T>> captor() {
+        return ArgumentCaptor.forClass((Class<List<T>>) (Class<?>) List.class);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerAccessTypeDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.store.RoleStore;
+import org.apache.ranger.plugin.store.SecurityZoneStore;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestRangerPolicyAdminCache {
+    private static final String SERVICE_NAME = "hivedev";
+
+    @Test
+    public void testPolicyChangesAreAppliedAsDeltas() throws Exception {
+        ServiceStore      svcStore  = Mockito.mock(ServiceStore.class);
+        RoleStore         roleStore = Mockito.mock(RoleStore.class);
+        SecurityZoneStore zoneStore = Mockito.mock(SecurityZoneStore.class);
+        RangerRoles       roles     = new RangerRoles();
+
+        roles.setRoleVersion(1L);
+
+        ServicePolicies v1 = createServicePolicies(1L, policy(1L, 1L, "db1", "user1"), policy(2L, 1L, "db2", "user2"));
+        ServicePolicies v2 = createServicePolicies(2L, policy(1L, 2L, "db1", "user3"), policy(2L, 1L, "db2", "user2"), policy(3L, 1L, "db3", "user1"));
+
+        Mockito.when(svcStore.serviceExists(SERVICE_NAME)).thenReturn(true);
+        Mockito.when(roleStore.getRoles(Mockito.eq(SERVICE_NAME), Mockito.anyLong())).thenReturn(roles);
+        Mockito.when(svcStore.getServicePoliciesIfUpdated(Mockito.eq(SERVICE_NAME), Mockito.eq(-1L), Mockito.anyBoolean())).thenReturn(v1);
+        Mockito.when(svcStore.getServicePoliciesIfUpdated(Mockito.eq(SERVICE_NAME), Mockito.eq(1L), Mockito.anyBoolean())).thenReturn(v2);
+
+        RangerPolicyAdminCache    cache   = new RangerPolicyAdminCache(100);
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.evaluateDelegateAdminOnly = true;
+
+        RangerPolicyAdmin admin1 = cache.getServicePoliciesAdmin(SERVICE_NAME, svcStore, roleStore, zoneStore, options);
+
+        Assert.assertEquals(1L, admin1.getPolicyVersion());
+        Assert.assertTrue(isAllowed(admin1, "db1", "user1"));
+        Assert.assertFalse(isAllowed(admin1, "db1", "user3"));
+
+        RangerPolicyAdmin admin2 = cache.getServicePoliciesAdmin(SERVICE_NAME, svcStore, roleStore, zoneStore, options);
+
+        Assert.assertNotSame(admin1, admin2);
+        Assert.assertEquals(2L, admin2.getPolicyVersion());
+        Assert.assertFalse(isAllowed(admin2, "db1", "user1"));
+        Assert.assertTrue(isAllowed(admin2, "db1", "user3"));
+        Assert.assertTrue(isAllowed(admin2, "db2", "user2"));
+        Assert.assertTrue(isAllowed(admin2, "db3", "user1"));
+    }
+
+    @Test
+    public void testCachedPoliciesAreNotUpdatedInPlace() throws Exception {
+        ServiceStore      svcStore  = Mockito.mock(ServiceStore.class);
+        RoleStore         roleStore = Mockito.mock(RoleStore.class);
+        SecurityZoneStore zoneStore = Mockito.mock(SecurityZoneStore.class);
+        RangerRoles       roles     = new RangerRoles();
+
+        roles.setRoleVersion(1L);
+
+        // RangerServicePoliciesCache updates the ServicePolicies instance it returned earlier
+        ServicePolicies policies = createServicePolicies(1L, policy(1L, 1L, "db1", "user1"), policy(2L, 1L, "db2", "user2"));
+
+        Mockito.when(svcStore.serviceExists(SERVICE_NAME)).thenReturn(true);
+        Mockito.when(roleStore.getRoles(Mockito.eq(SERVICE_NAME), Mockito.anyLong())).thenReturn(roles);
+        Mockito.when(svcStore.getServicePoliciesIfUpdated(Mockito.eq(SERVICE_NAME), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(policies);
+
+        RangerPolicyAdminCache    cache   = new RangerPolicyAdminCache(100);
+        RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+        options.evaluateDelegateAdminOnly = true;
+
+        RangerPolicyAdmin admin1 = cache.getServicePoliciesAdmin(SERVICE_NAME, svcStore, roleStore, zoneStore, options);
+
+        Assert.assertTrue(isAllowed(admin1, "db1", "user1"));
+
+        policies.setPolicies(Arrays.asList(policy(1L, 2L, "db1", "user3"), policy(2L, 1L, "db2", "user2")));
+        policies.setPolicyVersion(2L);
+
+        RangerPolicyAdmin admin2 = cache.getServicePoliciesAdmin(SERVICE_NAME, svcStore, roleStore, zoneStore, options);
+
+        Assert.assertNotSame(admin1, admin2);
+        Assert.assertEquals(2L, admin2.getPolicyVersion());
+        Assert.assertFalse(isAllowed(admin2, "db1", "user1"));
+        Assert.assertTrue(isAllowed(admin2, "db1", "user3"));
+        Assert.assertTrue(isAllowed(admin2, "db2", "user2"));
+    }
+
+    @Test
+    public void testComputePolicyDeltas() {
+        RangerPolicyAdminCache cache = new RangerPolicyAdminCache(100);
+        ServicePolicies        v1    = createServicePolicies(1L, policy(1L, 1L, "db1", "user1"), policy(2L, 1L, "db2", "user2"), policy(3L, 1L, "db3", "user3"));
+        ServicePolicies        v2    = createServicePolicies(2L, policy(1L, 1L, "db1", "user1"), policy(2L, 2L, "db2", "user1"), policy(4L, 1L, "db4", "user4"));
+        ServicePolicies        delta = cache.computePolicyDeltas(v1, v2);
+
+        Map<Long, Integer> changeTypes = new HashMap<>();
+
+        for (RangerPolicyDelta policyDelta : delta.getPolicyDeltas()) {
+            changeTypes.put(policyDelta.getPolicyId(), policyDelta.getChangeType());
+        }
+
+        Assert.assertEquals(Long.valueOf(2L), delta.getPolicyVersion());
+        Assert.assertEquals(3, changeTypes.size());
+        Assert.assertEquals(Integer.valueOf(RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE), changeTypes.get(2L));
+        Assert.assertEquals(Integer.valueOf(RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE), changeTypes.get(3L));
+        Assert.assertEquals(Integer.valueOf(RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE), changeTypes.get(4L));
+
+        // too many changes for the configured limit
+        Assert.assertNull(new RangerPolicyAdminCache(50).computePolicyDeltas(v1, v2));
+
+        // a change to the service-def requires a new policy-engine
+        ServicePolicies v3 = createServicePolicies(3L, policy(1L, 1L, "db1", "user1"), policy(2L, 2L, "db2", "user1"), policy(4L, 1L, "db4", "user4"));
+
+        v3.getServiceDef().setVersion(2L);
+
+        Assert.assertNull(cache.computePolicyDeltas(v2, v3));
+    }
+
+    private static boolean isAllowed(RangerPolicyAdmin policyAdmin, String database, String user) {
+        RangerPolicy     policy = new RangerPolicy();
+        RangerPolicyItem item   = new RangerPolicyItem();
+
+        item.setUsers(Collections.singletonList(user));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+        policy.setService(SERVICE_NAME);
+        policy.getResources().put("database", new RangerPolicyResource(database));
+        policy.getResources().put("table", new RangerPolicyResource("*"));
+        policy.setPolicyItems(Collections.singletonList(item));
+
+        return policyAdmin.isDelegatedAdminAccessAllowedForRead(policy, user, Collections.emptySet(), Collections.emptySet(), new HashMap<>());
+    }
+
+    private static ServicePolicies createServicePolicies(Long version, RangerPolicy... policies) {
+        ServicePolicies ret = new ServicePolicies();
+
+        ret.setServiceName(SERVICE_NAME);
+        ret.setServiceId(1L);
+        ret.setPolicyVersion(version);
+        ret.setServiceDef(createServiceDef());
+        ret.setPolicies(Arrays.asList(policies));
+
+        return ret;
+    }
+
+    private static RangerServiceDef createServiceDef() {
+        RangerServiceDef  serviceDef = new RangerServiceDef();
+        RangerResourceDef database   = new RangerResourceDef();
+        RangerResourceDef table      = new RangerResourceDef();
+
+        database.setName("database");
+        database.setLevel(1);
+        database.setMandatory(true);
+        table.setName("table");
+        table.setLevel(2);
+        table.setParent("database");
+        table.setMandatory(true);
+
+        serviceDef.setId(3L);
+        serviceDef.setName("hive");
+        serviceDef.setVersion(1L);
+        serviceDef.setResources(Arrays.asList(database, table));
+        serviceDef.setAccessTypes(Collections.singletonList(new RangerAccessTypeDef(1L, "select", "select", null, null)));
+
+        return serviceDef;
+    }
+
+    private static RangerPolicy policy(Long id, Long version, String database, String user) {
+        RangerPolicy     ret  = new RangerPolicy();
+        RangerPolicyItem item = new RangerPolicyItem();
+
+        item.setUsers(Collections.singletonList(user));
+        item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+        item.setDelegateAdmin(true);
+
+        ret.setId(id);
+        ret.setVersion(version);
+        ret.setName("policy-" + id);
+        ret.setService(SERVICE_NAME);
+        ret.setServiceType("hive");
+        ret.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+        ret.getResources().put("database", new RangerPolicyResource(database));
+        ret.getResources().put("table", new RangerPolicyResource("*"));
+        ret.setPolicyItems(Collections.singletonList(item));
+
+        return ret;
+    }
+}
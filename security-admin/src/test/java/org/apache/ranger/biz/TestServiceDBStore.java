@@ -1503,7 +1503,6 @@ public void tess28updatePolicy() throws Exception {
         RangerPolicyResourceSignature signature = Mockito.mock(RangerPolicyResourceSignature.class);
         Mockito.when(factory.createPolicyResourceSignature(rangerPolicy)).thenReturn(signature);
         Mockito.when(!bizUtil.hasAccess(xService, null)).thenReturn(true);
-        Mockito.when(policyRefUpdater.cleanupRefTables(rangerPolicy)).thenReturn(true);
 
         RangerPolicy dbRangerPolicy = serviceDBStore.updatePolicy(rangerPolicy);
         Assert.assertNotNull(dbRangerPolicy);
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerService;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerContextEnricherDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.store.TagStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+
+public class TestRangerAdminTagEnricher {
+    private static final String SERVICE_NAME = "tagEnricherTest_hdfs";
+    private static final Long   SERVICE_ID   = 101L;
+
+    @Test
+    public void testTagIndexIsSharedAcrossEnrichers() throws Exception {
+        TagStore tagStore = setupStores(SERVICE_NAME, SERVICE_ID, false);
+
+        RangerAdminTagEnricher enricher1 = createEnricher(SERVICE_NAME);
+        RangerAdminTagEnricher enricher2 = createEnricher(SERVICE_NAME);
+
+        Assert.assertTrue(hasTag(enricher1, "/data/pii/file1", "PII"));
+        Assert.assertTrue(hasTag(enricher2, "/data/pii/file1", "PII"));
+        Assert.assertFalse(hasTag(enricher2, "/data/public/file1", "PII"));
+
+        // tags index built by the first enricher is reused by the second one
+        Assert.assertNotNull(enricher1.getEnrichedServiceTags());
+        Assert.assertSame(enricher1.getEnrichedServiceTags(), enricher2.getEnrichedServiceTags());
+
+        Mockito.verify(tagStore, Mockito.times(1)).getServiceTags(Mockito.eq(SERVICE_NAME), Mockito.anyLong());
+    }
+
+    @Test
+    public void testTagIndexIsNotSharedWithInPlaceTagUpdates() throws Exception {
+        String serviceName = SERVICE_NAME + "_inplace";
+
+        setupStores(serviceName, SERVICE_ID + 1, true);
+
+        RangerAdminTagEnricher enricher1 = createEnricher(serviceName);
+        RangerAdminTagEnricher enricher2 = createEnricher(serviceName);
+
+        Assert.assertTrue(hasTag(enricher1, "/data/pii/file1", "PII"));
+        Assert.assertTrue(hasTag(enricher2, "/data/pii/file1", "PII"));
+
+        // tag-deltas would be applied in place to the index, hence each enricher must build its own
+        Assert.assertNotNull(enricher1.getEnrichedServiceTags());
+        Assert.assertNotNull(enricher2.getEnrichedServiceTags());
+        Assert.assertNotSame(enricher1.getEnrichedServiceTags(), enricher2.getEnrichedServiceTags());
+        Assert.assertNotSame(enricher1.getEnrichedServiceTags().getServiceResourceTrie(), enricher2.getEnrichedServiceTags().getServiceResourceTrie());
+    }
+
+    private static TagStore setupStores(String serviceName, Long serviceId, boolean inPlaceTagUpdates) throws Exception {
+        TagStore                ret                   = Mockito.mock(TagStore.class);
+        ServiceStore            svcStore              = Mockito.mock(ServiceStore.class);
+        RangerDaoManager        daoManager            = Mockito.mock(RangerDaoManager.class);
+        XXServiceVersionInfoDao serviceVersionInfoDao = Mockito.mock(XXServiceVersionInfoDao.class);
+        XXServiceVersionInfo    serviceVersionInfo    = new XXServiceVersionInfo();
+        RangerService           service               = new RangerService();
+
+        service.setId(serviceId);
+        service.setName(serviceName);
+        serviceVersionInfo.setTagVersion(1L);
+
+        Mockito.when(ret.getServiceStore()).thenReturn(svcStore);
+        Mockito.when(ret.isInPlaceTagUpdateSupported()).thenReturn(inPlaceTagUpdates);
+        Mockito.when(ret.getTagVersion(serviceName)).thenReturn(1L);
+        Mockito.when(ret.getServiceTags(serviceName, -1L)).thenReturn(createServiceTags(serviceName, 1L));
+        Mockito.when(svcStore.getServiceByName(serviceName)).thenReturn(service);
+        Mockito.when(daoManager.getXXServiceVersionInfo()).thenReturn(serviceVersionInfoDao);
+        Mockito.when(serviceVersionInfoDao.findByServiceName(serviceName)).thenReturn(serviceVersionInfo);
+
+        RangerAdminTagEnricher.setTagStore(ret);
+        RangerAdminTagEnricher.setDaoManager(daoManager);
+
+        return ret;
+    }
+
+    private static boolean hasTag(RangerAdminTagEnricher enricher, String path, String tagType) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(Collections.singletonMap("path", path));
+        RangerAccessRequestImpl  request  = new RangerAccessRequestImpl(resource, "read", "user1", null, null);
+
+        resource.setServiceDef(createServiceDef());
+        enricher.enrich(request);
+
+        Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+
+        return tags != null && tags.stream().anyMatch(tag -> tagType.equals(tag.getType()));
+    }
+
+    private static RangerAdminTagEnricher createEnricher(String serviceName) {
+        RangerAdminTagEnricher ret = new RangerAdminTagEnricher();
+
+        ret.setServiceName(serviceName);
+        ret.setServiceDef(createServiceDef());
+        ret.setAppId("ranger-admin");
+        ret.setEnricherDef(new RangerContextEnricherDef(1L, "TagEnricher", RangerAdminTagEnricher.class.getName(), new HashMap<>()));
+
+        ret.init();
+
+        return ret;
+    }
+
+    private static RangerServiceDef createServiceDef() {
+        RangerServiceDef  ret  = new RangerServiceDef();
+        RangerResourceDef path = new RangerResourceDef();
+
+        path.setName("path");
+        path.setLevel(1);
+        path.setMandatory(true);
+        path.setRecursiveSupported(true);
+        path.setMatcher("org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher");
+        path.setMatcherOptions(Collections.singletonMap("wildCard", "true"));
+
+        ret.setId(1L);
+        ret.setName("hdfs");
+        ret.setVersion(1L);
+        ret.setResources(Collections.singletonList(path));
+
+        return ret;
+    }
+
+    private static ServiceTags createServiceTags(String serviceName, Long version) {
+        ServiceTags           ret      = new ServiceTags();
+        RangerServiceResource resource = new RangerServiceResource();
+        RangerTag             tag      = new RangerTag();
+
+        resource.setId(11L);
+        resource.setServiceName(serviceName);
+        resource.setResourceElements(Collections.singletonMap("path", new RangerPolicyResource("/data/pii", false, true)));
+
+        tag.setId(21L);
+        tag.setType("PII");
+
+        ret.setServiceName(serviceName);
+        ret.setTagVersion(version);
+        ret.setIsDelta(false);
+        ret.setServiceResources(new ArrayList<>(Collections.singletonList(resource)));
+        ret.setTags(new HashMap<>(Collections.singletonMap(21L, tag)));
+        ret.setResourceToTagIds(new HashMap<>(Collections.singletonMap(11L, Collections.singletonList(21L))));
+
+        return ret;
+    }
+}
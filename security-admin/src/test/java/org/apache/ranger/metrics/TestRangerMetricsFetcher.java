@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.metrics;
+
+import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.biz.XUserMgr;
+import org.apache.ranger.common.RangerConstants;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.service.XGroupService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRangerMetricsFetcher {
+    @InjectMocks
+    RangerMetricsFetcher metricsFetcher = new RangerMetricsFetcher();
+
+    @Mock
+    XUserMgr xUserMgr;
+
+    @Mock
+    ServiceDBStore svcStore;
+
+    @Mock
+    XGroupService groupService;
+
+    @Mock
+    PlatformTransactionManager txManager;
+
+    @Before
+    public void setup() {
+        metricsFetcher.init();
+    }
+
+    @Test
+    public void testMetricsAreServedFromSnapshot() {
+        Map<String, Long> userCounts   = new HashMap<>();
+        Map<String, Long> policyCounts = new HashMap<>();
+
+        userCounts.put(RangerConstants.ROLE_SYS_ADMIN, 2L);
+        userCounts.put(RangerConstants.ROLE_USER, 10L);
+        policyCounts.put("hive", 5L);
+        policyCounts.put("hdfs", 3L);
+
+        Mockito.when(xUserMgr.getUserCountByRole()).thenReturn(userCounts);
+        Mockito.when(groupService.getAllGroupCount()).thenReturn(7L);
+        Mockito.when(svcStore.getPolicyCountByTypeAndServiceType(RangerPolicy.POLICY_TYPE_ACCESS)).thenReturn(policyCounts);
+
+        for (int i = 0; i < 3; i++) {
+            Map<String, Long> userMetrics   = metricsFetcher.getUserMetrics();
+            Map<String, Long> policyMetrics = metricsFetcher.getPolicyMetrics(RangerPolicy.POLICY_TYPE_ACCESS);
+
+            Assert.assertEquals(Long.valueOf(2L), userMetrics.get("SysAdmin"));
+            Assert.assertEquals(Long.valueOf(12L), userMetrics.get("Total"));
+            Assert.assertEquals(Long.valueOf(8L), policyMetrics.get("Total"));
+            Assert.assertEquals(Long.valueOf(7L), metricsFetcher.getGroupCount());
+        }
+
+        Mockito.verify(xUserMgr, Mockito.times(1)).getUserCountByRole();
+        Mockito.verify(groupService, Mockito.times(1)).getAllGroupCount();
+        Mockito.verify(svcStore, Mockito.times(1)).getPolicyCountByTypeAndServiceType(RangerPolicy.POLICY_TYPE_ACCESS);
+    }
+
+    @Test
+    public void testGroupCountIsZeroWhenUnavailable() {
+        Mockito.when(groupService.getAllGroupCount()).thenThrow(new RuntimeException("database unavailable"));
+
+        Assert.assertEquals(Long.valueOf(0L), metricsFetcher.getGroupCount());
+    }
+}
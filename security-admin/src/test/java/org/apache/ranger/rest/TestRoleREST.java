@@ -467,12 +467,12 @@ public void test16GetRangerRolesIfUpdated() {
         RangerRoles returnedRangeRoles;
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(), Mockito.any(HttpServletRequest.class))).thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         try {
-            returnedRangeRoles = roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            returnedRangeRoles = roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -490,14 +490,14 @@ public void test17GetSecureRangerRolesIfUpdated() {
         RangerRoles returnedRangeRoles;
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(), Mockito.any(HttpServletRequest.class))).thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         Mockito.when(daoMgr.getXXService().findByName(Mockito.anyString())).thenReturn(createXXService());
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
-            returnedRangeRoles = roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            returnedRangeRoles = roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -729,7 +729,7 @@ public void test16bGetRangerRolesIfUpdated() {
             throw new RuntimeException(e);
         }
         try {
-            roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -743,12 +743,12 @@ public void test16cGetRangerRolesIfUpdated() {
         String pluginCapabilities = "";
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(), Mockito.any(HttpServletRequest.class))).thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(null);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         try {
-            roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            roleRest.getRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -763,14 +763,14 @@ public void test17bGetSecureRangerRolesIfUpdated() {
         String      pluginCapabilities = "";
         Mockito.when(serviceUtil.isValidService(eq(null), Mockito.any(HttpServletRequest.class))).thenThrow(new Exception());
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(rangerRoles);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(rangerRoles);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         Mockito.when(daoMgr.getXXService().findByName(Mockito.anyString())).thenReturn(createXXService());
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
-            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -786,7 +786,7 @@ public void test17cGetSecureRangerRolesIfUpdated() {
         Mockito.when(daoMgr.getXXService().findByName(Mockito.anyString())).thenReturn(null);
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
-            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -800,14 +800,14 @@ public void test17dGetSecureRangerRolesIfUpdated() {
         String pluginCapabilities = "";
         Mockito.when(serviceUtil.isValidService(Mockito.anyString(), Mockito.any(HttpServletRequest.class))).thenReturn(true);
         try {
-            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong())).thenReturn(null);
+            Mockito.when(roleStore.getRoles(Mockito.anyString(), Mockito.anyLong(), Mockito.anyBoolean())).thenReturn(null);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         Mockito.when(daoMgr.getXXService().findByName(Mockito.anyString())).thenReturn(createXXService());
         Mockito.when(bizUtil.isAdmin()).thenReturn(true);
         try {
-            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
+            roleRest.getSecureRangerRolesIfUpdated(serviceName, -1L, 0L, pluginId, clusterName, false, pluginCapabilities, Mockito.mock(HttpServletRequest.class));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
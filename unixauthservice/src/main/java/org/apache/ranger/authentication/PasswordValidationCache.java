@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived cache of successful credential validations, to avoid forking the validator program for every login
+ * during login storms. Only a salted SHA-256 hash of the login request is kept - never the password itself; the salt
+ * is generated per process. Failed validations are never cached, hence a wrong password is always checked by the
+ * validator program. A password change or account lock takes effect only after the cached entry expires; so keep
+ * the TTL short.
+ */
+public class PasswordValidationCache {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final long                     ttlMs;
+    private final byte[]                   salt    = new byte[32];
+    private final Map<String, CachedEntry> entries;
+
+    public PasswordValidationCache(int maxSize, long ttlMs) {
+        this.ttlMs   = ttlMs;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<String, CachedEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+                return size() > maxSize;
+            }
+        });
+
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * @return validator response for the request, if an unexpired successful validation is cached; otherwise null
+     */
+    public String get(String request) {
+        String      ret   = null;
+        String      key   = getKey(request);
+        CachedEntry entry = entries.get(key);
+
+        if (entry != null) {
+            if (entry.expiryTime > System.currentTimeMillis()) {
+                ret = entry.response;
+            } else {
+                entries.remove(key);
+            }
+        }
+
+        return ret;
+    }
+
+    public void put(String request, String response) {
+        entries.put(getKey(request), new CachedEntry(response, System.currentTimeMillis() + ttlMs));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private String getKey(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+
+            digest.update(salt);
+
+            return Base64.getEncoder().encodeToString(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported", excp);
+        }
+    }
+
+    private static final class CachedEntry {
+        final String response;
+        final long   expiryTime;
+
+        CachedEntry(String response, long expiryTime) {
+            this.response   = response;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
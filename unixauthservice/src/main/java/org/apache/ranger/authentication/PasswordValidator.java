@@ -22,6 +22,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLSocket;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -33,9 +35,11 @@
 public class PasswordValidator implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(PasswordValidator.class);
 
-    private static List<String> adminUserList;
-    private static String adminRoleNames;
-    private static String validatorProgram;
+    private static List<String>            adminUserList;
+    private static String                  adminRoleNames;
+    private static String                  validatorProgram;
+    private static int                     handshakeTimeoutMs;
+    private static PasswordValidationCache validationCache;
 
     private Socket client;
 
@@ -67,6 +71,28 @@ public static void setAdminRoleNames(String adminRoleNames) {
         PasswordValidator.adminRoleNames = adminRoleNames;
     }
 
+    public static int getHandshakeTimeoutMs() {
+        return handshakeTimeoutMs;
+    }
+
+    /**
+     * @param handshakeTimeoutMs time allowed for the client to complete SSL handshake and send the login request; 0 for no limit
+     */
+    public static void setHandshakeTimeoutMs(int handshakeTimeoutMs) {
+        PasswordValidator.handshakeTimeoutMs = handshakeTimeoutMs;
+    }
+
+    public static PasswordValidationCache getValidationCache() {
+        return validationCache;
+    }
+
+    /**
+     * @param validationCache cache of successful validations; null to validate every request with validatorProgram
+     */
+    public static void setValidationCache(PasswordValidationCache validationCache) {
+        PasswordValidator.validationCache = validationCache;
+    }
+
     @Override
     public void run() {
         BufferedReader reader;
@@ -75,10 +101,25 @@ public void run() {
         String userName = null;
 
         try {
+            if (handshakeTimeoutMs > 0) {
+                // bounds the handshake and the wait for the request, so that idle/slow clients don't hold a validator thread
+                client.setSoTimeout(handshakeTimeoutMs);
+            }
+
+            if (client instanceof SSLSocket) {
+                ((SSLSocket) client).startHandshake();
+            }
+
             reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
             writer = new PrintWriter(new OutputStreamWriter(client.getOutputStream()));
             String request = reader.readLine();
 
+            if (request == null) {
+                LOG.debug("Connection closed by client before sending the request");
+
+                return;
+            }
+
             if (request.startsWith("LOGIN:")) {
                 String line       = request.substring(6).trim();
                 int    passwordAt = line.indexOf(' ');
@@ -87,7 +128,17 @@ public void run() {
                 }
             }
 
-            if (validatorProgram == null) {
+            PasswordValidationCache cache          = validationCache;
+            String                  cachedResponse = cache != null ? cache.get(request) : null;
+
+            if (cachedResponse != null) {
+                String res = addAdminRoles(cachedResponse, userName);
+
+                LOG.info("Response [{}] for user: {} (cached)", res, userName);
+
+                writer.println(res);
+                writer.flush();
+            } else if (validatorProgram == null) {
                 String res = "FAILED: Unable to validate credentials.";
                 writer.println(res);
                 writer.flush();
@@ -108,14 +159,12 @@ public void run() {
 
                     String res = pReader.readLine();
 
-                    if (res != null && res.startsWith("OK")) {
-                        if (adminRoleNames != null && adminUserList != null) {
-                            if (adminUserList.contains(userName)) {
-                                res = res + " " + adminRoleNames;
-                            }
-                        }
+                    if (cache != null && res != null && res.startsWith("OK")) {
+                        cache.put(request, res);
                     }
 
+                    res = addAdminRoles(res, userName);
+
                     LOG.info("Response [{}] for user: {}", res, userName);
 
                     writer.println(res);
@@ -144,4 +193,18 @@ public void run() {
             }
         }
     }
+
+    private static String addAdminRoles(String res, String userName) {
+        String ret = res;
+
+        if (ret != null && ret.startsWith("OK")) {
+            if (adminRoleNames != null && adminUserList != null) {
+                if (adminUserList.contains(userName)) {
+                    ret = ret + " " + adminRoleNames;
+                }
+            }
+        }
+
+        return ret;
+    }
 }
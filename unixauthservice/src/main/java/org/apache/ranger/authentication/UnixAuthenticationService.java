@@ -51,6 +51,12 @@
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UnixAuthenticationService {
     private static final Logger LOG = LoggerFactory.getLogger(UnixAuthenticationService.class);
@@ -69,8 +75,19 @@ public class UnixAuthenticationService {
     private static final String ADMIN_ROLE_LIST_PARAM                = "admin.roleNames";
     private static final String SSL_ENABLED_PARAM                    = "ranger.usersync.ssl";
     private static final String CREDSTORE_FILENAME_PARAM             = "ranger.usersync.credstore.filename";
+    private static final String MAX_VALIDATOR_THREADS_PARAM          = "ranger.usersync.passwordvalidator.max.threads";
+    private static final String MAX_PENDING_CONNECTIONS_PARAM        = "ranger.usersync.passwordvalidator.max.pending.connections";
+    private static final String HANDSHAKE_TIMEOUT_MS_PARAM           = "ranger.usersync.passwordvalidator.handshake.timeout.ms";
+    private static final String VALIDATION_CACHE_TTL_MS_PARAM        = "ranger.usersync.passwordvalidator.cache.ttl.ms";
+    private static final String VALIDATION_CACHE_SIZE_PARAM          = "ranger.usersync.passwordvalidator.cache.size";
     private static final String[] UGSYNC_CONFIG_XML_FILES            = {"ranger-ugsync-default.xml", "ranger-ugsync-site.xml"};
 
+    static final int  DEFAULT_MAX_VALIDATOR_THREADS   = 32;
+    static final int  DEFAULT_MAX_PENDING_CONNECTIONS = 256;
+    static final int  DEFAULT_HANDSHAKE_TIMEOUT_MS    = 10 * 1000;
+    static final long DEFAULT_VALIDATION_CACHE_TTL_MS = 0; // cache disabled
+    static final int  DEFAULT_VALIDATION_CACHE_SIZE   = 1000;
+
     private static boolean enableUnixAuth;
 
     private final List<String> adminUserList = new ArrayList<>();
@@ -87,6 +104,8 @@ public class UnixAuthenticationService {
     private UserSyncHAInitializerImpl userSyncHAInitializerImpl;
     private int portNum;
     private boolean sslEnabled;
+    private int maxValidatorThreads   = DEFAULT_MAX_VALIDATOR_THREADS;
+    private int maxPendingConnections = DEFAULT_MAX_PENDING_CONNECTIONS;
 
     public UnixAuthenticationService() {
     }
@@ -198,16 +217,54 @@ public void startService() throws Throwable {
                 }
             }
 
-            Socket client;
+            ExecutorService executor = createValidatorExecutor(maxValidatorThreads, maxPendingConnections);
 
             try {
-                while ((client = socket.accept()) != null) {
-                    Thread clientValidatorThread = new Thread(new PasswordValidator(client));
-                    clientValidatorThread.start();
-                }
+                acceptConnections(socket, executor);
             } catch (IOException e) {
                 socket.close();
                 throw (e);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Creates the executor to run PasswordValidator for accepted connections: at most maxThreads validations run
+     * concurrently and at most maxPendingConnections wait for a thread; connections beyond these are rejected.
+     */
+    static ExecutorService createValidatorExecutor(int maxThreads, int maxPendingConnections) {
+        AtomicInteger      threadCount = new AtomicInteger();
+        ThreadPoolExecutor ret         = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxPendingConnections), runnable -> {
+            Thread thread = new Thread(runnable, "PasswordValidator-" + threadCount.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        ret.allowCoreThreadTimeOut(true);
+
+        LOG.info("Created password validator executor: maxThreads={}, maxPendingConnections={}", maxThreads, maxPendingConnections);
+
+        return ret;
+    }
+
+    static void acceptConnections(ServerSocket socket, ExecutorService executor) throws IOException {
+        Socket client;
+
+        while ((client = socket.accept()) != null) {
+            try {
+                executor.execute(new PasswordValidator(client));
+            } catch (RejectedExecutionException excp) {
+                LOG.warn("Too many pending login requests: rejecting connection from {}", client.getRemoteSocketAddress());
+
+                try {
+                    client.close();
+                } catch (IOException ioe) {
+                    LOG.debug("Close socket failure. Detail: ", ioe);
+                }
             }
         }
     }
@@ -293,6 +350,21 @@ private void init() {
             PasswordValidator.setAdminUserList(adminUserList);
         }
 
+        maxValidatorThreads   = Integer.parseInt(prop.getProperty(MAX_VALIDATOR_THREADS_PARAM, Integer.toString(DEFAULT_MAX_VALIDATOR_THREADS)));
+        maxPendingConnections = Integer.parseInt(prop.getProperty(MAX_PENDING_CONNECTIONS_PARAM, Integer.toString(DEFAULT_MAX_PENDING_CONNECTIONS)));
+
+        PasswordValidator.setHandshakeTimeoutMs(Integer.parseInt(prop.getProperty(HANDSHAKE_TIMEOUT_MS_PARAM, Integer.toString(DEFAULT_HANDSHAKE_TIMEOUT_MS))));
+
+        long validationCacheTtlMs = Long.parseLong(prop.getProperty(VALIDATION_CACHE_TTL_MS_PARAM, Long.toString(DEFAULT_VALIDATION_CACHE_TTL_MS)));
+
+        if (validationCacheTtlMs > 0) {
+            int validationCacheSize = Integer.parseInt(prop.getProperty(VALIDATION_CACHE_SIZE_PARAM, Integer.toString(DEFAULT_VALIDATION_CACHE_SIZE)));
+
+            LOG.info("Enabling password validation cache: ttlMs={}, size={}", validationCacheTtlMs, validationCacheSize);
+
+            PasswordValidator.setValidationCache(new PasswordValidationCache(validationCacheSize, validationCacheTtlMs));
+        }
+
         adminRoleNames = prop.getProperty(ADMIN_ROLE_LIST_PARAM);
 
         if (adminRoleNames != null) {
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.authentication;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestPasswordValidationCache {
+    private static final String REQUEST  = "LOGIN: user1 password1";
+    private static final String RESPONSE = "OK";
+
+    @Test
+    public void testEntryExpiresAfterTtl() throws Exception {
+        PasswordValidationCache cache = new PasswordValidationCache(10, 100);
+
+        cache.put(REQUEST, RESPONSE);
+
+        assertEquals(RESPONSE, cache.get(REQUEST));
+
+        Thread.sleep(200);
+
+        assertNull("expired entry must not be returned", cache.get(REQUEST));
+        assertEquals("expired entry must be removed", 0, cache.size());
+    }
+
+    @Test
+    public void testEntryIsForExactRequest() {
+        PasswordValidationCache cache = new PasswordValidationCache(10, 60000);
+
+        cache.put(REQUEST, RESPONSE);
+
+        assertNull("a different password must not match the cached entry", cache.get("LOGIN: user1 password2"));
+        assertNull(cache.get("LOGIN: user2 password1"));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        PasswordValidationCache cache = new PasswordValidationCache(10, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("LOGIN: user" + i + " password", RESPONSE);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(RESPONSE, cache.get("LOGIN: user99 password"));
+        assertNull(cache.get("LOGIN: user0 password"));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.authentication;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestPasswordValidator {
+    @After
+    public void tearDown() {
+        PasswordValidator.setValidatorProgram(null);
+        PasswordValidator.setValidationCache(null);
+    }
+
+    @Test
+    public void testFailedValidationIsNotCached() throws Exception {
+        PasswordValidationCache cache = new PasswordValidationCache(10, 60000);
+
+        PasswordValidator.setValidationCache(cache);
+        PasswordValidator.setValidatorProgram(createValidator("FAILED: invalid password").getAbsolutePath());
+
+        assertEquals("FAILED: invalid password", login("LOGIN: user1 wrong-password"));
+        assertEquals("FAILED: invalid password", login("LOGIN: user1 wrong-password"));
+        assertEquals("failed validation must not be cached", 0, cache.size());
+
+        PasswordValidator.setValidatorProgram(createValidator("OK").getAbsolutePath());
+
+        assertEquals("OK", login("LOGIN: user1 password"));
+        assertEquals("successful validation must be cached", 1, cache.size());
+
+        // validator program is not run for the cached request
+        PasswordValidator.setValidatorProgram(createValidator("FAILED: invalid password").getAbsolutePath());
+
+        assertEquals("OK", login("LOGIN: user1 password"));
+        assertEquals("FAILED: invalid password", login("LOGIN: user1 wrong-password"));
+    }
+
+    @Test
+    public void testConnectionIsClosedWhenQueueIsFull() throws Exception {
+        ExecutorService executor = UnixAuthenticationService.createValidatorExecutor(1, 1);
+        CountDownLatch  release  = new CountDownLatch(1);
+
+        // occupy the only validator thread and the only slot in the queue
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        try (ServerSocket serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress())) {
+            Thread acceptThread = new Thread(() -> {
+                try {
+                    UnixAuthenticationService.acceptConnections(serverSocket, executor);
+                } catch (IOException excp) {
+                    // server socket closed
+                }
+            });
+
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+
+            try (Socket client = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort())) {
+                client.setSoTimeout(10000);
+
+                assertEquals("rejected connection must be closed", -1, client.getInputStream().read());
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static String login(String request) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                Socket client = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort())) {
+            Thread validator = new Thread(new PasswordValidator(serverSocket.accept()));
+
+            validator.start();
+
+            PrintWriter    writer = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+
+            writer.println(request);
+            writer.flush();
+
+            String ret = reader.readLine();
+
+            validator.join(10000);
+
+            return ret;
+        }
+    }
+
+    private static File createValidator(String response) throws IOException {
+        File ret = File.createTempFile("ranger-test-validator", ".sh");
+
+        ret.deleteOnExit();
+
+        try (Writer writer = Files.newBufferedWriter(ret.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("#!/bin/sh\n" +
+                    "read request\n" +
+                    "echo \"" + response + "\"\n");
+        }
+
+        assertTrue(ret.setExecutable(true));
+
+        return ret;
+    }
+}
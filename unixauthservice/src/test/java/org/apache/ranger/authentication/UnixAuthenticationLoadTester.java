@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authentication;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local load-test harness for the login path of UnixAuthenticationService: starts the accept loop on a loopback port
+ * (without SSL) with a stub validator program, and fires concurrent LOGIN requests at it from a pool of clients.
+ * Reports throughput, latency percentiles and count of rejected/failed logins, to compare settings of validator
+ * threads, pending connections and validation cache TTL.
+ */
+public class UnixAuthenticationLoadTester {
+    private static int    requestCount          = 10000;
+    private static int    clientCount           = 200;
+    private static int    userCount             = 100;
+    private static int    maxValidatorThreads   = UnixAuthenticationService.DEFAULT_MAX_VALIDATOR_THREADS;
+    private static int    maxPendingConnections = UnixAuthenticationService.DEFAULT_MAX_PENDING_CONNECTIONS;
+    private static int    handshakeTimeoutMs    = UnixAuthenticationService.DEFAULT_HANDSHAKE_TIMEOUT_MS;
+    private static long   cacheTtlMs            = UnixAuthenticationService.DEFAULT_VALIDATION_CACHE_TTL_MS;
+    private static String validatorProgram;
+
+    private static final Options options = new Options();
+
+    private UnixAuthenticationLoadTester() {
+        // to block instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!parseArguments(args)) {
+            System.err.println("Exiting.. ");
+            System.exit(-1);
+        }
+
+        File stubValidator = null;
+
+        if (validatorProgram == null) {
+            stubValidator    = createStubValidator();
+            validatorProgram = stubValidator.getAbsolutePath();
+        }
+
+        System.out.println("Arguments:");
+        System.out.println("\t\trequests:\t\t\t" + requestCount);
+        System.out.println("\t\tclients:\t\t\t" + clientCount);
+        System.out.println("\t\tusers:\t\t\t\t" + userCount);
+        System.out.println("\t\tmax-validator-threads:\t\t" + maxValidatorThreads);
+        System.out.println("\t\tmax-pending-connections:\t" + maxPendingConnections);
+        System.out.println("\t\thandshake-timeout-ms:\t\t" + handshakeTimeoutMs);
+        System.out.println("\t\tcache-ttl-ms:\t\t\t" + cacheTtlMs);
+        System.out.println("\t\tvalidator:\t\t\t" + validatorProgram);
+        System.out.println("\n\n");
+
+        PasswordValidator.setValidatorProgram(validatorProgram);
+        PasswordValidator.setHandshakeTimeoutMs(handshakeTimeoutMs);
+        PasswordValidator.setValidationCache(cacheTtlMs > 0 ? new PasswordValidationCache(userCount, cacheTtlMs) : null);
+
+        ExecutorService validatorExecutor = UnixAuthenticationService.createValidatorExecutor(maxValidatorThreads, maxPendingConnections);
+        ExecutorService clientExecutor    = Executors.newFixedThreadPool(clientCount);
+
+        try (ServerSocket serverSocket = new ServerSocket(0, clientCount, InetAddress.getLoopbackAddress())) {
+            Thread acceptThread = new Thread(() -> {
+                try {
+                    UnixAuthenticationService.acceptConnections(serverSocket, validatorExecutor);
+                } catch (IOException excp) {
+                    // server socket closed at the end of the test
+                }
+            }, "LoadTesterAcceptThread");
+
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+
+            AtomicInteger   okCount     = new AtomicInteger();
+            AtomicInteger   failedCount = new AtomicInteger();
+            AtomicInteger   errorCount  = new AtomicInteger();
+            long[]          latencies   = new long[requestCount];
+            List<Future<?>> futures     = new ArrayList<>(requestCount);
+            int             port        = serverSocket.getLocalPort();
+            long            startTime   = System.nanoTime();
+
+            for (int i = 0; i < requestCount; i++) {
+                final int requestId = i;
+
+                futures.add(clientExecutor.submit(() -> {
+                    long   reqStartTime = System.nanoTime();
+                    String response     = login(port, "user" + (requestId % userCount));
+
+                    latencies[requestId] = System.nanoTime() - reqStartTime;
+
+                    if (response == null) {
+                        errorCount.incrementAndGet();
+                    } else if (response.startsWith("OK")) {
+                        okCount.incrementAndGet();
+                    } else {
+                        failedCount.incrementAndGet();
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long elapsedMs = (System.nanoTime() - startTime) / 1000000;
+
+            Arrays.sort(latencies);
+
+            System.out.println("Results:");
+            System.out.println("\t\telapsed-ms:\t\t\t" + elapsedMs);
+            System.out.println("\t\tthroughput (logins/sec):\t" + (elapsedMs > 0 ? (requestCount * 1000L / elapsedMs) : requestCount));
+            System.out.println("\t\tok:\t\t\t\t" + okCount.get());
+            System.out.println("\t\tfailed:\t\t\t\t" + failedCount.get());
+            System.out.println("\t\trejected/errors:\t\t" + errorCount.get());
+            System.out.println("\t\tlatency-ms p50:\t\t\t" + percentileMs(latencies, 50));
+            System.out.println("\t\tlatency-ms p99:\t\t\t" + percentileMs(latencies, 99));
+            System.out.println("\t\tlatency-ms max:\t\t\t" + percentileMs(latencies, 100));
+        } finally {
+            clientExecutor.shutdownNow();
+            validatorExecutor.shutdownNow();
+
+            if (stubValidator != null) {
+                stubValidator.delete();
+            }
+        }
+    }
+
+    /**
+     * @return response from the service; null if the connection was rejected or failed
+     */
+    static String login(int port, String userName) {
+        String ret = null;
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintWriter    writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            writer.println("LOGIN: " + userName + " password-of-" + userName);
+            writer.flush();
+
+            ret = reader.readLine();
+        } catch (IOException excp) {
+            // rejected connections are closed without a response
+        }
+
+        return ret;
+    }
+
+    // stub of credValidator.uexe: reads the LOGIN request and accepts it, without looking up the user
+    static File createStubValidator() throws IOException {
+        File ret = File.createTempFile("ranger-stub-validator", ".sh");
+
+        ret.deleteOnExit();
+
+        try (Writer writer = Files.newBufferedWriter(ret.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("#!/bin/sh\n" +
+                    "read request\n" +
+                    "echo \"OK\"\n");
+        }
+
+        if (!ret.setExecutable(true)) {
+            throw new IOException("failed to make " + ret + " executable");
+        }
+
+        return ret;
+    }
+
+    static long percentileMs(long[] sortedLatencies, int percentile) {
+        long ret = 0;
+
+        if (sortedLatencies.length > 0) {
+            int idx = (int) Math.ceil(sortedLatencies.length * percentile / 100.0) - 1;
+
+            ret = sortedLatencies[Math.max(idx, 0)] / 1000000;
+        }
+
+        return ret;
+    }
+
+    static boolean parseArguments(final String[] args) {
+        boolean ret = false;
+
+        options.addOption("h", "help", false, "show help.");
+        options.addOption("n", "requests", true, "Number of login requests");
+        options.addOption("c", "clients", true, "Number of concurrent clients");
+        options.addOption("u", "users", true, "Number of distinct users");
+        options.addOption("t", "max-validator-threads", true, "Maximum number of concurrent validations");
+        options.addOption("q", "max-pending-connections", true, "Maximum number of connections waiting for validation");
+        options.addOption("o", "handshake-timeout-ms", true, "Time allowed for a client to send the request, in milliseconds");
+        options.addOption("l", "cache-ttl-ms", true, "TTL of successful validations in cache, in milliseconds; 0 to disable the cache");
+        options.addOption("v", "validator", true, "Validator program; a stub that accepts every login is used by default");
+
+        CommandLineParser commandLineParser = new BasicParser();
+
+        try {
+            CommandLine commandLine = commandLineParser.parse(options, args);
+
+            if (commandLine.hasOption("h")) {
+                showUsage();
+
+                return false;
+            }
+
+            requestCount          = Integer.parseInt(commandLine.getOptionValue("n", Integer.toString(requestCount)));
+            clientCount           = Integer.parseInt(commandLine.getOptionValue("c", Integer.toString(clientCount)));
+            userCount             = Integer.parseInt(commandLine.getOptionValue("u", Integer.toString(userCount)));
+            maxValidatorThreads   = Integer.parseInt(commandLine.getOptionValue("t", Integer.toString(maxValidatorThreads)));
+            maxPendingConnections = Integer.parseInt(commandLine.getOptionValue("q", Integer.toString(maxPendingConnections)));
+            handshakeTimeoutMs    = Integer.parseInt(commandLine.getOptionValue("o", Integer.toString(handshakeTimeoutMs)));
+            cacheTtlMs            = Long.parseLong(commandLine.getOptionValue("l", Long.toString(cacheTtlMs)));
+            validatorProgram      = commandLine.getOptionValue("v");
+
+            ret = true;
+        } catch (ParseException | NumberFormatException exception) {
+            System.err.println("Failed to parse arguments:" + exception);
+        }
+
+        return ret;
+    }
+
+    static void showUsage() {
+        HelpFormatter formater = new HelpFormatter();
+
+        formater.printHelp("unixauth-load-tester", options);
+    }
+}